@@ -2,17 +2,38 @@ package com.webcrawler.backend;
 
 import com.webcrawler.backend.config.GlobalExceptionHandler;
 import com.webcrawler.backend.controller.crawl.CrawlController;
+import com.webcrawler.backend.controller.metrics.MetricsController;
+import com.webcrawler.backend.service.crawl.CrawlService;
+import com.webcrawler.backend.service.metrics.MetricsService;
+import com.webcrawler.backend.utils.EnvConfig;
+import com.google.gson.Gson;
+
+import java.time.Duration;
 
 import static spark.Spark.port;
+import static spark.Spark.stop;
 
 public class Main {
     public static void main(String[] args) {
-        port(4567); // Set the server port to 4567
+        port(EnvConfig.getInt("PORT", 4567)); // Set the server port, 4567 by default
 
         // Global exception handler for all routes
         GlobalExceptionHandler.register();
 
-        // Initialize the CrawlController to set up routes
-        new CrawlController().setupRoutes();
+        // Initialize the controllers to set up routes; metrics read the same service's executor
+        CrawlService crawlService = new CrawlService();
+        new CrawlController(crawlService, new Gson()).setupRoutes();
+        new MetricsController(new MetricsService(crawlService)).setupRoutes();
+
+        // Pick up jobs checkpointed by a previous run, and checkpoint the running ones when the JVM is asked to stop
+        crawlService.resumeCheckpointedJobs();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stop();
+            try {
+                crawlService.shutdown(Duration.ofSeconds(EnvConfig.getLong("SHUTDOWN_DRAIN_SECONDS", 20)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "crawl-shutdown"));
     }
 }
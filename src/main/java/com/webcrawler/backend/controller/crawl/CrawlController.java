@@ -1,23 +1,41 @@
 package com.webcrawler.backend.controller.crawl;
 
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.MatchLog;
 import com.webcrawler.backend.model.crawl.request.CrawlRequest;
+import com.webcrawler.backend.model.crawl.response.CrawlPageResponse;
 import com.webcrawler.backend.model.crawl.response.CrawlResponse;
 import com.webcrawler.backend.model.crawl.response.SimplifiedCrawlResponse;
 import com.webcrawler.backend.service.crawl.CrawlService;
+import com.webcrawler.backend.utils.exceptions.BadRequestException;
 import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import spark.Request;
 import spark.Response;
 import spark.utils.StringUtils;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 import static spark.Spark.*;
 
 /**
  * CrawlController handles the HTTP requests related to web crawling operations.
- * It provides endpoints to start a crawl and retrieve crawl results.
+ * It provides endpoints to start a crawl, cancel it and retrieve crawl results, either all at once, a page at a time
+ * ({@code ?after=<cursor>&limit=<n>}) or as a Server-Sent Events stream of new matches.
  */
 
 public class CrawlController {
 
+	private static final Logger logger = LoggerFactory.getLogger(CrawlController.class);
+	private static final int DEFAULT_PAGE_SIZE = 100;
+	private static final int STREAM_BATCH_SIZE = 500;
+	private static final long STREAM_HEARTBEAT_MILLIS = 15_000;
+
 	private final Gson gson;
 	private final CrawlService crawlService;
 
@@ -25,7 +43,7 @@ public class CrawlController {
 		this(new CrawlService(), new Gson());
 	}
 
-	// Constructor for tests
+	// Used by Main to share one service with the metrics endpoint, and by tests to pass a mock
 	public CrawlController(CrawlService crawlService, Gson gson) {
 		this.crawlService = crawlService;
 		this.gson = gson;
@@ -33,7 +51,9 @@ public class CrawlController {
 
 	public void setupRoutes() {
 		post("/crawl", this::startCrawl, gson::toJson);
-		get("/crawl/:id", this::getCrawlResults, gson::toJson);
+		get("/crawl/:id", (req, res) -> isPaged(req) ? getCrawlResultsPage(req, res) : getCrawlResults(req, res), gson::toJson);
+		get("/crawl/:id/stream", this::streamCrawlResults);
+		delete("/crawl/:id", this::cancelCrawl, gson::toJson);
 	}
 
 	public SimplifiedCrawlResponse startCrawl(Request req, Response res) {
@@ -42,10 +62,91 @@ public class CrawlController {
 		return crawlService.startCrawl(crawlRequest);
 	}
 
+	public CrawlResponse cancelCrawl(Request req, Response res) {
+		String id = req.params(":id");
+		res.status(200); // OK
+		return crawlService.cancelCrawl(id);
+	}
+
 	public CrawlResponse getCrawlResults(Request req, Response res) {
 		String id = req.params(":id");
 		res.status(200); // OK
 		return crawlService.getCrawlResults(id);
 	}
 
+	public CrawlPageResponse getCrawlResultsPage(Request req, Response res) {
+		String id = req.params(":id");
+		long after = parseNumber(req.queryParams("after"), 0, "after");
+		long limit = parseNumber(req.queryParams("limit"), DEFAULT_PAGE_SIZE, "limit");
+		res.status(200); // OK
+		return crawlService.getCrawlResultsPage(id, after, (int) Math.max(Math.min(limit, Integer.MAX_VALUE), Integer.MIN_VALUE));
+	}
+
+	/**
+	 * Streams the job's matches as Server-Sent Events: one {@code match} event per URL, with its sequence number as
+	 * the event ID, so a reconnecting client resumes from {@code Last-Event-ID} (or {@code ?after=}).
+	 * A final {@code done} event is sent when the job finishes. The request thread is held for the stream's duration.
+	 */
+	public Object streamCrawlResults(Request req, Response res) throws IOException {
+		Crawl job = crawlService.getCrawl(req.params(":id"));
+		String lastEventId = req.headers("Last-Event-ID");
+		long cursor = parseNumber(lastEventId != null ? lastEventId : req.queryParams("after"), 0, "after");
+
+		HttpServletResponse raw = res.raw();
+		raw.setStatus(200);
+		raw.setContentType("text/event-stream");
+		raw.setCharacterEncoding("UTF-8");
+		raw.setHeader("Cache-Control", "no-cache");
+		OutputStream out = raw.getOutputStream();
+		MatchLog log = job.getMatchLog();
+		try {
+			while (true) {
+				// Checked before reading, so nothing appended before the log closed can be missed
+				boolean closed = log.isClosed();
+				List<String> urls = log.readAfter(cursor, STREAM_BATCH_SIZE);
+				StringBuilder events = new StringBuilder();
+				for (String url : urls) {
+					cursor++;
+					events.append("id: ").append(cursor).append("\nevent: match\ndata: ").append(url).append("\n\n");
+				}
+				if (closed && urls.size() < STREAM_BATCH_SIZE) {
+					events.append("event: done\ndata: ").append(job.getStatus().getDisplayName()).append("\n\n");
+					write(out, events);
+					break;
+				}
+				if (urls.isEmpty() && !log.awaitAfter(cursor, STREAM_HEARTBEAT_MILLIS) && !log.isClosed()) {
+					events.append(": keepalive\n\n"); // lets proxies and clients see the connection is alive
+				}
+				write(out, events);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			logger.debug("Result stream for crawl {} closed by client", job.getId());
+		}
+		return "";
+	}
+
+	private static void write(OutputStream out, StringBuilder events) throws IOException {
+		if (events.length() > 0) {
+			out.write(events.toString().getBytes(StandardCharsets.UTF_8));
+			out.flush();
+		}
+	}
+
+	private static boolean isPaged(Request req) {
+		return req.queryParams("after") != null || req.queryParams("limit") != null;
+	}
+
+	private static long parseNumber(String value, long defaultValue, String name) {
+		if (StringUtils.isBlank(value)) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			throw new BadRequestException("Parameter '" + name + "' must be a number.");
+		}
+	}
+
 }
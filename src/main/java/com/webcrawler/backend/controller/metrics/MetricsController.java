@@ -0,0 +1,31 @@
+package com.webcrawler.backend.controller.metrics;
+
+import com.webcrawler.backend.service.metrics.MetricsService;
+import com.webcrawler.backend.utils.PrometheusTextWriter;
+import spark.Request;
+import spark.Response;
+
+import static spark.Spark.get;
+
+/**
+ * MetricsController exposes the crawler's metrics for Prometheus to scrape on {@code GET /metrics}.
+ */
+
+public class MetricsController {
+
+	private final MetricsService metricsService;
+
+	public MetricsController(MetricsService metricsService) {
+		this.metricsService = metricsService;
+	}
+
+	public void setupRoutes() {
+		get("/metrics", this::getMetrics);
+	}
+
+	public String getMetrics(Request req, Response res) {
+		res.status(200); // OK
+		res.type(PrometheusTextWriter.CONTENT_TYPE);
+		return metricsService.render();
+	}
+}
@@ -1,25 +1,82 @@
 package com.webcrawler.backend.model.crawl;
 
+import com.webcrawler.backend.utils.StringUrlSet;
+import com.webcrawler.backend.utils.UrlSet;
+
 import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 /**
  * Represents a web crawl job with its associated metadata.
  * This class is used to track the status, matched URLs, and visited URLs during a web crawling operation.
+ * Visited URLs are kept in a {@link UrlSet}, by default the full strings (see {@link UrlSet#create()}),
+ * and can be released once the job is over, keeping only their count.
+ * Matches are also appended to a {@link MatchLog}, which numbers them for cursor-based reads.
+ * A job may carry a {@link CrawlBudget} it stops at and a weight, its share of the service-wide fetch slots,
+ * and can be cancelled. Once finished, its status is final.
  */
 
 public class Crawl {
+	public static final int DEFAULT_WEIGHT = 1;
+
 	private final String id;
 	private final String keyword;
 	private final Set<String> matchedUrls = ConcurrentHashMap.newKeySet();
-	private final Set<String> visitedUrls = ConcurrentHashMap.newKeySet();
+	private final MatchLog matchLog = new MatchLog();
+	private volatile UrlSet visitedUrls;
+	private volatile int releasedVisitedCount;
 	private volatile CrawlStatus status = CrawlStatus.ACTIVE;
-	private final Instant createdAt = Instant.now();
+	private volatile CrawlBudget budget = CrawlBudget.UNLIMITED;
+	private volatile int weight = DEFAULT_WEIGHT;
+	private final Instant createdAt;
+	private final LongAdder pagesFetched = new LongAdder();
+	private final List<Consumer<Crawl>> doneListeners = new CopyOnWriteArrayList<>();
 
 	public Crawl(String id, String keyword) {
+		this(id, keyword, UrlSet.create());
+	}
+
+	public Crawl(String id, String keyword, UrlSet visitedUrls) {
+		this(id, keyword, visitedUrls, Instant.now());
+	}
+
+	private Crawl(String id, String keyword, UrlSet visitedUrls, Instant createdAt) {
 		this.id = id;
 		this.keyword = keyword;
+		this.visitedUrls = visitedUrls;
+		this.createdAt = createdAt;
+	}
+
+	/**
+	 * Rebuilds a finished job from its persisted results; its visited URLs are gone, only their count remains.
+	 * Matches given in the order of the job's match log keep their sequence numbers.
+	 */
+	public static Crawl restore(String id, String keyword, CrawlStatus status, Instant createdAt, int visitedCount, Collection<String> matchedUrls) {
+		Crawl job = new Crawl(id, keyword, null, createdAt);
+		job.releasedVisitedCount = visitedCount;
+		matchedUrls.forEach(job::addMatchedUrl);
+		job.status = status;
+		if (status.isFinished()) {
+			job.matchLog.close();
+		}
+		return job;
+	}
+
+	/**
+	 * Rebuilds a running job from a checkpoint, with its visited URLs and matches so far, to be resumed.
+	 */
+	public static Crawl resume(String id, String keyword, Instant createdAt, UrlSet visitedUrls, Collection<String> matchedUrls) {
+		Crawl job = new Crawl(id, keyword, visitedUrls, createdAt);
+		matchedUrls.forEach(job::addMatchedUrl);
+		return job;
 	}
 
 	public String getId() {
@@ -34,24 +91,143 @@ public class Crawl {
 		return matchedUrls;
 	}
 
+	public MatchLog getMatchLog() {
+		return matchLog;
+	}
+
+	/**
+	 * Returns the visited URLs, or an empty set when they are only kept as fingerprints or have been released.
+	 * Use {@link #getVisitedCount()} for the number of visited URLs.
+	 */
 	public Set<String> getVisitedUrls() {
-		return visitedUrls;
+		UrlSet visited = visitedUrls;
+		if (visited instanceof StringUrlSet) {
+			return Collections.unmodifiableSet(((StringUrlSet) visited).asSet());
+		}
+		return Collections.emptySet();
+	}
+
+	public int getVisitedCount() {
+		UrlSet visited = visitedUrls;
+		return visited != null ? visited.size() : releasedVisitedCount;
+	}
+
+	/**
+	 * Passes the fingerprint of every visited URL to the action; nothing once the visited URLs have been released.
+	 */
+	public void forEachVisitedFingerprint(LongConsumer action) {
+		UrlSet visited = visitedUrls;
+		if (visited != null) {
+			visited.forEachFingerprint(action);
+		}
+	}
+
+	/**
+	 * Records the URL as visited and returns whether it had not been visited before.
+	 * Always false once the visited URLs have been released.
+	 */
+	public boolean markVisited(String url) {
+		UrlSet visited = visitedUrls;
+		return visited != null && visited.add(url);
+	}
+
+	/**
+	 * Drops the visited URLs, usually the bulk of a job's memory, keeping only their count.
+	 */
+	public void releaseVisitedUrls() {
+		UrlSet visited = visitedUrls;
+		if (visited != null) {
+			releasedVisitedCount = visited.size();
+			visitedUrls = null;
+		}
 	}
 
 	public CrawlStatus getStatus() {
 		return status;
 	}
 
-	public void setStatus(CrawlStatus status) {
-		this.status = status;
+	/**
+	 * Sets the status, unless the job has already finished. Returns whether it was set.
+	 */
+	public boolean setStatus(CrawlStatus status) {
+		synchronized (doneListeners) {
+			if (this.status.isFinished()) {
+				return false;
+			}
+			this.status = status;
+		}
+		if (status.isFinished()) {
+			matchLog.close();
+			doneListeners.forEach(listener -> listener.accept(this));
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the job to CANCELLED if it is still active; its runner notices and stops. Returns whether it was active.
+	 */
+	public boolean cancel() {
+		return setStatus(CrawlStatus.CANCELLED);
+	}
+
+	public boolean isCancelled() {
+		return status == CrawlStatus.CANCELLED;
+	}
+
+	/**
+	 * Registers a callback run when the job finishes (is set to DONE or CANCELLED), or immediately if it already has.
+	 */
+	public void onDone(Consumer<Crawl> listener) {
+		doneListeners.add(listener);
+		if (status.isFinished()) {
+			listener.accept(this);
+		}
+	}
+
+	public CrawlBudget getBudget() {
+		return budget;
+	}
+
+	public void setBudget(CrawlBudget budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * The job's share of the fetch slots when it is scheduled, relative to the weights of the other jobs.
+	 */
+	public int getWeight() {
+		return weight;
+	}
+
+	public void setWeight(int weight) {
+		this.weight = weight;
 	}
 
 	public Instant getCreatedAt() {
 		return createdAt;
 	}
 
+	/**
+	 * Counts a page whose content was obtained, from the network or a cache, for throughput metrics.
+	 */
+	public void recordPageFetched() {
+		pagesFetched.increment();
+	}
+
+	public long getPagesFetched() {
+		return pagesFetched.sum();
+	}
+
+	/**
+	 * Records a match, unless the job has finished: a page still being processed when the job was cancelled is ignored.
+	 */
 	public void addMatchedUrl(String url) {
-		matchedUrls.add(url);
+		if (status.isFinished()) {
+			return;
+		}
+		if (matchedUrls.add(url)) {
+			matchLog.append(url);
+		}
 	}
 
 }
@@ -0,0 +1,44 @@
+package com.webcrawler.backend.model.crawl;
+
+import java.time.Instant;
+
+/**
+ * Limits at which a crawl job stops early, whichever is reached first: pages fetched, matches found, link depth
+ * from the base URL (0 is the base page alone) and a deadline. A limit of {@link #NO_LIMIT}, or a null deadline,
+ * is not enforced.
+ */
+
+public class CrawlBudget {
+
+	public static final int NO_LIMIT = -1;
+	public static final CrawlBudget UNLIMITED = new CrawlBudget(NO_LIMIT, NO_LIMIT, NO_LIMIT, null);
+
+	private final int maxPages;
+	private final int maxMatches;
+	private final int maxDepth;
+	private final Instant deadline;
+
+	public CrawlBudget(int maxPages, int maxMatches, int maxDepth, Instant deadline) {
+		this.maxPages = maxPages;
+		this.maxMatches = maxMatches;
+		this.maxDepth = maxDepth;
+		this.deadline = deadline;
+	}
+
+	public int getMaxPages() {
+		return maxPages;
+	}
+
+	public int getMaxMatches() {
+		return maxMatches;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public Instant getDeadline() {
+		return deadline;
+	}
+
+}
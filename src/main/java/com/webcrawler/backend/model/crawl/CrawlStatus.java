@@ -2,7 +2,8 @@ package com.webcrawler.backend.model.crawl;
 
 public enum CrawlStatus {
 	ACTIVE("active"),
-	DONE("done");
+	DONE("done"),
+	CANCELLED("cancelled");
 
 	private final String displayName;
 
@@ -14,4 +15,11 @@ public enum CrawlStatus {
 		return displayName;
 	}
 
+	/**
+	 * Whether the job is over, so its results are final.
+	 */
+	public boolean isFinished() {
+		return this != ACTIVE;
+	}
+
 }
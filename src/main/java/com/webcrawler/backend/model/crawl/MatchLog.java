@@ -0,0 +1,64 @@
+package com.webcrawler.backend.model.crawl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of a job's matched URLs. The n-th match has sequence number n (starting at 1), so clients can
+ * page through results with a cursor, the last sequence number they have seen, and readers can wait for new
+ * entries instead of polling. The log is closed when the job is done, which wakes every waiting reader.
+ */
+
+public class MatchLog {
+
+	private final List<String> entries = new ArrayList<>();
+	private boolean closed;
+
+	/**
+	 * Appends the URL and returns its sequence number.
+	 */
+	public synchronized long append(String url) {
+		entries.add(url);
+		notifyAll();
+		return entries.size();
+	}
+
+	/**
+	 * Returns up to limit URLs with a sequence number greater than after, in order.
+	 */
+	public synchronized List<String> readAfter(long after, int limit) {
+		int from = (int) Math.min(Math.max(after, 0), entries.size());
+		int to = (int) Math.min(entries.size(), (long) from + limit);
+		return new ArrayList<>(entries.subList(from, to));
+	}
+
+	/**
+	 * Sequence number of the latest match, 0 if there is none.
+	 */
+	public synchronized long size() {
+		return entries.size();
+	}
+
+	/**
+	 * Waits until a match newer than after is appended, the log is closed or the timeout expires.
+	 * Returns whether a newer match is available.
+	 */
+	public synchronized boolean awaitAfter(long after, long timeoutMillis) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + timeoutMillis;
+		long remaining = timeoutMillis;
+		while (entries.size() <= after && !closed && remaining > 0) {
+			wait(remaining);
+			remaining = deadline - System.currentTimeMillis();
+		}
+		return entries.size() > after;
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	public synchronized void close() {
+		closed = true;
+		notifyAll();
+	}
+}
@@ -1,13 +1,62 @@
 package com.webcrawler.backend.model.crawl.request;
 
+/**
+ * Body of a crawl request: the keyword, and optionally the budget the crawl stops at
+ * (see {@link com.webcrawler.backend.model.crawl.CrawlBudget}) and its weight. Omitted limits are not enforced.
+ */
+
 public class CrawlRequest {
 	private final String keyword;
+	private final Integer maxPages;
+	private final Integer maxMatches;
+	private final Integer maxDepth;
+	private final Integer deadlineSeconds;
+	private final Integer weight;
 
 	public CrawlRequest(String keyword) {
+		this(keyword, null, null, null, null);
+	}
+
+	public CrawlRequest(String keyword, Integer maxPages, Integer maxMatches, Integer maxDepth, Integer deadlineSeconds) {
+		this(keyword, maxPages, maxMatches, maxDepth, deadlineSeconds, null);
+	}
+
+	public CrawlRequest(String keyword, Integer maxPages, Integer maxMatches, Integer maxDepth, Integer deadlineSeconds, Integer weight) {
 		this.keyword = keyword;
+		this.maxPages = maxPages;
+		this.maxMatches = maxMatches;
+		this.maxDepth = maxDepth;
+		this.deadlineSeconds = deadlineSeconds;
+		this.weight = weight;
 	}
 
 	public String getKeyword() {
 		return keyword;
 	}
+
+	public Integer getMaxPages() {
+		return maxPages;
+	}
+
+	public Integer getMaxMatches() {
+		return maxMatches;
+	}
+
+	public Integer getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Seconds after the request is accepted at which the crawl stops.
+	 */
+	public Integer getDeadlineSeconds() {
+		return deadlineSeconds;
+	}
+
+	/**
+	 * The job's share of the fetch slots in the SCHEDULED execution mode, relative to the other jobs' weights.
+	 */
+	public Integer getWeight() {
+		return weight;
+	}
 }
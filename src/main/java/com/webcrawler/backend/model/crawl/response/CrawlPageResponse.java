@@ -0,0 +1,43 @@
+package com.webcrawler.backend.model.crawl.response;
+
+import java.util.List;
+
+/**
+ * One page of a job's matched URLs. {@code next} is the cursor to pass as {@code after} for the following page.
+ */
+
+public class CrawlPageResponse {
+	private final String id;
+	private final String status;
+	private final List<String> urls;
+	private final long next;
+	private final long total;
+
+	public CrawlPageResponse(String id, String status, List<String> urls, long next, long total) {
+		this.id = id;
+		this.status = status;
+		this.urls = urls;
+		this.next = next;
+		this.total = total;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public List<String> getUrls() {
+		return urls;
+	}
+
+	public long getNext() {
+		return next;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+}
@@ -0,0 +1,77 @@
+package com.webcrawler.backend.service.crawl;
+
+import java.util.Locale;
+
+/**
+ * Best-first {@link FrontierPriority} for a keyword: URLs are ranked by their depth, lowered by the signals that
+ * the page holds the keyword, so likely matches are fetched before the rest of their level and ahead of shallower
+ * pages without any signal. The signals are the keyword in the URL's path or query (compared on letters and digits
+ * alone, so "/web-crawler" counts for "web crawler"), in the link's anchor text, and on the page linking to it,
+ * counting more the more often it occurs there. Links without signals keep the breadth-first order, so a trap of
+ * endless unrelated links sinks behind the rest of the site just as it does in a breadth-first crawl.
+ * Bonuses are rounded up to even values, so URLs of one depth take at most {@link #RANKS_PER_DEPTH} ranks and the
+ * frontier keeps as few queues for them.
+ */
+
+public class BestFirstPriority implements FrontierPriority {
+
+	private static final int URL_WEIGHT = 3;
+	private static final int ANCHOR_WEIGHT = 3;
+	private static final int PARENT_WEIGHT = 1;
+	private static final int BONUS_STEP = 2;
+	private static final int MAX_BONUS = URL_WEIGHT + ANCHOR_WEIGHT + PARENT_WEIGHT * (1 + MAX_PARENT_MATCHES);
+	static final int RANKS_PER_DEPTH = (MAX_BONUS + BONUS_STEP - 1) / BONUS_STEP + 1;
+
+	private final String keyword;
+	private final String compactKeyword;
+
+	/**
+	 * Creates the priority for the keyword, in lower case.
+	 */
+	public BestFirstPriority(String keyword) {
+		this.keyword = keyword;
+		this.compactKeyword = compact(keyword, 0);
+	}
+
+	@Override
+	public int rank(String url, int depth, String anchorText, int parentMatches) {
+		int bonus = 0;
+		if (!compactKeyword.isEmpty() && compact(url, pathStart(url)).contains(compactKeyword)) {
+			bonus += URL_WEIGHT;
+		}
+		if (!anchorText.isEmpty() && anchorText.toLowerCase(Locale.ROOT).contains(keyword)) {
+			bonus += ANCHOR_WEIGHT;
+		}
+		if (parentMatches > 0) {
+			// A page holding the keyword at all is the strong signal; more occurrences add a little
+			bonus += PARENT_WEIGHT * (1 + Math.min(parentMatches, MAX_PARENT_MATCHES));
+		}
+		return depth - (bonus + BONUS_STEP - 1) / BONUS_STEP * BONUS_STEP;
+	}
+
+	/**
+	 * Returns the index after the URL's authority, so the host name does not count as a signal.
+	 */
+	private static int pathStart(String url) {
+		int schemeEnd = url.indexOf("://");
+		if (schemeEnd < 0) {
+			return 0;
+		}
+		int slash = url.indexOf('/', schemeEnd + 3);
+		return slash < 0 ? url.length() : slash;
+	}
+
+	/**
+	 * Returns the letters and digits of the text from the given index, in lower case.
+	 */
+	private static String compact(String text, int from) {
+		StringBuilder compact = new StringBuilder(text.length() - from);
+		for (int i = from; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isLetterOrDigit(c)) {
+				compact.append(Character.toLowerCase(c));
+			}
+		}
+		return compact.toString();
+	}
+}
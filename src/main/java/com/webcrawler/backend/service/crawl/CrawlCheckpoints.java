@@ -0,0 +1,522 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlBudget;
+import com.webcrawler.backend.utils.EnvConfig;
+import com.webcrawler.backend.utils.FingerprintUrlSet;
+import com.webcrawler.backend.utils.UrlNormalizer;
+import com.webcrawler.backend.utils.UrlSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk checkpoints of running crawl jobs, so that a restart resumes them instead of starting over.
+ * A checkpoint keeps only what cannot be rediscovered cheaply: the job's identity, budget and weight, its matched URLs, the
+ * fingerprints of the URLs it visited and of those its frontier has seen, and the URLs still to be processed with
+ * their link depths.
+ * Each job is one gzip file of tagged records, replaced atomically. It is written when the job is accepted,
+ * every CHECKPOINT_INTERVAL_SECONDS while it runs and once more when it is suspended for shutdown, and it is
+ * deleted when the job finishes. Resumed jobs keep their visited URLs as fingerprints only.
+ * Disabled unless CHECKPOINT_DIR is set.
+ */
+
+public class CrawlCheckpoints {
+
+	private static final Logger logger = LoggerFactory.getLogger(CrawlCheckpoints.class);
+	private static final int FORMAT_VERSION = 4;
+	// Longest string a checkpoint may hold, so a corrupt length cannot make a read allocate gigabytes
+	private static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+	private static final String SUFFIX = ".ckpt.gz";
+	private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+	private static final byte END = 0;
+	private static final byte VISITED = 1;
+	private static final byte IN_PROGRESS = 2;
+	private static final byte QUEUED = 3;
+	private static final byte SEEN = 4;
+	private static final byte MATCHED = 5;
+
+	private static final CrawlCheckpoints SHARED = fromEnv();
+
+	private final Path directory;
+	private final long intervalNanos;
+	private final Map<String, Tracked> tracked = new ConcurrentHashMap<>();
+	private ScheduledExecutorService timer;
+
+	/**
+	 * Creates checkpoints under the directory, or disabled checkpoints if the directory is null.
+	 */
+	public CrawlCheckpoints(Path directory, Duration interval) {
+		this.directory = directory;
+		this.intervalNanos = interval.toNanos();
+		if (directory != null) {
+			try {
+				Files.createDirectories(directory);
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot create checkpoint directory " + directory, e);
+			}
+		}
+	}
+
+	public static CrawlCheckpoints shared() {
+		return SHARED;
+	}
+
+	private static CrawlCheckpoints fromEnv() {
+		String directory = EnvConfig.getString("CHECKPOINT_DIR", null);
+		return new CrawlCheckpoints(directory == null ? null : Paths.get(directory),
+				Duration.ofSeconds(Math.max(1, EnvConfig.getLong("CHECKPOINT_INTERVAL_SECONDS", 30))));
+	}
+
+	public boolean isEnabled() {
+		return directory != null;
+	}
+
+	/**
+	 * Records a job that has been accepted but not started, so it is not lost if the service stops before it runs.
+	 */
+	public void saveAccepted(Crawl job, String baseUrl) {
+		if (directory != null) {
+			write(job, baseUrl, null);
+		}
+	}
+
+	/**
+	 * Starts checkpointing a running job every interval, until it finishes or is suspended.
+	 */
+	public Registration track(Crawl job, String baseUrl, CrawlFrontier frontier) {
+		if (directory == null) {
+			return Registration.NONE;
+		}
+		Tracked entry = new Tracked(job, baseUrl, frontier);
+		tracked.put(job.getId(), entry);
+		startTimer();
+		return entry;
+	}
+
+	public void delete(String jobId) {
+		if (directory == null || !VALID_ID.matcher(jobId).matches()) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(fileFor(jobId));
+		} catch (IOException e) {
+			logger.warn("[CrawlCheckpoints] jobId={} | Could not delete checkpoint", jobId, e);
+		}
+	}
+
+	/**
+	 * Reads every stored checkpoint. Unreadable ones are logged and skipped, and left on disk for inspection.
+	 */
+	public List<Checkpoint> loadAll() {
+		List<Checkpoint> checkpoints = new ArrayList<>();
+		if (directory == null) {
+			return checkpoints;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			for (Path file : files) {
+				try {
+					checkpoints.add(read(file));
+				} catch (IOException | RuntimeException e) {
+					logger.warn("[CrawlCheckpoints] Could not read checkpoint {}", file, e);
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("[CrawlCheckpoints] Could not list checkpoints in {}", directory, e);
+		}
+		return checkpoints;
+	}
+
+	private synchronized void startTimer() {
+		if (timer != null) {
+			return;
+		}
+		timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "crawl-checkpoints");
+			thread.setDaemon(true);
+			return thread;
+		});
+		timer.scheduleWithFixedDelay(() -> tracked.values().forEach(Tracked::checkpoint), intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Writes the checkpoint of a job: accepted only if the frontier is null. Returns whether it was written.
+	 */
+	private boolean write(Crawl job, String baseUrl, CrawlFrontier frontier) {
+		if (!VALID_ID.matcher(job.getId()).matches()) {
+			return false;
+		}
+		Path temp = null;
+		try {
+			temp = Files.createTempFile(directory, "checkpoint-", ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp))))) {
+				out.writeInt(FORMAT_VERSION);
+				writeString(out, job.getId());
+				writeString(out, job.getKeyword());
+				writeString(out, baseUrl);
+				out.writeLong(job.getCreatedAt().toEpochMilli());
+				CrawlBudget budget = job.getBudget();
+				out.writeInt(budget.getMaxPages());
+				out.writeInt(budget.getMaxMatches());
+				out.writeInt(budget.getMaxDepth());
+				out.writeLong(budget.getDeadline() != null ? budget.getDeadline().toEpochMilli() : -1);
+				out.writeInt(job.getWeight());
+				out.writeBoolean(frontier != null);
+				if (frontier != null) {
+					writeProgress(out, job, frontier);
+				}
+				out.writeByte(END);
+			}
+			Files.move(temp, fileFor(job.getId()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch (IOException | UncheckedIOException e) {
+			logger.warn("[CrawlCheckpoints] jobId={} | Could not write checkpoint", job.getId(), e);
+			deleteQuietly(temp);
+			return false;
+		}
+	}
+
+	private static void writeProgress(DataOutputStream out, Crawl job, CrawlFrontier frontier) throws IOException {
+		// Visited first: a URL visited by now is then, in the frontier's view, either completed or still in progress,
+		// and in-progress URLs are dropped from the visited set on resume so they are fetched again
+		Fingerprints visited = new Fingerprints();
+		job.forEachVisitedFingerprint(visited::add);
+		// The frontier's view is copied uncompressed while it holds its lock, and compressed once workers can go on
+		ByteArrayOutputStream frontierRecords = new ByteArrayOutputStream();
+		DataOutputStream records = new DataOutputStream(frontierRecords);
+		frontier.snapshot((url, depth) -> writePending(records, IN_PROGRESS, url, depth), (url, depth) -> writePending(records, QUEUED, url, depth),
+				fingerprint -> writeFingerprint(records, SEEN, fingerprint));
+		for (int i = 0; i < visited.size; i++) {
+			writeFingerprint(out, VISITED, visited.values[i]);
+		}
+		frontierRecords.writeTo(out);
+		// Matches last, so every page completed before the frontier's view has its match recorded
+		long matchCount = job.getMatchLog().size();
+		for (String url : job.getMatchLog().readAfter(0, (int) Math.min(matchCount, Integer.MAX_VALUE))) {
+			writeUrl(out, MATCHED, url);
+		}
+	}
+
+	private static void writeFingerprint(DataOutputStream out, byte tag, long fingerprint) {
+		try {
+			out.writeByte(tag);
+			out.writeLong(fingerprint);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeUrl(DataOutputStream out, byte tag, String url) {
+		try {
+			out.writeByte(tag);
+			writeString(out, url);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writePending(DataOutputStream out, byte tag, String url, int depth) {
+		writeUrl(out, tag, url);
+		try {
+			out.writeInt(depth);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the string as its UTF-8 length and bytes; unlike writeUTF, this has no 64 KB limit.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in, int version) throws IOException {
+		if (version < 3) {
+			return in.readUTF();
+		}
+		int length = in.readInt();
+		if (length < 0 || length > MAX_STRING_BYTES) {
+			throw new IOException("Invalid checkpoint string length " + length);
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static Checkpoint read(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+			// Version 1 predates budgets and link depths: its jobs are unlimited and its pending URLs start at depth 0.
+			// Versions before 3 store strings with writeUTF, and versions before 4 predate weights
+			int version = in.readInt();
+			if (version < 1 || version > FORMAT_VERSION) {
+				throw new IOException("Unsupported checkpoint format");
+			}
+			String id = readString(in, version);
+			String keyword = readString(in, version);
+			String baseUrl = readString(in, version);
+			Instant createdAt = Instant.ofEpochMilli(in.readLong());
+			CrawlBudget budget = CrawlBudget.UNLIMITED;
+			if (version >= 2) {
+				int maxPages = in.readInt();
+				int maxMatches = in.readInt();
+				int maxDepth = in.readInt();
+				long deadline = in.readLong();
+				budget = new CrawlBudget(maxPages, maxMatches, maxDepth, deadline >= 0 ? Instant.ofEpochMilli(deadline) : null);
+			}
+			int weight = version >= 4 ? in.readInt() : Crawl.DEFAULT_WEIGHT;
+			Checkpoint checkpoint = new Checkpoint(id, keyword, baseUrl, createdAt, budget, weight, in.readBoolean());
+			for (byte tag = in.readByte(); tag != END; tag = in.readByte()) {
+				switch (tag) {
+					case VISITED:
+						checkpoint.visited.add(in.readLong());
+						break;
+					case SEEN:
+						checkpoint.seen.add(in.readLong());
+						break;
+					case IN_PROGRESS:
+						checkpoint.inProgress.add(readString(in, version));
+						checkpoint.inProgressDepths.add(version >= 2 ? in.readInt() : 0);
+						break;
+					case QUEUED:
+						checkpoint.queued.add(readString(in, version));
+						checkpoint.queuedDepths.add(version >= 2 ? in.readInt() : 0);
+						break;
+					case MATCHED:
+						checkpoint.matched.add(readString(in, version));
+						break;
+					default:
+						throw new IOException("Unknown checkpoint record " + tag);
+				}
+			}
+			return checkpoint;
+		}
+	}
+
+	private Path fileFor(String jobId) {
+		return directory.resolve(jobId + SUFFIX);
+	}
+
+	private static void deleteQuietly(Path temp) {
+		if (temp == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(temp);
+		} catch (IOException ignored) {
+			// Leftover temp files are harmless and never read
+		}
+	}
+
+	/**
+	 * A running job's membership in periodic checkpointing.
+	 */
+	public interface Registration {
+		/**
+		 * Registration of a job that is not checkpointed.
+		 */
+		Registration NONE = new Registration() {
+			@Override
+			public void finish() {
+			}
+
+			@Override
+			public void suspend() {
+			}
+		};
+
+		/**
+		 * Stops checkpointing and deletes the job's checkpoint: the crawl is over.
+		 */
+		void finish();
+
+		/**
+		 * Writes a last checkpoint and stops checkpointing, for the job to be resumed after a restart.
+		 */
+		void suspend();
+	}
+
+	private final class Tracked implements Registration {
+		private final Crawl job;
+		private final String baseUrl;
+		private final CrawlFrontier frontier;
+		private boolean closed;
+
+		private Tracked(Crawl job, String baseUrl, CrawlFrontier frontier) {
+			this.job = job;
+			this.baseUrl = baseUrl;
+			this.frontier = frontier;
+		}
+
+		// Synchronized so that a periodic write cannot land after the job's final write or deletion
+		synchronized void checkpoint() {
+			if (!closed) {
+				write(job, baseUrl, frontier);
+			}
+		}
+
+		@Override
+		public synchronized void finish() {
+			closed = true;
+			tracked.remove(job.getId(), this);
+			delete(job.getId());
+		}
+
+		@Override
+		public synchronized void suspend() {
+			if (!closed && write(job, baseUrl, frontier)) {
+				logger.info("[CrawlCheckpoints] jobId={} | Checkpointed {} pending URLs for resumption", job.getId(), frontier.size());
+			}
+			closed = true;
+			tracked.remove(job.getId(), this);
+		}
+	}
+
+	/**
+	 * A job read back from its checkpoint.
+	 */
+	public static final class Checkpoint {
+		private final String id;
+		private final String keyword;
+		private final String baseUrl;
+		private final Instant createdAt;
+		private final CrawlBudget budget;
+		private final int weight;
+		private final boolean started;
+		private final Fingerprints visited = new Fingerprints();
+		private final Fingerprints seen = new Fingerprints();
+		private final List<String> inProgress = new ArrayList<>();
+		private final List<Integer> inProgressDepths = new ArrayList<>();
+		private final List<String> queued = new ArrayList<>();
+		private final List<Integer> queuedDepths = new ArrayList<>();
+		private final List<String> matched = new ArrayList<>();
+
+		private Checkpoint(String id, String keyword, String baseUrl, Instant createdAt, CrawlBudget budget, int weight, boolean started) {
+			this.id = id;
+			this.keyword = keyword;
+			this.baseUrl = baseUrl;
+			this.createdAt = createdAt;
+			this.budget = budget;
+			this.weight = weight;
+			this.started = started;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public String getBaseUrl() {
+			return baseUrl;
+		}
+
+		/**
+		 * Whether the job had started crawling; if not, it is simply started again.
+		 */
+		public boolean isStarted() {
+			return started;
+		}
+
+		public int getPendingCount() {
+			return inProgress.size() + queued.size();
+		}
+
+		/**
+		 * Rebuilds the job with its budget, weight and matches, and its visited URLs except the pages that were in progress.
+		 */
+		public Crawl toJob() {
+			Crawl job = Crawl.resume(id, keyword, createdAt, started ? visitedUrls() : UrlSet.create(), matched);
+			job.setBudget(budget);
+			job.setWeight(weight);
+			return job;
+		}
+
+		private UrlSet visitedUrls() {
+			Set<Long> refetched = new HashSet<>();
+			inProgress.forEach(url -> refetched.add(FingerprintUrlSet.fingerprint(UrlNormalizer.keyOf(url))));
+			FingerprintUrlSet visitedUrls = newFingerprintSet(visited.size);
+			for (int i = 0; i < visited.size; i++) {
+				if (!refetched.contains(visited.values[i])) {
+					visitedUrls.addFingerprint(visited.values[i]);
+				}
+			}
+			return visitedUrls;
+		}
+
+		/**
+		 * Rebuilds the frontier: the URLs it had seen, with the pending ones queued again at their depths,
+		 * in-progress ones first.
+		 */
+		public CrawlFrontier toFrontier() {
+			return toFrontier(FrontierPriority.BREADTH_FIRST);
+		}
+
+		/**
+		 * Rebuilds the frontier as {@link #toFrontier()} does, the pending URLs ranked again by the priority.
+		 */
+		public CrawlFrontier toFrontier(FrontierPriority priority) {
+			FingerprintUrlSet seenUrls = newFingerprintSet(seen.size);
+			for (int i = 0; i < seen.size; i++) {
+				seenUrls.addFingerprint(seen.values[i]);
+			}
+			CrawlFrontier frontier = new CrawlFrontier(seenUrls, FrontierQueue.factory(), priority);
+			frontier.setMaxDepth(budget.getMaxDepth());
+			for (int i = 0; i < inProgress.size(); i++) {
+				frontier.addPending(inProgress.get(i), inProgressDepths.get(i));
+			}
+			for (int i = 0; i < queued.size(); i++) {
+				frontier.addPending(queued.get(i), queuedDepths.get(i));
+			}
+			return frontier;
+		}
+
+		private static FingerprintUrlSet newFingerprintSet(int expectedSize) {
+			return new FingerprintUrlSet(Math.max(1024, expectedSize), EnvConfig.getBoolean("VISITED_SET_OFF_HEAP", false));
+		}
+	}
+
+	/**
+	 * Growable array of fingerprints, avoiding a boxed Long per visited URL while a checkpoint is read or written.
+	 */
+	private static final class Fingerprints {
+		private long[] values = new long[1024];
+		private int size;
+
+		void add(long value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.webcrawler.backend.service.crawl;
+
+import java.util.Locale;
+
+/**
+ * Selects how a {@link CrawlRunner} runs its fetches.
+ * FIXED_POOL uses a small fixed pool of worker threads; VIRTUAL_THREADS starts one virtual thread
+ * per in-flight URL, bounded by a concurrency limit instead of a thread count; ASYNC keeps many
+ * non-blocking HTTP requests in flight and processes responses on a handful of threads; SCHEDULED owns no threads
+ * and submits its URLs to the service-wide {@link FetchScheduler}, which shares fetch slots fairly between jobs.
+ */
+
+public enum CrawlExecutionMode {
+	FIXED_POOL,
+	VIRTUAL_THREADS,
+	ASYNC,
+	SCHEDULED;
+
+	public static CrawlExecutionMode fromName(String name) {
+		if (name == null || name.isBlank()) {
+			return FIXED_POOL;
+		}
+		try {
+			return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+		} catch (IllegalArgumentException e) {
+			return FIXED_POOL;
+		}
+	}
+}
@@ -0,0 +1,395 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.utils.UrlNormalizer;
+import com.webcrawler.backend.utils.UrlSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Work queue of URLs shared by the workers of a crawl job.
+ * Idle workers block in {@link #take()} instead of spinning, and the frontier detects quiescence:
+ * the crawl is over only when the queue is empty and no taken URL is still being processed,
+ * since a URL in progress may still enqueue the links it discovers.
+ * Each URL enters the frontier at most once: repeats are dropped at enqueue time, so the queue never
+ * holds duplicates. URLs are recognised by their canonical form (see {@link UrlNormalizer#keyOf(String)}), but queued
+ * as given, so variants of a page are fetched once, at the first URL it was found under.
+ * The set of enqueued URLs is a {@link UrlSet}, so it can be kept as compact fingerprints on large crawls.
+ * Every URL has a link depth (0 for the base URL, one more than the page it was found on), and a rank given by the
+ * frontier's {@link FrontierPriority} when it is queued. URLs are handed out lowest rank first, then shallowest first,
+ * so with the default priority, which ranks all URLs alike, the crawl is breadth-first. Each rank and depth is queued
+ * in its own {@link FrontierQueue}; by default the queues share one memory budget, past which they spill to disk.
+ * Links past the maximum depth, if one is set, are dropped.
+ * The frontier can be suspended, which stops handing out URLs and ends the crawl once the URLs in progress
+ * are done, leaving the rest queued for a checkpoint (see {@link CrawlCheckpoints}).
+ */
+
+public class CrawlFrontier {
+
+	private final Supplier<FrontierQueue> queues;
+	private final FrontierPriority priority;
+	// Keyed by rank in the high 32 bits and depth in the low ones, so the first key is the next to hand out
+	private final NavigableMap<Long, FrontierQueue> levels = new TreeMap<>();
+	private final UrlSet seen;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+	private final Condition quiescent = lock.newCondition();
+	private final Map<String, Integer> inProgress = new HashMap<>();
+	private int queued;
+	private int maxDepth = -1;
+	private boolean closed;
+	private boolean suspended;
+	private volatile Runnable onAvailable;
+
+	public CrawlFrontier() {
+		this(UrlSet.create());
+	}
+
+	public CrawlFrontier(UrlSet seen) {
+		this(seen, FrontierQueue.factory());
+	}
+
+	/**
+	 * Creates a breadth-first frontier whose depths are each queued in a queue from the supplier. Queues from one
+	 * supplier should share their resources, as those of {@link FrontierQueue#factory()} do.
+	 */
+	public CrawlFrontier(UrlSet seen, Supplier<FrontierQueue> queues) {
+		this(seen, queues, FrontierPriority.BREADTH_FIRST);
+	}
+
+	/**
+	 * Creates a frontier that hands out URLs in the order of the priority, each rank and depth queued in a queue
+	 * from the supplier.
+	 */
+	public CrawlFrontier(UrlSet seen, Supplier<FrontierQueue> queues, FrontierPriority priority) {
+		this.seen = seen;
+		this.queues = queues;
+		this.priority = priority;
+	}
+
+	/**
+	 * Drops links deeper than maxDepth from now on; a negative depth lifts the limit.
+	 */
+	public void setMaxDepth(int maxDepth) {
+		lock.lock();
+		try {
+			this.maxDepth = maxDepth;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Enqueues the URL at depth 0 unless it has been enqueued before. Returns whether it was added.
+	 */
+	public boolean add(String url) {
+		lock.lock();
+		try {
+			if (closed || !seen.add(UrlNormalizer.keyOf(url))) {
+				return false;
+			}
+			enqueue(url, 0, "", 0);
+			changed.signal();
+		} finally {
+			lock.unlock();
+		}
+		notifyAvailable();
+		return true;
+	}
+
+	public void addAll(Collection<String> urls) {
+		addAll(urls, 0);
+	}
+
+	/**
+	 * Enqueues the URLs not enqueued before at the given depth, unless it is past the maximum depth.
+	 */
+	public void addAll(Collection<String> urls, int depth) {
+		if (urls.isEmpty()) {
+			return;
+		}
+		Map<String, String> links = new LinkedHashMap<>();
+		urls.forEach(url -> links.put(url, ""));
+		boolean added;
+		lock.lock();
+		try {
+			added = addAllLocked(links, depth, 0);
+		} finally {
+			lock.unlock();
+		}
+		if (added) {
+			notifyAvailable();
+		}
+	}
+
+	/**
+	 * Enqueues the links found on a URL in progress, one level deeper than it.
+	 */
+	public void addLinks(String parentUrl, Collection<String> links) {
+		Map<String, String> linkTexts = new LinkedHashMap<>();
+		links.forEach(link -> linkTexts.put(link, ""));
+		addLinks(parentUrl, linkTexts, 0);
+	}
+
+	/**
+	 * Enqueues the links found on a URL in progress, one level deeper than it, ranked with their anchor texts
+	 * (the map's values) and the number of keyword occurrences on the parent page.
+	 */
+	public void addLinks(String parentUrl, Map<String, String> linkTexts, int parentMatches) {
+		if (linkTexts.isEmpty()) {
+			return;
+		}
+		boolean added;
+		lock.lock();
+		try {
+			Integer parentDepth = inProgress.get(parentUrl);
+			added = addAllLocked(linkTexts, parentDepth != null ? parentDepth + 1 : 1, parentMatches);
+		} finally {
+			lock.unlock();
+		}
+		if (added) {
+			notifyAvailable();
+		}
+	}
+
+	private boolean addAllLocked(Map<String, String> linkTexts, int depth, int parentMatches) {
+		// Links past the limit are not marked seen, as they may still be found closer to the base URL
+		if (closed || (maxDepth >= 0 && depth > maxDepth)) {
+			return false;
+		}
+		int before = queued;
+		for (Map.Entry<String, String> link : linkTexts.entrySet()) {
+			if (seen.add(UrlNormalizer.keyOf(link.getKey()))) {
+				enqueue(link.getKey(), depth, link.getValue(), parentMatches);
+			}
+		}
+		boolean added = queued > before;
+		if (added) {
+			changed.signalAll();
+		}
+		return added;
+	}
+
+	/**
+	 * Blocks until a URL is available and returns it, or returns null once the crawl is quiescent or closed.
+	 * Every URL returned must be followed by a call to {@link #complete(String)} after its links have been added.
+	 */
+	public String take() throws InterruptedException {
+		lock.lock();
+		try {
+			while (queued == 0 || suspended) {
+				if (closed || inProgress.isEmpty()) {
+					changed.signalAll(); // let the other idle workers observe termination too
+					return null;
+				}
+				changed.await();
+			}
+			return takeFirst();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the next URL without waiting, or null if none is queued. Like {@link #take()},
+	 * every URL returned must be followed by a call to {@link #complete(String)}.
+	 */
+	public String poll() {
+		lock.lock();
+		try {
+			if (closed || suspended || queued == 0) {
+				return null;
+			}
+			return takeFirst();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits until the crawl is quiescent: nothing queued or in progress, or nothing in progress once suspended or closed.
+	 * Returns false if the timeout expired first.
+	 */
+	public boolean awaitQuiescence(long timeout, TimeUnit unit) throws InterruptedException {
+		long remaining = unit.toNanos(timeout);
+		lock.lock();
+		try {
+			while (!inProgress.isEmpty() || (queued > 0 && !suspended)) {
+				if (remaining <= 0) {
+					return false;
+				}
+				remaining = quiescent.awaitNanos(remaining);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Registers a callback run whenever URLs are enqueued, outside the frontier's lock,
+	 * for consumers that {@link #poll()} instead of blocking in {@link #take()}.
+	 */
+	public void setOnAvailable(Runnable onAvailable) {
+		this.onAvailable = onAvailable;
+	}
+
+	private void notifyAvailable() {
+		Runnable callback = onAvailable;
+		if (callback != null) {
+			callback.run();
+		}
+	}
+
+	/**
+	 * Marks a URL returned by {@link #take()} or {@link #poll()} as processed.
+	 */
+	public void complete(String url) {
+		lock.lock();
+		try {
+			inProgress.remove(url);
+			if (inProgress.isEmpty() && (queued == 0 || suspended)) {
+				changed.signalAll();
+				quiescent.signalAll();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops handing out URLs, keeping the queued ones: the crawl ends as soon as the URLs in progress are done.
+	 * Used to drain a crawl before shutdown, so its checkpoint holds no half-processed page.
+	 */
+	public void suspend() {
+		lock.lock();
+		try {
+			suspended = true;
+			changed.signalAll();
+			if (inProgress.isEmpty()) {
+				quiescent.signalAll();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public boolean isSuspended() {
+		lock.lock();
+		try {
+			return suspended;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Enqueues a URL restored from a checkpoint at its depth. Unlike {@link #add(String)}, it is queued even though
+	 * the restored seen set already holds it. It is ranked on its URL and depth alone, since checkpoints do not keep
+	 * the anchor text and parent matches it was found with.
+	 */
+	public void addPending(String url, int depth) {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			seen.add(UrlNormalizer.keyOf(url));
+			enqueue(url, depth, "", 0);
+			changed.signal();
+		} finally {
+			lock.unlock();
+		}
+		notifyAvailable();
+	}
+
+	/**
+	 * Passes what a checkpoint needs to resume the crawl, as one consistent view: the URLs still to be processed
+	 * (in progress first, since an interrupted page must be fetched again, then the queued ones in the order they would be handed out)
+	 * with their depths, and the fingerprints of every URL ever enqueued. Holds the frontier's lock throughout, blocking
+	 * the workers, so the callbacks should only copy what they are passed, not write it out.
+	 */
+	public void snapshot(ObjIntConsumer<String> inProgressUrls, ObjIntConsumer<String> queuedUrls, LongConsumer seenFingerprints) {
+		lock.lock();
+		try {
+			inProgress.forEach(inProgressUrls::accept);
+			levels.forEach((key, queue) -> queue.forEach(url -> queuedUrls.accept(url, depthOf(key))));
+			seen.forEachFingerprint(seenFingerprints);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops handing out URLs, drops the queued ones and wakes every blocked worker, e.g. when the crawl is stopped early.
+	 * URLs in progress are still completed, and {@link #awaitQuiescence} waits for them.
+	 * Also releases the queues' storage, so it is called once the crawl is over as well.
+	 */
+	public void close() {
+		lock.lock();
+		try {
+			closed = true;
+			levels.values().forEach(FrontierQueue::clear);
+			levels.clear();
+			queued = 0;
+			changed.signalAll();
+			quiescent.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Number of distinct URLs ever enqueued.
+	 */
+	public int seenCount() {
+		lock.lock();
+		try {
+			return seen.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void enqueue(String url, int depth, String anchorText, int parentMatches) {
+		long key = ((long) priority.rank(url, depth, anchorText, parentMatches) << 32) | depth;
+		levels.computeIfAbsent(key, ignored -> queues.get()).addLast(url);
+		queued++;
+	}
+
+	private static int depthOf(long key) {
+		return (int) key;
+	}
+
+	private String takeFirst() {
+		Map.Entry<Long, FrontierQueue> first = levels.firstEntry();
+		FrontierQueue queue = first.getValue();
+		String url = queue.pollFirst();
+		if (queue.isEmpty()) {
+			queue.clear(); // releases any spill files
+			levels.remove(first.getKey());
+		}
+		queued--;
+		inProgress.put(url, depthOf(first.getKey()));
+		return url;
+	}
+
+	public int size() {
+		lock.lock();
+		try {
+			return queued;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
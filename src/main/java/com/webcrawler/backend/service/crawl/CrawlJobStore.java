@@ -0,0 +1,22 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.model.crawl.Crawl;
+
+/**
+ * Keeps track of crawl jobs by ID, from submission until their results are no longer wanted.
+ */
+
+public interface CrawlJobStore {
+
+	/**
+	 * Registers a newly created job.
+	 */
+	void save(Crawl job);
+
+	/**
+	 * Returns the job with the given ID, or null if there is none.
+	 */
+	Crawl find(String id);
+
+	void remove(String id);
+}
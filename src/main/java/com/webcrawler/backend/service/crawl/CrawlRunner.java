@@ -1,10 +1,25 @@
 package com.webcrawler.backend.service.crawl;
 
 import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlBudget;
 import com.webcrawler.backend.model.crawl.CrawlStatus;
+import com.webcrawler.backend.utils.AsyncPageFetcher;
+import com.webcrawler.backend.utils.CancellationToken;
+import com.webcrawler.backend.utils.ContentPolicy;
+import com.webcrawler.backend.utils.EnvConfig;
+import com.webcrawler.backend.utils.HostConcurrencyLimits;
 import com.webcrawler.backend.utils.LinkExtractor;
+import com.webcrawler.backend.utils.PageCache;
 import com.webcrawler.backend.utils.PageFetcher;
+import com.webcrawler.backend.utils.PageScan;
+import com.webcrawler.backend.utils.RobotsCache;
+import com.webcrawler.backend.utils.SitemapReader;
+import com.webcrawler.backend.utils.UrlNormalizer;
+import com.webcrawler.backend.utils.UrlSet;
+import com.webcrawler.backend.utils.VirtualThreads;
+import com.webcrawler.backend.utils.exceptions.FetchCancelledException;
 import com.webcrawler.backend.utils.exceptions.NonSuccessfulResponseException;
+import com.webcrawler.backend.utils.exceptions.SkippedContentException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,111 +27,191 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The CrawlRunner class implements Runnable to perform web crawling operations.
  * It processes URLs, extracts links, and searches for a specified keyword.
- * The class uses multiple worker threads to handle concurrent crawling tasks.
+ * The class uses multiple worker threads to handle concurrent crawling tasks, either a fixed pool,
+ * one virtual thread per in-flight URL, pipelined non-blocking fetches, or slots of the service-wide
+ * {@link FetchScheduler}, depending on the {@link CrawlExecutionMode}.
+ * Discovered URLs are fetched breadth-first or, with the BEST_FIRST {@link FrontierOrder}, likely matches first.
+ * The frontier is seeded with the host's sitemaps, and paths disallowed by its robots.txt are never fetched.
+ * The crawl stops early when the job's {@link CrawlBudget} is spent, at its deadline (by default CRAWL_TIMEOUT_SECONDS
+ * after it starts) or when the job is cancelled; the fetches in flight are then aborted, unless their pages still count.
+ * A crawl of the whole site, without budget limits, indexes the pages it fetches into the {@link PageIndexStore}.
  */
 
 public class CrawlRunner implements Runnable {
 
 	private static final Logger logger = LoggerFactory.getLogger(CrawlRunner.class);
-	private static final int WORKER_COUNT = 4;
+	// Threads of the fixed pool; how many of them fetch at once is further bounded by the host's adaptive limit
+	private static final int WORKER_COUNT = Math.max(1, EnvConfig.getInt("CRAWL_WORKERS", 4));
+	private static final CrawlExecutionMode DEFAULT_MODE = CrawlExecutionMode.fromName(EnvConfig.getString("CRAWL_EXECUTION_MODE", null));
+	private static final FrontierOrder DEFAULT_ORDER = FrontierOrder.fromName(EnvConfig.getString("CRAWL_FRONTIER_ORDER", null));
+	private static final int MAX_IN_FLIGHT = EnvConfig.getInt("CRAWL_MAX_IN_FLIGHT", 64);
+	private static final boolean STREAMING_SCAN = EnvConfig.getBoolean("STREAMING_SCAN", false);
+	private static final boolean SITEMAP_SEEDING = EnvConfig.getBoolean("SITEMAP_SEEDING", true);
+	private static final int SITEMAP_MAX_URLS = EnvConfig.getInt("SITEMAP_MAX_URLS", 50_000);
+	private static final long DEFAULT_TIMEOUT_SECONDS = EnvConfig.getLong("CRAWL_TIMEOUT_SECONDS", 180);
+	// How long workers are given to wind down once the crawl has been stopped
+	private static final long STOP_GRACE_SECONDS = 5;
 
 	private final String baseUrl;
 	private final Crawl job;
 	private final String normalizedKeyword;
+	private final CrawlExecutionMode mode;
+	private final FrontierOrder order;
 
-	private final PageFetcher pageFetcher = new PageFetcher();
+	private final PageFetcher pageFetcher;
+	private final AsyncPageFetcher asyncFetcher;
+	private final FetchScheduler scheduler = FetchScheduler.shared();
 	private final LinkExtractor linkExtractor = new LinkExtractor();
+	private final ContentPolicy contentPolicy = ContentPolicy.shared();
+	private final RobotsCache robots = RobotsCache.shared();
+	private final CrawlCheckpoints checkpoints;
+	private final CrawlCheckpoints.Checkpoint resumeFrom;
+	private CrawlCheckpoints.Registration checkpoint;
+	private final PageIndexStore indexes;
+	private PageIndexWriter pageIndex; // null unless this crawl builds an index
+
+	private final CancellationToken fetches = new CancellationToken();
+	private final AtomicReference<String> stopReason = new AtomicReference<>();
+	private final AtomicLong pagesAdmitted = new AtomicLong();
+	private final AtomicLong matchesRecorded = new AtomicLong();
+	private volatile CrawlFrontier frontier;
+	private FrontierPriority priority;
+	private long deadlineNanos;
 
 	public CrawlRunner(String baseUrl, Crawl job) {
+		this(baseUrl, job, DEFAULT_MODE, new PageFetcher());
+	}
+
+	public CrawlRunner(String baseUrl, Crawl job, CrawlExecutionMode mode, PageFetcher pageFetcher) {
+		this(baseUrl, job, mode, pageFetcher, AsyncPageFetcher.shared());
+	}
+
+	public CrawlRunner(String baseUrl, Crawl job, CrawlExecutionMode mode, PageFetcher pageFetcher, AsyncPageFetcher asyncFetcher) {
+		this(baseUrl, job, mode, pageFetcher, asyncFetcher, DEFAULT_ORDER);
+	}
+
+	public CrawlRunner(String baseUrl, Crawl job, CrawlExecutionMode mode, PageFetcher pageFetcher, AsyncPageFetcher asyncFetcher,
+					   FrontierOrder order) {
+		this(baseUrl, job, mode, order, pageFetcher, asyncFetcher, CrawlCheckpoints.shared(), null, PageIndexStore.shared());
+	}
+
+	public CrawlRunner(String baseUrl, Crawl job, PageIndexStore indexes) {
+		this(baseUrl, job, DEFAULT_MODE, DEFAULT_ORDER, new PageFetcher(), AsyncPageFetcher.shared(), CrawlCheckpoints.shared(), null, indexes);
+	}
+
+	/**
+	 * Creates a runner that resumes the job from its checkpoint, as rebuilt by {@link CrawlCheckpoints.Checkpoint#toJob()}.
+	 */
+	public CrawlRunner(Crawl job, CrawlCheckpoints checkpoints, CrawlCheckpoints.Checkpoint resumeFrom) {
+		this(resumeFrom.getBaseUrl(), job, DEFAULT_MODE, DEFAULT_ORDER, new PageFetcher(), AsyncPageFetcher.shared(), checkpoints, resumeFrom,
+				PageIndexStore.shared());
+	}
+
+	private CrawlRunner(String baseUrl, Crawl job, CrawlExecutionMode mode, FrontierOrder order, PageFetcher pageFetcher,
+						AsyncPageFetcher asyncFetcher, CrawlCheckpoints checkpoints, CrawlCheckpoints.Checkpoint resumeFrom,
+						PageIndexStore indexes) {
 		this.baseUrl = baseUrl;
 		this.job = job;
 		this.normalizedKeyword = job.getKeyword().toLowerCase(Locale.ROOT);
+		this.mode = mode;
+		this.order = order;
+		this.pageFetcher = pageFetcher;
+		this.asyncFetcher = asyncFetcher;
+		this.checkpoints = checkpoints;
+		this.resumeFrom = resumeFrom;
+		this.indexes = indexes;
 	}
 
 	@Override
 	public void run() {
-		BlockingDeque<String> toVisit = new LinkedBlockingDeque<>();
-		toVisit.add(baseUrl);
+		deadlineNanos = deadlineNanos();
+		priority = frontierPriority();
+		CrawlFrontier frontier;
+		if (resumeFrom != null && resumeFrom.isStarted()) {
+			frontier = resumeFrom.toFrontier(priority);
+			logger.info("[RunningCrawl] jobId={} | Resuming from checkpoint with {} pending URLs", job.getId(), frontier.size());
+		} else {
+			frontier = new CrawlFrontier(UrlSet.create(), FrontierQueue.factory(), priority);
+			frontier.setMaxDepth(job.getBudget().getMaxDepth());
+			frontier.add(baseUrl);
+			seedFromSitemaps(frontier);
+		}
+		this.frontier = frontier;
+		pageIndex = buildsIndex() ? new PageIndexWriter() : null;
+		// A resumed job has spent part of its budget already; its visited URLs stand in for the pages it fetched
+		pagesAdmitted.set(job.getVisitedCount());
+		matchesRecorded.set(job.getMatchLog().size());
+		checkpoint = isCheckpointed() ? checkpoints.track(job, baseUrl, frontier) : CrawlCheckpoints.Registration.NONE;
+		RunningCrawls.shared().add(job, frontier, () -> stop("job cancelled", true));
+		if (job.isCancelled()) {
+			stop("job cancelled", true); // cancelled before it was registered
+		}
+
+		if (mode == CrawlExecutionMode.SCHEDULED) {
+			runScheduled(frontier);
+			return;
+		}
 
-		ExecutorService workers = Executors.newFixedThreadPool(WORKER_COUNT);
-		AtomicInteger activeWorkers = new AtomicInteger(0);
-		CountDownLatch latch = new CountDownLatch(WORKER_COUNT);
+		boolean virtual = mode == CrawlExecutionMode.VIRTUAL_THREADS;
+		boolean async = mode == CrawlExecutionMode.ASYNC;
+		ExecutorService workers = virtual ? VirtualThreads.newPerTaskExecutor() : Executors.newFixedThreadPool(WORKER_COUNT);
+		CountDownLatch latch = new CountDownLatch(virtual || async ? 1 : WORKER_COUNT);
 
 		try {
 			String baseHost = new URL(baseUrl).getHost();
-			logger.info("[RunningCrawl] jobId={} | Starting on host={}", job.getId(), baseHost);
-
-			Runnable worker = () -> {
-				try {
-					while (true) {
-						String currentUrl = toVisit.poll();
-						if (currentUrl == null) {
-							if (activeWorkers.get() == 0 && toVisit.isEmpty()) {
-								break; // no work left to do
-							}
-							continue;
-						}
+			logger.info("[RunningCrawl] jobId={} | Starting on host={} mode={} order={}", job.getId(), baseHost, mode, order);
 
-						activeWorkers.incrementAndGet();
-
-						if (!job.getVisitedUrls().add(currentUrl)) {
-							log(job.getId(), "Skipping already visited URL", currentUrl);
-							activeWorkers.decrementAndGet();
-							continue;
-						}
-
-						log(job.getId(), "Processing URL", currentUrl);
-
-						try {
-							URL url = new URL(currentUrl);
-							if (!url.getHost().equals(baseHost)) {
-								log(job.getId(), "Skipping external URL", currentUrl);
-								continue;
-							}
-
-							String content;
-							try{
-								content = pageFetcher.fetch(url);
-							} catch (NonSuccessfulResponseException ex){
-								log(job.getId(), ex.getLocalizedMessage(), currentUrl);
-								continue;
-							}
-
-							if (content.contains(normalizedKeyword)) {
-								job.addMatchedUrl(currentUrl);
-								log(job.getId(), "Found keyword", currentUrl);
-								if(job.getMatchedUrls().size() == 100) {
-									logger.info("[RunningCrawl] jobId={} | Reached 100 matched URLs in {} ms", job.getId(), Duration.between(job.getCreatedAt(), Instant.now()).toMillis());
-								}
+			if (virtual) {
+				if (!VirtualThreads.isSupported()) {
+					logger.warn("[RunningCrawl] jobId={} | Virtual threads unavailable on this JVM, using platform threads per URL", job.getId());
+				}
+				workers.submit(() -> dispatchPerUrl(workers, frontier, baseHost, latch));
+			} else if (async) {
+				workers.submit(() -> dispatchAsync(workers, frontier, baseHost, latch));
+			} else {
+				Runnable worker = () -> {
+					try {
+						String currentUrl;
+						while ((currentUrl = frontier.take()) != null) {
+							try {
+								processUrl(currentUrl, baseHost, frontier);
+							} finally {
+								frontier.complete(currentUrl); // links are already enqueued, so quiescence cannot be observed early
 							}
-
-							toVisit.addAll(linkExtractor.extractLinks(url, content));
-
-						} catch (Exception e) {
-							log(job.getId(), "Error processing URL", currentUrl);
-						} finally {
-							activeWorkers.decrementAndGet();
 						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					} finally {
+						latch.countDown();
 					}
-				} finally {
-					latch.countDown();
-				}
-			};
+				};
 
-			for (int i = 0; i < WORKER_COUNT; i++) {
-				workers.submit(worker);
+				for (int i = 0; i < WORKER_COUNT; i++) {
+					workers.submit(worker);
+				}
 			}
 
-			boolean completed = latch.await(3, TimeUnit.MINUTES);
-			if (!completed) {
-				logger.warn("[RunningCrawl] jobId={} | Timeout waiting for workers", job.getId());
+			if (!latch.await(timeLeftNanos(), TimeUnit.NANOSECONDS)) {
+				stop("deadline reached", true);
+				if (!latch.await(STOP_GRACE_SECONDS, TimeUnit.SECONDS)) {
+					logger.warn("[RunningCrawl] jobId={} | Timeout waiting for workers", job.getId());
+				}
 			}
 		} catch (MalformedURLException e) {	logger.error("[RunningCrawl] jobId={} | Malformed base URL: {}", job.getId(), baseUrl, e);
 		} catch (Exception e) { logger.error("[RunningCrawl] jobId={} | General error during crawl", job.getId(), e);
@@ -130,12 +225,440 @@ public class CrawlRunner implements Runnable {
 				Thread.currentThread().interrupt();
 				logger.warn("[RunningCrawl] jobId={} | Interrupted while shutting down workers", job.getId());
 			}
-			job.setStatus(CrawlStatus.DONE);
-			logger.info("[RunningCrawl] jobId={} | Crawl finished in {} ms", job.getId(), Duration.between(job.getCreatedAt(), Instant.now()).toMillis());
+			finish(frontier);
+		}
+	}
+
+	/**
+	 * Hands the frontier to the service-wide {@link FetchScheduler}, which processes its URLs on shared slots
+	 * alongside every other scheduled job, and waits for the crawl to go quiescent.
+	 */
+	private void runScheduled(CrawlFrontier frontier) {
+		FetchScheduler.Registration registration = null;
+		try {
+			String baseHost = new URL(baseUrl).getHost();
+			logger.info("[RunningCrawl] jobId={} | Starting on host={} mode={} order={}", job.getId(), baseHost, mode, order);
+
+			registration = scheduler.register(job.getId(), job.getWeight(), frontier, url -> processUrl(url, baseHost, frontier));
+			if (!frontier.awaitQuiescence(timeLeftNanos(), TimeUnit.NANOSECONDS)) {
+				stop("deadline reached", true);
+				if (!frontier.awaitQuiescence(STOP_GRACE_SECONDS, TimeUnit.SECONDS)) {
+					logger.warn("[RunningCrawl] jobId={} | Timeout waiting for scheduled fetches", job.getId());
+				}
+			}
+		} catch (MalformedURLException e) {	logger.error("[RunningCrawl] jobId={} | Malformed base URL: {}", job.getId(), baseUrl, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.warn("[RunningCrawl] jobId={} | Interrupted while waiting for scheduled fetches", job.getId());
+		} finally {
+			if (registration != null) {
+				registration.close();
+			}
+			finish(frontier);
+		}
+	}
+
+	/**
+	 * Adds the URLs listed in the base host's sitemaps (those robots.txt declares, or /sitemap.xml) to the frontier
+	 * before anything is fetched, so the crawl starts wide instead of discovering pages one link hop at a time.
+	 */
+	private void seedFromSitemaps(CrawlFrontier frontier) {
+		if (!SITEMAP_SEEDING || job.isCancelled()) {
+			return;
+		}
+		URL base;
+		try {
+			base = new URL(baseUrl);
+		} catch (MalformedURLException e) {
+			return; // reported when the crawl starts
+		}
+		List<String> sitemaps = robots.rulesFor(base).getSitemaps();
+		if (sitemaps.isEmpty()) {
+			sitemaps = List.of(RobotsCache.originOf(base) + "/sitemap.xml");
+		}
+		Set<String> listed = new LinkedHashSet<>();
+		int count = new SitemapReader().read(sitemaps, base.getHost(), SITEMAP_MAX_URLS, listed::add);
+		if (count > 0) {
+			frontier.addAll(deduplicate(listed), 1); // one hop from the base URL, like the links on its page
+			logger.info("[RunningCrawl] jobId={} | Seeded frontier with {} URLs from sitemaps", job.getId(), count);
+		}
+	}
+
+	/**
+	 * Ends the crawl early: the frontier stops handing out URLs and drops the queued ones, and unless the pages being
+	 * fetched still count, the fetches in flight are aborted.
+	 */
+	private void stop(String reason, boolean abortFetches) {
+		if (stopReason.compareAndSet(null, reason)) {
+			logger.info("[RunningCrawl] jobId={} | Stopping crawl: {}", job.getId(), reason);
+		}
+		frontier.close();
+		if (abortFetches) {
+			fetches.cancel();
+		}
+	}
+
+	/**
+	 * Returns the System.nanoTime() at which the crawl stops: the job's deadline, or CRAWL_TIMEOUT_SECONDS from now
+	 * if it has none (or never, when that is 0).
+	 */
+	private long deadlineNanos() {
+		Instant deadline = job.getBudget().getDeadline();
+		if (deadline != null) {
+			return System.nanoTime() + Duration.between(Instant.now(), deadline).toNanos();
+		}
+		return System.nanoTime() + (DEFAULT_TIMEOUT_SECONDS > 0 ? TimeUnit.SECONDS.toNanos(DEFAULT_TIMEOUT_SECONDS) : Long.MAX_VALUE / 2);
+	}
+
+	private long timeLeftNanos() {
+		return deadlineNanos - System.nanoTime();
+	}
+
+	/**
+	 * Counts a page about to be fetched against the page budget. Returns false once the budget is spent; the crawl
+	 * is stopped when its last page is admitted, leaving that page and the others in flight to complete.
+	 */
+	private boolean reservePage() {
+		int maxPages = job.getBudget().getMaxPages();
+		if (maxPages == CrawlBudget.NO_LIMIT) {
+			return true;
+		}
+		long admitted = pagesAdmitted.incrementAndGet();
+		if (admitted >= maxPages) {
+			stop("page budget of " + maxPages + " reached", false);
+		}
+		return admitted <= maxPages;
+	}
+
+	/**
+	 * Counts a match of this runner's job against the match budget. Returns false once the budget is spent;
+	 * the crawl is stopped at the last match, since nothing fetched afterwards would be kept.
+	 */
+	private boolean reserveMatch() {
+		int maxMatches = job.getBudget().getMaxMatches();
+		if (maxMatches == CrawlBudget.NO_LIMIT) {
+			return true;
+		}
+		long recorded = matchesRecorded.incrementAndGet();
+		if (recorded >= maxMatches) {
+			stop("match budget of " + maxMatches + " reached", true);
+		}
+		return recorded <= maxMatches;
+	}
+
+	private void finish(CrawlFrontier frontier) {
+		if (frontier.isSuspended() && stopReason.get() == null) {
+			// Drained for shutdown: what is still queued goes into the checkpoint, and the job stays active
+			checkpoint.suspend();
+			frontier.close();
+			RunningCrawls.shared().remove(job);
+			logger.info("[RunningCrawl] jobId={} | Crawl suspended with {} URLs visited", job.getId(), job.getVisitedCount());
+			return;
+		}
+		checkpoint.finish();
+		frontier.close();
+		RunningCrawls.shared().remove(job);
+		long elapsedMillis = Duration.between(job.getCreatedAt(), Instant.now()).toMillis();
+		if (job.setStatus(CrawlStatus.DONE)) {
+			logger.info("[RunningCrawl] jobId={} | Crawl finished in {} ms", job.getId(), elapsedMillis);
+		} else {
+			logger.info("[RunningCrawl] jobId={} | Crawl cancelled, stopped after {} ms", job.getId(), elapsedMillis);
+		}
+		if (pageIndex != null && stopReason.get() == null) {
+			// Only a crawl that ran to the end has seen every page the index is asked about
+			indexes.publish(baseUrl, pageIndex);
+		}
+		PageCache cache = PageCache.shared();
+		logger.info("[RunningCrawl] jobId={} | Page cache hits={} misses={} coalesced={} entries={} bytes={}", job.getId(),
+				cache.getHitCount(), cache.getMissCount(), cache.getCoalescedCount(), cache.getEntryCount(), cache.getSizeBytes());
+		logger.info("[RunningCrawl] jobId={} | Host concurrency limits {}", job.getId(), HostConcurrencyLimits.shared().snapshot());
+	}
+
+	/**
+	 * Starts one task per URL taken from the frontier, keeping at most MAX_IN_FLIGHT of them running.
+	 * Returns once the frontier is quiescent, i.e. after every started task has completed.
+	 */
+	private void dispatchPerUrl(ExecutorService workers, CrawlFrontier frontier, String baseHost, CountDownLatch latch) {
+		Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+		try {
+			String currentUrl;
+			while ((currentUrl = frontier.take()) != null) {
+				inFlight.acquire();
+				String url = currentUrl;
+				try {
+					workers.execute(() -> {
+						try {
+							processUrl(url, baseHost, frontier);
+						} finally {
+							frontier.complete(url);
+							inFlight.release();
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					frontier.complete(url);
+					inFlight.release();
+					break; // the runner is shutting down
+				}
+			}
+			// The frontier may have been closed early: let the tasks still running complete before the crawl finishes
+			inFlight.acquire(MAX_IN_FLIGHT);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			latch.countDown();
+		}
+	}
+
+	/**
+	 * Pipelines fetches through the non-blocking {@link AsyncPageFetcher}: the dispatcher only admits URLs
+	 * and starts requests, keeping up to MAX_IN_FLIGHT of them outstanding, while a handful of pooled threads
+	 * process the responses as they complete.
+	 */
+	private void dispatchAsync(ExecutorService processors, CrawlFrontier frontier, String baseHost, CountDownLatch latch) {
+		Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+		try {
+			String currentUrl;
+			while ((currentUrl = frontier.take()) != null) {
+				URL url = admit(currentUrl, baseHost);
+				if (url == null) {
+					frontier.complete(currentUrl);
+					continue;
+				}
+
+				inFlight.acquire();
+				String pageUrl = currentUrl;
+				asyncFetcher.fetchAsync(url, fetches).whenCompleteAsync((content, ex) -> {
+					try {
+						if (ex == null) {
+							processPage(url, pageUrl, content, frontier);
+						} else {
+							logFetchFailure(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex, pageUrl);
+						}
+					} finally {
+						frontier.complete(pageUrl);
+						inFlight.release();
+					}
+				}, processors);
+			}
+			inFlight.acquire(MAX_IN_FLIGHT); // lets the responses still arriving be processed, as above
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			latch.countDown();
+		}
+	}
+
+	private void processUrl(String currentUrl, String baseHost, CrawlFrontier frontier) {
+		URL url = admit(currentUrl, baseHost);
+		if (url == null) {
+			return;
+		}
+
+		if (usesStreamingScan()) {
+			scanPage(url, currentUrl, frontier);
+			return;
+		}
+
+		String content;
+		try {
+			content = pageFetcher.fetch(url, fetches);
+		} catch (Exception e) {
+			logFetchFailure(e, currentUrl);
+			return;
+		}
+
+		processPage(url, currentUrl, content, frontier);
+	}
+
+	/**
+	 * Marks the URL visited and returns it parsed, or null if it was already visited, is malformed, external,
+	 * disallowed by robots.txt or over the page budget.
+	 */
+	private URL admit(String currentUrl, String baseHost) {
+		if (!job.markVisited(UrlNormalizer.keyOf(currentUrl))) {
+			log(job.getId(), "Skipping already visited URL", currentUrl);
+			return null;
+		}
+
+		log(job.getId(), "Processing URL", currentUrl);
+
+		try {
+			URL url = new URL(currentUrl);
+			if (!url.getHost().equals(baseHost)) {
+				log(job.getId(), "Skipping external URL", currentUrl);
+				return null;
+			}
+			if (!robots.isAllowed(url)) {
+				log(job.getId(), "Skipping URL disallowed by robots.txt", currentUrl);
+				return null;
+			}
+			if (!reservePage()) {
+				log(job.getId(), "Skipping URL over the page budget", currentUrl);
+				return null;
+			}
+			return url;
+		} catch (MalformedURLException e) {
+			log(job.getId(), "Error processing URL", currentUrl);
+			return null;
+		}
+	}
+
+	private void processPage(URL url, String currentUrl, String content, CrawlFrontier frontier) {
+		job.recordPageFetched();
+		try {
+			int matches = handlePage(currentUrl, content);
+			if (pageIndex != null) {
+				pageIndex.addPage(currentUrl, content);
+			}
+
+			frontier.addLinks(currentUrl, deduplicate(linkExtractor.extractLinkTexts(url, content)), matches);
+
+		} catch (Exception e) {
+			log(job.getId(), "Error processing URL", currentUrl);
+		}
+	}
+
+	private void scanPage(URL url, String currentUrl, CrawlFrontier frontier) {
+		PageScan scan;
+		try {
+			scan = pageFetcher.scan(url, normalizedKeyword, fetches);
+		} catch (Exception e) {
+			logFetchFailure(e, currentUrl);
+			return;
+		}
+
+		job.recordPageFetched();
+		if (scan.isKeywordFound()) {
+			recordMatch(job, currentUrl);
+		}
+		frontier.addLinks(currentUrl, deduplicate(linkExtractor.resolveLinkTexts(url, scan.getLinks())), scan.isKeywordFound() ? 1 : 0);
+	}
+
+	/**
+	 * Keeps one link per canonical form, as found, so that variants of one page enter the frontier only once.
+	 * Links whose extension marks them as binary files are left out, so they are never fetched.
+	 */
+	private List<String> deduplicate(Set<String> links) {
+		Set<String> keys = new HashSet<>();
+		List<String> kept = new ArrayList<>(links.size());
+		for (String link : links) {
+			String key = keyOf(link);
+			if (key != null && keys.add(key)) {
+				kept.add(link);
+			}
+		}
+		return kept;
+	}
+
+	/**
+	 * Deduplicates links mapped to their anchor texts, as above. The link kept for a page takes its first non-empty text.
+	 */
+	private Map<String, String> deduplicate(Map<String, String> linkTexts) {
+		Map<String, String> linksByKey = new HashMap<>();
+		Map<String, String> kept = new LinkedHashMap<>();
+		linkTexts.forEach((link, text) -> {
+			String key = keyOf(link);
+			if (key == null) {
+				return;
+			}
+			String first = linksByKey.putIfAbsent(key, link);
+			if (first == null) {
+				kept.put(link, text);
+			} else if (kept.get(first).isEmpty()) {
+				kept.put(first, text);
+			}
+		});
+		return kept;
+	}
+
+	/**
+	 * Returns the link's canonical form, or null if it is not an http(s) URL or is skipped for its extension.
+	 */
+	private String keyOf(String link) {
+		String canonical = UrlNormalizer.normalize(link);
+		return canonical != null && !contentPolicy.isSkippedByExtension(canonical) ? canonical : null;
+	}
+
+	private void logFetchFailure(Throwable failure, String currentUrl) {
+		if (failure instanceof NonSuccessfulResponseException || failure instanceof SkippedContentException
+				|| failure instanceof FetchCancelledException) {
+			log(job.getId(), failure.getLocalizedMessage(), currentUrl);
+		} else {
+			log(job.getId(), "Error processing URL", currentUrl);
+		}
+	}
+
+	/**
+	 * Whether this runner's job is checkpointed, so it can be resumed after a restart.
+	 */
+	protected boolean isCheckpointed() {
+		return true;
+	}
+
+	/**
+	 * Whether this crawl indexes the pages it fetches: only one that starts from scratch, reads pages into memory
+	 * and has no page, match or depth limit can see every page of the site.
+	 */
+	private boolean buildsIndex() {
+		CrawlBudget budget = job.getBudget();
+		return indexes.isEnabled() && !usesStreamingScan() && (resumeFrom == null || !resumeFrom.isStarted())
+				&& budget.getMaxPages() == CrawlBudget.NO_LIMIT && budget.getMaxMatches() == CrawlBudget.NO_LIMIT
+				&& budget.getMaxDepth() == CrawlBudget.NO_LIMIT;
+	}
+
+	/**
+	 * Whether blocking fetches stream the page (see {@link PageFetcher#scan}) instead of reading it into memory.
+	 * Only possible when the page is matched against this job's keyword alone.
+	 */
+	protected boolean usesStreamingScan() {
+		return STREAMING_SCAN;
+	}
+
+	/**
+	 * The order in which this runner's frontier hands out URLs, for the job keyword.
+	 */
+	protected FrontierPriority frontierPriority() {
+		return order.priorityFor(normalizedKeyword);
+	}
+
+	/**
+	 * Matches a fetched page against the job keyword, returning how many times it occurs for the frontier to rank
+	 * the page's links with. Subclasses may fan the page out to other jobs instead.
+	 */
+	protected int handlePage(String url, String content) {
+		int matches = countMatches(content);
+		if (matches > 0) {
+			recordMatch(job, url);
+		}
+		return matches;
+	}
+
+	/**
+	 * Counts the keyword's occurrences up to FrontierPriority.MAX_PARENT_MATCHES, or up to one in a breadth-first
+	 * crawl, which does not use the count.
+	 */
+	private int countMatches(String content) {
+		int limit = priority == FrontierPriority.BREADTH_FIRST ? 1 : FrontierPriority.MAX_PARENT_MATCHES;
+		int count = 0;
+		int from = content.indexOf(normalizedKeyword);
+		while (from >= 0 && ++count < limit) {
+			from = content.indexOf(normalizedKeyword, from + normalizedKeyword.length());
+		}
+		return count;
+	}
+
+	protected void recordMatch(Crawl target, String url) {
+		if (target == job && !reserveMatch()) {
+			return;
+		}
+		target.addMatchedUrl(url);
+		log(target.getId(), "Found keyword", url);
+		if (target.getMatchedUrls().size() == 100) {
+			logger.info("[RunningCrawl] jobId={} | Reached 100 matched URLs in {} ms", target.getId(), Duration.between(target.getCreatedAt(), Instant.now()).toMillis());
 		}
 	}
 
-	private void log(String jobId, String message, String url) {
+	protected void log(String jobId, String message, String url) {
 		if (logger.isInfoEnabled()) {
 			logger.info("[RunningCrawl] jobId={} | {}: {}", jobId, message, url);
 		}
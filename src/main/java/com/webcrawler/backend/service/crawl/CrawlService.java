@@ -1,9 +1,14 @@
 package com.webcrawler.backend.service.crawl;
 
 import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlBudget;
+import com.webcrawler.backend.model.crawl.CrawlStatus;
+import com.webcrawler.backend.model.crawl.MatchLog;
 import com.webcrawler.backend.model.crawl.request.CrawlRequest;
+import com.webcrawler.backend.model.crawl.response.CrawlPageResponse;
 import com.webcrawler.backend.model.crawl.response.CrawlResponse;
 import com.webcrawler.backend.model.crawl.response.SimplifiedCrawlResponse;
+import com.webcrawler.backend.utils.EnvConfig;
 import com.webcrawler.backend.utils.IdGenerator;
 import com.webcrawler.backend.utils.exceptions.BadRequestException;
 import com.webcrawler.backend.utils.exceptions.ResourceNotFoundException;
@@ -11,13 +16,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.utils.StringUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service class for managing web crawling operations.
  * This class handles the initiation of crawl jobs and retrieval of their results.
+ * Jobs are kept in a {@link CrawlJobStore}, which bounds how many finished jobs stay in memory.
+ * Running jobs are checkpointed (see {@link CrawlCheckpoints}): checkpointed jobs are resumed on startup,
+ * and shutdown drains the running jobs and checkpoints them.
+ * A request may set a budget the crawl stops at (not applied to jobs sharing a traversal) and a weight, the job's share
+ * of the {@link FetchScheduler} slots, and jobs can be cancelled.
+ * A request without page or depth limits is answered at once from a fresh {@link PageIndexStore} index of the site,
+ * when there is one and the keyword can be looked up in it, instead of crawling.
  */
 
 public class CrawlService {
@@ -25,26 +40,98 @@ public class CrawlService {
 	private static final Logger logger = LoggerFactory.getLogger(CrawlService.class);
 
 	private static final String BASE_URL = System.getenv("BASE_URL");
-	private final Map<String, Crawl> crawlJobs = new ConcurrentHashMap<>();
-	private final ExecutorService executor = new ThreadPoolExecutor(
+	private static final int MAX_PAGE_SIZE = 1000;
+	private static final int MAX_DEADLINE_SECONDS = 86_400;
+	private static final int MAX_WEIGHT = 100;
+	private static final boolean SHARED_TRAVERSAL = EnvConfig.getBoolean("SHARED_TRAVERSAL", false);
+	private final CrawlJobStore crawlJobs;
+	private final CrawlCheckpoints checkpoints;
+	private final PageIndexStore pageIndexes;
+	private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
 			8,                      // core pool size
 			16,                     // max pool size
 			60L, TimeUnit.SECONDS, // idle thread timeout
 			new LinkedBlockingQueue<>(100), // bounded queue of 100 pending jobs
 			new ThreadPoolExecutor.AbortPolicy() // reject tasks beyond limit
 	);
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private final SharedTraversalCoordinator sharedTraversals = new SharedTraversalCoordinator(BASE_URL);
 
-	public CrawlResponse getCrawlResults(String id) {
-		if (StringUtils.isBlank(id)) {
-			logger.warn("Attempted to get crawl results with a blank ID.");
-			throw new BadRequestException("Crawl ID cannot be null or empty.");
+	public CrawlService() {
+		this(TieredCrawlJobStore.fromEnv());
+	}
+
+	public CrawlService(CrawlJobStore crawlJobs) {
+		this(crawlJobs, CrawlCheckpoints.shared());
+	}
+
+	public CrawlService(CrawlJobStore crawlJobs, CrawlCheckpoints checkpoints) {
+		this(crawlJobs, checkpoints, PageIndexStore.shared());
+	}
+
+	public CrawlService(CrawlJobStore crawlJobs, CrawlCheckpoints checkpoints, PageIndexStore pageIndexes) {
+		this.crawlJobs = crawlJobs;
+		this.checkpoints = checkpoints;
+		this.pageIndexes = pageIndexes;
+	}
+
+	/**
+	 * Resumes every checkpointed job, where it stopped or from the start if it had not started.
+	 * Returns how many were resumed.
+	 */
+	public int resumeCheckpointedJobs() {
+		int resumed = 0;
+		for (CrawlCheckpoints.Checkpoint checkpoint : checkpoints.loadAll()) {
+			Crawl job = checkpoint.toJob();
+			if (crawlJobs.find(job.getId()) != null) {
+				continue;
+			}
+			crawlJobs.save(job);
+			try {
+				executor.submit(new CrawlRunner(job, checkpoints, checkpoint));
+				resumed++;
+				logger.info("Resumed crawl job {} from checkpoint with {} pending URLs", job.getId(), checkpoint.getPendingCount());
+			} catch (RejectedExecutionException e) {
+				// The checkpoint stays on disk, so the job is resumed by the next start
+				logger.error("Executor rejected resumed crawl job {}", job.getId());
+				crawlJobs.remove(job.getId());
+			}
 		}
+		return resumed;
+	}
 
-		Crawl job = crawlJobs.get(id);
-		if (job == null) {
-			logger.warn("Crawl job not found for ID: {}", id);
-			throw new ResourceNotFoundException("No crawl found with id: " + id);
+	/**
+	 * Stops accepting jobs, drains the running ones (their URLs in progress complete, nothing new is fetched) so they
+	 * checkpoint themselves, and waits up to the timeout for them. Jobs still queued keep the checkpoint written when
+	 * they were accepted. Returns whether every running job was drained in time.
+	 */
+	public boolean shutdown(Duration timeout) throws InterruptedException {
+		executor.shutdown();
+		List<Runnable> queued = new ArrayList<>();
+		executor.getQueue().drainTo(queued);
+		RunningCrawls.shared().suspendAll();
+		boolean drained = executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		logger.info("Crawl service stopped: {} queued jobs left for the next start, running jobs {}", queued.size(),
+				drained ? "drained" : "still running after " + timeout.toMillis() + " ms");
+		return drained;
+	}
+
+	/**
+	 * Cancels the job if it is still active: it is set to cancelled at once, and its crawl, running or queued,
+	 * stops without fetching anything more. Returns the job's results, which are final from now on.
+	 */
+	public CrawlResponse cancelCrawl(String id) {
+		Crawl job = getCrawl(id);
+		if (job.cancel()) {
+			RunningCrawls.shared().stop(id);
+			checkpoints.delete(id);
+			logger.info("Cancelled crawl job {}", id);
 		}
+		return new CrawlResponse(job.getId(), job.getStatus().getDisplayName(), job.getMatchedUrls());
+	}
+
+	public CrawlResponse getCrawlResults(String id) {
+		Crawl job = getCrawl(id);
 
 		logger.info("Retrieved crawl results for ID: {}", id);
 		return new CrawlResponse(
@@ -54,27 +141,117 @@ public class CrawlService {
 		);
 	}
 
+	/**
+	 * Returns up to limit matched URLs found after the given cursor (a match sequence number, 0 for the start).
+	 */
+	public CrawlPageResponse getCrawlResultsPage(String id, long after, int limit) {
+		if (after < 0) {
+			throw new BadRequestException("Cursor 'after' cannot be negative.");
+		}
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+		}
+		Crawl job = getCrawl(id);
+
+		// Read the status first: if it says done, the page below already holds the final matches
+		String status = job.getStatus().getDisplayName();
+		MatchLog log = job.getMatchLog();
+		List<String> urls = log.readAfter(after, limit);
+		return new CrawlPageResponse(job.getId(), status, urls, Math.min(after, log.size()) + urls.size(), log.size());
+	}
+
+	public Crawl getCrawl(String id) {
+		if (StringUtils.isBlank(id)) {
+			logger.warn("Attempted to get crawl results with a blank ID.");
+			throw new BadRequestException("Crawl ID cannot be null or empty.");
+		}
+
+		Crawl job = crawlJobs.find(id);
+		if (job == null) {
+			logger.warn("Crawl job not found for ID: {}", id);
+			throw new ResourceNotFoundException("No crawl found with id: " + id);
+		}
+		return job;
+	}
+
 	public SimplifiedCrawlResponse startCrawl(CrawlRequest request) {
 		validateCrawlRequest(request);
 		String keyword = request.getKeyword();
 
 		String id = IdGenerator.generateId();
 		Crawl job = new Crawl(id, keyword.toLowerCase(Locale.ROOT));
-		crawlJobs.put(id, job);
+		job.setBudget(budgetOf(request, job));
+		job.setWeight(request.getWeight() != null ? request.getWeight() : Crawl.DEFAULT_WEIGHT);
+		if (answerFromIndex(job)) {
+			return new SimplifiedCrawlResponse(id);
+		}
+		crawlJobs.save(job);
+		if (!SHARED_TRAVERSAL) {
+			checkpoints.saveAccepted(job, BASE_URL);
+		}
 		logger.info("Crawl job created with ID: {} and keyword: {}", id, keyword);
 
 		try {
-			executor.submit(new CrawlRunner(BASE_URL, job));
+			if (SHARED_TRAVERSAL) {
+				sharedTraversals.submit(job, executor);
+			} else {
+				executor.submit(new CrawlRunner(BASE_URL, job, pageIndexes));
+			}
 			logger.debug("Submitted crawl job {} to executor", id);
 		} catch (RejectedExecutionException e) {
 			logger.error("Executor rejected crawl job {} due to system overload", id);
+			rejectedCount.incrementAndGet();
 			crawlJobs.remove(id);
+			checkpoints.delete(id);
 			throw new BadRequestException("Crawl job could not be started due to system overload. Please try again later.");
 		}
 
 		return new SimplifiedCrawlResponse(id);
 	}
 
+	/**
+	 * Completes the job from the site's index if it is fresh and holds the keyword's answer, and saves it.
+	 * A page or depth limit changes which pages a crawl would see, so such jobs are always crawled.
+	 */
+	private boolean answerFromIndex(Crawl job) {
+		CrawlBudget budget = job.getBudget();
+		if (budget.getMaxPages() != CrawlBudget.NO_LIMIT || budget.getMaxDepth() != CrawlBudget.NO_LIMIT) {
+			return false;
+		}
+		long start = System.nanoTime();
+		List<String> matches = pageIndexes.find(BASE_URL, job.getKeyword());
+		if (matches == null) {
+			return false;
+		}
+		int maxMatches = budget.getMaxMatches();
+		for (String url : maxMatches == CrawlBudget.NO_LIMIT ? matches : matches.subList(0, Math.min(maxMatches, matches.size()))) {
+			job.addMatchedUrl(url);
+		}
+		job.setStatus(CrawlStatus.DONE);
+		crawlJobs.save(job);
+		logger.info("Crawl job {} answered from the page index with {} matches in {} ms", job.getId(), job.getMatchedUrls().size(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return true;
+	}
+
+	/**
+	 * Number of accepted crawl jobs waiting for an executor thread.
+	 */
+	public int getQueuedJobCount() {
+		return executor.getQueue().size();
+	}
+
+	public int getActiveThreadCount() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * Number of crawl jobs turned away because the executor and its queue were full.
+	 */
+	public long getRejectedJobCount() {
+		return rejectedCount.get();
+	}
+
 	private void validateCrawlRequest(CrawlRequest request) {
 		if (request == null || StringUtils.isBlank(request.getKeyword())) {
 			logger.warn("Received invalid crawl request: null or blank keyword");
@@ -84,6 +261,35 @@ public class CrawlService {
 			logger.warn("Keyword length out of bounds: {}", request.getKeyword());
 			throw new BadRequestException("Keyword must be between 4 and 32 characters.");
 		}
+		requireAtLeast(request.getMaxPages(), 1, "maxPages");
+		requireAtLeast(request.getMaxMatches(), 1, "maxMatches");
+		requireAtLeast(request.getMaxDepth(), 0, "maxDepth");
+		Integer deadline = request.getDeadlineSeconds();
+		if (deadline != null && (deadline < 1 || deadline > MAX_DEADLINE_SECONDS)) {
+			logger.warn("Deadline out of bounds: {}", deadline);
+			throw new BadRequestException("deadlineSeconds must be between 1 and " + MAX_DEADLINE_SECONDS + ".");
+		}
+		Integer weight = request.getWeight();
+		if (weight != null && (weight < 1 || weight > MAX_WEIGHT)) {
+			logger.warn("Weight out of bounds: {}", weight);
+			throw new BadRequestException("weight must be between 1 and " + MAX_WEIGHT + ".");
+		}
+	}
+
+	private static void requireAtLeast(Integer value, int minimum, String name) {
+		if (value != null && value < minimum) {
+			logger.warn("Budget {} out of bounds: {}", name, value);
+			throw new BadRequestException(name + " must be at least " + minimum + ".");
+		}
+	}
+
+	private static CrawlBudget budgetOf(CrawlRequest request, Crawl job) {
+		return new CrawlBudget(
+				request.getMaxPages() != null ? request.getMaxPages() : CrawlBudget.NO_LIMIT,
+				request.getMaxMatches() != null ? request.getMaxMatches() : CrawlBudget.NO_LIMIT,
+				request.getMaxDepth() != null ? request.getMaxDepth() : CrawlBudget.NO_LIMIT,
+				request.getDeadlineSeconds() != null ? job.getCreatedAt().plusSeconds(request.getDeadlineSeconds()) : null
+		);
 	}
 
 }
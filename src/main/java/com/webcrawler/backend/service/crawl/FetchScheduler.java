@@ -0,0 +1,197 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.utils.EnvConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Service-wide pool of fetch slots shared by every job in the SCHEDULED execution mode.
+ * Jobs register their frontier and the scheduler decides whose URL each free slot processes next, using
+ * start-time fair queuing: each job carries a virtual start tag advanced by 1/weight per dispatched URL, and the
+ * job with the smallest tag that has a URL ready goes first. A job joining or coming back from idle starts at the
+ * current virtual time, so it neither starves behind large jobs nor claims a burst of slots for its idle period.
+ * The per-host cap is enforced below the scheduler, by the shared {@link com.webcrawler.backend.utils.HostConcurrencyLimits}.
+ */
+
+public class FetchScheduler {
+
+	private static final Logger logger = LoggerFactory.getLogger(FetchScheduler.class);
+	private static final FetchScheduler SHARED = new FetchScheduler(EnvConfig.getInt("FETCH_SCHEDULER_SLOTS", 32));
+
+	private final int slots;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition work = lock.newCondition();
+	private final List<Participant> participants = new ArrayList<>();
+	private final AtomicInteger busySlots = new AtomicInteger();
+	private double virtualTime;
+	private boolean started;
+
+	public FetchScheduler(int slots) {
+		if (slots < 1) {
+			throw new IllegalArgumentException("The scheduler needs at least one slot.");
+		}
+		this.slots = slots;
+	}
+
+	public static FetchScheduler shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Starts serving the frontier's URLs to the processor, which runs on a scheduler slot.
+	 * Every URL handed to the processor is completed on the frontier afterwards. Closing the
+	 * returned registration stops dispatching; URLs already being processed finish normally.
+	 */
+	public Registration register(String jobId, double weight, CrawlFrontier frontier, Consumer<String> processor) {
+		if (weight <= 0) {
+			throw new IllegalArgumentException("Weight must be positive.");
+		}
+		Participant participant = new Participant(jobId, weight, frontier, processor);
+		lock.lock();
+		try {
+			participant.startTag = virtualTime;
+			participants.add(participant);
+			startSlots();
+			work.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		frontier.setOnAvailable(this::wakeUp);
+		return participant;
+	}
+
+	public int getSlotCount() {
+		return slots;
+	}
+
+	public int getBusySlots() {
+		return busySlots.get();
+	}
+
+	public int getJobCount() {
+		lock.lock();
+		try {
+			return participants.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void startSlots() {
+		if (started) {
+			return;
+		}
+		started = true;
+		for (int i = 0; i < slots; i++) {
+			Thread slot = new Thread(this::serve, "fetch-slot-" + i);
+			slot.setDaemon(true);
+			slot.start();
+		}
+	}
+
+	private void serve() {
+		while (true) {
+			Dispatch next;
+			lock.lock();
+			try {
+				while ((next = pickNext()) == null) {
+					work.awaitUninterruptibly();
+				}
+			} finally {
+				lock.unlock();
+			}
+
+			busySlots.incrementAndGet();
+			try {
+				next.participant.processor.accept(next.url);
+			} catch (RuntimeException e) {
+				logger.error("[FetchScheduler] jobId={} | Error processing URL {}", next.participant.jobId, next.url, e);
+			} finally {
+				next.participant.frontier.complete(next.url);
+				busySlots.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Returns the next URL of the job with the smallest start tag that has one ready, or null. Called under the lock.
+	 */
+	private Dispatch pickNext() {
+		if (participants.isEmpty()) {
+			return null;
+		}
+		List<Participant> byTag = new ArrayList<>(participants);
+		byTag.sort(Comparator.comparingDouble(participant -> Math.max(participant.startTag, virtualTime)));
+		for (Participant participant : byTag) {
+			String url = participant.frontier.poll();
+			if (url != null) {
+				double start = Math.max(participant.startTag, virtualTime);
+				virtualTime = start;
+				participant.startTag = start + 1.0 / participant.weight;
+				return new Dispatch(participant, url);
+			}
+		}
+		return null;
+	}
+
+	private void wakeUp() {
+		lock.lock();
+		try {
+			work.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * A job's membership in the scheduler.
+	 */
+	public interface Registration extends AutoCloseable {
+		@Override
+		void close();
+	}
+
+	private final class Participant implements Registration {
+		private final String jobId;
+		private final double weight;
+		private final CrawlFrontier frontier;
+		private final Consumer<String> processor;
+		private double startTag;
+
+		private Participant(String jobId, double weight, CrawlFrontier frontier, Consumer<String> processor) {
+			this.jobId = jobId;
+			this.weight = weight;
+			this.frontier = frontier;
+			this.processor = processor;
+		}
+
+		@Override
+		public void close() {
+			frontier.setOnAvailable(null);
+			lock.lock();
+			try {
+				participants.remove(this);
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private static final class Dispatch {
+		private final Participant participant;
+		private final String url;
+
+		private Dispatch(Participant participant, String url) {
+			this.participant = participant;
+			this.url = url;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.webcrawler.backend.service.crawl;
+
+import java.util.Locale;
+
+/**
+ * Selects the order in which a {@link CrawlRunner} fetches the URLs it discovers.
+ * BREADTH_FIRST fetches level by level from the base URL; BEST_FIRST fetches the URLs most likely to hold the
+ * keyword first (see {@link BestFirstPriority}), reaching matches sooner when related pages link to each other.
+ */
+
+public enum FrontierOrder {
+	BREADTH_FIRST,
+	BEST_FIRST;
+
+	/**
+	 * Returns the priority a frontier of a crawl for the keyword, in lower case, uses in this order.
+	 */
+	public FrontierPriority priorityFor(String keyword) {
+		switch (this) {
+			case BEST_FIRST:
+				return new BestFirstPriority(keyword);
+			default:
+				return FrontierPriority.BREADTH_FIRST;
+		}
+	}
+
+	public static FrontierOrder fromName(String name) {
+		if (name == null || name.isBlank()) {
+			return BREADTH_FIRST;
+		}
+		try {
+			return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+		} catch (IllegalArgumentException e) {
+			return BREADTH_FIRST;
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package com.webcrawler.backend.service.crawl;
+
+/**
+ * Decides which URLs a {@link CrawlFrontier} hands out first. Each URL is ranked once, when it is queued, from what
+ * is known about it then: lower ranks are handed out first, URLs of equal rank shallowest first, then oldest first.
+ * The URLs of one depth should take a small, fixed number of ranks, since the frontier keeps one queue per rank
+ * and depth.
+ */
+
+public interface FrontierPriority {
+
+	/**
+	 * Keyword occurrences on a page are counted up to this many when ranking its links.
+	 */
+	int MAX_PARENT_MATCHES = 3;
+
+	/**
+	 * Ranks every URL alike, so URLs are handed out level by level: a breadth-first crawl.
+	 */
+	FrontierPriority BREADTH_FIRST = (url, depth, anchorText, parentMatches) -> 0;
+
+	/**
+	 * Ranks a URL found at the given link depth. anchorText is the text of the link it was found through, empty when
+	 * unknown (the base URL, sitemap URLs, URLs restored from a checkpoint); parentMatches is how many times the
+	 * keyword occurs on the page that links to it, counted up to MAX_PARENT_MATCHES.
+	 */
+	int rank(String url, int depth, String anchorText, int parentMatches);
+}
@@ -0,0 +1,53 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.utils.EnvConfig;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * FIFO storage behind a {@link CrawlFrontier}. Not thread-safe: the frontier calls it under its own lock.
+ */
+
+public interface FrontierQueue {
+
+	void addLast(String url);
+
+	/**
+	 * Removes and returns the oldest URL, or null if the queue is empty.
+	 */
+	String pollFirst();
+
+	int size();
+
+	/**
+	 * Passes every queued URL, oldest first, to the action without removing it.
+	 */
+	void forEach(Consumer<String> action);
+
+	default boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Drops every queued URL and releases any resources held by the queue. The queue stays usable.
+	 */
+	void clear();
+
+	/**
+	 * Returns the queues configured by the environment for one frontier: {@link SpillingFrontierQueue}s that hold up to
+	 * CRAWL_FRONTIER_MEMORY_BYTES in memory between them and share one spill directory, or plain in-memory queues
+	 * when the budget is 0.
+	 */
+	static Supplier<FrontierQueue> factory() {
+		long memoryBytes = EnvConfig.getLong("CRAWL_FRONTIER_MEMORY_BYTES", 8L * 1024 * 1024);
+		if (memoryBytes <= 0) {
+			return MemoryFrontierQueue::new;
+		}
+		Path spillDir = Paths.get(EnvConfig.getString("CRAWL_FRONTIER_SPILL_DIR", System.getProperty("java.io.tmpdir")));
+		SpillingFrontierQueue.SharedSpace space = new SpillingFrontierQueue.SharedSpace(memoryBytes, spillDir);
+		return () -> new SpillingFrontierQueue(space, SpillingFrontierQueue.DEFAULT_SEGMENT_BYTES);
+	}
+}
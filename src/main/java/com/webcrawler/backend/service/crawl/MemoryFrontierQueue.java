@@ -0,0 +1,39 @@
+package com.webcrawler.backend.service.crawl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * Unbounded in-memory {@link FrontierQueue}.
+ */
+
+public class MemoryFrontierQueue implements FrontierQueue {
+
+	private final Deque<String> queue = new ArrayDeque<>();
+
+	@Override
+	public void addLast(String url) {
+		queue.addLast(url);
+	}
+
+	@Override
+	public String pollFirst() {
+		return queue.pollFirst();
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+	@Override
+	public void forEach(Consumer<String> action) {
+		queue.forEach(action);
+	}
+
+	@Override
+	public void clear() {
+		queue.clear();
+	}
+}
@@ -0,0 +1,278 @@
+package com.webcrawler.backend.service.crawl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Inverted index of the pages of one complete crawl, as written by {@link PageIndexWriter}: each term maps to the
+ * ids of the pages holding it. Terms are the maximal runs of letters and digits of a page as it was matched, so a
+ * keyword made of letters and digits alone occurs in a page exactly when it occurs inside one of its terms; other
+ * keywords cannot be answered (see {@link #canAnswer(String)}). To find those terms without scanning the vocabulary,
+ * the index keeps a trigram index over it in memory, built when the index is read: a keyword only occurs inside terms
+ * holding each of its trigrams, so a query checks the terms of its rarest trigram alone.
+ *
+ * On disk, in one gzip stream: the base URL, when the crawl started, the page URLs by id, then the vocabulary sorted
+ * and front-coded (each term stored as the length of the prefix it shares with the previous one and the rest),
+ * each followed by its posting list as ascending page ids, delta- and varint-encoded. Posting lists stay compressed
+ * in memory once read, and are only decoded for the terms a query hits.
+ */
+
+public final class PageIndex {
+
+	static final int FORMAT_VERSION = 1;
+	/**
+	 * Longest keyword the index can answer, the longest a crawl request accepts.
+	 */
+	static final int MAX_KEYWORD_LENGTH = 32;
+	/**
+	 * Longest term. Longer runs are indexed as windows of this length every MAX_KEYWORD_LENGTH characters, so that any
+	 * keyword within the run lies inside one of them.
+	 */
+	static final int MAX_TERM_LENGTH = 2 * MAX_KEYWORD_LENGTH;
+
+	private final String baseUrl;
+	private final Instant builtAt;
+	private final String[] urls;
+	private final String[] terms;
+	private final int[] postingOffsets; // one more than terms, so term t's postings end where t + 1's start
+	private final byte[] postings;
+	private final TrigramIndex trigrams;
+
+	private PageIndex(String baseUrl, Instant builtAt, String[] urls, String[] terms, int[] postingOffsets, byte[] postings) {
+		this.baseUrl = baseUrl;
+		this.builtAt = builtAt;
+		this.urls = urls;
+		this.terms = terms;
+		this.postingOffsets = postingOffsets;
+		this.postings = postings;
+		this.trigrams = new TrigramIndex(terms);
+	}
+
+	/**
+	 * Whether a keyword, in lower case, can be answered from an index: it is made of letters and digits alone
+	 * and is no longer than MAX_KEYWORD_LENGTH.
+	 */
+	public static boolean canAnswer(String keyword) {
+		if (keyword == null || keyword.isEmpty() || keyword.length() > MAX_KEYWORD_LENGTH) {
+			return false;
+		}
+		for (int i = 0; i < keyword.length(); i++) {
+			if (!Character.isLetterOrDigit(keyword.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the URLs of the pages holding the keyword, in lower case, in the order the crawl fetched them,
+	 * or null if the keyword cannot be answered from an index.
+	 */
+	public List<String> find(String keyword) {
+		if (!canAnswer(keyword)) {
+			return null;
+		}
+		BitSet pages = new BitSet(urls.length);
+		if (keyword.length() < TrigramIndex.GRAM_LENGTH) {
+			for (int t = 0; t < terms.length; t++) {
+				addPagesIfHeld(t, keyword, pages);
+			}
+		} else {
+			int gram = trigrams.rarestGram(keyword);
+			if (gram >= 0) {
+				for (int i = trigrams.offsets[gram]; i < trigrams.offsets[gram + 1]; i++) {
+					addPagesIfHeld(trigrams.terms[i], keyword, pages);
+				}
+			}
+		}
+		List<String> found = new ArrayList<>(pages.cardinality());
+		for (int page = pages.nextSetBit(0); page >= 0; page = pages.nextSetBit(page + 1)) {
+			found.add(urls[page]);
+		}
+		return found;
+	}
+
+	private void addPagesIfHeld(int term, String keyword, BitSet pages) {
+		if (terms[term].length() >= keyword.length() && terms[term].contains(keyword)) {
+			decodePostings(term, pages);
+		}
+	}
+
+	private void decodePostings(int term, BitSet pages) {
+		int position = postingOffsets[term];
+		int end = postingOffsets[term + 1];
+		int page = 0;
+		while (position < end) {
+			int delta = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = postings[position++];
+				delta |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			page += delta;
+			pages.set(page);
+		}
+	}
+
+	public boolean isFresh(Duration maxAge) {
+		return Duration.between(builtAt, Instant.now()).compareTo(maxAge) <= 0;
+	}
+
+	public String getBaseUrl() {
+		return baseUrl;
+	}
+
+	/**
+	 * When the crawl the index was built from started, which is as old as any of its pages can be.
+	 */
+	public Instant getBuiltAt() {
+		return builtAt;
+	}
+
+	public int getPageCount() {
+		return urls.length;
+	}
+
+	public int getTermCount() {
+		return terms.length;
+	}
+
+	public static PageIndex read(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+			if (in.readInt() != FORMAT_VERSION) {
+				throw new IOException("Unsupported page index format");
+			}
+			String baseUrl = in.readUTF();
+			Instant builtAt = Instant.ofEpochMilli(in.readLong());
+			String[] urls = new String[in.readInt()];
+			for (int i = 0; i < urls.length; i++) {
+				urls[i] = in.readUTF();
+			}
+			String[] terms = new String[in.readInt()];
+			int[] postingOffsets = new int[terms.length + 1];
+			ByteArrayOutputStream postings = new ByteArrayOutputStream();
+			String previous = "";
+			for (int t = 0; t < terms.length; t++) {
+				int shared = in.readUnsignedByte();
+				terms[t] = previous.substring(0, shared) + in.readUTF();
+				previous = terms[t];
+				byte[] encoded = new byte[readVarint(in)];
+				in.readFully(encoded);
+				postingOffsets[t] = postings.size();
+				postings.write(encoded);
+			}
+			postingOffsets[terms.length] = postings.size();
+			return new PageIndex(baseUrl, builtAt, urls, terms, postingOffsets, postings.toByteArray());
+		}
+	}
+
+	/**
+	 * For each sequence of GRAM_LENGTH characters in the vocabulary, the ascending ids of the terms holding it, as one
+	 * array sliced by gram id like the posting lists.
+	 */
+	private static final class TrigramIndex {
+		static final int GRAM_LENGTH = 3;
+
+		private final Map<Long, Integer> ids = new HashMap<>();
+		private final int[] offsets;
+		private final int[] terms;
+
+		TrigramIndex(String[] vocabulary) {
+			// One (gram id, term id) pair per gram occurrence; sorting groups them by gram, in ascending term order
+			long[] pairs = new long[Math.max(16, vocabulary.length)];
+			int count = 0;
+			for (int t = 0; t < vocabulary.length; t++) {
+				String term = vocabulary[t];
+				for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+					long gram = gramAt(term, i);
+					Integer id = ids.get(gram);
+					if (id == null) {
+						id = ids.size();
+						ids.put(gram, id);
+					}
+					if (count == pairs.length) {
+						pairs = Arrays.copyOf(pairs, pairs.length * 2);
+					}
+					pairs[count++] = (long) id << 32 | t;
+				}
+			}
+			Arrays.sort(pairs, 0, count);
+
+			offsets = new int[ids.size() + 1];
+			int[] termIds = new int[count];
+			int kept = 0;
+			for (int i = 0; i < count; i++) {
+				if (i > 0 && pairs[i] == pairs[i - 1]) {
+					continue; // the gram occurs more than once in the term
+				}
+				offsets[(int) (pairs[i] >>> 32) + 1]++;
+				termIds[kept++] = (int) pairs[i];
+			}
+			for (int gram = 0; gram < ids.size(); gram++) {
+				offsets[gram + 1] += offsets[gram];
+			}
+			terms = Arrays.copyOf(termIds, kept);
+		}
+
+		/**
+		 * Returns the id of the keyword's gram held by the fewest terms, or -1 if one of its grams is in no term.
+		 */
+		int rarestGram(String keyword) {
+			int rarest = -1;
+			for (int i = 0; i + GRAM_LENGTH <= keyword.length(); i++) {
+				Integer id = ids.get(gramAt(keyword, i));
+				if (id == null) {
+					return -1;
+				}
+				if (rarest < 0 || offsets[id + 1] - offsets[id] < offsets[rarest + 1] - offsets[rarest]) {
+					rarest = id;
+				}
+			}
+			return rarest;
+		}
+
+		private static long gramAt(String text, int index) {
+			return (long) text.charAt(index) << 32 | (long) text.charAt(index + 1) << 16 | text.charAt(index + 2);
+		}
+	}
+
+	static void writeVarint(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	static int readVarint(DataInput in) throws IOException {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			if (shift > 28) {
+				throw new IOException("Malformed varint");
+			}
+			b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		return value;
+	}
+}
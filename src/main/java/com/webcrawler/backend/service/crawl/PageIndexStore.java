@@ -0,0 +1,140 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.utils.EnvConfig;
+import com.webcrawler.backend.utils.FingerprintUrlSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk {@link PageIndex} of the last complete crawl of each base URL, so that a keyword can be answered without
+ * crawling again while the index is fresh, i.e. its crawl started at most CRAWL_INDEX_MAX_AGE_SECONDS ago.
+ * Each base URL has one file, replaced atomically when a newer crawl completes; indexes are kept in memory once read.
+ * Disabled unless CRAWL_INDEX_DIR is set.
+ */
+
+public class PageIndexStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(PageIndexStore.class);
+	private static final String SUFFIX = ".idx.gz";
+
+	private static final PageIndexStore SHARED = fromEnv();
+
+	private final Path directory;
+	private final Duration maxAge;
+	private final Map<String, PageIndex> loaded = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a store under the directory, or a disabled store if the directory is null.
+	 */
+	public PageIndexStore(Path directory, Duration maxAge) {
+		this.directory = directory;
+		this.maxAge = maxAge;
+		if (directory != null) {
+			try {
+				Files.createDirectories(directory);
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot create index directory " + directory, e);
+			}
+		}
+	}
+
+	public static PageIndexStore shared() {
+		return SHARED;
+	}
+
+	private static PageIndexStore fromEnv() {
+		String directory = EnvConfig.getString("CRAWL_INDEX_DIR", null);
+		return new PageIndexStore(directory == null ? null : Paths.get(directory),
+				Duration.ofSeconds(Math.max(0, EnvConfig.getLong("CRAWL_INDEX_MAX_AGE_SECONDS", 600))));
+	}
+
+	public boolean isEnabled() {
+		return directory != null;
+	}
+
+	/**
+	 * Stores the index of a complete crawl of the base URL, replacing the previous one.
+	 */
+	public void publish(String baseUrl, PageIndexWriter writer) {
+		if (directory == null) {
+			return;
+		}
+		Path temp = null;
+		try {
+			temp = Files.createTempFile(directory, "index-", ".tmp");
+			writer.write(temp, baseUrl);
+			Path file = fileFor(baseUrl);
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			PageIndex index = PageIndex.read(file);
+			loaded.put(baseUrl, index);
+			logger.info("[PageIndexStore] Indexed {} pages and {} terms of {} in {} bytes", index.getPageCount(),
+					index.getTermCount(), baseUrl, Files.size(file));
+		} catch (IOException e) {
+			logger.warn("[PageIndexStore] Could not write index of {}", baseUrl, e);
+			deleteQuietly(temp);
+		}
+	}
+
+	/**
+	 * Returns the pages of the base URL holding the keyword, in lower case, according to its index, or null if it
+	 * has no fresh index or the keyword cannot be answered from one (see {@link PageIndex#canAnswer(String)}).
+	 */
+	public List<String> find(String baseUrl, String keyword) {
+		if (directory == null || baseUrl == null || !PageIndex.canAnswer(keyword)) {
+			return null;
+		}
+		PageIndex index = indexOf(baseUrl);
+		if (index == null || !index.isFresh(maxAge)) {
+			return null;
+		}
+		return index.find(keyword);
+	}
+
+	private PageIndex indexOf(String baseUrl) {
+		PageIndex index = loaded.get(baseUrl);
+		if (index != null) {
+			return index;
+		}
+		Path file = fileFor(baseUrl);
+		if (!Files.exists(file)) {
+			return null;
+		}
+		try {
+			index = PageIndex.read(file);
+		} catch (IOException e) {
+			logger.warn("[PageIndexStore] Could not read index of {}", baseUrl, e);
+			return null;
+		}
+		if (!index.getBaseUrl().equals(baseUrl)) {
+			return null; // another base URL with the same fingerprint
+		}
+		// An index published meanwhile is newer than the one just read
+		PageIndex published = loaded.putIfAbsent(baseUrl, index);
+		return published != null ? published : index;
+	}
+
+	private Path fileFor(String baseUrl) {
+		return directory.resolve(Long.toHexString(FingerprintUrlSet.fingerprint(baseUrl)) + SUFFIX);
+	}
+
+	private static void deleteQuietly(Path temp) {
+		if (temp == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(temp);
+		} catch (IOException ignored) {
+			// Leftover temp files are harmless and never read
+		}
+	}
+}
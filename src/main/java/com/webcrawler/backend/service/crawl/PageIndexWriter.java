@@ -0,0 +1,136 @@
+package com.webcrawler.backend.service.crawl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Collects the terms of the pages a crawl fetches and writes them out as a {@link PageIndex}.
+ * Pages may be added from any thread: they are split into terms by the calling thread, and only numbered and
+ * appended to the posting lists under the writer's lock, so each list stays in ascending page order.
+ */
+
+public class PageIndexWriter {
+
+	private final Instant startedAt = Instant.now();
+	private final List<String> urls = new ArrayList<>();
+	private final Map<String, Postings> postings = new HashMap<>();
+
+	/**
+	 * Adds a fetched page, its content in lower case as it is matched against keywords.
+	 */
+	public void addPage(String url, String content) {
+		Set<String> terms = termsOf(content);
+		synchronized (this) {
+			int page = urls.size();
+			urls.add(url);
+			for (String term : terms) {
+				postings.computeIfAbsent(term, t -> new Postings()).add(page);
+			}
+		}
+	}
+
+	public synchronized int getPageCount() {
+		return urls.size();
+	}
+
+	/**
+	 * Returns the distinct terms of the content: its maximal runs of letters and digits, with runs longer than
+	 * PageIndex.MAX_TERM_LENGTH split into overlapping windows.
+	 */
+	static Set<String> termsOf(String content) {
+		Set<String> terms = new HashSet<>();
+		int length = content.length();
+		int i = 0;
+		while (i < length) {
+			if (!Character.isLetterOrDigit(content.charAt(i))) {
+				i++;
+				continue;
+			}
+			int start = i;
+			while (i < length && Character.isLetterOrDigit(content.charAt(i))) {
+				i++;
+			}
+			for (int from = start; ; from += PageIndex.MAX_KEYWORD_LENGTH) {
+				int to = Math.min(from + PageIndex.MAX_TERM_LENGTH, i);
+				terms.add(content.substring(from, to));
+				if (to == i) {
+					break;
+				}
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * Writes the index to the file in the format {@link PageIndex#read(Path)} reads, dated when this writer was
+	 * created, i.e. when the crawl started.
+	 */
+	synchronized void write(Path file, String baseUrl) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))))) {
+			out.writeInt(PageIndex.FORMAT_VERSION);
+			out.writeUTF(baseUrl);
+			out.writeLong(startedAt.toEpochMilli());
+			out.writeInt(urls.size());
+			for (String url : urls) {
+				out.writeUTF(url);
+			}
+			List<String> terms = new ArrayList<>(postings.keySet());
+			Collections.sort(terms);
+			out.writeInt(terms.size());
+			String previous = "";
+			for (String term : terms) {
+				int shared = sharedPrefixLength(previous, term);
+				out.writeByte(shared);
+				out.writeUTF(term.substring(shared));
+				Postings list = postings.get(term);
+				PageIndex.writeVarint(out, list.size);
+				out.write(list.bytes, 0, list.size);
+				previous = term;
+			}
+		}
+	}
+
+	private static int sharedPrefixLength(String a, String b) {
+		int max = Math.min(a.length(), b.length());
+		int i = 0;
+		while (i < max && a.charAt(i) == b.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Posting list kept encoded as it grows: the gaps between ascending page ids, as varints.
+	 */
+	private static final class Postings {
+		private byte[] bytes = new byte[4];
+		private int size;
+		private int lastPage;
+
+		void add(int page) {
+			int delta = page - lastPage;
+			lastPage = page;
+			if (size + 5 > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + 5));
+			}
+			while ((delta & ~0x7F) != 0) {
+				bytes[size++] = (byte) ((delta & 0x7F) | 0x80);
+				delta >>>= 7;
+			}
+			bytes[size++] = (byte) delta;
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.model.crawl.Crawl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the crawl jobs currently running in this process, with their frontiers, so their progress
+ * (frontier depth, visited URLs, pages fetched) can be observed while they run. Runners add their job when they
+ * start and remove it when they finish. A running job can be stopped through the registry when it is cancelled,
+ * and before shutdown every running job can be suspended at once.
+ */
+
+public class RunningCrawls {
+
+	private static final RunningCrawls SHARED = new RunningCrawls();
+
+	private final Map<String, Entry> running = new ConcurrentHashMap<>();
+	private volatile boolean suspending;
+
+	public static RunningCrawls shared() {
+		return SHARED;
+	}
+
+	public void add(Crawl job, CrawlFrontier frontier) {
+		add(job, frontier, frontier::close);
+	}
+
+	/**
+	 * Registers a running job with what stops its crawl when the job is cancelled.
+	 */
+	public void add(Crawl job, CrawlFrontier frontier, Runnable stop) {
+		running.put(job.getId(), new Entry(job, frontier, stop));
+		if (suspending) {
+			frontier.suspend(); // started while the others were being suspended
+		}
+	}
+
+	/**
+	 * Suspends the frontier of every running job, and of any job starting from now on, so they all drain.
+	 */
+	public void suspendAll() {
+		suspending = true;
+		running.values().forEach(entry -> entry.frontier.suspend());
+	}
+
+	/**
+	 * Stops the crawl of a running job. Returns false if the job is not running in this process.
+	 */
+	public boolean stop(String jobId) {
+		Entry entry = running.get(jobId);
+		if (entry == null) {
+			return false;
+		}
+		entry.stop.run();
+		return true;
+	}
+
+	public void remove(Crawl job) {
+		running.remove(job.getId());
+	}
+
+	public List<Entry> snapshot() {
+		return new ArrayList<>(running.values());
+	}
+
+	/**
+	 * A running job and its frontier.
+	 */
+	public static final class Entry {
+		private final Crawl job;
+		private final CrawlFrontier frontier;
+		private final Runnable stop;
+
+		private Entry(Crawl job, CrawlFrontier frontier, Runnable stop) {
+			this.job = job;
+			this.frontier = frontier;
+			this.stop = stop;
+		}
+
+		public Crawl getJob() {
+			return job;
+		}
+
+		public int getFrontierDepth() {
+			return frontier.size();
+		}
+	}
+}
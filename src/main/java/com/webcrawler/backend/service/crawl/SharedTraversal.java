@@ -0,0 +1,130 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlStatus;
+import com.webcrawler.backend.utils.KeywordAutomaton;
+import com.webcrawler.backend.utils.PageFetcher;
+import com.webcrawler.backend.utils.exceptions.NonSuccessfulResponseException;
+import com.webcrawler.backend.utils.exceptions.SkippedContentException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * A single traversal of the base URL that serves every crawl job attached to it.
+ * Each fetched page is matched against all attached keywords in one pass with a {@link KeywordAutomaton}
+ * and matches are fanned out to the owning jobs. Jobs attaching late get a catch-up pass over the pages
+ * already seen, which are served from the shared page cache.
+ */
+
+public class SharedTraversal extends CrawlRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(SharedTraversal.class);
+
+	private final String traversalId;
+	private final Executor catchUpExecutor;
+	private final PageFetcher pageFetcher = new PageFetcher();
+
+	private final List<Crawl> attachedJobs = new CopyOnWriteArrayList<>();
+	private final Queue<String> processedPages = new ConcurrentLinkedQueue<>();
+	private final List<CompletableFuture<Void>> catchUps = new ArrayList<>();
+	private volatile KeywordAutomaton automaton = new KeywordAutomaton(List.of());
+	private boolean finished;
+
+	public SharedTraversal(String baseUrl, String traversalId, Executor catchUpExecutor) {
+		super(baseUrl, new Crawl(traversalId, ""));
+		this.traversalId = traversalId;
+		this.catchUpExecutor = catchUpExecutor;
+	}
+
+	/**
+	 * Attaches a job to this traversal. Returns false if the traversal has already finished,
+	 * in which case the caller must start a new one.
+	 */
+	public synchronized boolean attach(Crawl job) {
+		if (finished) {
+			return false;
+		}
+
+		attachedJobs.add(job);
+		automaton = new KeywordAutomaton(attachedJobs.stream().map(Crawl::getKeyword).collect(Collectors.toList()));
+
+		// Pages recorded before this point may have been matched with the previous automaton
+		List<String> seen = new ArrayList<>(processedPages);
+		if (!seen.isEmpty()) {
+			logger.info("[SharedTraversal] traversalId={} | jobId={} joined late, catching up on {} pages", traversalId, job.getId(), seen.size());
+			catchUps.add(CompletableFuture.runAsync(() -> catchUp(job, seen), catchUpExecutor));
+		}
+		return true;
+	}
+
+	@Override
+	public void run() {
+		try {
+			super.run();
+		} finally {
+			List<CompletableFuture<Void>> pending;
+			synchronized (this) {
+				finished = true;
+				pending = new ArrayList<>(catchUps);
+			}
+			CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).exceptionally(ex -> null).join();
+			for (Crawl job : attachedJobs) {
+				job.setStatus(CrawlStatus.DONE);
+			}
+			logger.info("[SharedTraversal] traversalId={} | Finished serving {} jobs", traversalId, attachedJobs.size());
+		}
+	}
+
+	@Override
+	protected boolean isCheckpointed() {
+		return false; // the traversal's job is internal, and its attached jobs cannot be resumed on their own
+	}
+
+	@Override
+	protected boolean usesStreamingScan() {
+		return false; // every page must be matched against all attached keywords
+	}
+
+	@Override
+	protected FrontierPriority frontierPriority() {
+		return FrontierPriority.BREADTH_FIRST; // one order has to serve every attached keyword
+	}
+
+	@Override
+	protected int handlePage(String url, String content) {
+		// Record the page before reading the automaton so a concurrent attach either sees it or is seen by it
+		processedPages.add(url);
+		Set<String> found = automaton.findAll(content);
+		for (Crawl job : attachedJobs) {
+			if (found.contains(job.getKeyword())) {
+				recordMatch(job, url);
+			}
+		}
+		return found.size(); // not used by the breadth-first order
+	}
+
+	private void catchUp(Crawl job, List<String> pages) {
+		for (String page : pages) {
+			try {
+				if (pageFetcher.fetch(new URL(page)).contains(job.getKeyword())) {
+					recordMatch(job, page);
+				}
+			} catch (NonSuccessfulResponseException | SkippedContentException e) {
+				log(job.getId(), e.getLocalizedMessage(), page);
+			} catch (Exception e) {
+				log(job.getId(), "Error during catch-up", page);
+			}
+		}
+	}
+}
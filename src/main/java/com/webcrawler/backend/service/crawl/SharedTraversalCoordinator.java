@@ -0,0 +1,50 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.utils.IdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Attaches crawl jobs to the currently running {@link SharedTraversal}, starting a new one
+ * when none is active, so concurrent jobs share a single traversal of the base URL.
+ */
+
+public class SharedTraversalCoordinator {
+
+	private static final Logger logger = LoggerFactory.getLogger(SharedTraversalCoordinator.class);
+	// Catch-ups of late jobs are rare and short; those beyond the pool wait their turn
+	private static final int CATCH_UP_THREADS = 2;
+
+	private final String baseUrl;
+	private final ExecutorService catchUpExecutor = Executors.newFixedThreadPool(CATCH_UP_THREADS, runnable -> {
+		Thread thread = new Thread(runnable, "shared-traversal-catch-up");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private SharedTraversal current;
+
+	public SharedTraversalCoordinator(String baseUrl) {
+		this.baseUrl = baseUrl;
+	}
+
+	/**
+	 * Attaches the job to the active traversal or submits a new one to the given executor.
+	 * A rejection from the executor is propagated to the caller.
+	 */
+	public synchronized void submit(Crawl job, ExecutorService executor) {
+		if (current != null && current.attach(job)) {
+			logger.info("Crawl job {} attached to running shared traversal", job.getId());
+			return;
+		}
+
+		SharedTraversal traversal = new SharedTraversal(baseUrl, "shared-" + IdGenerator.generateId(), catchUpExecutor);
+		traversal.attach(job);
+		executor.submit(traversal);
+		current = traversal;
+		logger.info("Crawl job {} started a new shared traversal", job.getId());
+	}
+}
@@ -0,0 +1,295 @@
+package com.webcrawler.backend.service.crawl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * {@link FrontierQueue} with a bounded in-memory head. Once the memory budget is used, further URLs are
+ * appended to memory-mapped segment files and read back sequentially as the head drains, so heap use stays flat
+ * however large the site is. FIFO order is preserved: while anything is spilled, new URLs go to disk behind it.
+ * The budget and the spill directory may be shared by several queues (see {@link SharedSpace}), so that a frontier
+ * queuing each level separately is bounded as a whole. Segments are deleted as soon as they have been read,
+ * and the spill directory once none of its queues has a segment left.
+ */
+
+public class SpillingFrontierQueue implements FrontierQueue {
+
+	static final int DEFAULT_SEGMENT_BYTES = 4 * 1024 * 1024;
+	// Rough heap cost of a queued URL beyond its characters: String and array headers plus the deque slot
+	private static final int ENTRY_OVERHEAD = 56;
+
+	private static final Logger logger = LoggerFactory.getLogger(SpillingFrontierQueue.class);
+
+	private final SharedSpace space;
+	private final int segmentBytes;
+
+	private final Deque<String> head = new ArrayDeque<>();
+	private long headBytes;
+	private final Deque<Segment> segments = new ArrayDeque<>();
+	private int spilledCount;
+	private boolean spillFailed;
+
+	public SpillingFrontierQueue(long memoryBytes, Path spillRoot, int segmentBytes) {
+		this(new SharedSpace(memoryBytes, spillRoot), segmentBytes);
+	}
+
+	/**
+	 * Creates a queue that holds URLs in memory while the shared budget allows, and spills into the shared directory.
+	 */
+	public SpillingFrontierQueue(SharedSpace space, int segmentBytes) {
+		this.space = space;
+		this.segmentBytes = segmentBytes;
+	}
+
+	@Override
+	public void addLast(String url) {
+		if (spillFailed || (spilledCount == 0 && space.hasRoomFor(cost(url)))) {
+			pushHead(url);
+			return;
+		}
+		try {
+			spill(url);
+		} catch (IOException e) {
+			// Keep crawling from memory; order becomes approximate but no URL is lost
+			logger.error("[CrawlFrontier] Could not spill to {}, keeping the frontier in memory", space.spillRoot, e);
+			spillFailed = true;
+			pushHead(url);
+		}
+	}
+
+	@Override
+	public String pollFirst() {
+		if (head.isEmpty() && spilledCount > 0) {
+			refill();
+		}
+		String url = head.pollFirst();
+		if (url != null) {
+			headBytes -= cost(url);
+			space.release(cost(url));
+		}
+		return url;
+	}
+
+	@Override
+	public int size() {
+		return head.size() + spilledCount;
+	}
+
+	@Override
+	public void forEach(Consumer<String> action) {
+		head.forEach(action);
+		for (Segment segment : segments) {
+			segment.forEachUnread(action);
+		}
+	}
+
+	@Override
+	public void clear() {
+		head.clear();
+		space.release(headBytes);
+		headBytes = 0;
+		spilledCount = 0;
+		deleteSegments();
+	}
+
+	/**
+	 * Number of URLs currently stored on disk rather than in memory.
+	 */
+	public int getSpilledCount() {
+		return spilledCount;
+	}
+
+	private void pushHead(String url) {
+		head.addLast(url);
+		headBytes += cost(url);
+		space.reserve(cost(url));
+	}
+
+	private void spill(String url) throws IOException {
+		byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+		int recordBytes = Integer.BYTES + bytes.length;
+		Segment tail = segments.peekLast();
+		if (tail == null || tail.remaining() < recordBytes) {
+			tail = openSegment(Math.max(segmentBytes, recordBytes));
+		}
+		tail.write(bytes);
+		spilledCount++;
+	}
+
+	/**
+	 * Moves spilled URLs back into memory, oldest first, until the budget is used or the spill is drained.
+	 * At least one URL is moved, so a queue whose share of the budget is taken by the others still drains.
+	 */
+	private void refill() {
+		while (spilledCount > 0 && (head.isEmpty() || !space.isFull())) {
+			Segment segment = segments.peekFirst();
+			if (!segment.hasUnread()) {
+				deleteSegment(segments.removeFirst());
+				continue;
+			}
+			pushHead(segment.read());
+			spilledCount--;
+		}
+		if (spilledCount == 0) {
+			// Whatever remains has been read; the next spill starts a fresh segment
+			deleteSegments();
+		}
+	}
+
+	private Segment openSegment(int size) throws IOException {
+		Path file = space.newSegmentFile();
+		Segment segment;
+		try {
+			segment = new Segment(file, size);
+		} catch (IOException e) {
+			space.deleteSegmentFile(file);
+			throw e;
+		}
+		segments.addLast(segment);
+		return segment;
+	}
+
+	private void deleteSegments() {
+		while (!segments.isEmpty()) {
+			deleteSegment(segments.removeFirst());
+		}
+	}
+
+	private void deleteSegment(Segment segment) {
+		space.deleteSegmentFile(segment.file);
+	}
+
+	private static long cost(String url) {
+		return ENTRY_OVERHEAD + url.length();
+	}
+
+	/**
+	 * One memory-mapped file of length-prefixed UTF-8 records, appended and read sequentially.
+	 */
+	private static final class Segment {
+		private final Path file;
+		private final MappedByteBuffer buffer;
+		private int readPosition;
+		private int writePosition;
+
+		private Segment(Path file, int size) throws IOException {
+			this.file = file;
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				// The mapping stays valid after the channel is closed
+				this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			}
+		}
+
+		int remaining() {
+			return buffer.capacity() - writePosition;
+		}
+
+		boolean hasUnread() {
+			return readPosition < writePosition;
+		}
+
+		void write(byte[] bytes) {
+			buffer.putInt(writePosition, bytes.length);
+			buffer.put(writePosition + Integer.BYTES, bytes);
+			writePosition += Integer.BYTES + bytes.length;
+		}
+
+		String read() {
+			int length = buffer.getInt(readPosition);
+			byte[] bytes = new byte[length];
+			buffer.get(readPosition + Integer.BYTES, bytes);
+			readPosition += Integer.BYTES + length;
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		void forEachUnread(Consumer<String> action) {
+			for (int position = readPosition; position < writePosition; ) {
+				int length = buffer.getInt(position);
+				byte[] bytes = new byte[length];
+				buffer.get(position + Integer.BYTES, bytes);
+				position += Integer.BYTES + length;
+				action.accept(new String(bytes, StandardCharsets.UTF_8));
+			}
+		}
+
+	}
+
+	/**
+	 * Memory budget and spill directory shared by queues, e.g. by every level of one {@link CrawlFrontier}.
+	 * The queues together hold at most the budget in memory, give or take one URL per queue, and spill into one
+	 * temporary directory, created on the first spill and deleted once no segment is left. Not thread-safe:
+	 * the queues sharing it must be called under one lock, as a frontier does.
+	 */
+	public static final class SharedSpace {
+		private final long memoryBytes;
+		private final Path spillRoot;
+		private long usedBytes;
+		private Path directory;
+		private int segmentCount;
+
+		public SharedSpace(long memoryBytes, Path spillRoot) {
+			this.memoryBytes = memoryBytes;
+			this.spillRoot = spillRoot;
+		}
+
+		/**
+		 * Bytes of URLs held in memory by the queues sharing this space.
+		 */
+		public long getUsedBytes() {
+			return usedBytes;
+		}
+
+		private boolean hasRoomFor(long bytes) {
+			return usedBytes + bytes <= memoryBytes;
+		}
+
+		private boolean isFull() {
+			return usedBytes >= memoryBytes;
+		}
+
+		private void reserve(long bytes) {
+			usedBytes += bytes;
+		}
+
+		private void release(long bytes) {
+			usedBytes -= bytes;
+		}
+
+		private Path newSegmentFile() throws IOException {
+			if (directory == null) {
+				directory = Files.createTempDirectory(spillRoot, "frontier-");
+				logger.info("[CrawlFrontier] Memory budget of {} bytes reached, spilling to {}", memoryBytes, directory);
+			}
+			Path file = Files.createTempFile(directory, "segment-", ".bin");
+			segmentCount++;
+			return file;
+		}
+
+		private void deleteSegmentFile(Path file) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				logger.warn("[CrawlFrontier] Could not delete spill segment {}", file, e);
+			}
+			if (--segmentCount == 0) {
+				try {
+					Files.deleteIfExists(directory);
+				} catch (IOException e) {
+					logger.warn("[CrawlFrontier] Could not delete spill directory {}", directory, e);
+				}
+				directory = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,195 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.google.gson.Gson;
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlStatus;
+import com.webcrawler.backend.model.crawl.MatchLog;
+import com.webcrawler.backend.utils.EnvConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link CrawlJobStore} with bounded memory use. Active jobs stay in memory; when a job is DONE its visited URLs
+ * are released and it moves to a small LRU tier of recently finished jobs. Jobs evicted from that tier are written
+ * to disk as gzip-compressed JSON (ID, keyword, status, creation time, visited count and matched URLs)
+ * and read back on demand, so finished results survive without holding heap. Matches are stored in the order of
+ * their {@link MatchLog} and restored with the same sequence numbers, so result
+ * cursors stay valid across an eviction.
+ */
+
+public class TieredCrawlJobStore implements CrawlJobStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(TieredCrawlJobStore.class);
+	private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+	private final Map<String, Crawl> active = new ConcurrentHashMap<>();
+	private final LinkedHashMap<String, Crawl> finished;
+	private final Path directory;
+	private final Gson gson = new Gson();
+
+	public TieredCrawlJobStore(int hotCapacity, Path directory) {
+		this.directory = directory;
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot create job store directory " + directory, e);
+		}
+		this.finished = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Crawl> eldest) {
+				if (size() <= hotCapacity) {
+					return false;
+				}
+				// Still under the tier's lock, so a lookup cannot miss the job between memory and disk
+				write(eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	public static TieredCrawlJobStore fromEnv() {
+		Path directory = Paths.get(EnvConfig.getString("JOB_STORE_DIR",
+				Paths.get(System.getProperty("java.io.tmpdir"), "webcrawler-jobs").toString()));
+		return new TieredCrawlJobStore(EnvConfig.getInt("JOB_STORE_HOT_JOBS", 100), directory);
+	}
+
+	@Override
+	public void save(Crawl job) {
+		active.put(job.getId(), job);
+		job.onDone(this::finish);
+	}
+
+	@Override
+	public Crawl find(String id) {
+		Crawl job = active.get(id);
+		if (job != null) {
+			return job;
+		}
+		synchronized (finished) {
+			job = finished.get(id);
+		}
+		return job != null ? job : read(id);
+	}
+
+	@Override
+	public void remove(String id) {
+		active.remove(id);
+		synchronized (finished) {
+			finished.remove(id);
+		}
+		Path file = fileFor(id);
+		if (file != null) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				logger.warn("[JobStore] Could not delete stored job {}", id, e);
+			}
+		}
+	}
+
+	/**
+	 * Number of jobs currently held in memory, active or recently finished.
+	 */
+	public int getInMemoryCount() {
+		synchronized (finished) {
+			return active.size() + finished.size();
+		}
+	}
+
+	private void finish(Crawl job) {
+		job.releaseVisitedUrls();
+		synchronized (finished) {
+			// Only jobs still registered move to the finished tier; a removed job must stay gone
+			if (active.containsKey(job.getId())) {
+				finished.put(job.getId(), job);
+				active.remove(job.getId());
+			}
+		}
+	}
+
+	private void write(Crawl job) {
+		StoredCrawl stored = new StoredCrawl();
+		stored.id = job.getId();
+		stored.keyword = job.getKeyword();
+		stored.status = job.getStatus().name();
+		stored.createdAt = job.getCreatedAt().toEpochMilli();
+		stored.visitedCount = job.getVisitedCount();
+		MatchLog log = job.getMatchLog();
+		stored.matchLog = log.readAfter(0, (int) Math.min(log.size(), Integer.MAX_VALUE));
+
+		Path file = fileFor(job.getId());
+		if (file == null) {
+			return;
+		}
+		try {
+			Path temp = Files.createTempFile(directory, "job-", ".tmp");
+			try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8)) {
+				gson.toJson(stored, writer);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.error("[JobStore] Could not persist job {}, its results are lost", job.getId(), e);
+		}
+	}
+
+	private Crawl read(String id) {
+		Path file = fileFor(id);
+		if (file == null) {
+			return null;
+		}
+		try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8)) {
+			StoredCrawl stored = gson.fromJson(reader, StoredCrawl.class);
+			// Jobs stored before matchLog kept their matches in no particular order
+			List<String> matches = stored.matchLog != null ? stored.matchLog : stored.matchedUrls;
+			return Crawl.restore(stored.id, stored.keyword, CrawlStatus.valueOf(stored.status),
+					Instant.ofEpochMilli(stored.createdAt), stored.visitedCount, matches);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | RuntimeException e) {
+			logger.warn("[JobStore] Could not read stored job {}", id, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the job's file, or null if the ID could not have been generated by the service
+	 * (IDs come from request paths, so they must never be able to escape the directory).
+	 */
+	private Path fileFor(String id) {
+		return id != null && VALID_ID.matcher(id).matches() ? directory.resolve(id + ".json.gz") : null;
+	}
+
+	/**
+	 * On-disk form of a finished job.
+	 */
+	private static final class StoredCrawl {
+		private String id;
+		private String keyword;
+		private String status;
+		private long createdAt;
+		private int visitedCount;
+		// Matched URLs in sequence order: the n-th entry has sequence number n
+		private List<String> matchLog;
+		private List<String> matchedUrls;
+	}
+}
@@ -0,0 +1,147 @@
+package com.webcrawler.backend.service.metrics;
+
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.service.crawl.CrawlService;
+import com.webcrawler.backend.service.crawl.FetchScheduler;
+import com.webcrawler.backend.service.crawl.RunningCrawls;
+import com.webcrawler.backend.utils.FetchMetrics;
+import com.webcrawler.backend.utils.HostConcurrencyLimits;
+import com.webcrawler.backend.utils.PageCache;
+import com.webcrawler.backend.utils.PrometheusTextWriter;
+import com.webcrawler.backend.utils.ValidatorStore;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service class that renders the crawler's metrics in the Prometheus text format.
+ * Nothing is computed on the crawl path: fetchers and runners only bump counters, and this class reads them
+ * (plus the running jobs' frontiers and the job executor) when a scrape comes in.
+ * Per-job series are only exported while the job runs, so finished jobs do not accumulate series.
+ */
+
+public class MetricsService {
+
+	private final CrawlService crawlService;
+	private final RunningCrawls runningCrawls;
+	private final FetchMetrics fetchMetrics;
+
+	public MetricsService(CrawlService crawlService) {
+		this(crawlService, RunningCrawls.shared(), FetchMetrics.shared());
+	}
+
+	// Lets tests pass their own registries instead of the shared ones
+	public MetricsService(CrawlService crawlService, RunningCrawls runningCrawls, FetchMetrics fetchMetrics) {
+		this.crawlService = crawlService;
+		this.runningCrawls = runningCrawls;
+		this.fetchMetrics = fetchMetrics;
+	}
+
+	public String render() {
+		PrometheusTextWriter writer = new PrometheusTextWriter();
+		writeFetchMetrics(writer);
+		writeJobMetrics(writer);
+		writeExecutorMetrics(writer);
+		writeCacheMetrics(writer);
+		writeProcessMetrics(writer);
+		return writer.toString();
+	}
+
+	private void writeFetchMetrics(PrometheusTextWriter writer) {
+		writer.histogram("crawler_fetch_duration_seconds", "Time from request start to the body being read, for pages fetched over the network.",
+				fetchMetrics.getLatency());
+		writer.family("crawler_fetches_total", "counter", "Network fetches by outcome.")
+				.sample("crawler_fetches_total", "outcome", "success", fetchMetrics.getSuccessCount())
+				.sample("crawler_fetches_total", "outcome", "failure", fetchMetrics.getFailureCount())
+				.sample("crawler_fetches_total", "outcome", "skipped", fetchMetrics.getSkippedCount());
+		writer.family("crawler_truncated_pages_total", "counter", "Pages cut off at the maximum page size.")
+				.sample("crawler_truncated_pages_total", fetchMetrics.getTruncatedCount());
+		writer.family("crawler_downloaded_bytes_total", "counter", "Response body bytes transferred, compressed if the server compressed them.")
+				.sample("crawler_downloaded_bytes_total", fetchMetrics.getWireBytes());
+		writer.family("crawler_decoded_bytes_total", "counter", "Response body bytes after decompression.")
+				.sample("crawler_decoded_bytes_total", fetchMetrics.getDecodedBytes());
+	}
+
+	private void writeJobMetrics(PrometheusTextWriter writer) {
+		List<RunningCrawls.Entry> running = runningCrawls.snapshot();
+		Instant now = Instant.now();
+
+		writer.family("crawler_jobs_running", "gauge", "Crawl jobs currently running.")
+				.sample("crawler_jobs_running", running.size());
+
+		double totalRate = 0;
+		writer.family("crawler_job_pages_per_second", "gauge", "Pages fetched per second by a running job, averaged since it started.");
+		for (RunningCrawls.Entry entry : running) {
+			double rate = pagesPerSecond(entry.getJob(), now);
+			totalRate += rate;
+			writer.sample("crawler_job_pages_per_second", "job", entry.getJob().getId(), rate);
+		}
+		writer.family("crawler_pages_per_second", "gauge", "Sum of the running jobs' pages per second.")
+				.sample("crawler_pages_per_second", totalRate);
+
+		writer.family("crawler_job_pages_fetched_total", "counter", "Pages fetched by a running job, including cached pages.");
+		running.forEach(entry -> writer.sample("crawler_job_pages_fetched_total", "job", entry.getJob().getId(), entry.getJob().getPagesFetched()));
+		writer.family("crawler_job_frontier_depth", "gauge", "URLs waiting in a running job's frontier.");
+		running.forEach(entry -> writer.sample("crawler_job_frontier_depth", "job", entry.getJob().getId(), entry.getFrontierDepth()));
+		writer.family("crawler_job_visited_urls", "gauge", "URLs a running job has visited.");
+		running.forEach(entry -> writer.sample("crawler_job_visited_urls", "job", entry.getJob().getId(), entry.getJob().getVisitedCount()));
+		writer.family("crawler_job_matched_urls", "gauge", "URLs a running job has matched.");
+		running.forEach(entry -> writer.sample("crawler_job_matched_urls", "job", entry.getJob().getId(), entry.getJob().getMatchedUrls().size()));
+
+		FetchScheduler scheduler = FetchScheduler.shared();
+		writer.family("crawler_fetch_scheduler_busy_slots", "gauge", "Shared fetch scheduler slots processing a URL.")
+				.sample("crawler_fetch_scheduler_busy_slots", scheduler.getBusySlots());
+	}
+
+	private void writeExecutorMetrics(PrometheusTextWriter writer) {
+		writer.family("crawler_executor_queue_depth", "gauge", "Accepted crawl jobs waiting for an executor thread.")
+				.sample("crawler_executor_queue_depth", crawlService.getQueuedJobCount());
+		writer.family("crawler_executor_active_threads", "gauge", "Executor threads running a crawl job.")
+				.sample("crawler_executor_active_threads", crawlService.getActiveThreadCount());
+		writer.family("crawler_executor_rejected_total", "counter", "Crawl jobs rejected because the executor was full.")
+				.sample("crawler_executor_rejected_total", crawlService.getRejectedJobCount());
+
+		writer.family("crawler_host_concurrency_limit", "gauge", "Current adaptive concurrency limit per host.");
+		for (Map.Entry<String, Integer> host : HostConcurrencyLimits.shared().snapshot().entrySet()) {
+			writer.sample("crawler_host_concurrency_limit", "host", host.getKey(), host.getValue());
+		}
+	}
+
+	private void writeCacheMetrics(PrometheusTextWriter writer) {
+		PageCache cache = PageCache.shared();
+		writer.family("crawler_page_cache_requests_total", "counter", "Page cache lookups by result.")
+				.sample("crawler_page_cache_requests_total", "result", "hit", cache.getHitCount())
+				.sample("crawler_page_cache_requests_total", "result", "miss", cache.getMissCount())
+				.sample("crawler_page_cache_requests_total", "result", "coalesced", cache.getCoalescedCount());
+		writer.family("crawler_page_cache_bytes", "gauge", "Bytes held by the page cache.")
+				.sample("crawler_page_cache_bytes", cache.getSizeBytes());
+		writer.family("crawler_revalidated_pages_total", "counter", "Pages answered with 304 Not Modified and served from the validator store.")
+				.sample("crawler_revalidated_pages_total", ValidatorStore.shared().getRevalidatedCount());
+	}
+
+	private void writeProcessMetrics(PrometheusTextWriter writer) {
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		writer.family("jvm_memory_heap_used_bytes", "gauge", "Heap in use.")
+				.sample("jvm_memory_heap_used_bytes", heap.getUsed());
+		writer.family("jvm_memory_heap_committed_bytes", "gauge", "Heap reserved by the JVM.")
+				.sample("jvm_memory_heap_committed_bytes", heap.getCommitted());
+		writer.family("jvm_threads_live", "gauge", "Live JVM threads.")
+				.sample("jvm_threads_live", ManagementFactory.getThreadMXBean().getThreadCount());
+		if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean) {
+			long cpuNanos = ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+			if (cpuNanos >= 0) {
+				writer.family("process_cpu_seconds_total", "counter", "CPU time used by the process.")
+						.sample("process_cpu_seconds_total", cpuNanos / 1e9);
+			}
+		}
+	}
+
+	private static double pagesPerSecond(Crawl job, Instant now) {
+		double seconds = Duration.between(job.getCreatedAt(), now).toMillis() / 1000.0;
+		return seconds > 0 ? job.getPagesFetched() / seconds : 0;
+	}
+}
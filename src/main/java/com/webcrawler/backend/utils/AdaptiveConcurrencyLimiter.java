@@ -0,0 +1,203 @@
+package com.webcrawler.backend.utils;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for one host that adapts to how the host responds (AIMD).
+ * Every response that arrives close to the baseline latency grows the limit by 1/limit, i.e. by one per round of
+ * requests, as long as the limit is actually in use. A response much slower than the baseline shrinks it by 10%,
+ * and an overload signal (429, 503, timeout, refused connection) halves it. Decreases happen at most once per
+ * baseline round trip, so one burst of failures counts as one signal. The limit stays within [floor, ceiling].
+ * The baseline is the lowest latency seen in the previous window of samples, so it follows lasting changes.
+ */
+
+public class AdaptiveConcurrencyLimiter {
+
+	public enum Outcome {
+		SUCCESS, OVERLOAD, IGNORED
+	}
+
+	private static final double LATENCY_TOLERANCE = 2.0;
+	private static final double LATENCY_BACKOFF = 0.9;
+	private static final double OVERLOAD_BACKOFF = 0.5;
+	private static final int BASELINE_WINDOW = 256;
+	private static final long MIN_DECREASE_INTERVAL_NANOS = 100_000_000L;
+
+	private final int floor;
+	private final int ceiling;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+
+	private double limit;
+	private int inFlight;
+	private long baselineNanos = -1;
+	private long windowMinNanos = Long.MAX_VALUE;
+	private int windowSamples;
+	private long lastDecreaseNanos;
+	private volatile int currentLimit;
+
+	public AdaptiveConcurrencyLimiter(int floor, int initial, int ceiling) {
+		if (floor < 1 || ceiling < floor) {
+			throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= floor <= ceiling.");
+		}
+		this.floor = floor;
+		this.ceiling = ceiling;
+		this.limit = Math.max(floor, Math.min(ceiling, initial));
+		this.currentLimit = (int) limit;
+	}
+
+	/**
+	 * Takes a permit if one is free, without waiting.
+	 */
+	public boolean tryAcquire() {
+		lock.lock();
+		try {
+			if (inFlight >= (int) limit) {
+				return false;
+			}
+			inFlight++;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void acquire() throws InterruptedException {
+		lock.lock();
+		try {
+			while (inFlight >= (int) limit) {
+				available.await();
+			}
+			inFlight++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Waits for a permit and returns it as a {@link Permit} that reports the request's outcome when closed.
+	 */
+	public Permit acquirePermit() throws InterruptedException {
+		acquire();
+		return new Permit();
+	}
+
+	/**
+	 * Returns a permit, feeding the request's outcome and latency (time to response headers) into the limit.
+	 */
+	public void release(Outcome outcome, long latencyNanos) {
+		lock.lock();
+		try {
+			boolean saturated = inFlight * 2 >= limit;
+			inFlight--;
+			adjust(outcome, latencyNanos, saturated);
+			for (int free = (int) limit - inFlight; free > 0; free--) {
+				available.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public int getLimit() {
+		return currentLimit;
+	}
+
+	public int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void adjust(Outcome outcome, long latencyNanos, boolean saturated) {
+		if (outcome == Outcome.IGNORED) {
+			return;
+		}
+		if (outcome == Outcome.OVERLOAD) {
+			decrease(OVERLOAD_BACKOFF);
+		} else {
+			updateBaseline(latencyNanos);
+			if (latencyNanos > baselineNanos * LATENCY_TOLERANCE) {
+				decrease(LATENCY_BACKOFF);
+			} else if (saturated) {
+				// Growing an unused limit would only allow a burst later, so grow only while it is being used
+				limit = Math.min(ceiling, limit + 1.0 / limit);
+			}
+		}
+		currentLimit = (int) limit;
+	}
+
+	private void decrease(double factor) {
+		long now = System.nanoTime();
+		long interval = Math.max(MIN_DECREASE_INTERVAL_NANOS, baselineNanos);
+		if (lastDecreaseNanos != 0 && now - lastDecreaseNanos < interval) {
+			return;
+		}
+		lastDecreaseNanos = now;
+		limit = Math.max(floor, limit * factor);
+	}
+
+	private void updateBaseline(long latencyNanos) {
+		if (baselineNanos < 0) {
+			baselineNanos = latencyNanos;
+		}
+		windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+		baselineNanos = Math.min(baselineNanos, latencyNanos);
+		if (++windowSamples == BASELINE_WINDOW) {
+			baselineNanos = windowMinNanos;
+			windowMinNanos = Long.MAX_VALUE;
+			windowSamples = 0;
+		}
+	}
+
+	/**
+	 * Returns the outcome a failed request signals: timeouts and refused connections mean overload.
+	 */
+	public static Outcome outcomeOf(Throwable failure) {
+		if (failure instanceof SocketTimeoutException || failure instanceof ConnectException || failure instanceof HttpTimeoutException) {
+			return Outcome.OVERLOAD;
+		}
+		return Outcome.IGNORED;
+	}
+
+	/**
+	 * Returns the outcome an HTTP status signals: 429 and 503 ask the client to slow down.
+	 */
+	public static Outcome outcomeOf(int status) {
+		return status == 429 || status == 503 ? Outcome.OVERLOAD : Outcome.SUCCESS;
+	}
+
+	/**
+	 * One acquired permit. Record the response (or failure) when it arrives; closing releases the permit.
+	 */
+	public final class Permit implements AutoCloseable {
+		private final long startNanos = System.nanoTime();
+		private Outcome outcome = Outcome.IGNORED;
+		private long latencyNanos;
+
+		private Permit() {
+		}
+
+		public void onResponse(int status) {
+			latencyNanos = System.nanoTime() - startNanos;
+			outcome = outcomeOf(status);
+		}
+
+		public void onFailure(Throwable failure) {
+			latencyNanos = System.nanoTime() - startNanos;
+			outcome = outcomeOf(failure);
+		}
+
+		@Override
+		public void close() {
+			release(outcome, latencyNanos);
+		}
+	}
+}
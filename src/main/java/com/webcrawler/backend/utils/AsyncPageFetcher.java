@@ -0,0 +1,324 @@
+package com.webcrawler.backend.utils;
+
+import com.webcrawler.backend.utils.exceptions.FetchCancelledException;
+import com.webcrawler.backend.utils.exceptions.NonSuccessfulResponseException;
+import com.webcrawler.backend.utils.exceptions.SkippedContentException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
+/**
+ * Non-blocking counterpart of {@link PageFetcher} built on {@link HttpClient}.
+ * Requests prefer HTTP/2 so many of them can be multiplexed over one connection, and each host is limited
+ * to an adaptive number of concurrent requests (see {@link AdaptiveConcurrencyLimiter}, capped at the
+ * connections per host); extra requests wait in a per-host queue without holding a thread. Responses are served through the shared {@link PageCache}, and revalidated
+ * against the {@link ValidatorStore} like the blocking fetcher does, and recorded in the shared {@link FetchMetrics}.
+ * Compressed responses are negotiated too; they are decompressed once received, since the body is read whole anyway.
+ * Responses the {@link ContentPolicy} rejects from their headers are dropped before their body is read, and bodies
+ * over the size limit stop downloading there. A fetch given a {@link CancellationToken} has its exchange cancelled,
+ * or is never sent, once the token is cancelled.
+ */
+
+public class AsyncPageFetcher {
+
+	private static final int DEFAULT_CONNECTIONS_PER_HOST = 64;
+	private static final int DEFAULT_CLIENT_THREADS = 4;
+
+	private static final AsyncPageFetcher SHARED = new AsyncPageFetcher(
+			PageCache.shared(),
+			EnvConfig.getInt("HTTP_CONNECTIONS_PER_HOST", DEFAULT_CONNECTIONS_PER_HOST),
+			EnvConfig.getInt("HTTP_CLIENT_THREADS", DEFAULT_CLIENT_THREADS)
+	);
+
+	private final PageCache cache;
+	private final ValidatorStore validators;
+	private final HttpClient client;
+	private final FetchMetrics metrics = FetchMetrics.shared();
+	private final HostConcurrencyLimits hostLimits;
+	private final ContentPolicy policy;
+	private final Map<AdaptiveConcurrencyLimiter, HostPool> hostPools = new ConcurrentHashMap<>();
+
+	public AsyncPageFetcher(PageCache cache, int connectionsPerHost, int clientThreads) {
+		this(cache, ValidatorStore.shared(), connectionsPerHost, clientThreads);
+	}
+
+	public AsyncPageFetcher(PageCache cache, ValidatorStore validators, int connectionsPerHost, int clientThreads) {
+		this(cache, validators, ContentPolicy.shared(), connectionsPerHost, clientThreads);
+	}
+
+	public AsyncPageFetcher(PageCache cache, ValidatorStore validators, ContentPolicy policy, int connectionsPerHost, int clientThreads) {
+		if (connectionsPerHost < 1 || clientThreads < 1) {
+			throw new IllegalArgumentException("Connections per host and client threads must be positive.");
+		}
+		this.cache = cache;
+		this.validators = validators;
+		this.policy = policy;
+		this.hostLimits = HostConcurrencyLimits.shared().withCeiling(connectionsPerHost);
+		ExecutorService executor = Executors.newFixedThreadPool(clientThreads, runnable -> {
+			Thread thread = new Thread(runnable, "async-fetcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				// Redirects are followed, as HttpURLConnection does for the blocking fetcher
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.connectTimeout(Duration.ofMillis(3000))
+				.executor(executor)
+				.build();
+	}
+
+	public static AsyncPageFetcher shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Fetches the page without blocking. The future fails with {@link NonSuccessfulResponseException}
+	 * for non-200 responses, like {@link PageFetcher#fetch(URL)}.
+	 */
+	public CompletableFuture<String> fetchAsync(URL parsedUrl) {
+		return fetchAsync(parsedUrl, CancellationToken.NONE);
+	}
+
+	/**
+	 * Like {@link #fetchAsync(URL)}; the future fails with {@link FetchCancelledException} if the token is cancelled first.
+	 */
+	public CompletableFuture<String> fetchAsync(URL parsedUrl, CancellationToken token) {
+		return cache.getAsync(parsedUrl.toString(), () -> download(parsedUrl, token));
+	}
+
+	private CompletableFuture<String> download(URL parsedUrl, CancellationToken token) {
+		String url = parsedUrl.toString();
+		ValidatorStore.Entry stored = validators.lookup(url);
+		HttpRequest request;
+		try {
+			HttpRequest.Builder builder = HttpRequest.newBuilder(parsedUrl.toURI())
+					.header("User-Agent", RobotsRules.USER_AGENT)
+					.header("Accept-Encoding", ContentEncodings.ACCEPT_ENCODING)
+					.timeout(Duration.ofMillis(3000))
+					.GET();
+			if (stored != null && stored.getEtag() != null) {
+				builder.header("If-None-Match", stored.getEtag());
+			}
+			if (stored != null && stored.getLastModified() != null) {
+				builder.header("If-Modified-Since", stored.getLastModified());
+			}
+			request = builder.build();
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		HostPool pool = hostPools.computeIfAbsent(hostLimits.forHost(parsedUrl), HostPool::new);
+		int limit = (int) Math.min(policy.getMaxBodyBytes(), Integer.MAX_VALUE - 9);
+		Transfer transfer = new Transfer();
+		HttpResponse.BodyHandler<byte[]> bodyHandler = info -> {
+			transfer.headersNanos = System.nanoTime() - transfer.startNanos;
+			if (info.statusCode() == 200) {
+				transfer.skipReason = policy.rejectionReason(info.headers().firstValue("Content-Type").orElse(null),
+						info.headers().firstValueAsLong("Content-Length").orElse(-1));
+			}
+			return new LimitingSubscriber(transfer, limit);
+		};
+		return pool.acquire()
+				.thenCompose(ignored -> {
+					transfer.startNanos = System.nanoTime();
+					token.throwIfCancelled();
+					CompletableFuture<HttpResponse<byte[]>> exchange = client.sendAsync(request, bodyHandler);
+					transfer.abort = token.onCancel(() -> exchange.cancel(true));
+					return exchange;
+				})
+				.whenComplete((response, ex) -> {
+					transfer.abort.close();
+					boolean cancelled = response == null && token.isCancelled();
+					if (response == null && !cancelled) {
+						metrics.recordFailure(System.nanoTime() - transfer.startNanos);
+					}
+					pool.release(response != null
+							? AdaptiveConcurrencyLimiter.outcomeOf(response.statusCode())
+							: cancelled ? AdaptiveConcurrencyLimiter.Outcome.IGNORED
+							: AdaptiveConcurrencyLimiter.outcomeOf(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex),
+							response != null ? transfer.headersNanos : System.nanoTime() - transfer.startNanos);
+				})
+				.exceptionally(ex -> {
+					if (token.isCancelled()) {
+						throw new FetchCancelledException("Fetch cancelled");
+					}
+					throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+				})
+				.thenApply(response -> {
+					if (response.statusCode() == 304 && stored != null) {
+						validators.recordRevalidated();
+						metrics.recordSuccess(System.nanoTime() - transfer.startNanos, 0, 0);
+						return PageFetcher.decode(stored.bodyBytes(), stored.getContentType());
+					}
+					if (response.statusCode() != 200) {
+						metrics.recordFailure(System.nanoTime() - transfer.startNanos);
+						throw new NonSuccessfulResponseException("Non-200 response [" + response.statusCode() + "]", response.statusCode());
+					}
+					if (transfer.skipReason != null) {
+						metrics.recordSkipped();
+						throw new SkippedContentException(transfer.skipReason);
+					}
+					byte[] body;
+					try {
+						body = ContentEncodings.decode(response.body(), response.headers().firstValue("Content-Encoding").orElse(null), limit, transfer.cutOff);
+					} catch (IOException e) {
+						metrics.recordFailure(System.nanoTime() - transfer.startNanos);
+						throw new UncheckedIOException(e);
+					}
+					boolean truncated = transfer.cutOff || body.length > limit;
+					if (truncated) {
+						if (!policy.isTruncateOversized()) {
+							metrics.recordSkipped();
+							throw new SkippedContentException("Skipping oversized response [over " + policy.getMaxBodyBytes() + " bytes]");
+						}
+						body = Arrays.copyOf(body, Math.min(body.length, limit));
+						metrics.recordTruncated();
+					}
+					metrics.recordSuccess(System.nanoTime() - transfer.startNanos, transfer.wireBytes, body.length);
+					String contentType = response.headers().firstValue("Content-Type").orElse(null);
+					if (!truncated && validators.isEnabled()) {
+						validators.save(url, response.headers().firstValue("ETag").orElse(null),
+								response.headers().firstValue("Last-Modified").orElse(null), contentType, body, stored);
+					}
+					return PageFetcher.decode(body, contentType);
+				});
+	}
+
+	/**
+	 * Timing and size of one exchange, filled in as the response arrives.
+	 */
+	private static final class Transfer {
+		private long startNanos;
+		private long headersNanos;
+		private long wireBytes;
+		private boolean cutOff;
+		private String skipReason;
+		private CancellationToken.Registration abort = CancellationToken.Registration.NONE;
+	}
+
+	/**
+	 * Collects the body as received on the wire, counting its bytes. The download is cancelled without reading the body
+	 * when the headers already got the response skipped, and once more than the limit has arrived (the body is then
+	 * cut off at the limit).
+	 */
+	private static final class LimitingSubscriber implements HttpResponse.BodySubscriber<byte[]> {
+		private final Transfer transfer;
+		private final int limit;
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+		private Flow.Subscription subscription;
+
+		private LimitingSubscriber(Transfer transfer, int limit) {
+			this.transfer = transfer;
+			this.limit = limit;
+		}
+
+		@Override
+		public CompletionStage<byte[]> getBody() {
+			return result;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			if (transfer.skipReason != null) {
+				subscription.cancel();
+				result.complete(new byte[0]);
+			} else {
+				subscription.request(Long.MAX_VALUE);
+			}
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> buffers) {
+			if (result.isDone()) {
+				return;
+			}
+			for (ByteBuffer buffer : buffers) {
+				int received = buffer.remaining();
+				transfer.wireBytes += received;
+				int kept = Math.min(received, limit - body.size());
+				byte[] chunk = new byte[kept];
+				buffer.get(chunk);
+				body.write(chunk, 0, kept);
+				if (kept < received) {
+					transfer.cutOff = true;
+					subscription.cancel();
+					result.complete(body.toByteArray());
+					return;
+				}
+			}
+		}
+
+		@Override
+		public void onError(Throwable failure) {
+			result.completeExceptionally(failure);
+		}
+
+		@Override
+		public void onComplete() {
+			result.complete(body.toByteArray());
+		}
+	}
+
+	/**
+	 * Permit pool over a host's {@link AdaptiveConcurrencyLimiter} whose waiters are futures rather than blocked threads.
+	 */
+	private static final class HostPool {
+		private final AdaptiveConcurrencyLimiter limiter;
+		private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+		private HostPool(AdaptiveConcurrencyLimiter limiter) {
+			this.limiter = limiter;
+		}
+
+		CompletableFuture<Void> acquire() {
+			if (limiter.tryAcquire()) {
+				return CompletableFuture.completedFuture(null);
+			}
+			CompletableFuture<Void> waiter = new CompletableFuture<>();
+			waiters.add(waiter);
+			// A permit may have been released between the failed attempt and queueing
+			drain();
+			return waiter;
+		}
+
+		void release(AdaptiveConcurrencyLimiter.Outcome outcome, long latencyNanos) {
+			limiter.release(outcome, latencyNanos);
+			drain();
+		}
+
+		private void drain() {
+			while (!waiters.isEmpty() && limiter.tryAcquire()) {
+				CompletableFuture<Void> next = waiters.poll();
+				if (next == null) {
+					limiter.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED, 0);
+					return;
+				}
+				next.complete(null);
+			}
+		}
+	}
+}
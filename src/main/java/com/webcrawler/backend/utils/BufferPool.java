@@ -0,0 +1,49 @@
+package com.webcrawler.backend.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of fixed-size byte buffers reused across page reads, so streaming a response
+ * does not allocate a new buffer per page.
+ */
+
+public class BufferPool {
+
+	private static final BufferPool SHARED = new BufferPool(16 * 1024, 256);
+
+	private final int bufferSize;
+	private final int maxPooled;
+	private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pooled = new AtomicInteger();
+
+	public BufferPool(int bufferSize, int maxPooled) {
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	public static BufferPool shared() {
+		return SHARED;
+	}
+
+	public byte[] acquire() {
+		byte[] buffer = buffers.poll();
+		if (buffer == null) {
+			return new byte[bufferSize];
+		}
+		pooled.decrementAndGet();
+		return buffer;
+	}
+
+	public void release(byte[] buffer) {
+		if (buffer.length != bufferSize) {
+			return;
+		}
+		if (pooled.incrementAndGet() <= maxPooled) {
+			buffers.offer(buffer);
+		} else {
+			pooled.decrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.webcrawler.backend.utils;
+
+import com.webcrawler.backend.utils.exceptions.FetchCancelledException;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets a crawl job abort the fetches it has in flight. While a request runs, the fetcher registers how to abort it
+ * (closing its connection, or cancelling its exchange); cancelling the token runs every registered abort, and any
+ * registered later runs at once. A fetch aborted this way fails with {@link FetchCancelledException}.
+ */
+
+public class CancellationToken {
+
+	/**
+	 * Token of fetches that are never cancelled.
+	 */
+	public static final CancellationToken NONE = new CancellationToken();
+
+	private final Set<Runnable> aborts = ConcurrentHashMap.newKeySet();
+	private volatile boolean cancelled;
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Aborts every registered request. Has no effect on {@link #NONE}.
+	 */
+	public void cancel() {
+		if (this == NONE) {
+			return;
+		}
+		cancelled = true;
+		for (Runnable abort : aborts) {
+			if (aborts.remove(abort)) {
+				abort.run();
+			}
+		}
+	}
+
+	public void throwIfCancelled() {
+		if (cancelled) {
+			throw new FetchCancelledException("Fetch cancelled");
+		}
+	}
+
+	/**
+	 * Registers how to abort a request until the returned registration is closed, when the request is over.
+	 */
+	public Registration onCancel(Runnable abort) {
+		if (this == NONE) {
+			return Registration.NONE;
+		}
+		aborts.add(abort);
+		// Cancelled between the caller's last check and the registration: nobody else will run the abort
+		if (cancelled && aborts.remove(abort)) {
+			abort.run();
+		}
+		return () -> aborts.remove(abort);
+	}
+
+	/**
+	 * A registered abort, removed when closed.
+	 */
+	public interface Registration extends AutoCloseable {
+		Registration NONE = () -> {
+		};
+
+		@Override
+		void close();
+	}
+}
@@ -0,0 +1,136 @@
+package com.webcrawler.backend.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Negotiation and decoding of compressed responses (gzip and deflate).
+ * Decoding wraps the response stream, so the body is decompressed as it is read and never held compressed in full.
+ * "deflate" is meant to be zlib-wrapped, but some servers send a raw deflate stream; both are accepted.
+ */
+
+public class ContentEncodings {
+
+	/**
+	 * Value of the Accept-Encoding request header: the encodings {@link #decode} understands.
+	 */
+	public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	private ContentEncodings() {
+	}
+
+	/**
+	 * Wraps the response stream to decode the given Content-Encoding (null or "identity" for none).
+	 * Throws an IOException for an encoding that was not asked for.
+	 */
+	public static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+		if (contentEncoding == null) {
+			return body;
+		}
+		switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+			case "":
+			case "identity":
+				return body;
+			case "gzip":
+			case "x-gzip":
+				return new GZIPInputStream(body, 8192);
+			case "deflate":
+				return inflate(body);
+			default:
+				throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+		}
+	}
+
+	/**
+	 * Decodes a received body, stopping after limit + 1 bytes so that callers can tell a body over the limit without
+	 * inflating all of it. A body that was cut short on purpose (truncated) yields whatever part of it could be decoded.
+	 */
+	public static byte[] decode(byte[] body, String contentEncoding, int limit, boolean truncated) throws IOException {
+		if (contentEncoding == null || contentEncoding.isBlank() || contentEncoding.trim().equalsIgnoreCase("identity")) {
+			return body;
+		}
+		ByteArrayOutputStream decoded = new ByteArrayOutputStream(Math.min(limit, body.length * 4) + 1);
+		try (InputStream stream = decode(new ByteArrayInputStream(body), contentEncoding)) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while (decoded.size() <= limit && (read = stream.read(buffer, 0, (int) Math.min(buffer.length, limit + 1L - decoded.size()))) != -1) {
+				decoded.write(buffer, 0, read);
+			}
+		} catch (EOFException e) {
+			if (!truncated) {
+				throw e;
+			}
+		}
+		return decoded.toByteArray();
+	}
+
+	private static InputStream inflate(InputStream body) throws IOException {
+		PushbackInputStream stream = new PushbackInputStream(body, 2);
+		int first = stream.read();
+		int second = first == -1 ? -1 : stream.read();
+		if (second != -1) {
+			stream.unread(second);
+		}
+		if (first != -1) {
+			stream.unread(first);
+		}
+		// A zlib header has compression method 8 in its low bits and is a multiple of 31 when read as a 16-bit number
+		boolean zlib = first != -1 && second != -1 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+		return new InflaterInputStream(stream, new Inflater(!zlib), 8192) {
+			@Override
+			public void close() throws IOException {
+				super.close();
+				inf.end(); // a caller-supplied Inflater is not released by close()
+			}
+		};
+	}
+
+	/**
+	 * Counts the bytes read through it, e.g. the compressed bytes of a response before decoding.
+	 */
+	static final class CountingInputStream extends FilterInputStream {
+		private long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int value = super.read();
+			if (value != -1) {
+				count++;
+			}
+			return value;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+}
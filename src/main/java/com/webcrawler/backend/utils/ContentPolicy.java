@@ -0,0 +1,122 @@
+package com.webcrawler.backend.utils;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which resources are worth downloading as pages, so binaries never reach the heap or the scanning stages.
+ * Links whose path ends in a known non-page extension (images, archives, media, documents...) are not followed at all.
+ * Other responses are checked by Content-Type (HTML, XHTML or plain text; a missing type is given the benefit of the
+ * doubt) and by size before their body is read. Bodies over the limit are either cut at the limit and scanned as far
+ * as they go, or skipped. Optionally, URLs with an unfamiliar extension are probed with a HEAD request first.
+ */
+
+public class ContentPolicy {
+
+	public static final String DEFAULT_SKIP_EXTENSIONS = "7z,apk,avi,bin,bmp,bz2,css,csv,dmg,doc,docx,eot,epub,exe,flac,gif,gz,ico,iso,jar,jpeg,jpg,"
+			+ "js,json,m4a,mkv,mov,mp3,mp4,mpeg,msi,odt,ogg,otf,pdf,png,ppt,pptx,rar,rss,svg,tar,tgz,tif,tiff,ttf,wav,webm,webp,woff,woff2,xls,xlsx,xz,zip";
+	private static final Set<String> PAGE_EXTENSIONS = Set.of("htm", "html", "xhtml", "shtml", "php", "asp", "aspx", "jsp", "cfm", "cgi", "pl", "txt");
+	private static final ContentPolicy SHARED = new ContentPolicy(
+			parseExtensions(EnvConfig.getString("CRAWL_SKIP_EXTENSIONS", DEFAULT_SKIP_EXTENSIONS)),
+			EnvConfig.getLong("MAX_PAGE_BYTES", 10L * 1024 * 1024),
+			!EnvConfig.getString("OVERSIZED_PAGES", "truncate").equalsIgnoreCase("skip"),
+			EnvConfig.getBoolean("HEAD_PROBE", false)
+	);
+
+	private final Set<String> skipExtensions;
+	private final long maxBodyBytes;
+	private final boolean truncateOversized;
+	private final boolean headProbe;
+
+	public ContentPolicy(Set<String> skipExtensions, long maxBodyBytes, boolean truncateOversized, boolean headProbe) {
+		if (maxBodyBytes < 1) {
+			throw new IllegalArgumentException("The maximum page size must be positive.");
+		}
+		this.skipExtensions = skipExtensions;
+		this.maxBodyBytes = maxBodyBytes;
+		this.truncateOversized = truncateOversized;
+		this.headProbe = headProbe;
+	}
+
+	public static ContentPolicy shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Whether the URL's path ends in an extension that marks it as something other than a page.
+	 */
+	public boolean isSkippedByExtension(String url) {
+		String extension = extensionOf(url);
+		return extension != null && skipExtensions.contains(extension);
+	}
+
+	/**
+	 * Whether a HEAD request should check the URL before it is downloaded: only when probing is enabled and the
+	 * URL has an extension that is neither a known page nor a known skipped type.
+	 */
+	public boolean needsProbe(URL url) {
+		if (!headProbe) {
+			return false;
+		}
+		String extension = extensionOf(url.toString());
+		return extension != null && !PAGE_EXTENSIONS.contains(extension) && !skipExtensions.contains(extension);
+	}
+
+	/**
+	 * Returns why the response should not be read, judging by its headers, or null if it should.
+	 * A Content-Length over the limit only rejects the response when oversized pages are skipped rather than truncated.
+	 */
+	public String rejectionReason(String contentType, long contentLength) {
+		if (contentType != null && !isPageType(contentType)) {
+			return "Skipping content type [" + contentType + "]";
+		}
+		if (!truncateOversized && contentLength > maxBodyBytes) {
+			return "Skipping oversized response [" + contentLength + " bytes]";
+		}
+		return null;
+	}
+
+	public long getMaxBodyBytes() {
+		return maxBodyBytes;
+	}
+
+	public boolean isTruncateOversized() {
+		return truncateOversized;
+	}
+
+	private static boolean isPageType(String contentType) {
+		String mediaType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+		return mediaType.isEmpty() || mediaType.equals("text/html") || mediaType.equals("application/xhtml+xml") || mediaType.equals("text/plain");
+	}
+
+	/**
+	 * Returns the lowercased extension of the URL's last path segment, or null if it has none.
+	 */
+	static String extensionOf(String url) {
+		int end = url.length();
+		int query = url.indexOf('?');
+		if (query >= 0) {
+			end = query;
+		}
+		int fragment = url.indexOf('#');
+		if (fragment >= 0 && fragment < end) {
+			end = fragment;
+		}
+		int slash = url.lastIndexOf('/', end - 1);
+		int dot = url.lastIndexOf('.', end - 1);
+		if (dot <= slash || dot == end - 1 || url.lastIndexOf("//", end) == slash - 1) {
+			return null;
+		}
+		return url.substring(dot + 1, end).toLowerCase(Locale.ROOT);
+	}
+
+	private static Set<String> parseExtensions(String list) {
+		return Arrays.stream(list.split(","))
+				.map(extension -> extension.trim().toLowerCase(Locale.ROOT))
+				.filter(extension -> !extension.isEmpty())
+				.collect(Collectors.toUnmodifiableSet());
+	}
+}
@@ -0,0 +1,39 @@
+package com.webcrawler.backend.utils;
+
+/**
+ * Utility class for reading optional tuning settings from environment variables.
+ * Missing or unparsable values fall back to the provided default.
+ */
+
+public class EnvConfig {
+
+	private EnvConfig() {
+	}
+
+	public static String getString(String name, String defaultValue) {
+		String value = System.getenv(name);
+		return value == null || value.isBlank() ? defaultValue : value.trim();
+	}
+
+	public static long getLong(String name, long defaultValue) {
+		String value = getString(name, null);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	public static int getInt(String name, int defaultValue) {
+		long value = getLong(name, defaultValue);
+		return value > Integer.MAX_VALUE || value < Integer.MIN_VALUE ? defaultValue : (int) value;
+	}
+
+	public static boolean getBoolean(String name, boolean defaultValue) {
+		String value = getString(name, null);
+		return value == null ? defaultValue : Boolean.parseBoolean(value);
+	}
+}
@@ -0,0 +1,81 @@
+package com.webcrawler.backend.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of network fetches shared by the blocking and async fetchers: how long each fetch took (request start to
+ * body read), how many succeeded or failed, and how many body bytes were downloaded, both as transferred on the wire
+ * (compressed) and once decoded.
+ * Pages served from the {@link PageCache} never reach the fetchers and are not counted; 304s are fetches without a body.
+ */
+
+public class FetchMetrics {
+
+	private static final FetchMetrics SHARED = new FetchMetrics();
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder successCount = new LongAdder();
+	private final LongAdder failureCount = new LongAdder();
+	private final LongAdder skippedCount = new LongAdder();
+	private final LongAdder truncatedCount = new LongAdder();
+	private final LongAdder wireBytes = new LongAdder();
+	private final LongAdder decodedBytes = new LongAdder();
+
+	public static FetchMetrics shared() {
+		return SHARED;
+	}
+
+	public void recordSuccess(long latencyNanos, long wireBytes, long decodedBytes) {
+		latency.recordNanos(latencyNanos);
+		successCount.increment();
+		this.wireBytes.add(wireBytes);
+		this.decodedBytes.add(decodedBytes);
+	}
+
+	public void recordFailure(long latencyNanos) {
+		latency.recordNanos(latencyNanos);
+		failureCount.increment();
+	}
+
+	/**
+	 * Records a response left unread because it was not a page or too large (see {@link ContentPolicy}).
+	 */
+	public void recordSkipped() {
+		skippedCount.increment();
+	}
+
+	/**
+	 * Records a page cut off at the size limit; the fetch itself is recorded as a success.
+	 */
+	public void recordTruncated() {
+		truncatedCount.increment();
+	}
+
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	public long getSuccessCount() {
+		return successCount.sum();
+	}
+
+	public long getFailureCount() {
+		return failureCount.sum();
+	}
+
+	public long getSkippedCount() {
+		return skippedCount.sum();
+	}
+
+	public long getTruncatedCount() {
+		return truncatedCount.sum();
+	}
+
+	public long getWireBytes() {
+		return wireBytes.sum();
+	}
+
+	public long getDecodedBytes() {
+		return decodedBytes.sum();
+	}
+}
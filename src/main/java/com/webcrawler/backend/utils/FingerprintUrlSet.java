@@ -0,0 +1,187 @@
+package com.webcrawler.backend.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Compact {@link UrlSet} that stores 64-bit URL fingerprints instead of strings: about 8-14 bytes per URL
+ * instead of 100+. Fingerprints live in primitive open-addressing tables (linear probing), split into
+ * independently locked stripes so concurrent workers rarely contend. Tables can be allocated off-heap.
+ * Two distinct URLs share a fingerprint with probability ~n^2/2^65, i.e. about 3e-8 for a million URLs.
+ */
+
+public class FingerprintUrlSet implements UrlSet {
+
+	private static final int STRIPE_BITS = 6;
+	private static final int STRIPES = 1 << STRIPE_BITS;
+	private static final double MAX_LOAD = 0.6;
+	private static final long EMPTY = 0L;
+
+	private final Stripe[] stripes = new Stripe[STRIPES];
+	private final boolean offHeap;
+	private final AtomicInteger size = new AtomicInteger();
+
+	public FingerprintUrlSet(int expectedSize, boolean offHeap) {
+		this.offHeap = offHeap;
+		int perStripe = Math.max(16, Integer.highestOneBit((int) Math.ceil(expectedSize / (double) STRIPES / MAX_LOAD)) << 1);
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe(perStripe);
+		}
+	}
+
+	/**
+	 * 64-bit FNV-1a over the URL's characters, followed by a MurmurHash3 finalizer so every bit is well mixed.
+	 * Never returns 0, which marks empty slots.
+	 */
+	public static long fingerprint(CharSequence url) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < url.length(); i++) {
+			hash ^= url.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash == EMPTY ? 1L : hash;
+	}
+
+	@Override
+	public boolean add(String url) {
+		return addFingerprint(fingerprint(url));
+	}
+
+	public boolean addFingerprint(long fingerprint) {
+		Stripe stripe = stripeFor(fingerprint);
+		boolean added;
+		synchronized (stripe) {
+			added = stripe.add(fingerprint);
+		}
+		if (added) {
+			size.incrementAndGet();
+		}
+		return added;
+	}
+
+	@Override
+	public boolean contains(String url) {
+		long fingerprint = fingerprint(url);
+		Stripe stripe = stripeFor(fingerprint);
+		synchronized (stripe) {
+			return stripe.contains(fingerprint);
+		}
+	}
+
+	@Override
+	public int size() {
+		return size.get();
+	}
+
+	@Override
+	public void forEachFingerprint(LongConsumer action) {
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				for (int i = 0; i <= stripe.mask; i++) {
+					long slot = stripe.table.get(i);
+					if (slot != EMPTY) {
+						action.accept(slot);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Bytes reserved by the fingerprint tables (heap or off-heap).
+	 */
+	public long getTableBytes() {
+		long bytes = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				bytes += (long) stripe.capacity() * Long.BYTES;
+			}
+		}
+		return bytes;
+	}
+
+	private Stripe stripeFor(long fingerprint) {
+		// The top bits pick the stripe; the low bits pick the slot inside it
+		return stripes[(int) (fingerprint >>> (Long.SIZE - STRIPE_BITS))];
+	}
+
+	private LongBuffer allocate(int capacity) {
+		if (offHeap) {
+			return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+		}
+		return LongBuffer.wrap(new long[capacity]);
+	}
+
+	private final class Stripe {
+		private LongBuffer table;
+		private int mask;
+		private int count;
+
+		private Stripe(int capacity) {
+			this.table = allocate(capacity);
+			this.mask = capacity - 1;
+		}
+
+		int capacity() {
+			return mask + 1;
+		}
+
+		boolean add(long fingerprint) {
+			if (count + 1 > capacity() * MAX_LOAD) {
+				grow();
+			}
+			if (insert(table, mask, fingerprint)) {
+				count++;
+				return true;
+			}
+			return false;
+		}
+
+		boolean contains(long fingerprint) {
+			for (int i = (int) fingerprint & mask; ; i = (i + 1) & mask) {
+				long slot = table.get(i);
+				if (slot == EMPTY) {
+					return false;
+				}
+				if (slot == fingerprint) {
+					return true;
+				}
+			}
+		}
+
+		private void grow() {
+			int capacity = capacity() << 1;
+			LongBuffer grown = allocate(capacity);
+			int grownMask = capacity - 1;
+			for (int i = 0; i <= mask; i++) {
+				long slot = table.get(i);
+				if (slot != EMPTY) {
+					insert(grown, grownMask, slot);
+				}
+			}
+			table = grown;
+			mask = grownMask;
+		}
+
+		private boolean insert(LongBuffer target, int targetMask, long fingerprint) {
+			for (int i = (int) fingerprint & targetMask; ; i = (i + 1) & targetMask) {
+				long slot = target.get(i);
+				if (slot == EMPTY) {
+					target.put(i, fingerprint);
+					return true;
+				}
+				if (slot == fingerprint) {
+					return false;
+				}
+			}
+		}
+	}
+}
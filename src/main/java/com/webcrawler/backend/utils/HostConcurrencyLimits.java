@@ -0,0 +1,64 @@
+package com.webcrawler.backend.utils;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link AdaptiveConcurrencyLimiter} per host, shared by every job fetching from it, so the limit reflects
+ * the host's total load rather than one job's share. Bounds come from HOST_CONCURRENCY_MIN,
+ * HOST_CONCURRENCY_INITIAL and HOST_CONCURRENCY_MAX.
+ */
+
+public class HostConcurrencyLimits {
+
+	private static final HostConcurrencyLimits SHARED = new HostConcurrencyLimits(
+			EnvConfig.getInt("HOST_CONCURRENCY_MIN", 1),
+			EnvConfig.getInt("HOST_CONCURRENCY_INITIAL", 4),
+			EnvConfig.getInt("HOST_CONCURRENCY_MAX", 32)
+	);
+
+	private final int floor;
+	private final int initial;
+	private final int ceiling;
+	private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+	public HostConcurrencyLimits(int floor, int initial, int ceiling) {
+		this.ceiling = Math.max(1, ceiling);
+		this.floor = Math.max(1, Math.min(floor, this.ceiling));
+		this.initial = initial;
+	}
+
+	public static HostConcurrencyLimits shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Same floor and initial limit, with a different ceiling.
+	 */
+	public HostConcurrencyLimits withCeiling(int ceiling) {
+		return new HostConcurrencyLimits(floor, initial, ceiling);
+	}
+
+	public AdaptiveConcurrencyLimiter forHost(URL url) {
+		return limiters.computeIfAbsent(hostKey(url), host -> new AdaptiveConcurrencyLimiter(floor, initial, ceiling));
+	}
+
+	public int getCeiling() {
+		return ceiling;
+	}
+
+	/**
+	 * Current limit of every host seen so far, keyed by scheme://host:port.
+	 */
+	public Map<String, Integer> snapshot() {
+		Map<String, Integer> limits = new TreeMap<>();
+		limiters.forEach((host, limiter) -> limits.put(host, limiter.getLimit()));
+		return limits;
+	}
+
+	private static String hostKey(URL url) {
+		return url.getProtocol() + "://" + url.getHost() + ":" + (url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+	}
+}
@@ -0,0 +1,361 @@
+package com.webcrawler.backend.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-pass HTML tokenizer that collects link targets: anchor hrefs, the document base
+ * ({@code <base href>}) and the canonical URL ({@code <link rel="canonical" href>}), along with the text of
+ * each anchor (whitespace collapsed, nested tags skipped), which hints at what the linked page is about.
+ * It accepts raw response bytes chunk by chunk or a complete CharSequence, and keeps only a fixed amount
+ * of state (the current tag name, attribute name, attribute value and anchor text, each capped in length),
+ * so memory does not grow with the page size beyond the links it returns.
+ */
+
+public class HtmlLinkScanner {
+
+	private static final int MAX_NAME_LENGTH = 16;
+	private static final int MAX_VALUE_LENGTH = 2048;
+	private static final int MAX_TEXT_LENGTH = 128;
+
+	private enum State {
+		TEXT, TAG_START, TAG_NAME, END_TAG_NAME, SKIP_TAG, ATTRIBUTES, ATTR_NAME, AFTER_ATTR_NAME, BEFORE_VALUE, QUOTED_VALUE, UNQUOTED_VALUE
+	}
+
+	private enum Tag {
+		OTHER, ANCHOR, BASE, LINK
+	}
+
+	private final Set<String> hrefs = new LinkedHashSet<>();
+	private final Map<String, String> anchorTexts = new HashMap<>();
+	private String baseHref;
+	private String canonicalHref;
+
+	private State state = State.TEXT;
+	private final char[] tagName = new char[MAX_NAME_LENGTH];
+	private int tagNameLength;
+	private Tag tag = Tag.OTHER;
+	private final char[] attrName = new char[MAX_NAME_LENGTH];
+	private int attrNameLength;
+	private final char[] value = new char[MAX_VALUE_LENGTH];
+	private int valueLength;
+	private boolean valueOverflow;
+	private boolean valueHasRawBytes;
+	private char quote;
+
+	private String linkHref;
+	private boolean linkIsCanonical;
+
+	private String tagHref; // href of the anchor tag being read
+	private String anchorHref; // href of the anchor whose text is being read, null outside anchors
+	private final char[] text = new char[MAX_TEXT_LENGTH];
+	private int textLength;
+	private boolean textHasRawBytes;
+
+	/**
+	 * Feeds the next chunk of raw response bytes. Multi-byte UTF-8 sequences inside attribute values
+	 * are decoded when the value is complete, so they may be split across chunks.
+	 */
+	public void feed(byte[] buffer, int offset, int length) {
+		int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			int b = buffer[i] & 0xFF;
+			accept((char) b);
+			if (b >= 0x80 && (state == State.QUOTED_VALUE || state == State.UNQUOTED_VALUE)) {
+				valueHasRawBytes = true;
+			} else if (b >= 0x80 && state == State.TEXT && anchorHref != null) {
+				textHasRawBytes = true;
+			}
+		}
+	}
+
+	public void feed(CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			accept(text.charAt(i));
+		}
+	}
+
+	/**
+	 * Returns the raw (unresolved) anchor href values seen so far, in document order and without duplicates.
+	 */
+	public Set<String> getHrefs() {
+		return hrefs;
+	}
+
+	/**
+	 * Returns the text of the first anchor with some text for each raw href, at most MAX_TEXT_LENGTH characters of it.
+	 * Hrefs whose anchors have no text are missing.
+	 */
+	public Map<String, String> getAnchorTexts() {
+		return anchorTexts;
+	}
+
+	/**
+	 * Returns the raw href of the first {@code <base>} tag, or null if the document has none.
+	 */
+	public String getBaseHref() {
+		return baseHref;
+	}
+
+	/**
+	 * Returns the raw href of the first {@code <link rel="canonical">} tag, or null if the document has none.
+	 */
+	public String getCanonicalHref() {
+		return canonicalHref;
+	}
+
+	private void accept(char c) {
+		switch (state) {
+			case TEXT:
+				if (c == '<') {
+					state = State.TAG_START;
+					tagNameLength = 0;
+					if (anchorHref != null) {
+						appendText(' '); // a nested tag may separate words
+					}
+				} else if (anchorHref != null) {
+					appendText(c);
+				}
+				break;
+			case TAG_START:
+				if (isLetter(c)) {
+					appendName(tagName, tagNameLength++, c);
+					state = State.TAG_NAME;
+				} else if (c == '<') {
+					tagNameLength = 0;
+				} else if (c == '/' && anchorHref != null) {
+					state = State.END_TAG_NAME; // only end tags that may close the anchor are read
+				} else {
+					state = c == '!' || c == '/' || c == '?' ? State.SKIP_TAG : State.TEXT;
+				}
+				break;
+			case TAG_NAME:
+				if (isWhitespace(c) || c == '/') {
+					startTag();
+					state = State.ATTRIBUTES;
+				} else if (c == '>') {
+					state = State.TEXT;
+				} else {
+					appendName(tagName, tagNameLength++, c);
+				}
+				break;
+			case END_TAG_NAME:
+				if (isLetter(c)) {
+					appendName(tagName, tagNameLength++, c);
+				} else {
+					if (isName(tagName, tagNameLength, "a")) {
+						endAnchorText();
+					}
+					state = c == '>' ? State.TEXT : State.SKIP_TAG;
+				}
+				break;
+			case SKIP_TAG:
+				if (c == '>') {
+					state = State.TEXT;
+				}
+				break;
+			case ATTRIBUTES:
+				if (c == '>') {
+					endTag();
+				} else if (!isWhitespace(c) && c != '/') {
+					startAttribute(c);
+				}
+				break;
+			case ATTR_NAME:
+				if (c == '=') {
+					state = State.BEFORE_VALUE;
+				} else if (isWhitespace(c)) {
+					state = State.AFTER_ATTR_NAME;
+				} else if (c == '>') {
+					endTag();
+				} else if (c == '/') {
+					state = State.ATTRIBUTES;
+				} else {
+					appendName(attrName, attrNameLength++, c);
+				}
+				break;
+			case AFTER_ATTR_NAME:
+				if (c == '=') {
+					state = State.BEFORE_VALUE;
+				} else if (c == '>') {
+					endTag();
+				} else if (!isWhitespace(c)) {
+					startAttribute(c);
+				}
+				break;
+			case BEFORE_VALUE:
+				valueLength = 0;
+				valueOverflow = false;
+				valueHasRawBytes = false;
+				if (c == '"' || c == '\'') {
+					quote = c;
+					state = State.QUOTED_VALUE;
+				} else if (c == '>') {
+					endTag();
+				} else if (!isWhitespace(c)) {
+					appendValue(c);
+					state = State.UNQUOTED_VALUE;
+				}
+				break;
+			case QUOTED_VALUE:
+				if (c == quote) {
+					endAttribute();
+					state = State.ATTRIBUTES;
+				} else {
+					appendValue(c);
+				}
+				break;
+			case UNQUOTED_VALUE:
+				if (isWhitespace(c)) {
+					endAttribute();
+					state = State.ATTRIBUTES;
+				} else if (c == '>') {
+					endAttribute();
+					endTag();
+				} else {
+					appendValue(c);
+				}
+				break;
+		}
+	}
+
+	private void startTag() {
+		if (isName(tagName, tagNameLength, "a")) {
+			endAnchorText(); // anchors do not nest, so an unclosed one ends here
+			tag = Tag.ANCHOR;
+			tagHref = null;
+		} else if (isName(tagName, tagNameLength, "base")) {
+			tag = Tag.BASE;
+		} else if (isName(tagName, tagNameLength, "link")) {
+			tag = Tag.LINK;
+			linkHref = null;
+			linkIsCanonical = false;
+		} else {
+			tag = Tag.OTHER;
+		}
+	}
+
+	private void endTag() {
+		// rel and href may appear in either order, so canonical links are only resolved once the tag closes
+		if (tag == Tag.LINK && linkIsCanonical && linkHref != null && canonicalHref == null) {
+			canonicalHref = linkHref;
+		}
+		if (tag == Tag.ANCHOR && tagHref != null) {
+			anchorHref = tagHref;
+			textLength = 0;
+			textHasRawBytes = false;
+		}
+		tag = Tag.OTHER;
+		state = State.TEXT;
+	}
+
+	private void startAttribute(char c) {
+		attrNameLength = 0;
+		appendName(attrName, attrNameLength++, c);
+		state = State.ATTR_NAME;
+	}
+
+	private void endAttribute() {
+		if (tag == Tag.OTHER || valueOverflow || valueLength == 0) {
+			return;
+		}
+		boolean isHref = isName(attrName, attrNameLength, "href");
+		if (tag == Tag.LINK && isName(attrName, attrNameLength, "rel")) {
+			linkIsCanonical = containsToken(currentValue(), "canonical");
+		} else if (isHref && tag == Tag.ANCHOR) {
+			tagHref = currentValue();
+			hrefs.add(tagHref);
+		} else if (isHref && tag == Tag.BASE && baseHref == null) {
+			baseHref = currentValue();
+		} else if (isHref && tag == Tag.LINK) {
+			linkHref = currentValue();
+		}
+	}
+
+	private String currentValue() {
+		return decode(value, valueLength, valueHasRawBytes);
+	}
+
+	private void endAnchorText() {
+		if (anchorHref == null) {
+			return;
+		}
+		String anchorText = decode(text, textLength, textHasRawBytes);
+		if (!anchorText.isEmpty()) {
+			anchorTexts.putIfAbsent(anchorHref, anchorText);
+		}
+		anchorHref = null;
+	}
+
+	private void appendText(char c) {
+		if (isWhitespace(c)) {
+			if (textLength == 0 || text[textLength - 1] == ' ') {
+				return;
+			}
+			c = ' ';
+		}
+		if (textLength < MAX_TEXT_LENGTH) {
+			text[textLength++] = c;
+		}
+	}
+
+	/**
+	 * Returns the characters as a trimmed string. Characters fed as raw bytes are decoded as UTF-8 first.
+	 */
+	private static String decode(char[] chars, int length, boolean rawBytes) {
+		if (!rawBytes) {
+			return new String(chars, 0, length).trim();
+		}
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = (byte) chars[i];
+		}
+		return new String(bytes, StandardCharsets.UTF_8).trim();
+	}
+
+	private void appendValue(char c) {
+		if (valueLength < MAX_VALUE_LENGTH) {
+			value[valueLength++] = c;
+		} else {
+			valueOverflow = true;
+		}
+	}
+
+	private static boolean containsToken(String value, String token) {
+		for (String part : value.split("\\s+")) {
+			if (part.equalsIgnoreCase(token)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isName(char[] name, int length, String expected) {
+		if (length != expected.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (name[i] != expected.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void appendName(char[] name, int index, char c) {
+		if (index < MAX_NAME_LENGTH) {
+			name[index] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+		}
+	}
+
+	private static boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+	}
+}
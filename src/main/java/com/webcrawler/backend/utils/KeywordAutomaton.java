@@ -0,0 +1,100 @@
+package com.webcrawler.backend.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Aho-Corasick automaton that finds every one of a set of keywords in a single pass over the text.
+ * Instances are immutable and safe to share between threads; build a new one when the keyword set changes.
+ */
+
+public class KeywordAutomaton {
+
+	private final Node root = new Node();
+	private final int keywordCount;
+
+	public KeywordAutomaton(Collection<String> keywords) {
+		Set<String> unique = new LinkedHashSet<>(keywords);
+		unique.removeIf(String::isEmpty);
+		this.keywordCount = unique.size();
+
+		for (String keyword : unique) {
+			Node node = root;
+			for (int i = 0; i < keyword.length(); i++) {
+				node = node.children.computeIfAbsent(keyword.charAt(i), c -> new Node());
+			}
+			node.outputs.add(keyword);
+		}
+		buildFailureLinks();
+	}
+
+	public boolean isEmpty() {
+		return keywordCount == 0;
+	}
+
+	/**
+	 * Returns the keywords that occur in the text. Scanning stops as soon as every keyword has been seen.
+	 */
+	public Set<String> findAll(CharSequence text) {
+		if (keywordCount == 0) {
+			return Collections.emptySet();
+		}
+
+		Set<String> found = new HashSet<>();
+		Node node = root;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			while (node != root && !node.children.containsKey(c)) {
+				node = node.failure;
+			}
+			node = node.children.getOrDefault(c, root);
+
+			if (!node.outputs.isEmpty() && found.addAll(node.outputs) && found.size() == keywordCount) {
+				break;
+			}
+		}
+		return found;
+	}
+
+	private void buildFailureLinks() {
+		Queue<Node> queue = new ArrayDeque<>();
+		root.failure = root;
+		for (Node child : root.children.values()) {
+			child.failure = root;
+			queue.add(child);
+		}
+
+		while (!queue.isEmpty()) {
+			Node current = queue.poll();
+			for (Map.Entry<Character, Node> entry : current.children.entrySet()) {
+				char c = entry.getKey();
+				Node child = entry.getValue();
+
+				Node fallback = current.failure;
+				while (fallback != root && !fallback.children.containsKey(c)) {
+					fallback = fallback.failure;
+				}
+				Node target = fallback.children.get(c);
+				child.failure = target != null && target != child ? target : root;
+				// Inherit matches that end at the failure state so lookups never need to walk the chain
+				child.outputs.addAll(child.failure.outputs);
+				queue.add(child);
+			}
+		}
+	}
+
+	private static final class Node {
+		private final Map<Character, Node> children = new HashMap<>();
+		private final List<String> outputs = new ArrayList<>(1);
+		private Node failure;
+	}
+}
@@ -0,0 +1,107 @@
+package com.webcrawler.backend.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent latency histogram with HDR-style log-linear buckets: each power of two (in microseconds) is split into
+ * four equal sub-buckets, so any recorded value is known to within 25% from 1 microsecond up to about two minutes.
+ * The bucket of a value is found from its highest set bit, without searching, and counts are {@link LongAdder}s,
+ * so recording is a few instructions and does not contend between threads. Larger values land in the last bucket.
+ */
+
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_OCTAVE = 27; // 2^27 microseconds, about 134 seconds
+	// Four linear buckets below 4 microseconds, then four per octave up to MAX_OCTAVE
+	private static final int BUCKET_COUNT = (MAX_OCTAVE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+	private final LongAdder[] counts = new LongAdder[BUCKET_COUNT];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sumMicros = new LongAdder();
+
+	public LatencyHistogram() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	public void recordNanos(long nanos) {
+		long micros = Math.max(0, nanos / 1000);
+		counts[bucketOf(micros)].increment();
+		count.increment();
+		sumMicros.add(micros);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public double getSumSeconds() {
+		return sumMicros.sum() / 1_000_000.0;
+	}
+
+	/**
+	 * Returns the per-bucket counts, in the order of {@link #getBucketUpperBoundMicros(int)}.
+	 */
+	public long[] getBucketCounts() {
+		long[] snapshot = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = counts[i].sum();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Returns the upper bound of the bucket holding the given fraction (0 to 1) of recorded values, in microseconds,
+	 * or 0 if nothing was recorded.
+	 */
+	public long getValueAtQuantileMicros(double quantile) {
+		long[] snapshot = getBucketCounts();
+		long total = 0;
+		for (long bucketCount : snapshot) {
+			total += bucketCount;
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return getBucketUpperBoundMicros(i);
+			}
+		}
+		return getBucketUpperBoundMicros(BUCKET_COUNT - 1);
+	}
+
+	public static int getBucketCount() {
+		return BUCKET_COUNT;
+	}
+
+	/**
+	 * Returns the exclusive upper bound of a bucket in microseconds.
+	 */
+	public static long getBucketUpperBoundMicros(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket + 1;
+		}
+		int octave = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int sub = bucket % SUB_BUCKETS;
+		return (long) (SUB_BUCKETS + sub + 1) << (octave - SUB_BUCKET_BITS);
+	}
+
+	static int bucketOf(long micros) {
+		if (micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		int octave = 63 - Long.numberOfLeadingZeros(micros);
+		if (octave > MAX_OCTAVE) {
+			return BUCKET_COUNT - 1;
+		}
+		int sub = (int) (micros >>> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (octave - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+}
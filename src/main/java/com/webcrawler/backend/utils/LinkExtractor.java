@@ -1,41 +1,276 @@
 package com.webcrawler.backend.utils;
 
-import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * The LinkExtractor class is responsible for extracting links from HTML content.
- * It uses a regular expression to find anchor tags and resolves relative URLs
- * against a base URL. It also filters out links that do not belong to the same host.
+ * It tokenizes the page in a single pass with {@link HtmlLinkScanner} (anchors, {@code <base>} and the
+ * canonical link) and resolves relative URLs against the page or its declared base.
+ * It also filters out links that do not belong to the same host.
  */
 
 public class LinkExtractor {
 
-	private static final Pattern LINK_PATTERN =
-			Pattern.compile("<a\\s+[^>]*href=[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
-
 	public Set<String> extractLinks(URL baseUrl, String html) {
-		Set<String> links = new HashSet<>();
-		Matcher matcher = LINK_PATTERN.matcher(html);
-
-		while (matcher.find()) {
-			String href = matcher.group(1);
-			try {
-				URL resolved = new URL(baseUrl, href);
-				new URI(resolved.toString()); // Check if the URL is well-formed
-				if (resolved.getHost().equals(baseUrl.getHost())) {
-					links.add(resolved.toString());
+		HtmlLinkScanner scanner = new HtmlLinkScanner();
+		scanner.feed(html);
+		return resolveLinks(baseUrl, scanner);
+	}
+
+	/**
+	 * Like {@link #extractLinks(URL, String)}, but maps each link to the text of the anchor it was found in,
+	 * or to an empty string if it has none.
+	 */
+	public Map<String, String> extractLinkTexts(URL baseUrl, String html) {
+		HtmlLinkScanner scanner = new HtmlLinkScanner();
+		scanner.feed(html);
+		return resolveLinkTexts(baseUrl, scanner);
+	}
+
+	/**
+	 * Resolves everything a scanner collected, honouring the document's {@code <base href>} if present.
+	 */
+	public Set<String> resolveLinks(URL pageUrl, HtmlLinkScanner scanner) {
+		Base base = baseOf(pageUrl, scanner);
+		Set<String> links = resolveLinks(base, scanner.getHrefs());
+		if (scanner.getCanonicalHref() != null) {
+			String canonical = resolve(base, scanner.getCanonicalHref());
+			if (canonical != null) {
+				links.add(canonical);
+			}
+		}
+		return links;
+	}
+
+	/**
+	 * Like {@link #resolveLinks(URL, HtmlLinkScanner)}, but maps each link, in document order, to the text of the
+	 * first anchor it was found in that has some, or to an empty string.
+	 */
+	public Map<String, String> resolveLinkTexts(URL pageUrl, HtmlLinkScanner scanner) {
+		Base base = baseOf(pageUrl, scanner);
+		Map<String, String> links = new LinkedHashMap<>();
+		for (String href : scanner.getHrefs()) {
+			String resolved = resolve(base, href);
+			if (resolved != null) {
+				String text = scanner.getAnchorTexts().getOrDefault(href, "");
+				if (links.putIfAbsent(resolved, text) != null && !text.isEmpty()) {
+					links.replace(resolved, "", text); // another href of the same link may have had no text
 				}
-			} catch (MalformedURLException | URISyntaxException ignored) {
-				// Ignore malformed URLs
+			}
+		}
+		if (scanner.getCanonicalHref() != null) {
+			String canonical = resolve(base, scanner.getCanonicalHref());
+			if (canonical != null) {
+				links.putIfAbsent(canonical, "");
+			}
+		}
+		return links;
+	}
+
+	private static Base baseOf(URL pageUrl, HtmlLinkScanner scanner) {
+		Base base = Base.of(pageUrl);
+		if (scanner.getBaseHref() != null) {
+			// Not limited to the page's host: a base on another host must make relative links resolve there
+			String declared = resolveBase(base, scanner.getBaseHref());
+			if (declared != null) {
+				base = Base.of(declared, base);
+			}
+		}
+		return base;
+	}
+
+	/**
+	 * Returns the absolute form of a declared base href, on any host, or null if it is malformed or not http(s).
+	 */
+	private static String resolveBase(Base base, String href) {
+		if (href.isEmpty() || !isValidUriText(href)) {
+			return null;
+		}
+		try {
+			URI resolved = base.uri().resolve(new URI(href));
+			boolean http = "http".equalsIgnoreCase(resolved.getScheme()) || "https".equalsIgnoreCase(resolved.getScheme());
+			return http && resolved.getHost() != null ? resolved.toString() : null;
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Resolves raw href values against the base URL, keeping only well-formed links on the same host.
+	 */
+	public Set<String> resolveLinks(URL baseUrl, Collection<String> hrefs) {
+		return resolveLinks(Base.of(baseUrl), hrefs);
+	}
+
+	private Set<String> resolveLinks(Base base, Collection<String> hrefs) {
+		Set<String> links = new HashSet<>();
+		for (String href : hrefs) {
+			String resolved = resolve(base, href);
+			if (resolved != null) {
+				links.add(resolved);
 			}
 		}
 		return links;
 	}
+
+	/**
+	 * Returns the absolute form of the href, or null if it is malformed, not http(s) or on another host.
+	 * Root-relative and absolute hrefs, the vast majority in practice, are resolved by string operations
+	 * alone; only document-relative ones go through {@link URI#resolve(URI)}.
+	 */
+	private static String resolve(Base base, String href) {
+		if (href.isEmpty() || !isValidUriText(href)) {
+			return null;
+		}
+
+		if (href.charAt(0) == '/' && (href.length() == 1 || href.charAt(1) != '/')) {
+			return base.onHost ? base.origin + href : null;
+		}
+
+		int schemeEnd = schemeEnd(href);
+		if (schemeEnd > 0) {
+			boolean http = href.regionMatches(true, 0, "http", 0, schemeEnd) || href.regionMatches(true, 0, "https", 0, schemeEnd);
+			if (!http || !href.startsWith("//", schemeEnd + 1)) {
+				return null;
+			}
+			return base.host.equals(hostOf(href, schemeEnd + 3)) ? href : null;
+		}
+
+		if (href.charAt(0) == '?' || href.charAt(0) == '#') {
+			return base.onHost ? base.withoutSuffix(href.charAt(0)) + href : null;
+		}
+
+		if (href.startsWith("//")) {
+			return base.host.equals(hostOf(href, 2)) ? base.scheme + ":" + href : null;
+		}
+
+		try {
+			URI resolved = base.uri().resolve(new URI(href));
+			return base.host.equals(resolved.getHost()) ? resolved.toString() : null;
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null; // Ignore malformed URLs
+		}
+	}
+
+	/**
+	 * Returns the index of the ':' ending a URI scheme at the start of the href, or -1 if there is none.
+	 */
+	private static int schemeEnd(String href) {
+		for (int i = 0; i < href.length(); i++) {
+			char c = href.charAt(i);
+			if (c == ':') {
+				return i;
+			}
+			boolean schemeChar = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (i > 0 && ((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'));
+			if (!schemeChar) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	private static String hostOf(String url, int authorityStart) {
+		int end = authorityStart;
+		while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+			end++;
+		}
+		int hostStart = url.lastIndexOf('@', end - 1);
+		hostStart = hostStart >= authorityStart ? hostStart + 1 : authorityStart;
+		int portStart = url.indexOf(':', hostStart);
+		int hostEnd = portStart >= 0 && portStart < end ? portStart : end;
+		return url.substring(hostStart, hostEnd);
+	}
+
+	/**
+	 * Cheap equivalent of the checks {@link URI#URI(String)} performs on characters:
+	 * no whitespace or control characters, no characters URIs never allow, and well-formed percent escapes.
+	 */
+	private static boolean isValidUriText(String href) {
+		for (int i = 0; i < href.length(); i++) {
+			char c = href.charAt(i);
+			if (c <= ' ' || c == 0x7F || c == '"' || c == '<' || c == '>' || c == '\\' || c == '^' || c == '`'
+					|| c == '{' || c == '|' || c == '}') {
+				return false;
+			}
+			if (c == '%') {
+				if (i + 2 >= href.length() || !isHex(href.charAt(i + 1)) || !isHex(href.charAt(i + 2))) {
+					return false;
+				}
+				i += 2;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isHex(char c) {
+		return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+	}
+
+	/**
+	 * Resolution context for one page: the parts needed by the string fast paths, plus a lazily built URI.
+	 * Links are kept only on the page's host, which a declared base URL may not be on.
+	 */
+	private static final class Base {
+		private final String url;
+		private final String scheme;
+		private final String origin;
+		private final String host;
+		// Whether the base URL itself is on the host, so links resolved onto its origin are too
+		private final boolean onHost;
+		private URI uri;
+
+		private Base(String url, String scheme, String origin, String host, boolean onHost) {
+			this.url = url;
+			this.scheme = scheme;
+			this.origin = origin;
+			this.host = host;
+			this.onHost = onHost;
+		}
+
+		static Base of(URL url) {
+			String scheme = url.getProtocol();
+			return new Base(url.toString(), scheme, scheme + "://" + url.getAuthority(), url.getHost(), true);
+		}
+
+		static Base of(String declared, Base fallback) {
+			int schemeEnd = declared.indexOf("://");
+			if (schemeEnd < 0) {
+				return fallback;
+			}
+			int pathStart = schemeEnd + 3;
+			while (pathStart < declared.length() && "/?#".indexOf(declared.charAt(pathStart)) < 0) {
+				pathStart++;
+			}
+			return new Base(declared, declared.substring(0, schemeEnd), declared.substring(0, pathStart), fallback.host,
+					fallback.host.equals(hostOf(declared, schemeEnd + 3)));
+		}
+
+		/**
+		 * Returns the base URL without its fragment, and without its query as well when replacing the query.
+		 */
+		String withoutSuffix(char replacing) {
+			int end = url.indexOf('#');
+			if (replacing == '?') {
+				int query = url.indexOf('?');
+				end = query >= 0 && (end < 0 || query < end) ? query : end;
+			}
+			String trimmed = end >= 0 ? url.substring(0, end) : url;
+			return trimmed.length() == origin.length() ? trimmed + "/" : trimmed;
+		}
+
+		URI uri() throws URISyntaxException {
+			if (uri == null) {
+				// URI.resolve mishandles relative paths against a base without a path, so give it a root path
+				uri = new URI(url.length() == origin.length() ? url + "/" : url);
+			}
+			return uri;
+		}
+	}
 }
@@ -0,0 +1,290 @@
+package com.webcrawler.backend.utils;
+
+import com.webcrawler.backend.utils.exceptions.FetchCancelledException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Process-wide cache of fetched page bodies, shared by every crawl job.
+ * Bodies are stored gzip-compressed and evicted by age (TTL) and by total compressed size (LRU).
+ * Concurrent loads of the same URL are coalesced into a single in-flight fetch. If that fetch is cancelled
+ * (see {@link CancellationToken}), only its own caller fails: the callers waiting on it load the page themselves.
+ */
+
+public class PageCache {
+
+	private static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+	private static final long DEFAULT_TTL_SECONDS = 600;
+
+	private static final PageCache SHARED = new PageCache(
+			EnvConfig.getLong("PAGE_CACHE_MAX_BYTES", DEFAULT_MAX_BYTES),
+			Duration.ofSeconds(EnvConfig.getLong("PAGE_CACHE_TTL_SECONDS", DEFAULT_TTL_SECONDS))
+	);
+
+	/**
+	 * Loads a page body on a cache miss. Exceptions are propagated to every caller waiting on the same URL.
+	 */
+	@FunctionalInterface
+	public interface Loader {
+		String load() throws Exception;
+	}
+
+	private final long maxBytes;
+	private final long ttlNanos;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+	private long currentBytes;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public PageCache(long maxBytes, Duration ttl) {
+		if (maxBytes < 0 || ttl.isNegative()) {
+			throw new IllegalArgumentException("Cache size and TTL must not be negative.");
+		}
+		this.maxBytes = maxBytes;
+		this.ttlNanos = ttl.toNanos();
+	}
+
+	public static PageCache shared() {
+		return SHARED;
+	}
+
+	public String get(String url, Loader loader) throws Exception {
+		String cached = lookup(url);
+		if (cached != null) {
+			hits.increment();
+			return cached;
+		}
+
+		CompletableFuture<String> pending = new CompletableFuture<>();
+		CompletableFuture<String> existing = inFlight.putIfAbsent(url, pending);
+		if (existing != null) {
+			coalesced.increment();
+			try {
+				return await(existing);
+			} catch (FetchCancelledException e) {
+				return get(url, loader); // the job that was loading the page stopped, this one did not
+			}
+		}
+
+		try {
+			// Another caller may have stored the page between our lookup and claiming the fetch
+			cached = lookup(url);
+			if (cached != null) {
+				hits.increment();
+				pending.complete(cached);
+				return cached;
+			}
+
+			misses.increment();
+			String body = loader.load();
+			store(url, body);
+			pending.complete(body);
+			return body;
+		} catch (Exception e) {
+			pending.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(url, pending);
+		}
+	}
+
+	/**
+	 * Non-blocking variant of {@link #get(String, Loader)}: callers for a URL that is already being
+	 * loaded receive the same future instead of starting another fetch.
+	 */
+	public CompletableFuture<String> getAsync(String url, Supplier<CompletableFuture<String>> loader) {
+		String cached = lookup(url);
+		if (cached != null) {
+			hits.increment();
+			return CompletableFuture.completedFuture(cached);
+		}
+
+		CompletableFuture<String> pending = new CompletableFuture<>();
+		CompletableFuture<String> existing = inFlight.putIfAbsent(url, pending);
+		if (existing != null) {
+			coalesced.increment();
+			return existing.exceptionallyCompose(ex -> unwrap(ex) instanceof FetchCancelledException
+					? getAsync(url, loader)
+					: CompletableFuture.failedFuture(unwrap(ex)));
+		}
+
+		cached = lookup(url);
+		if (cached != null) {
+			hits.increment();
+			inFlight.remove(url, pending);
+			pending.complete(cached);
+			return pending;
+		}
+
+		misses.increment();
+		CompletableFuture<String> load;
+		try {
+			load = loader.get();
+		} catch (RuntimeException e) {
+			load = CompletableFuture.failedFuture(e);
+		}
+		load.whenComplete((body, ex) -> {
+			if (ex == null) {
+				store(url, body);
+			}
+			inFlight.remove(url, pending);
+			if (ex == null) {
+				pending.complete(body);
+			} else {
+				pending.completeExceptionally(unwrap(ex));
+			}
+		});
+		return pending;
+	}
+
+	public void invalidate(String url) {
+		synchronized (entries) {
+			Entry removed = entries.remove(url);
+			if (removed != null) {
+				currentBytes -= removed.data.length;
+			}
+		}
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	public long getSizeBytes() {
+		synchronized (entries) {
+			return currentBytes;
+		}
+	}
+
+	public int getEntryCount() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	private String lookup(String url) {
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(url);
+			if (entry == null) {
+				return null;
+			}
+			if (isExpired(entry, System.nanoTime())) {
+				entries.remove(url);
+				currentBytes -= entry.data.length;
+				evictions.increment();
+				return null;
+			}
+		}
+		return decompress(entry.data);
+	}
+
+	private void store(String url, String body) {
+		byte[] data = compress(body);
+		if (data.length > maxBytes) {
+			return; // never worth evicting the whole cache for a single page
+		}
+
+		synchronized (entries) {
+			Entry previous = entries.put(url, new Entry(data, System.nanoTime()));
+			if (previous != null) {
+				currentBytes -= previous.data.length;
+			}
+			currentBytes += data.length;
+			evictIfNeeded();
+		}
+	}
+
+	private void evictIfNeeded() {
+		// Expired entries are dropped lazily on lookup; here we only enforce the size budget in LRU order
+		Iterator<Entry> it = entries.values().iterator();
+		while (it.hasNext() && currentBytes > maxBytes) {
+			Entry eldest = it.next();
+			it.remove();
+			currentBytes -= eldest.data.length;
+			evictions.increment();
+		}
+	}
+
+	private boolean isExpired(Entry entry, long now) {
+		return now - entry.storedAt >= ttlNanos;
+	}
+
+	private static Throwable unwrap(Throwable failure) {
+		return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+	}
+
+	private static <T> T await(CompletableFuture<T> future) throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw e;
+		}
+	}
+
+	private static byte[] compress(String body) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length() / 4));
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toByteArray();
+	}
+
+	private static String decompress(byte[] data) {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static final class Entry {
+		private final byte[] data;
+		private final long storedAt;
+
+		private Entry(byte[] data, long storedAt) {
+			this.data = data;
+			this.storedAt = storedAt;
+		}
+	}
+}
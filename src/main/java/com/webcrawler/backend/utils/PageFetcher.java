@@ -1,36 +1,337 @@
 package com.webcrawler.backend.utils;
 
+import com.webcrawler.backend.utils.exceptions.FetchCancelledException;
 import com.webcrawler.backend.utils.exceptions.NonSuccessfulResponseException;
+import com.webcrawler.backend.utils.exceptions.SkippedContentException;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Locale;
-import java.util.Scanner;
 
 /**
  * The PageFetcher class is responsible for fetching the content of a web page.
  * It opens a connection to the specified URL, sets appropriate request properties,
  * and reads the response. If the response code is not 200 (OK), it throws an exception.
+ * Responses are served through a {@link PageCache}, shared by all crawl jobs unless one is provided.
+ * When a {@link ValidatorStore} is enabled, pages fetched before are requested conditionally
+ * (If-None-Match / If-Modified-Since) and a 304 is answered from the stored body.
+ * Requests that reach the network wait for a permit from the host's {@link AdaptiveConcurrencyLimiter}
+ * and are recorded in the shared {@link FetchMetrics}. Compressed transfer (gzip, deflate) is negotiated, and
+ * bodies are decompressed as they are streamed (see {@link ContentEncodings}). Responses that are not pages, or are
+ * too large, are rejected from their headers or cut off while streaming, as the {@link ContentPolicy} says.
+ * A fetch given a {@link CancellationToken} is aborted, by closing its connection, when the token is cancelled.
  */
 
 public class PageFetcher {
 
+	private final PageCache cache;
+	private final ValidatorStore validators;
+	private final HostConcurrencyLimits hostLimits;
+	private final ContentPolicy policy;
+	private final BufferPool bufferPool = BufferPool.shared();
+	private final FetchMetrics metrics = FetchMetrics.shared();
+
+	public PageFetcher() {
+		this(PageCache.shared());
+	}
+
+	public PageFetcher(PageCache cache) {
+		this(cache, ValidatorStore.shared());
+	}
+
+	public PageFetcher(PageCache cache, ValidatorStore validators) {
+		this(cache, validators, HostConcurrencyLimits.shared());
+	}
+
+	public PageFetcher(PageCache cache, ValidatorStore validators, HostConcurrencyLimits hostLimits) {
+		this(cache, validators, hostLimits, ContentPolicy.shared());
+	}
+
+	public PageFetcher(PageCache cache, ValidatorStore validators, HostConcurrencyLimits hostLimits, ContentPolicy policy) {
+		this.cache = cache;
+		this.validators = validators;
+		this.hostLimits = hostLimits;
+		this.policy = policy;
+	}
+
 	public String fetch(URL parsedUrl) throws Exception {
+		return fetch(parsedUrl, CancellationToken.NONE);
+	}
+
+	public String fetch(URL parsedUrl, CancellationToken token) throws Exception {
+		return cache.get(parsedUrl.toString(), () -> download(parsedUrl, token));
+	}
+
+	/**
+	 * Streams the page through pooled buffers, matching the keyword and collecting links on the fly
+	 * instead of materializing the body. Allocation per page stays bounded regardless of its size,
+	 * but the page bypasses the shared cache. With a {@link ValidatorStore} enabled, the body is streamed into
+	 * the store as it is scanned, and a 304 is scanned by streaming the stored body back.
+	 */
+	public PageScan scan(URL parsedUrl, String keyword) throws Exception {
+		return scan(parsedUrl, keyword, CancellationToken.NONE);
+	}
+
+	public PageScan scan(URL parsedUrl, String keyword, CancellationToken token) throws Exception {
+		try (AdaptiveConcurrencyLimiter.Permit permit = hostLimits.forHost(parsedUrl).acquirePermit()) {
+			long startNanos = System.nanoTime();
+			HttpURLConnection connection = (HttpURLConnection) parsedUrl.openConnection();
+			CancellationToken.Registration abort = token.onCancel(connection::disconnect);
+			try {
+				token.throwIfCancelled();
+				return scan(parsedUrl, keyword, connection, permit, startNanos, token);
+			} catch (SkippedContentException e) {
+				metrics.recordSkipped();
+				throw e;
+			} catch (Exception e) {
+				throw failed(e, startNanos, token);
+			} finally {
+				abort.close();
+			}
+		}
+	}
+
+	private PageScan scan(URL parsedUrl, String keyword, HttpURLConnection connection, AdaptiveConcurrencyLimiter.Permit permit,
+						  long startNanos, CancellationToken token) throws Exception {
+		String url = parsedUrl.toString();
+		ValidatorStore.Entry stored = validators.lookupValidators(url);
+		if (policy.needsProbe(parsedUrl)) {
+			probe(parsedUrl, token);
+		}
+		open(connection, stored, permit);
+
+		StreamingKeywordMatcher matcher = new StreamingKeywordMatcher(keyword);
+		HtmlLinkScanner links = new HtmlLinkScanner();
+		if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+			validators.recordRevalidated();
+			byte[] buffer = bufferPool.acquire();
+			try (InputStream body = validators.openBody(url)) {
+				int read;
+				while ((read = body.read(buffer)) != -1) {
+					matcher.feed(buffer, 0, read);
+					links.feed(buffer, 0, read);
+				}
+			} finally {
+				bufferPool.release(buffer);
+			}
+			metrics.recordSuccess(System.nanoTime() - startNanos, 0, 0);
+			return new PageScan(matcher.isFound(), links);
+		}
+
+		checkContent(connection);
+		long decoded = 0;
+		boolean truncated = false;
+		ContentEncodings.CountingInputStream wire = new ContentEncodings.CountingInputStream(connection.getInputStream());
+		byte[] buffer = bufferPool.acquire();
+		try (ValidatorStore.BodyWriter copy = validators.writer(url, connection.getHeaderField("ETag"),
+					connection.getHeaderField("Last-Modified"), connection.getContentType(), stored);
+			 InputStream stream = ContentEncodings.decode(wire, connection.getContentEncoding())) {
+			int read;
+			while (!truncated && (read = stream.read(buffer)) != -1) {
+				if (decoded + read > policy.getMaxBodyBytes()) {
+					read = (int) (policy.getMaxBodyBytes() - decoded);
+					truncated = true;
+					rejectOversized(connection);
+				}
+				decoded += read;
+				matcher.feed(buffer, 0, read);
+				links.feed(buffer, 0, read);
+				if (copy != null) {
+					copy.write(buffer, 0, read);
+				}
+			}
+			if (copy != null && !truncated) {
+				copy.commit();
+			}
+		} finally {
+			bufferPool.release(buffer);
+		}
+		if (truncated) {
+			metrics.recordTruncated();
+		}
+		metrics.recordSuccess(System.nanoTime() - startNanos, wire.getCount(), decoded);
+		return new PageScan(matcher.isFound(), links);
+	}
+
+	private String download(URL parsedUrl, CancellationToken token) throws Exception {
+		try (AdaptiveConcurrencyLimiter.Permit permit = hostLimits.forHost(parsedUrl).acquirePermit()) {
+			long startNanos = System.nanoTime();
+			HttpURLConnection connection = (HttpURLConnection) parsedUrl.openConnection();
+			CancellationToken.Registration abort = token.onCancel(connection::disconnect);
+			try {
+				token.throwIfCancelled();
+				return download(parsedUrl, connection, permit, startNanos, token);
+			} catch (SkippedContentException e) {
+				metrics.recordSkipped();
+				throw e;
+			} catch (Exception e) {
+				throw failed(e, startNanos, token);
+			} finally {
+				abort.close();
+			}
+		}
+	}
+
+	private String download(URL parsedUrl, HttpURLConnection connection, AdaptiveConcurrencyLimiter.Permit permit,
+							long startNanos, CancellationToken token) throws Exception {
+		String url = parsedUrl.toString();
+		ValidatorStore.Entry stored = validators.lookup(url);
+		if (policy.needsProbe(parsedUrl)) {
+			probe(parsedUrl, token);
+		}
+		open(connection, stored, permit);
+
+		byte[] body;
+		String contentType;
+		long wireBytes = 0;
+		long decodedBytes = 0;
+		if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+			validators.recordRevalidated();
+			body = stored.bodyBytes();
+			contentType = stored.getContentType();
+		} else {
+			contentType = connection.getContentType();
+			checkContent(connection);
+			long limit = policy.getMaxBodyBytes();
+			boolean truncated;
+			ContentEncodings.CountingInputStream wire = new ContentEncodings.CountingInputStream(connection.getInputStream());
+			try (InputStream stream = ContentEncodings.decode(wire, connection.getContentEncoding())) {
+				// One byte past the limit tells an oversized body from one of exactly the maximum size
+				body = stream.readNBytes((int) Math.min(limit + 1, Integer.MAX_VALUE - 8));
+				truncated = body.length > limit;
+				if (truncated) {
+					rejectOversized(connection);
+					body = Arrays.copyOf(body, (int) limit);
+				}
+			}
+			wireBytes = wire.getCount();
+			decodedBytes = body.length;
+			if (truncated) {
+				metrics.recordTruncated();
+			} else {
+				validators.save(url, connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"), contentType, body, stored);
+			}
+		}
+		metrics.recordSuccess(System.nanoTime() - startNanos, wireBytes, decodedBytes);
+		return decode(body, contentType);
+	}
+
+	/**
+	 * Turns a response body into the text crawl jobs match and extract links from: decoded with the charset its
+	 * Content-Type declares, or UTF-8, and lowercased. Both fetchers decode through here, so the text cached for
+	 * a URL does not depend on which of them loaded it.
+	 */
+	public static String decode(byte[] body, String contentType) {
+		return new String(body, charsetOf(contentType)).toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Returns the charset a Content-Type header value declares, or UTF-8 if it declares none or an unknown one.
+	 */
+	static Charset charsetOf(String contentType) {
+		if (contentType == null) {
+			return StandardCharsets.UTF_8;
+		}
+		int index = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+		if (index < 0) {
+			return StandardCharsets.UTF_8;
+		}
+		String name = contentType.substring(index + "charset=".length()).split(";", 2)[0].trim().replace("\"", "");
+		try {
+			return Charset.forName(name);
+		} catch (IllegalArgumentException e) {
+			return StandardCharsets.UTF_8;
+		}
+	}
+
+	/**
+	 * Returns the exception a failed fetch is reported with: a failure caused by closing the connection of a cancelled
+	 * fetch is a {@link FetchCancelledException}, and not counted as a failed request.
+	 */
+	private Exception failed(Exception failure, long startNanos, CancellationToken token) {
+		if (token.isCancelled()) {
+			return failure instanceof FetchCancelledException ? failure : new FetchCancelledException("Fetch cancelled");
+		}
+		metrics.recordFailure(System.nanoTime() - startNanos);
+		return failure;
+	}
+
+	/**
+	 * Throws {@link SkippedContentException} if the response headers show it is not a page or is too large to read.
+	 */
+	private void checkContent(HttpURLConnection connection) {
+		String reason = policy.rejectionReason(connection.getContentType(), connection.getContentLengthLong());
+		if (reason != null) {
+			connection.disconnect(); // closes the socket instead of draining the body to reuse it
+			throw new SkippedContentException(reason);
+		}
+	}
+
+	/**
+	 * Stops reading an oversized body: the connection is dropped, and the page is kept up to the limit or skipped.
+	 */
+	private void rejectOversized(HttpURLConnection connection) {
+		connection.disconnect();
+		if (!policy.isTruncateOversized()) {
+			throw new SkippedContentException("Skipping oversized response [over " + policy.getMaxBodyBytes() + " bytes]");
+		}
+	}
+
+	/**
+	 * Asks for the URL's headers only, and throws {@link SkippedContentException} if they show it is not worth a GET.
+	 * Servers that do not answer HEAD with a 200 are given the GET.
+	 */
+	private void probe(URL parsedUrl, CancellationToken token) throws IOException {
 		HttpURLConnection connection = (HttpURLConnection) parsedUrl.openConnection();
-		connection.setRequestProperty("User-Agent", "Mozilla/5.0");
+		connection.setRequestMethod("HEAD");
+		connection.setRequestProperty("User-Agent", RobotsRules.USER_AGENT);
 		connection.setConnectTimeout(3000);
 		connection.setReadTimeout(3000);
+		CancellationToken.Registration abort = token.onCancel(connection::disconnect);
+		try {
+			if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+				checkContent(connection);
+			}
+		} finally {
+			abort.close();
+			connection.disconnect();
+		}
+	}
 
-		if (connection.getResponseCode() != 200) {
-			throw new NonSuccessfulResponseException("Non-200 response [" + connection.getResponseCode() + "]");
+	/**
+	 * Sends the request, conditionally if validators are stored for the URL.
+	 * Returns on a 200, or on a 304 when validators were sent; anything else is an error.
+	 * The time to the response headers and the status are reported to the host's concurrency limiter.
+	 */
+	private void open(HttpURLConnection connection, ValidatorStore.Entry stored, AdaptiveConcurrencyLimiter.Permit permit) throws Exception {
+		connection.setRequestProperty("User-Agent", RobotsRules.USER_AGENT);
+		connection.setRequestProperty("Accept-Encoding", ContentEncodings.ACCEPT_ENCODING);
+		connection.setConnectTimeout(3000);
+		connection.setReadTimeout(3000);
+		if (stored != null) {
+			if (stored.getEtag() != null) {
+				connection.setRequestProperty("If-None-Match", stored.getEtag());
+			}
+			if (stored.getLastModified() != null) {
+				connection.setRequestProperty("If-Modified-Since", stored.getLastModified());
+			}
 		}
 
-		try (
-				InputStream stream = connection.getInputStream();
-				Scanner scanner = new Scanner(stream).useDelimiter("\\A")
-		) {
-			return scanner.hasNext() ? scanner.next().toLowerCase(Locale.ROOT) : "";
+		int status;
+		try {
+			status = connection.getResponseCode();
+		} catch (IOException e) {
+			permit.onFailure(e);
+			throw e;
+		}
+		permit.onResponse(status);
+		if (status != 200 && !(status == HttpURLConnection.HTTP_NOT_MODIFIED && stored != null)) {
+			throw new NonSuccessfulResponseException("Non-200 response [" + status + "]", status);
 		}
 	}
-}
\ No newline at end of file
+}
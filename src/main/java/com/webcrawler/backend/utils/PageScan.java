@@ -0,0 +1,24 @@
+package com.webcrawler.backend.utils;
+
+/**
+ * Result of streaming a page through {@link PageFetcher#scan(java.net.URL, String)}:
+ * whether the keyword occurs in it and the link targets its tokenizer collected.
+ */
+
+public class PageScan {
+	private final boolean keywordFound;
+	private final HtmlLinkScanner links;
+
+	public PageScan(boolean keywordFound, HtmlLinkScanner links) {
+		this.keywordFound = keywordFound;
+		this.links = links;
+	}
+
+	public boolean isKeywordFound() {
+		return keywordFound;
+	}
+
+	public HtmlLinkScanner getLinks() {
+		return links;
+	}
+}
@@ -0,0 +1,87 @@
+package com.webcrawler.backend.utils;
+
+import java.math.BigDecimal;
+
+/**
+ * Builds a metrics page in the Prometheus text exposition format (version 0.0.4).
+ * Each metric family is started with {@link #family} (its HELP and TYPE lines), followed by its samples.
+ */
+
+public class PrometheusTextWriter {
+
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final StringBuilder out = new StringBuilder(4096);
+
+	public PrometheusTextWriter family(String name, String type, String help) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+		return this;
+	}
+
+	public PrometheusTextWriter sample(String name, double value) {
+		out.append(name).append(' ');
+		appendValue(value);
+		out.append('\n');
+		return this;
+	}
+
+	public PrometheusTextWriter sample(String name, String label, String labelValue, double value) {
+		out.append(name).append('{').append(label).append("=\"");
+		appendEscaped(labelValue);
+		out.append("\"} ");
+		appendValue(value);
+		out.append('\n');
+		return this;
+	}
+
+	/**
+	 * Writes a whole histogram family, with one cumulative bucket per {@link LatencyHistogram} bucket, in seconds.
+	 */
+	public PrometheusTextWriter histogram(String name, String help, LatencyHistogram histogram) {
+		family(name, "histogram", help);
+		long[] counts = histogram.getBucketCounts();
+		long cumulative = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulative += counts[i];
+			sample(name + "_bucket", "le", formatDouble(LatencyHistogram.getBucketUpperBoundMicros(i) / 1_000_000.0), cumulative);
+		}
+		sample(name + "_bucket", "le", "+Inf", cumulative);
+		sample(name + "_sum", histogram.getSumSeconds());
+		// The count is derived from the buckets so that it always equals the +Inf bucket of this scrape
+		return sample(name + "_count", cumulative);
+	}
+
+	@Override
+	public String toString() {
+		return out.toString();
+	}
+
+	private void appendValue(double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			out.append((long) value);
+		} else {
+			out.append(formatDouble(value));
+		}
+	}
+
+	private static String formatDouble(double value) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return Double.toString(value).replace("Infinity", "Inf");
+		}
+		return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+	}
+
+	private void appendEscaped(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' || c == '"') {
+				out.append('\\').append(c);
+			} else if (c == '\n') {
+				out.append("\\n");
+			} else {
+				out.append(c);
+			}
+		}
+	}
+}
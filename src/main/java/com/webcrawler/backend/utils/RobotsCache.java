@@ -0,0 +1,123 @@
+package com.webcrawler.backend.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-host cache of {@link RobotsRules}, shared by all crawl jobs. Each host's robots.txt is fetched once, by the
+ * first job that needs it while the others wait for the same fetch, and kept for a day. A missing robots.txt (4xx)
+ * allows everything. So does one that cannot be fetched, cached only briefly: unlike RFC 9309, which treats an
+ * unreachable file as a full disallow, a transient error should not stop a crawl. Only the first 500 KiB are parsed.
+ * Disabled (everything allowed) when ROBOTS_TXT is false.
+ */
+
+public class RobotsCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(RobotsCache.class);
+	private static final int MAX_ROBOTS_BYTES = 500 * 1024;
+	private static final Duration FAILURE_TTL = Duration.ofMinutes(1);
+	private static final RobotsCache SHARED = new RobotsCache(EnvConfig.getBoolean("ROBOTS_TXT", true), Duration.ofHours(24));
+
+	private final boolean enabled;
+	private final long ttlNanos;
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	public RobotsCache(boolean enabled, Duration ttl) {
+		this.enabled = enabled;
+		this.ttlNanos = ttl.toNanos();
+	}
+
+	public static RobotsCache shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Whether robots.txt allows fetching the URL.
+	 */
+	public boolean isAllowed(URL url) {
+		return rulesFor(url).isAllowed(url.getFile());
+	}
+
+	/**
+	 * Returns the rules of the URL's host, fetching its robots.txt if they are not cached.
+	 */
+	public RobotsRules rulesFor(URL url) {
+		if (!enabled) {
+			return RobotsRules.allowAll();
+		}
+		String origin = originOf(url);
+		while (true) {
+			Entry entry = entries.get(origin);
+			if (entry != null && System.nanoTime() - entry.expiresAtNanos < 0) {
+				return entry.rules.join();
+			}
+			Entry fresh = new Entry();
+			boolean owner = entry == null ? entries.putIfAbsent(origin, fresh) == null : entries.replace(origin, entry, fresh);
+			if (owner) {
+				load(origin, fresh);
+				return fresh.rules.join();
+			}
+		}
+	}
+
+	/**
+	 * Returns scheme, host and port of the URL, e.g. "https://example.com:8443".
+	 */
+	public static String originOf(URL url) {
+		return url.getProtocol() + "://" + url.getHost() + (url.getPort() >= 0 ? ":" + url.getPort() : "");
+	}
+
+	private void load(String origin, Entry entry) {
+		RobotsRules rules;
+		long ttl = ttlNanos;
+		try {
+			rules = fetch(origin);
+		} catch (IOException | RuntimeException e) {
+			logger.warn("[RobotsCache] Could not fetch robots.txt of {}, allowing all paths", origin, e);
+			rules = RobotsRules.allowAll();
+			ttl = Math.min(ttlNanos, FAILURE_TTL.toNanos());
+		}
+		entry.expiresAtNanos = System.nanoTime() + ttl;
+		entry.rules.complete(rules);
+	}
+
+	private RobotsRules fetch(String origin) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(origin + "/robots.txt").openConnection();
+		connection.setRequestProperty("User-Agent", RobotsRules.USER_AGENT);
+		connection.setRequestProperty("Accept-Encoding", ContentEncodings.ACCEPT_ENCODING);
+		connection.setConnectTimeout(3000);
+		connection.setReadTimeout(3000);
+		try {
+			int status = connection.getResponseCode();
+			if (status >= 400 && status < 500) {
+				return RobotsRules.allowAll();
+			}
+			if (status != HttpURLConnection.HTTP_OK) {
+				throw new IOException("Non-200 response [" + status + "]");
+			}
+			try (InputStream body = ContentEncodings.decode(connection.getInputStream(), connection.getContentEncoding())) {
+				return RobotsRules.parse(new String(body.readNBytes(MAX_ROBOTS_BYTES), StandardCharsets.UTF_8), RobotsRules.PRODUCT_TOKEN);
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * Rules of one host, completed once fetched. Never expires while the fetch is running.
+	 */
+	private static final class Entry {
+		private final CompletableFuture<RobotsRules> rules = new CompletableFuture<>();
+		private volatile long expiresAtNanos = System.nanoTime() + Long.MAX_VALUE / 2;
+	}
+}
@@ -0,0 +1,154 @@
+package com.webcrawler.backend.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The rules of one host's robots.txt (RFC 9309) that apply to this crawler: those of the groups naming its product
+ * token if there are any, otherwise those of the "*" groups. A path is allowed unless its longest matching rule is a
+ * Disallow, with Allow winning ties. Patterns support "*" wildcards and a "$" end anchor.
+ * Sitemap lines are collected wherever they appear.
+ */
+
+public class RobotsRules {
+
+	public static final String PRODUCT_TOKEN = "spark-webcrawler";
+	// Sent with every request, so sites can tell which robots.txt group applies to it
+	public static final String USER_AGENT = "Mozilla/5.0 (compatible; " + PRODUCT_TOKEN + "/1.0)";
+	private static final RobotsRules ALLOW_ALL = new RobotsRules(List.of(), List.of());
+
+	private final List<Rule> rules;
+	private final List<String> sitemaps;
+
+	private RobotsRules(List<Rule> rules, List<String> sitemaps) {
+		this.rules = rules;
+		this.sitemaps = sitemaps;
+	}
+
+	/**
+	 * Rules of a host without a usable robots.txt.
+	 */
+	public static RobotsRules allowAll() {
+		return ALLOW_ALL;
+	}
+
+	public static RobotsRules parse(String text, String productToken) {
+		String token = productToken.toLowerCase(Locale.ROOT);
+		List<Rule> specific = new ArrayList<>();
+		List<Rule> wildcard = new ArrayList<>();
+		List<String> sitemaps = new ArrayList<>();
+
+		// A group is a run of user-agent lines followed by its rules; consecutive groups for one agent are merged
+		boolean groupForToken = false;
+		boolean groupForAll = false;
+		boolean inRules = false;
+		for (String rawLine : text.split("\r\n|\r|\n")) {
+			int comment = rawLine.indexOf('#');
+			String line = (comment >= 0 ? rawLine.substring(0, comment) : rawLine).trim();
+			int colon = line.indexOf(':');
+			if (colon <= 0) {
+				continue;
+			}
+			String key = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+			String value = line.substring(colon + 1).trim();
+
+			switch (key) {
+				case "user-agent":
+					if (inRules) {
+						groupForToken = false;
+						groupForAll = false;
+						inRules = false;
+					}
+					String agent = value.toLowerCase(Locale.ROOT);
+					groupForToken |= agent.equals(token);
+					groupForAll |= agent.equals("*");
+					break;
+				case "allow":
+				case "disallow":
+					inRules = true;
+					if (value.isEmpty()) {
+						break; // an empty rule matches nothing
+					}
+					Rule rule = new Rule(value, key.equals("allow"));
+					if (groupForToken) {
+						specific.add(rule);
+					}
+					if (groupForAll) {
+						wildcard.add(rule);
+					}
+					break;
+				case "sitemap":
+					if (!value.isEmpty()) {
+						sitemaps.add(value);
+					}
+					break;
+				default:
+					// Crawl-delay and other extensions are ignored; the adaptive host limit paces requests
+					break;
+			}
+		}
+		return new RobotsRules(specific.isEmpty() ? wildcard : specific, Collections.unmodifiableList(sitemaps));
+	}
+
+	/**
+	 * Whether the path (with its query, as requested from the host) may be fetched.
+	 */
+	public boolean isAllowed(String pathAndQuery) {
+		String path = pathAndQuery.isEmpty() ? "/" : pathAndQuery;
+		if (path.equals("/robots.txt")) {
+			return true;
+		}
+		Rule best = null;
+		for (Rule rule : rules) {
+			if (rule.matches(path) && (best == null || rule.length > best.length || (rule.length == best.length && rule.allow))) {
+				best = rule;
+			}
+		}
+		return best == null || best.allow;
+	}
+
+	/**
+	 * Sitemap URLs declared by the robots.txt, in order.
+	 */
+	public List<String> getSitemaps() {
+		return sitemaps;
+	}
+
+	/**
+	 * One Allow or Disallow pattern, split at its wildcards.
+	 */
+	private static final class Rule {
+		private final String[] parts;
+		private final boolean anchored;
+		private final boolean allow;
+		private final int length;
+
+		private Rule(String pattern, boolean allow) {
+			this.anchored = pattern.endsWith("$");
+			this.parts = (anchored ? pattern.substring(0, pattern.length() - 1) : pattern).split("\\*", -1);
+			this.allow = allow;
+			this.length = pattern.length();
+		}
+
+		boolean matches(String path) {
+			if (!path.startsWith(parts[0])) {
+				return false;
+			}
+			int position = parts[0].length();
+			for (int i = 1; i < parts.length; i++) {
+				String part = parts[i];
+				if (anchored && i == parts.length - 1) {
+					return path.length() - position >= part.length() && path.endsWith(part);
+				}
+				int found = path.indexOf(part, position);
+				if (found < 0) {
+					return false;
+				}
+				position = found + part.length();
+			}
+			return !anchored || position == path.length();
+		}
+	}
+}
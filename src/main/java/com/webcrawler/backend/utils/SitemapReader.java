@@ -0,0 +1,152 @@
+package com.webcrawler.backend.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads the URLs listed in a host's sitemaps (sitemaps.org protocol). Files are parsed as they stream in with StAX,
+ * so a sitemap's size does not matter, only how many URLs are taken from it. Sitemap indexes are followed, up to
+ * MAX_SITEMAPS files per read. Sitemaps are decompressed when sent with a Content-Encoding and when the file itself
+ * is gzipped (.xml.gz), which is recognised by its magic bytes. Only sitemaps and URLs on the given host are used.
+ */
+
+public class SitemapReader {
+
+	private static final Logger logger = LoggerFactory.getLogger(SitemapReader.class);
+	private static final int MAX_SITEMAPS = 64;
+
+	/**
+	 * Reads the sitemaps, and the ones they index, passing each listed URL on the host to the consumer
+	 * until maxUrls have been passed. Returns how many were. Sitemaps that cannot be fetched or parsed are skipped.
+	 */
+	public int read(List<String> sitemapUrls, String host, int maxUrls, Consumer<String> urls) {
+		Deque<String> pending = new ArrayDeque<>();
+		Set<String> seen = new HashSet<>();
+		for (String sitemapUrl : sitemapUrls) {
+			if (isOnHost(sitemapUrl, host) && seen.add(sitemapUrl)) {
+				pending.add(sitemapUrl);
+			}
+		}
+
+		int count = 0;
+		int files = 0;
+		while (!pending.isEmpty() && count < maxUrls && files++ < MAX_SITEMAPS) {
+			String sitemapUrl = pending.poll();
+			int[] found = {0};
+			try {
+				parse(sitemapUrl, maxUrls - count, url -> {
+					if (isOnHost(url, host)) {
+						found[0]++;
+						urls.accept(url);
+					}
+				}, child -> {
+					if (isOnHost(child, host) && seen.add(child)) {
+						pending.add(child);
+					}
+				});
+			} catch (IOException | XMLStreamException e) {
+				logger.warn("[SitemapReader] Skipping sitemap {}: {}", sitemapUrl, e.getMessage());
+			}
+			count += found[0];
+		}
+		return count;
+	}
+
+	private void parse(String sitemapUrl, int maxUrls, Consumer<String> urls, Consumer<String> sitemaps) throws IOException, XMLStreamException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(sitemapUrl).openConnection();
+		connection.setRequestProperty("User-Agent", RobotsRules.USER_AGENT);
+		connection.setRequestProperty("Accept-Encoding", ContentEncodings.ACCEPT_ENCODING);
+		connection.setConnectTimeout(3000);
+		connection.setReadTimeout(3000);
+		try {
+			int status = connection.getResponseCode();
+			if (status != HttpURLConnection.HTTP_OK) {
+				throw new IOException("Non-200 response [" + status + "]");
+			}
+			try (InputStream body = open(connection.getInputStream(), connection.getContentEncoding())) {
+				parse(body, maxUrls, urls, sitemaps);
+			}
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	/**
+	 * Undoes the transfer encoding and, if the content is a gzip file, the file's compression.
+	 */
+	static InputStream open(InputStream raw, String contentEncoding) throws IOException {
+		InputStream decoded = new BufferedInputStream(ContentEncodings.decode(raw, contentEncoding));
+		decoded.mark(2);
+		int first = decoded.read();
+		int second = decoded.read();
+		decoded.reset();
+		if (first == 0x1f && second == 0x8b) {
+			return ContentEncodings.decode(decoded, "gzip");
+		}
+		return decoded;
+	}
+
+	/**
+	 * Streams the locations out of a urlset (to urls, at most maxUrls of them) or a sitemap index (to sitemaps).
+	 * Namespaces are ignored, since sitemaps in the wild use several. DTDs and external entities are refused.
+	 */
+	static void parse(InputStream in, int maxUrls, Consumer<String> urls, Consumer<String> sitemaps) throws XMLStreamException {
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		XMLStreamReader reader = factory.createXMLStreamReader(in);
+		try {
+			String entry = null; // "url" or "sitemap" while inside one
+			int emitted = 0;
+			while (reader.hasNext() && emitted < maxUrls) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String name = reader.getLocalName();
+					if (name.equals("url") || name.equals("sitemap")) {
+						entry = name;
+					} else if (name.equals("loc") && entry != null) {
+						String location = reader.getElementText().trim();
+						if (location.isEmpty()) {
+							continue;
+						}
+						if (entry.equals("url")) {
+							urls.accept(location);
+							emitted++;
+						} else {
+							sitemaps.accept(location);
+						}
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals(entry)) {
+					entry = null;
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static boolean isOnHost(String url, String host) {
+		try {
+			return new URL(url).getHost().equalsIgnoreCase(host);
+		} catch (MalformedURLException e) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package com.webcrawler.backend.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Case-insensitive keyword matcher fed with raw response bytes chunk by chunk (Knuth-Morris-Pratt).
+ * ASCII letters are folded on the fly, so no lowercased copy of the page is ever built; non-ASCII
+ * bytes of the keyword must match exactly. Once the keyword has been found further input is ignored.
+ */
+
+public class StreamingKeywordMatcher {
+
+	private final byte[] pattern;
+	private final int[] failure;
+	private int matched;
+	private boolean found;
+
+	public StreamingKeywordMatcher(String keyword) {
+		this.pattern = keyword.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+		this.failure = buildFailureTable(pattern);
+		this.found = pattern.length == 0;
+	}
+
+	/**
+	 * Feeds the next chunk of the response and returns whether the keyword has been seen so far.
+	 */
+	public boolean feed(byte[] buffer, int offset, int length) {
+		if (found) {
+			return true;
+		}
+		int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			byte b = toLowerAscii(buffer[i]);
+			while (matched > 0 && pattern[matched] != b) {
+				matched = failure[matched - 1];
+			}
+			if (pattern[matched] == b && ++matched == pattern.length) {
+				found = true;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isFound() {
+		return found;
+	}
+
+	private static byte toLowerAscii(byte b) {
+		return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+	}
+
+	private static int[] buildFailureTable(byte[] pattern) {
+		int[] table = new int[pattern.length];
+		int k = 0;
+		for (int i = 1; i < pattern.length; i++) {
+			while (k > 0 && pattern[k] != pattern[i]) {
+				k = table[k - 1];
+			}
+			if (pattern[k] == pattern[i]) {
+				k++;
+			}
+			table[i] = k;
+		}
+		return table;
+	}
+}
@@ -0,0 +1,38 @@
+package com.webcrawler.backend.utils;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link UrlSet} that stores the full URL strings, so the URLs can be listed back.
+ */
+
+public class StringUrlSet implements UrlSet {
+
+	private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+	@Override
+	public boolean add(String url) {
+		return urls.add(url);
+	}
+
+	@Override
+	public boolean contains(String url) {
+		return urls.contains(url);
+	}
+
+	@Override
+	public int size() {
+		return urls.size();
+	}
+
+	@Override
+	public void forEachFingerprint(LongConsumer action) {
+		urls.forEach(url -> action.accept(FingerprintUrlSet.fingerprint(url)));
+	}
+
+	public Set<String> asSet() {
+		return urls;
+	}
+}
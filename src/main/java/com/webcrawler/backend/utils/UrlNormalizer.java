@@ -0,0 +1,148 @@
+package com.webcrawler.backend.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Utility class that rewrites absolute http(s) URLs into a canonical form, so that variants of the same page
+ * are recognised as one URL: the scheme and host are lowercased, default ports, fragments and trailing slashes
+ * are dropped, dot segments are removed, percent escapes are uppercased and query parameters are sorted.
+ * The canonical form is only a key to recognise variants by: pages are still fetched, and their relative links
+ * resolved, at the URL they were linked with, since "/docs/" and "/docs" resolve "intro.html" differently.
+ */
+
+public class UrlNormalizer {
+
+	private UrlNormalizer() {
+	}
+
+	/**
+	 * Returns the key the URL is deduplicated by: its canonical form, or the URL itself if it has none.
+	 */
+	public static String keyOf(String url) {
+		String canonical = normalize(url);
+		return canonical != null ? canonical : url;
+	}
+
+	/**
+	 * Returns the canonical form of the URL, or null if it is not an absolute http(s) URL.
+	 */
+	public static String normalize(String url) {
+		int schemeEnd = url.indexOf("://");
+		if (schemeEnd <= 0) {
+			return null;
+		}
+		String scheme = url.substring(0, schemeEnd).toLowerCase(Locale.ROOT);
+		if (!scheme.equals("http") && !scheme.equals("https")) {
+			return null;
+		}
+
+		int authorityStart = schemeEnd + 3;
+		int authorityEnd = authorityStart;
+		while (authorityEnd < url.length() && "/?#".indexOf(url.charAt(authorityEnd)) < 0) {
+			authorityEnd++;
+		}
+		String authority = normalizeAuthority(url.substring(authorityStart, authorityEnd), scheme);
+		if (authority.isEmpty()) {
+			return null;
+		}
+
+		int fragment = url.indexOf('#', authorityEnd);
+		String rest = fragment >= 0 ? url.substring(authorityEnd, fragment) : url.substring(authorityEnd);
+		int queryStart = rest.indexOf('?');
+		String path = normalizePath(queryStart >= 0 ? rest.substring(0, queryStart) : rest);
+		String query = queryStart >= 0 ? normalizeQuery(rest.substring(queryStart + 1)) : "";
+
+		StringBuilder normalized = new StringBuilder(url.length());
+		normalized.append(scheme).append("://").append(authority).append(path);
+		if (!query.isEmpty()) {
+			normalized.append('?').append(query);
+		}
+		return normalized.toString();
+	}
+
+	private static String normalizeAuthority(String authority, String scheme) {
+		int at = authority.lastIndexOf('@');
+		String userInfo = at >= 0 ? authority.substring(0, at + 1) : "";
+		String hostPort = authority.substring(at + 1).toLowerCase(Locale.ROOT);
+
+		int colon = hostPort.lastIndexOf(':');
+		if (colon >= 0 && hostPort.indexOf(']', colon) < 0) {
+			String port = hostPort.substring(colon + 1);
+			boolean defaultPort = port.isEmpty()
+					|| (scheme.equals("http") && port.equals("80"))
+					|| (scheme.equals("https") && port.equals("443"));
+			if (defaultPort) {
+				hostPort = hostPort.substring(0, colon);
+			}
+		}
+		if (hostPort.endsWith(".")) {
+			hostPort = hostPort.substring(0, hostPort.length() - 1);
+		}
+		return hostPort.isEmpty() ? "" : userInfo + hostPort;
+	}
+
+	private static String normalizePath(String path) {
+		if (path.isEmpty() || path.equals("/")) {
+			return "/";
+		}
+
+		Deque<String> segments = new ArrayDeque<>();
+		for (String segment : path.substring(1).split("/", -1)) {
+			if (segment.equals(".")) {
+				continue;
+			}
+			if (segment.equals("..")) {
+				segments.pollLast();
+				continue;
+			}
+			segments.addLast(uppercaseEscapes(segment));
+		}
+
+		StringBuilder normalized = new StringBuilder(path.length());
+		Iterator<String> it = segments.iterator();
+		while (it.hasNext()) {
+			normalized.append('/').append(it.next());
+		}
+		// "/a/" and "/a" are treated as the same page
+		while (normalized.length() > 1 && normalized.charAt(normalized.length() - 1) == '/') {
+			normalized.setLength(normalized.length() - 1);
+		}
+		return normalized.length() == 0 ? "/" : normalized.toString();
+	}
+
+	private static String normalizeQuery(String query) {
+		if (query.isEmpty()) {
+			return "";
+		}
+		List<String> params = new ArrayList<>();
+		for (String param : query.split("&")) {
+			if (!param.isEmpty()) {
+				params.add(uppercaseEscapes(param));
+			}
+		}
+		Collections.sort(params);
+		return String.join("&", params);
+	}
+
+	private static String uppercaseEscapes(String text) {
+		int percent = text.indexOf('%');
+		if (percent < 0) {
+			return text;
+		}
+		char[] chars = text.toCharArray();
+		for (int i = percent; i < chars.length - 2; i++) {
+			if (chars[i] == '%') {
+				chars[i + 1] = Character.toUpperCase(chars[i + 1]);
+				chars[i + 2] = Character.toUpperCase(chars[i + 2]);
+				i += 2;
+			}
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,40 @@
+package com.webcrawler.backend.utils;
+
+import java.util.Locale;
+import java.util.function.LongConsumer;
+
+/**
+ * Thread-safe set of URLs used to remember what a crawl has already seen.
+ * The default implementation keeps the URL strings; the fingerprint implementation keeps only
+ * 64-bit hashes, trading enumeration (and a negligible false-positive rate) for a fraction of the memory.
+ */
+
+public interface UrlSet {
+
+	/**
+	 * Adds the URL and returns whether it was not already present.
+	 */
+	boolean add(String url);
+
+	boolean contains(String url);
+
+	int size();
+
+	/**
+	 * Passes the fingerprint (see {@link FingerprintUrlSet#fingerprint}) of every URL in the set to the action.
+	 * URLs added concurrently may or may not be included.
+	 */
+	void forEachFingerprint(LongConsumer action);
+
+	/**
+	 * Creates the implementation selected by the VISITED_SET environment variable
+	 * ({@code strings}, the default, or {@code fingerprint}).
+	 */
+	static UrlSet create() {
+		String type = EnvConfig.getString("VISITED_SET", "strings").toLowerCase(Locale.ROOT);
+		if (type.equals("fingerprint")) {
+			return new FingerprintUrlSet(1024, EnvConfig.getBoolean("VISITED_SET_OFF_HEAP", false));
+		}
+		return new StringUrlSet();
+	}
+}
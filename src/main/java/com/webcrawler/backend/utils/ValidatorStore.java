@@ -0,0 +1,375 @@
+package com.webcrawler.backend.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent store of HTTP validators (ETag, Last-Modified) and the body they validate, with its Content-Type, keyed by URL.
+ * It lets repeat crawls of a site send conditional GETs and reuse the stored body on a 304, so unchanged pages
+ * cost only headers. Each URL is one gzip file named after the SHA-256 of the URL, replaced atomically;
+ * the store survives restarts and is best-effort: I/O errors are logged and treated as a miss.
+ * Bodies can be stored and read back as streams (see {@link #writer} and {@link #openBody}), so a page scanned
+ * without materializing it is not materialized for the store either.
+ * Disabled (every lookup misses) unless VALIDATOR_STORE_DIR is set.
+ */
+
+public class ValidatorStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(ValidatorStore.class);
+	private static final int FORMAT_VERSION = 2;
+	private static final ValidatorStore SHARED = fromEnv();
+
+	private final Path directory;
+	private final AtomicLong revalidatedCount = new AtomicLong();
+	private final AtomicLong storedCount = new AtomicLong();
+
+	/**
+	 * Creates a store under the directory, or a disabled store if the directory is null.
+	 */
+	public ValidatorStore(Path directory) {
+		this.directory = directory;
+		if (directory != null) {
+			try {
+				Files.createDirectories(directory);
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot create validator store directory " + directory, e);
+			}
+		}
+	}
+
+	public static ValidatorStore shared() {
+		return SHARED;
+	}
+
+	private static ValidatorStore fromEnv() {
+		String directory = EnvConfig.getString("VALIDATOR_STORE_DIR", null);
+		return new ValidatorStore(directory == null ? null : Paths.get(directory));
+	}
+
+	public boolean isEnabled() {
+		return directory != null;
+	}
+
+	/**
+	 * Returns the stored validators and body for the URL, or null if there are none.
+	 */
+	public Entry lookup(String url) {
+		return read(url, true);
+	}
+
+	/**
+	 * Returns the stored validators for the URL without reading its body, or null if there are none.
+	 * The body is then read with {@link #openBody(String)}, and the entry's {@link Entry#getBody()} is null.
+	 */
+	public Entry lookupValidators(String url) {
+		return read(url, false);
+	}
+
+	/**
+	 * Opens the stored body of the URL as a stream, decompressed as it is read.
+	 * Throws if there is none, as when the entry was removed since it was looked up.
+	 */
+	public InputStream openBody(String url) throws IOException {
+		if (directory == null) {
+			throw new NoSuchFileException("Validator store is disabled");
+		}
+		DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(fileFor(url))));
+		try {
+			if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(url)) {
+				throw new NoSuchFileException("No stored body for url=" + url);
+			}
+			for (int field = 0; field < 4; field++) { // etag, lastModified, contentType, contentHash
+				in.readUTF();
+			}
+			in.readInt(); // the body runs to the end of the file
+			return in;
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	private Entry read(String url, boolean withBody) {
+		if (directory == null) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(fileFor(url))))) {
+			if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(url)) {
+				return null;
+			}
+			String etag = emptyToNull(in.readUTF());
+			String lastModified = emptyToNull(in.readUTF());
+			String contentType = emptyToNull(in.readUTF());
+			String contentHash = in.readUTF();
+			byte[] body = withBody ? in.readNBytes(in.readInt()) : null;
+			return new Entry(etag, lastModified, contentType, contentHash, body);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			logger.warn("[ValidatorStore] Could not read entry for url={}", url, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the response's validators, Content-Type and body. Responses without any validator are not stored,
+	 * since they could never be revalidated. Rewrites are skipped when nothing changed.
+	 */
+	public void save(String url, String etag, String lastModified, String contentType, byte[] body, Entry previous) {
+		if (directory == null || (etag == null && lastModified == null)) {
+			return;
+		}
+		if (unchanged(previous, etag, lastModified, contentType, contentHash(body))) {
+			return;
+		}
+		try (BodyWriter writer = new BodyWriter(url, etag, lastModified, contentType, previous)) {
+			writer.write(body, 0, body.length);
+			writer.commit();
+		}
+	}
+
+	/**
+	 * Starts storing a response whose body arrives as a stream: the body is compressed to a temporary file as it is
+	 * written, and becomes the URL's entry on {@link BodyWriter#commit()}, unless nothing changed. Returns null if the
+	 * store is disabled or the response has no validator, as {@link #save} would store nothing.
+	 */
+	public BodyWriter writer(String url, String etag, String lastModified, String contentType, Entry previous) {
+		if (directory == null || (etag == null && lastModified == null)) {
+			return null;
+		}
+		return new BodyWriter(url, etag, lastModified, contentType, previous);
+	}
+
+	/**
+	 * Records that a 304 let a stored body be served instead of downloading it.
+	 */
+	public void recordRevalidated() {
+		revalidatedCount.incrementAndGet();
+	}
+
+	public long getRevalidatedCount() {
+		return revalidatedCount.get();
+	}
+
+	public long getStoredCount() {
+		return storedCount.get();
+	}
+
+	public static String contentHash(byte[] body) {
+		return HexFormat.of().formatHex(sha256(body));
+	}
+
+	private Path fileFor(String url) {
+		return directory.resolve(HexFormat.of().formatHex(sha256(url.getBytes(StandardCharsets.UTF_8))) + ".gz");
+	}
+
+	private static byte[] sha256(byte[] data) {
+		return sha256().digest(data);
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e); // mandatory on every JVM
+		}
+	}
+
+	private static void deleteQuietly(Path temp) {
+		if (temp == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(temp);
+		} catch (IOException ignored) {
+			// Leftover temp files are harmless and never read
+		}
+	}
+
+	private static boolean unchanged(Entry previous, String etag, String lastModified, String contentType, String contentHash) {
+		return previous != null && previous.contentHash.equals(contentHash)
+				&& same(previous.etag, etag) && same(previous.lastModified, lastModified) && same(previous.contentType, contentType);
+	}
+
+	private static boolean same(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private static String emptyToNull(String value) {
+		return value.isEmpty() ? null : value;
+	}
+
+	/**
+	 * Writes one response body to the store as it arrives. The compressed body goes to a temporary file; on commit the
+	 * entry is written as a header gzip member followed by a copy of that file, which {@link GZIPInputStream} reads as
+	 * one stream, and moved into place. Closing without committing discards the body. Like the rest of the store it is
+	 * best-effort: a failed write is logged once and the response is not stored.
+	 */
+	public final class BodyWriter implements Closeable {
+		private final String url;
+		private final String etag;
+		private final String lastModified;
+		private final String contentType;
+		private final Entry previous;
+		private final MessageDigest digest = sha256();
+		private Path bodyFile;
+		private OutputStream body;
+		private long length;
+
+		private BodyWriter(String url, String etag, String lastModified, String contentType, Entry previous) {
+			this.url = url;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.contentType = contentType;
+			this.previous = previous;
+			try {
+				bodyFile = Files.createTempFile(directory, "body-", ".tmp");
+				body = new GZIPOutputStream(Files.newOutputStream(bodyFile));
+			} catch (IOException e) {
+				failed(e);
+			}
+		}
+
+		public void write(byte[] buffer, int offset, int count) {
+			if (body == null) {
+				return;
+			}
+			if (length + count > Integer.MAX_VALUE) {
+				failed(new IOException("Body too large to store [" + (length + count) + " bytes]"));
+				return;
+			}
+			try {
+				body.write(buffer, offset, count);
+				digest.update(buffer, offset, count);
+				length += count;
+			} catch (IOException e) {
+				failed(e);
+			}
+		}
+
+		/**
+		 * Publishes the body written so far as the URL's entry, unless it and the validators match the previous entry.
+		 */
+		public void commit() {
+			if (body == null) {
+				return;
+			}
+			Path entryFile = null;
+			try {
+				body.close();
+				body = null;
+				String contentHash = HexFormat.of().formatHex(digest.digest());
+				if (unchanged(previous, etag, lastModified, contentType, contentHash)) {
+					return;
+				}
+				entryFile = Files.createTempFile(directory, "entry-", ".tmp");
+				try (OutputStream out = Files.newOutputStream(entryFile)) {
+					GZIPOutputStream gzip = new GZIPOutputStream(out);
+					DataOutputStream header = new DataOutputStream(gzip);
+					header.writeInt(FORMAT_VERSION);
+					header.writeUTF(url);
+					header.writeUTF(etag == null ? "" : etag);
+					header.writeUTF(lastModified == null ? "" : lastModified);
+					header.writeUTF(contentType == null ? "" : contentType);
+					header.writeUTF(contentHash);
+					header.writeInt((int) length);
+					header.flush();
+					gzip.finish();
+					Files.copy(bodyFile, out);
+				}
+				Files.move(entryFile, fileFor(url), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				storedCount.incrementAndGet();
+			} catch (IOException e) {
+				logger.warn("[ValidatorStore] Could not store entry for url={}", url, e);
+				deleteQuietly(entryFile);
+			} finally {
+				close();
+			}
+		}
+
+		@Override
+		public void close() {
+			if (body != null) {
+				try {
+					body.close();
+				} catch (IOException ignored) {
+					// The body is discarded anyway
+				}
+				body = null;
+			}
+			deleteQuietly(bodyFile);
+			bodyFile = null;
+		}
+
+		private void failed(IOException e) {
+			logger.warn("[ValidatorStore] Could not store entry for url={}", url, e);
+			close();
+		}
+	}
+
+	/**
+	 * Validators and body of one stored response.
+	 */
+	public static final class Entry {
+		private final String etag;
+		private final String lastModified;
+		private final String contentType;
+		private final String contentHash;
+		private final byte[] body;
+
+		Entry(String etag, String lastModified, String contentType, String contentHash, byte[] body) {
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.contentType = contentType;
+			this.contentHash = contentHash;
+			this.body = body;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		/**
+		 * The Content-Type the body was served with, which a 304 does not repeat, or null if it had none.
+		 */
+		public String getContentType() {
+			return contentType;
+		}
+
+		public String getContentHash() {
+			return contentHash;
+		}
+
+		public byte[] getBody() {
+			return body == null ? null : Arrays.copyOf(body, body.length);
+		}
+
+		byte[] bodyBytes() {
+			return body;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.webcrawler.backend.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Utility class for creating virtual-thread executors when the running JVM supports them (Java 21+).
+ * The project still compiles for Java 17, so the factory is looked up at runtime and callers fall back
+ * to an unbounded pool of platform threads on older runtimes.
+ */
+
+public class VirtualThreads {
+
+	private static final MethodHandle NEW_PER_TASK_EXECUTOR = lookupFactory();
+
+	private VirtualThreads() {
+	}
+
+	public static boolean isSupported() {
+		return NEW_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * Returns an executor that starts one virtual thread per task, or a cached platform thread pool
+	 * if virtual threads are not available.
+	 */
+	public static ExecutorService newPerTaskExecutor() {
+		if (NEW_PER_TASK_EXECUTOR != null) {
+			try {
+				return (ExecutorService) NEW_PER_TASK_EXECUTOR.invokeExact();
+			} catch (Throwable ignored) {
+				// Fall through to platform threads
+			}
+		}
+		return Executors.newCachedThreadPool();
+	}
+
+	private static MethodHandle lookupFactory() {
+		try {
+			return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+					MethodType.methodType(ExecutorService.class));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package com.webcrawler.backend.utils.exceptions;
+
+/**
+ * Thrown when a fetch is aborted because the crawl job that started it was stopped.
+ */
+public class FetchCancelledException extends RuntimeException {
+
+	public FetchCancelledException(String message) {
+		super(message);
+	}
+}
@@ -1,7 +1,21 @@
 package com.webcrawler.backend.utils.exceptions;
 
 public class NonSuccessfulResponseException extends RuntimeException {
+	private final int statusCode;
+
 	public NonSuccessfulResponseException(String message) {
+		this(message, -1);
+	}
+
+	public NonSuccessfulResponseException(String message, int statusCode) {
 		super(message);
+		this.statusCode = statusCode;
+	}
+
+	/**
+	 * The HTTP status that caused the failure, or -1 if unknown.
+	 */
+	public int getStatusCode() {
+		return statusCode;
 	}
 }
@@ -0,0 +1,11 @@
+package com.webcrawler.backend.utils.exceptions;
+
+/**
+ * Thrown when a response is deliberately not read: its content type is not a page, or its body is over the size limit.
+ */
+public class SkippedContentException extends RuntimeException {
+
+	public SkippedContentException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,131 @@
+package com.webcrawler.backend.benchmark;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Entry point of the benchmark profile. Runs the JMH benchmarks selected by the usual JMH arguments (all of them by
+ * default) and writes the results as JSON to {@code benchmark-results/<commit>.json}, named after the checked-out
+ * commit (with a {@code -dirty} suffix for uncommitted changes), so runs on different commits can be kept side by side.
+ * {@code compare <base.json> <head.json>} prints the score change of every benchmark present in both files.
+ */
+
+public class BenchmarkRunner {
+
+	private static final Path RESULTS_DIR = Paths.get("benchmark-results");
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 3 && args[0].equals("compare")) {
+			compare(Paths.get(args[1]), Paths.get(args[2]));
+			return;
+		}
+
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp()) {
+			commandLine.showHelp();
+			return;
+		}
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+		Path result = null;
+		if (!commandLine.getResult().hasValue()) {
+			Files.createDirectories(RESULTS_DIR);
+			result = RESULTS_DIR.resolve(commitId() + ".json");
+			options.result(result.toString()).resultFormat(ResultFormatType.JSON);
+		}
+
+		Runner runner = new Runner(options.build());
+		if (commandLine.shouldList()) {
+			runner.list();
+			return;
+		}
+		runner.run();
+		if (result != null) {
+			System.out.println("Results written to " + result.toAbsolutePath());
+		}
+	}
+
+	private static void compare(Path base, Path head) throws IOException {
+		Map<String, JsonObject> baseScores = scores(base);
+		Map<String, JsonObject> headScores = scores(head);
+		System.out.printf("%-90s %14s %14s %9s  %s%n", "Benchmark", "base", "head", "change", "unit");
+		for (Map.Entry<String, JsonObject> entry : headScores.entrySet()) {
+			JsonObject before = baseScores.get(entry.getKey());
+			if (before == null) {
+				continue;
+			}
+			double baseScore = before.get("score").getAsDouble();
+			double headScore = entry.getValue().get("score").getAsDouble();
+			double change = baseScore == 0 ? 0 : (headScore - baseScore) / baseScore * 100;
+			System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%n",
+					entry.getKey(), baseScore, headScore, change, entry.getValue().get("scoreUnit").getAsString());
+		}
+	}
+
+	/**
+	 * Reads a JMH JSON result file into each benchmark's primary metric, keyed by benchmark name and parameters.
+	 */
+	private static Map<String, JsonObject> scores(Path file) throws IOException {
+		JsonArray runs;
+		try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			runs = JsonParser.parseReader(reader).getAsJsonArray();
+		}
+		Map<String, JsonObject> scores = new LinkedHashMap<>();
+		for (JsonElement element : runs) {
+			JsonObject run = element.getAsJsonObject();
+			StringBuilder key = new StringBuilder(run.get("benchmark").getAsString().replace("com.webcrawler.backend.benchmark.", ""));
+			if (run.has("params")) {
+				Map<String, String> params = new TreeMap<>();
+				run.getAsJsonObject("params").entrySet().forEach(param -> params.put(param.getKey(), param.getValue().getAsString()));
+				params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+			}
+			scores.put(key.toString(), run.getAsJsonObject("primaryMetric"));
+		}
+		return scores;
+	}
+
+	private static String commitId() {
+		String commit = git("rev-parse", "--short", "HEAD");
+		if (commit == null || commit.isEmpty()) {
+			return "local-" + System.currentTimeMillis();
+		}
+		String changes = git("status", "--porcelain", "--untracked-files=no");
+		return changes == null || changes.isEmpty() ? commit : commit + "-dirty";
+	}
+
+	private static String git(String... args) {
+		String[] command = new String[args.length + 1];
+		command[0] = "git";
+		System.arraycopy(args, 0, command, 1, args.length);
+		try {
+			Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+			String output;
+			try (InputStream stream = process.getInputStream()) {
+				output = new String(stream.readAllBytes(), StandardCharsets.UTF_8).trim();
+			}
+			return process.waitFor() == 0 ? output : null;
+		} catch (IOException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+}
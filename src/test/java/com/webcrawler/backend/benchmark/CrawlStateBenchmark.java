@@ -0,0 +1,58 @@
+package com.webcrawler.backend.benchmark;
+
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.utils.FingerprintUrlSet;
+import com.webcrawler.backend.utils.StringUrlSet;
+import com.webcrawler.backend.utils.UrlSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the per-page bookkeeping on a {@link Crawl} shared by four workers: marking a URL visited and
+ * recording a match (the matched set plus the match log), with either visited-set representation.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CrawlStateBenchmark {
+
+	private static final int URL_COUNT = 1 << 20;
+
+	@Param({"strings", "fingerprint"})
+	public String visitedSet;
+
+	private String[] urls;
+	private Crawl job;
+	private final AtomicInteger cursor = new AtomicInteger();
+
+	@Setup(Level.Trial)
+	public void generateUrls() {
+		urls = new String[URL_COUNT];
+		for (int i = 0; i < URL_COUNT; i++) {
+			urls[i] = HtmlCorpus.HOST + "/articles/" + (i % 997) + "/page-" + i + ".html";
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		UrlSet visited = visitedSet.equals("fingerprint") ? new FingerprintUrlSet(1024, false) : new StringUrlSet();
+		job = new Crawl("benchmark", "keyword", visited);
+	}
+
+	@Benchmark
+	public boolean markVisited() {
+		return job.markVisited(urls[cursor.getAndIncrement() & (URL_COUNT - 1)]);
+	}
+
+	@Benchmark
+	public void addMatchedUrl() {
+		job.addMatchedUrl(urls[cursor.getAndIncrement() & (URL_COUNT - 1)]);
+	}
+}
@@ -0,0 +1,92 @@
+package com.webcrawler.backend.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.service.crawl.CrawlExecutionMode;
+import com.webcrawler.backend.service.crawl.CrawlRunner;
+import com.webcrawler.backend.utils.AsyncPageFetcher;
+import com.webcrawler.backend.utils.PageCache;
+import com.webcrawler.backend.utils.PageFetcher;
+import com.webcrawler.backend.utils.VirtualThreads;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares crawl throughput (pages/sec) of the fixed worker pool against the virtual-thread and async
+ * modes on a local site whose pages each take a fixed time to respond.
+ *
+ * Usage: mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.webcrawler.backend.benchmark.ExecutionModeBenchmark
+ * Optional system properties, passed through -Dbenchmark.jvmArgs: pages (default 400), latencyMs (default 50), outDegree (default 8).
+ */
+
+public class ExecutionModeBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int pages = Integer.getInteger("pages", 400);
+		int latencyMs = Integer.getInteger("latencyMs", 50);
+		int outDegree = Integer.getInteger("outDegree", 8);
+
+		HttpServer server = HttpServer.create(new InetSocketAddress(0), 1024);
+		ExecutorService serverThreads = Executors.newCachedThreadPool();
+		server.setExecutor(serverThreads);
+		server.createContext("/", exchange -> {
+			int page = parsePage(exchange.getRequestURI().getPath());
+			StringBuilder body = new StringBuilder("<html><body><p>page ").append(page).append("</p>");
+			for (int i = 1; i <= outDegree; i++) {
+				body.append("<a href=\"/p/").append((page * outDegree + i) % pages).append("\">next</a>");
+			}
+			byte[] bytes = body.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+			try {
+				Thread.sleep(latencyMs);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(bytes);
+			}
+		});
+		server.start();
+
+		String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/p/0";
+		System.out.printf("Site: %d pages, %d ms latency, out-degree %d, virtual threads supported: %s%n",
+				pages, latencyMs, outDegree, VirtualThreads.isSupported());
+
+		try {
+			for (CrawlExecutionMode mode : CrawlExecutionMode.values()) {
+				run(mode, baseUrl); // warm-up
+				double pagesPerSecond = run(mode, baseUrl);
+				System.out.printf("%-16s %10.1f pages/sec%n", mode, pagesPerSecond);
+			}
+		} finally {
+			server.stop(0);
+			serverThreads.shutdownNow();
+		}
+	}
+
+	private static double run(CrawlExecutionMode mode, String baseUrl) {
+		Crawl job = new Crawl("bench-" + mode, "page");
+		// A zero-sized cache stores nothing, so every run hits the slow server
+		PageCache noCache = new PageCache(0, Duration.ZERO);
+		PageFetcher uncached = new PageFetcher(noCache);
+		AsyncPageFetcher uncachedAsync = new AsyncPageFetcher(noCache, 256, 4);
+
+		long start = System.nanoTime();
+		new CrawlRunner(baseUrl, job, mode, uncached, uncachedAsync).run();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		return job.getVisitedCount() / seconds;
+	}
+
+	private static int parsePage(String path) {
+		try {
+			return Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+}
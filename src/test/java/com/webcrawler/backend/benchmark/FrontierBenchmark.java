@@ -0,0 +1,68 @@
+package com.webcrawler.backend.benchmark;
+
+import com.webcrawler.backend.service.crawl.CrawlFrontier;
+import com.webcrawler.backend.service.crawl.FrontierQueue;
+import com.webcrawler.backend.service.crawl.MemoryFrontierQueue;
+import com.webcrawler.backend.service.crawl.SpillingFrontierQueue;
+import com.webcrawler.backend.utils.StringUrlSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Measures the frontier under contention: four workers each enqueue a newly discovered URL and take the next one,
+ * as crawl workers do, on a frontier holding a backlog of URLs. With the spilling queue the backlog is far over
+ * its memory budget, so URLs go through the mapped segments. Each operation also builds one URL string.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class FrontierBenchmark {
+
+	private static final int BACKLOG = 200_000;
+	private static final long SPILL_MEMORY_BYTES = 1024 * 1024;
+
+	@Param({"memory", "spilling"})
+	public String queue;
+
+	private CrawlFrontier frontier;
+	private final AtomicLong counter = new AtomicLong();
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		SpillingFrontierQueue.SharedSpace space = new SpillingFrontierQueue.SharedSpace(SPILL_MEMORY_BYTES,
+				Paths.get(System.getProperty("java.io.tmpdir")));
+		Supplier<FrontierQueue> backing = queue.equals("spilling")
+				? () -> new SpillingFrontierQueue(space, 4 * 1024 * 1024)
+				: MemoryFrontierQueue::new;
+		frontier = new CrawlFrontier(new StringUrlSet(), backing);
+		for (int i = 0; i < BACKLOG; i++) {
+			frontier.add(url(counter.getAndIncrement()));
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		frontier.close();
+	}
+
+	@Benchmark
+	public String addAndPoll() {
+		frontier.add(url(counter.getAndIncrement()));
+		String next = frontier.poll();
+		frontier.complete(next);
+		return next;
+	}
+
+	private static String url(long n) {
+		return HtmlCorpus.HOST + "/articles/" + (n % 997) + "/page-" + n + ".html";
+	}
+}
@@ -0,0 +1,79 @@
+package com.webcrawler.backend.benchmark;
+
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlBudget;
+import com.webcrawler.backend.service.crawl.CrawlExecutionMode;
+import com.webcrawler.backend.service.crawl.CrawlRunner;
+import com.webcrawler.backend.service.crawl.FrontierOrder;
+import com.webcrawler.backend.utils.AsyncPageFetcher;
+import com.webcrawler.backend.utils.PageCache;
+import com.webcrawler.backend.utils.PageFetcher;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares time to the first N matches of a breadth-first crawl against a best-first one, on a topical
+ * {@link SyntheticSite}: each crawl stops at its Nth match, so the time and the pages fetched until then are measured.
+ *
+ * Usage: mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.webcrawler.backend.benchmark.FrontierOrderBenchmark
+ * Optional system properties, passed through -Dbenchmark.jvmArgs: matches (default 100), runs (default 3), mode
+ * (default fixed_pool), and the site settings of {@link SyntheticSite.Settings}, defaulting here to 2000 pages
+ * with the keyword mentioned on 5% of them, link locality 0.5, anchor hints 0.1, 20 ms latency and no errors.
+ */
+
+public class FrontierOrderBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int matches = Integer.getInteger("matches", 100);
+		int runs = Integer.getInteger("runs", 3);
+		CrawlExecutionMode mode = CrawlExecutionMode.fromName(System.getProperty("mode"));
+
+		SyntheticSite.Settings defaults = new SyntheticSite.Settings();
+		defaults.keywordDensity = 0.05;
+		defaults.linkLocality = 0.5;
+		defaults.anchorHints = 0.1;
+		defaults.errorRate = 0.0;
+		SyntheticSite.Settings settings = SyntheticSite.Settings.fromSystemProperties(defaults);
+		String keyword = settings.getKeywords().get(0);
+
+		SyntheticSite site = new SyntheticSite(settings).start();
+		System.out.printf("Site: %s%nTime to %d matches of \"%s\" (%d pages hold it), mode %s, median of %d runs%n",
+				settings, matches, keyword, site.countPagesWithKeyword(keyword), mode, runs);
+		try {
+			for (FrontierOrder order : FrontierOrder.values()) {
+				run(site, keyword, matches, mode, order); // warm-up
+				long[] millis = new long[runs];
+				long[] pages = new long[runs];
+				int reached = 0;
+				for (int i = 0; i < runs; i++) {
+					long start = System.nanoTime();
+					Crawl job = run(site, keyword, matches, mode, order);
+					millis[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					pages[i] = job.getPagesFetched();
+					reached += job.getMatchedUrls().size() >= matches ? 1 : 0;
+				}
+				System.out.printf("%-14s %8d ms %8d pages fetched   (%d of %d runs reached %d matches)%n",
+						order, median(millis), median(pages), reached, runs, matches);
+			}
+		} finally {
+			site.stop();
+		}
+	}
+
+	private static Crawl run(SyntheticSite site, String keyword, int matches, CrawlExecutionMode mode, FrontierOrder order) {
+		Crawl job = new Crawl("bench-" + order, keyword);
+		job.setBudget(new CrawlBudget(CrawlBudget.NO_LIMIT, matches, CrawlBudget.NO_LIMIT, null));
+		// A zero-sized cache stores nothing, so every run fetches from the site
+		PageCache noCache = new PageCache(0, Duration.ZERO);
+		new CrawlRunner(site.getBaseUrl(), job, mode, new PageFetcher(noCache), new AsyncPageFetcher(noCache, 256, 4), order).run();
+		return job;
+	}
+
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+}
@@ -0,0 +1,102 @@
+package com.webcrawler.backend.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates deterministic, realistic-looking HTML pages for benchmarks: a head with scripts, styles
+ * and a canonical link, navigation menus, and paragraphs with inline links of mixed kinds
+ * (root-relative, absolute, document-relative, external, fragments and mailto).
+ */
+
+public class HtmlCorpus {
+
+	public static final String HOST = "https://example.com";
+
+	private static final String[] WORDS = {
+			"crawler", "search", "index", "page", "content", "java", "spark", "network", "latency", "server",
+			"request", "response", "thread", "memory", "document", "archive", "product", "review", "article", "keyword"
+	};
+
+	private HtmlCorpus() {
+	}
+
+	/**
+	 * Returns a page of roughly the requested size, lowercased like {@code PageFetcher} output.
+	 */
+	public static String page(int targetBytes, long seed) {
+		return rawPage(targetBytes, seed).toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Returns the page as a server would send it, in mixed case, UTF-8 encoded.
+	 */
+	public static byte[] responseBody(int targetBytes, long seed) {
+		return rawPage(targetBytes, seed).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns a page of roughly the requested size in mixed case: upper-case doctype and capitalized headings and sentences.
+	 */
+	public static String rawPage(int targetBytes, long seed) {
+		Random random = new Random(seed);
+		StringBuilder html = new StringBuilder(targetBytes + 1024);
+		html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n")
+				.append("<title>").append(sentence(random, 6)).append("</title>\n")
+				.append("<link rel=\"stylesheet\" href=\"/assets/site.css\">\n")
+				.append("<link rel=\"canonical\" href=\"").append(HOST).append("/articles/").append(seed).append("\">\n")
+				.append("<script>window.dataLayer = window.dataLayer || []; function track(a) { return a < 3 && a > 1; }</script>\n")
+				.append("</head>\n<body>\n<nav class=\"menu\"><ul>\n");
+		for (int i = 0; i < 12; i++) {
+			html.append("<li class=\"menu-item\"><a class=\"nav-link\" href=\"/section/").append(i).append("/\">")
+					.append(WORDS[i % WORDS.length]).append("</a></li>\n");
+		}
+		html.append("</ul></nav>\n<main>\n");
+
+		while (html.length() < targetBytes) {
+			html.append("<div class=\"card\" data-id=\"").append(random.nextInt(100_000)).append("\">\n<h2>")
+					.append(sentence(random, 5)).append("</h2>\n<p>");
+			for (int i = 0; i < 4; i++) {
+				html.append(sentence(random, 12)).append(' ').append(link(random)).append(' ');
+			}
+			html.append("</p>\n<img src=\"/img/").append(random.nextInt(1000)).append(".png\" alt=\"")
+					.append(sentence(random, 3)).append("\">\n</div>\n");
+		}
+
+		html.append("</main>\n<footer><a href=\"/about\">about</a> <a href=\"mailto:team@example.com\">contact</a></footer>\n</body>\n</html>\n");
+		return html.toString();
+	}
+
+	private static String link(Random random) {
+		int kind = random.nextInt(20);
+		String path = WORDS[random.nextInt(WORDS.length)] + "/" + random.nextInt(5000);
+		String href;
+		if (kind < 10) {
+			href = "/" + path;
+		} else if (kind < 14) {
+			href = HOST + "/" + path + "?ref=" + random.nextInt(50);
+		} else if (kind < 16) {
+			href = "https://external-" + random.nextInt(20) + ".org/" + path;
+		} else if (kind < 18) {
+			href = "../" + path + ".html";
+		} else if (kind < 19) {
+			href = "#section-" + random.nextInt(10);
+		} else {
+			href = "mailto:user" + random.nextInt(100) + "@example.com";
+		}
+		return "<a href=\"" + href + "\" title=\"" + WORDS[random.nextInt(WORDS.length)] + "\">" + sentence(random, 2) + "</a>";
+	}
+
+	private static String sentence(Random random, int words) {
+		StringBuilder sentence = new StringBuilder();
+		for (int i = 0; i < words; i++) {
+			if (i > 0) {
+				sentence.append(' ');
+			}
+			String word = WORDS[random.nextInt(WORDS.length)];
+			sentence.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+		}
+		return sentence.toString();
+	}
+}
@@ -0,0 +1,73 @@
+package com.webcrawler.backend.benchmark;
+
+import com.webcrawler.backend.utils.KeywordAutomaton;
+import com.webcrawler.backend.utils.StreamingKeywordMatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways a page is matched against keywords: {@code String.contains} on the decoded page (one job),
+ * the streaming matcher over the raw body in pooled-buffer sized chunks, and the automaton used by shared
+ * traversals for eight keywords at once. A present keyword sits at the end of the page, the worst case.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeywordMatchBenchmark {
+
+	private static final int CHUNK_BYTES = 8192;
+	private static final List<String> KEYWORDS = List.of("needle", "haystack", "lighthouse", "quasar", "tundra", "marmalade", "zeppelin", "origami");
+
+	@Param({"10000", "100000", "1000000"})
+	public int pageBytes;
+
+	@Param({"present", "absent"})
+	public String keyword;
+
+	private String page;
+	private byte[] body;
+	private String target;
+	private KeywordAutomaton automaton;
+
+	@Setup
+	public void setup() {
+		String raw = HtmlCorpus.rawPage(pageBytes, 42);
+		if (keyword.equals("present")) {
+			raw = raw.replace("</footer>", "Needle</footer>");
+		}
+		page = raw.toLowerCase(Locale.ROOT);
+		body = raw.getBytes(StandardCharsets.UTF_8);
+		target = KEYWORDS.get(0);
+		automaton = new KeywordAutomaton(KEYWORDS);
+	}
+
+	@Benchmark
+	public boolean stringContains() {
+		return page.contains(target);
+	}
+
+	@Benchmark
+	public boolean streamingMatcher() {
+		StreamingKeywordMatcher matcher = new StreamingKeywordMatcher(target);
+		for (int offset = 0; offset < body.length; offset += CHUNK_BYTES) {
+			if (matcher.feed(body, offset, Math.min(CHUNK_BYTES, body.length - offset))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Benchmark
+	public Set<String> automaton() {
+		return automaton.findAll(page);
+	}
+}
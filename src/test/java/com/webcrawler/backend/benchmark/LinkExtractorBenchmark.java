@@ -0,0 +1,67 @@
+package com.webcrawler.backend.benchmark;
+
+import com.webcrawler.backend.utils.LinkExtractor;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the single-pass tokenizer behind {@link LinkExtractor} with the regex extractor it replaced,
+ * on generated pages of several sizes.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinkExtractorBenchmark {
+
+	private static final Pattern LEGACY_LINK_PATTERN =
+			Pattern.compile("<a\\s+[^>]*href=[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
+
+	@Param({"10000", "100000", "1000000"})
+	public int pageBytes;
+
+	private String html;
+	private URL pageUrl;
+	private final LinkExtractor extractor = new LinkExtractor();
+
+	@Setup
+	public void setup() throws MalformedURLException {
+		html = HtmlCorpus.page(pageBytes, 42);
+		pageUrl = new URL(HtmlCorpus.HOST + "/articles/42/index.html");
+	}
+
+	@Benchmark
+	public Set<String> tokenizer() {
+		return extractor.extractLinks(pageUrl, html);
+	}
+
+	@Benchmark
+	public Set<String> legacyRegex() {
+		Set<String> links = new HashSet<>();
+		Matcher matcher = LEGACY_LINK_PATTERN.matcher(html);
+		while (matcher.find()) {
+			try {
+				URL resolved = new URL(pageUrl, matcher.group(1));
+				new URI(resolved.toString());
+				if (resolved.getHost().equals(pageUrl.getHost())) {
+					links.add(resolved.toString());
+				}
+			} catch (MalformedURLException | URISyntaxException ignored) {
+				// Ignore malformed URLs
+			}
+		}
+		return links;
+	}
+}
@@ -0,0 +1,239 @@
+package com.webcrawler.backend.benchmark;
+
+import com.google.gson.JsonParser;
+import com.webcrawler.backend.Main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: serves a {@link SyntheticSite}, starts the crawler ({@link Main}) in a separate JVM pointed
+ * at it, launches N concurrent {@code POST /crawl} jobs and follows each one's result stream. Reports pages/sec as seen
+ * by the site, per-job time to first match and to 100 matches, the crawler's CPU time and peak heap, and the bytes
+ * it downloaded on the wire and decoded (read from its {@code /metrics}).
+ *
+ * Usage: mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.webcrawler.backend.benchmark.LoadTest
+ * Settings are system properties, passed through -Dbenchmark.jvmArgs: jobs (default 8), timeoutSec (default 300),
+ * serverJvmArgs (default -Xmx1g), serverEnv (extra crawler environment, e.g. CRAWL_EXECUTION_MODE=scheduled;STREAMING_SCAN=true),
+ * and the site settings of {@link SyntheticSite.Settings}. The crawler's log goes to target/loadtest-server.log.
+ */
+
+public class LoadTest {
+
+	private static final HttpClient CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+	public static void main(String[] args) throws Exception {
+		int jobs = Integer.getInteger("jobs", 8);
+		long timeoutSec = Long.getLong("timeoutSec", 300);
+		SyntheticSite.Settings settings = SyntheticSite.Settings.fromSystemProperties();
+
+		SyntheticSite site = new SyntheticSite(settings).start();
+		int port = freePort();
+		Process server = startServer(site.getBaseUrl(), port);
+		String api = "http://localhost:" + port;
+		try {
+			awaitServer(api, server);
+			System.out.printf("Site: %s%nJobs: %d against %s%n", settings, jobs, site.getBaseUrl());
+
+			HeapSampler heap = new HeapSampler(api);
+			heap.start();
+			double cpuBefore = metric(api, "process_cpu_seconds_total");
+			double wireBefore = metric(api, "crawler_downloaded_bytes_total");
+			double decodedBefore = metric(api, "crawler_decoded_bytes_total");
+			long requestsBefore = site.getRequestCount();
+			long start = System.nanoTime();
+
+			List<JobRun> runs = new ArrayList<>();
+			CountDownLatch finished = new CountDownLatch(jobs);
+			for (int i = 0; i < jobs; i++) {
+				String keyword = settings.getKeywords().get(i % settings.getKeywords().size());
+				JobRun run = new JobRun(keyword, start, finished);
+				runs.add(run);
+				new Thread(() -> run.execute(api), "load-job-" + i).start();
+			}
+			boolean completed = finished.await(timeoutSec, TimeUnit.SECONDS);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			heap.interrupt();
+
+			long requests = site.getRequestCount() - requestsBefore;
+			double cpu = metric(api, "process_cpu_seconds_total") - cpuBefore;
+			double wire = metric(api, "crawler_downloaded_bytes_total") - wireBefore;
+			double decoded = metric(api, "crawler_decoded_bytes_total") - decodedBefore;
+			System.out.printf("%n%-14s %-10s %8s %9s %10s %12s %10s%n", "Job", "Keyword", "Matches", "Expected", "First (ms)", "100th (ms)", "Done (ms)");
+			for (JobRun run : runs) {
+				System.out.printf("%-14s %-10s %8d %9d %10s %12s %10s%n", run.id, run.keyword, run.matches,
+						site.countPagesWithKeyword(run.keyword), millis(run.firstMatchNanos), millis(run.hundredthMatchNanos), millis(run.doneNanos));
+			}
+			System.out.printf("%n%s in %.1f s: %d requests (%.1f pages/sec), %d errors, %d trap pages%n",
+					completed ? "All jobs finished" : "Timed out", seconds, requests, requests / seconds, site.getErrorCount(), site.getTrapRequestCount());
+			System.out.printf("Crawler CPU: %.1f s (%.2f cores), peak heap: %.1f MB%n", cpu, cpu / seconds, heap.peakBytes / 1e6);
+			System.out.printf("Downloaded: %.1f MB on the wire, %.1f MB decoded%n", wire / 1e6, decoded / 1e6);
+		} finally {
+			server.destroy();
+			server.waitFor(10, TimeUnit.SECONDS);
+			site.stop();
+		}
+	}
+
+	private static Process startServer(String baseUrl, int port) throws IOException {
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.addAll(Arrays.asList(System.getProperty("serverJvmArgs", "-Xmx1g").trim().split("\\s+")));
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(Main.class.getName());
+
+		ProcessBuilder builder = new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.redirectOutput(new File("target", "loadtest-server.log"));
+		builder.environment().put("BASE_URL", baseUrl);
+		builder.environment().put("PORT", Integer.toString(port));
+		for (String variable : System.getProperty("serverEnv", "").split(";")) {
+			int separator = variable.indexOf('=');
+			if (separator > 0) {
+				builder.environment().put(variable.substring(0, separator).trim(), variable.substring(separator + 1).trim());
+			}
+		}
+		return builder.start();
+	}
+
+	private static void awaitServer(String api, Process server) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (System.nanoTime() < deadline) {
+			if (!server.isAlive()) {
+				throw new IllegalStateException("Crawler exited with code " + server.exitValue() + ", see target/loadtest-server.log");
+			}
+			try {
+				get(api + "/metrics");
+				return;
+			} catch (IOException e) {
+				Thread.sleep(200);
+			}
+		}
+		throw new IllegalStateException("Crawler did not start within 30 seconds");
+	}
+
+	private static double metric(String api, String name) throws Exception {
+		for (String line : get(api + "/metrics").split("\n")) {
+			if (line.startsWith(name + " ")) {
+				return Double.parseDouble(line.substring(name.length() + 1));
+			}
+		}
+		return 0;
+	}
+
+	private static String get(String url) throws IOException, InterruptedException {
+		return CLIENT.send(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.ofString()).body();
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static String millis(long nanos) {
+		return nanos == 0 ? "-" : Long.toString(TimeUnit.NANOSECONDS.toMillis(nanos));
+	}
+
+	/**
+	 * One crawl job: started with a POST, then followed through its result stream until the done event.
+	 */
+	private static final class JobRun {
+		private final String keyword;
+		private final long start;
+		private final CountDownLatch finished;
+		private volatile String id = "-";
+		private volatile int matches;
+		private volatile long firstMatchNanos;
+		private volatile long hundredthMatchNanos;
+		private volatile long doneNanos;
+
+		private JobRun(String keyword, long start, CountDownLatch finished) {
+			this.keyword = keyword;
+			this.start = start;
+			this.finished = finished;
+		}
+
+		void execute(String api) {
+			try {
+				HttpResponse<String> created = CLIENT.send(HttpRequest.newBuilder(URI.create(api + "/crawl"))
+						.POST(HttpRequest.BodyPublishers.ofString("{\"keyword\":\"" + keyword + "\"}")).build(), HttpResponse.BodyHandlers.ofString());
+				if (created.statusCode() != 200) {
+					System.err.printf("Job for %s was not started: %d %s%n", keyword, created.statusCode(), created.body());
+					return;
+				}
+				id = JsonParser.parseString(created.body()).getAsJsonObject().get("id").getAsString();
+				follow(api + "/crawl/" + id + "/stream");
+			} catch (Exception e) {
+				System.err.printf("Job %s failed: %s%n", id, e);
+			} finally {
+				finished.countDown();
+			}
+		}
+
+		private void follow(String streamUrl) throws IOException, InterruptedException {
+			HttpResponse<InputStream> stream = CLIENT.send(HttpRequest.newBuilder(URI.create(streamUrl)).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+			try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream.body(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.equals("event: match")) {
+						long now = System.nanoTime() - start;
+						int count = ++matches;
+						if (count == 1) {
+							firstMatchNanos = now;
+						} else if (count == 100) {
+							hundredthMatchNanos = now;
+						}
+					} else if (line.equals("event: done")) {
+						doneNanos = System.nanoTime() - start;
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Polls the crawler's heap usage while the jobs run, keeping the peak.
+	 */
+	private static final class HeapSampler extends Thread {
+		private final String api;
+		private volatile long peakBytes;
+
+		private HeapSampler(String api) {
+			super("heap-sampler");
+			this.api = api;
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!isInterrupted()) {
+					peakBytes = Math.max(peakBytes, (long) metric(api, "jvm_memory_heap_used_bytes"));
+					Thread.sleep(250);
+				}
+			} catch (InterruptedException e) {
+				// Sampling ends with the run
+			} catch (Exception e) {
+				System.err.println("Heap sampling stopped: " + e);
+			}
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package com.webcrawler.backend.benchmark;
+
+import com.webcrawler.backend.utils.PageFetcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning a downloaded body into page text ({@link PageFetcher#decode(byte[], String)}), and how much of it
+ * is the decoding versus the lowercased copy, on generated pages of several sizes.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageDecodeBenchmark {
+
+	@Param({"10000", "100000", "1000000"})
+	public int pageBytes;
+
+	private byte[] body;
+
+	@Setup
+	public void setup() {
+		body = HtmlCorpus.responseBody(pageBytes, 42);
+	}
+
+	@Benchmark
+	public String decode() {
+		return PageFetcher.decode(body, "text/html; charset=utf-8");
+	}
+
+	@Benchmark
+	public String decodeOnly() {
+		return new String(body, StandardCharsets.UTF_8);
+	}
+}
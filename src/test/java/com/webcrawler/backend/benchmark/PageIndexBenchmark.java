@@ -0,0 +1,93 @@
+package com.webcrawler.backend.benchmark;
+
+import com.webcrawler.backend.service.crawl.PageIndexStore;
+import com.webcrawler.backend.service.crawl.PageIndexWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures answering a keyword from a {@link PageIndexStore} index, on a site whose vocabulary holds about as many
+ * distinct terms as the parameter says: random words of 4 to 12 letters, 200 of them per page. Keywords are taken
+ * from inside those words, so they hit a few terms each, like a real query; their length sets how selective their
+ * rarest trigram is.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageIndexBenchmark {
+
+	private static final String BASE_URL = HtmlCorpus.HOST + "/";
+	private static final int WORDS_PER_PAGE = 200;
+	private static final int KEYWORDS = 1024;
+
+	@Param({"100000", "1000000"})
+	public int terms;
+
+	@Param({"4", "8"})
+	public int keywordLength;
+
+	private Path directory;
+	private PageIndexStore store;
+	private final String[] keywords = new String[KEYWORDS];
+	private int next;
+
+	@Setup
+	public void setup() throws IOException {
+		Random random = new Random(42);
+		PageIndexWriter writer = new PageIndexWriter();
+		int keyword = 0;
+		for (int page = 0; page < terms / WORDS_PER_PAGE; page++) {
+			StringBuilder content = new StringBuilder("<html><body><p>");
+			for (int i = 0; i < WORDS_PER_PAGE; i++) {
+				String word = word(random, Math.max(keywordLength, 4 + random.nextInt(9)));
+				content.append(word).append(' ');
+				if (keyword < KEYWORDS && random.nextInt(terms / KEYWORDS) == 0) {
+					int from = random.nextInt(word.length() - keywordLength + 1);
+					keywords[keyword++] = word.substring(from, from + keywordLength);
+				}
+			}
+			writer.addPage(BASE_URL + "page/" + page, content.append("</p></body></html>").toString());
+		}
+		for (; keyword < KEYWORDS; keyword++) {
+			keywords[keyword] = word(random, keywordLength); // mostly absent from the site
+		}
+		directory = Files.createTempDirectory("page-index-benchmark");
+		store = new PageIndexStore(directory, Duration.ofDays(1));
+		store.publish(BASE_URL, writer);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Benchmark
+	public List<String> find() {
+		return store.find(BASE_URL, keywords[next++ & (KEYWORDS - 1)]);
+	}
+
+	private static String word(Random random, int length) {
+		StringBuilder word = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			word.append((char) ('a' + random.nextInt(26)));
+		}
+		return word.toString();
+	}
+}
@@ -0,0 +1,258 @@
+package com.webcrawler.backend.benchmark;
+
+import spark.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Generated website served by an embedded Spark (Jetty) instance, for end-to-end load tests.
+ * Pages are {@code /p/<n>}, each linking to {@code outDegree} other pages, padded with text to about
+ * {@code pageBytes}, and containing each keyword with probability {@code keywordDensity}. Which page holds what is
+ * derived from the page number, so every run crawls the same site. Each request waits for a latency drawn from a
+ * log-normal distribution (median {@code latencyMs}, spread {@code latencySigma}) and fails with a 500 with
+ * probability {@code errorRate}. A fraction {@code trapRate} of the pages link into a trap: an endless chain of
+ * distinct URLs ({@code /trap/<n>/<depth>}) like a calendar's "next month" link. Pages are gzip-compressed for
+ * clients that accept it, unless {@code gzip} is false. Like real sites, the site can be topical: a page mentioning
+ * a keyword links to other pages mentioning it with probability {@code linkLocality} per link, and a link to such a
+ * page names the keyword in its anchor text with probability {@code anchorHints}, so the linking page holds the keyword
+ * as well. Both are 0 by default.
+ */
+
+public class SyntheticSite {
+
+	private static final String[] WORDS = {
+			"crawler", "search", "index", "page", "content", "network", "latency", "server", "request", "response",
+			"thread", "memory", "document", "archive", "product", "review", "article", "catalog", "section", "update"
+	};
+
+	private final Settings settings;
+	private final int[][] keywordPages;
+	private final Service http;
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder trapRequests = new LongAdder();
+
+	public SyntheticSite(Settings settings) {
+		this.settings = settings;
+		this.keywordPages = new int[settings.keywords.size()][];
+		for (int k = 0; k < keywordPages.length; k++) {
+			String keyword = settings.keywords.get(k);
+			keywordPages[k] = IntStream.range(0, settings.pages).filter(page -> containsKeyword(page, keyword)).toArray();
+		}
+		this.http = Service.ignite().port(0).threadPool(settings.serverThreads);
+	}
+
+	public SyntheticSite start() {
+		http.get("/p/:page", (req, res) -> respond(req, res, () -> page(parse(req.params(":page")))));
+		http.get("/trap/:page/:depth", (req, res) -> {
+			trapRequests.increment();
+			return respond(req, res, () -> trap(parse(req.params(":page")), parse(req.params(":depth"))));
+		});
+		http.awaitInitialization();
+		return this;
+	}
+
+	public void stop() {
+		http.stop();
+		http.awaitStop();
+	}
+
+	public String getBaseUrl() {
+		return "http://localhost:" + http.port() + "/p/0";
+	}
+
+	public long getRequestCount() {
+		return requests.sum();
+	}
+
+	public long getErrorCount() {
+		return errors.sum();
+	}
+
+	public long getTrapRequestCount() {
+		return trapRequests.sum();
+	}
+
+	/**
+	 * Number of pages (out of all pages) that contain the keyword, as the crawler matches it: anywhere in the page,
+	 * ignoring case, so links naming it count too.
+	 */
+	public int countPagesWithKeyword(String keyword) {
+		String needle = keyword.toLowerCase(Locale.ROOT);
+		int count = 0;
+		for (int page = 0; page < settings.pages; page++) {
+			if (page(page).toLowerCase(Locale.ROOT).contains(needle)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private Object respond(spark.Request req, spark.Response res, PageSource source) throws InterruptedException {
+		requests.increment();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long latencyMs = Math.round(settings.latencyMs * Math.exp(settings.latencySigma * random.nextGaussian()));
+		if (latencyMs > 0) {
+			Thread.sleep(latencyMs);
+		}
+		if (random.nextDouble() < settings.errorRate) {
+			errors.increment();
+			res.status(500);
+			return "error";
+		}
+		res.type("text/html; charset=utf-8");
+		String accepted = req.headers("Accept-Encoding");
+		if (settings.gzip && accepted != null && accepted.contains("gzip")) {
+			res.header("Content-Encoding", "gzip"); // Spark compresses the body when this header is set
+		}
+		return source.render().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private String page(int page) {
+		Random random = new Random(page);
+		StringBuilder html = new StringBuilder(settings.pageBytes + 512);
+		html.append("<!DOCTYPE html>\n<html><head><title>Page ").append(page).append("</title></head>\n<body>\n<nav>");
+		int topic = topicOf(page);
+		for (int i = 0; i < settings.outDegree; i++) {
+			int target = random.nextInt(settings.pages);
+			if (topic >= 0 && settings.linkLocality > 0 && random.nextDouble() < settings.linkLocality) {
+				target = keywordPages[topic][random.nextInt(keywordPages[topic].length)];
+			}
+			String anchorText = WORDS[i % WORDS.length];
+			int targetTopic = topicOf(target);
+			if (targetTopic >= 0 && settings.anchorHints > 0 && random.nextDouble() < settings.anchorHints) {
+				anchorText = "More on " + settings.keywords.get(targetTopic);
+			}
+			html.append("<a href=\"/p/").append(target).append("\">").append(anchorText).append("</a>\n");
+		}
+		// Keep the whole site reachable from the seed
+		html.append("<a href=\"/p/").append((page + 1) % settings.pages).append("\">next</a>\n");
+		if (random.nextDouble() < settings.trapRate) {
+			html.append("<a href=\"/trap/").append(page).append("/1\">calendar</a>\n");
+		}
+		html.append("</nav>\n<main>\n");
+		for (String keyword : settings.keywords) {
+			if (containsKeyword(page, keyword)) {
+				html.append("<p>Mentions ").append(keyword).append(" here.</p>\n");
+			}
+		}
+		pad(html, random);
+		return html.append("</main>\n</body></html>\n").toString();
+	}
+
+	private String trap(int page, int depth) {
+		StringBuilder html = new StringBuilder(settings.pageBytes + 256);
+		html.append("<html><body><a href=\"/trap/").append(page).append('/').append(depth + 1).append("\">next month</a>\n");
+		pad(html, new Random(31L * page + depth));
+		return html.append("</body></html>\n").toString();
+	}
+
+	private void pad(StringBuilder html, Random random) {
+		while (html.length() < settings.pageBytes) {
+			html.append("<p>");
+			for (int i = 0; i < 16; i++) {
+				html.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+			}
+			html.append("</p>\n");
+		}
+	}
+
+	/**
+	 * Returns the index of the first keyword the page mentions, or -1 if it mentions none.
+	 */
+	private int topicOf(int page) {
+		for (int k = 0; k < settings.keywords.size(); k++) {
+			if (containsKeyword(page, settings.keywords.get(k))) {
+				return k;
+			}
+		}
+		return -1;
+	}
+
+	private boolean containsKeyword(int page, String keyword) {
+		long hash = (page * 0x9E3779B97F4A7C15L) ^ keyword.hashCode();
+		hash ^= hash >>> 31;
+		hash *= 0xBF58476D1CE4E5B9L;
+		hash ^= hash >>> 29;
+		return (hash >>> 11) * 0x1.0p-53 < settings.keywordDensity;
+	}
+
+	private static int parse(String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private interface PageSource {
+		String render();
+	}
+
+	/**
+	 * Shape of the generated site.
+	 */
+	public static final class Settings {
+		int pages = 2000;
+		int outDegree = 10;
+		int pageBytes = 20_000;
+		List<String> keywords = List.of("needle");
+		double keywordDensity = 0.2;
+		long latencyMs = 20;
+		double latencySigma = 0.5;
+		double errorRate = 0.01;
+		double trapRate = 0.0;
+		double linkLocality = 0.0;
+		double anchorHints = 0.0;
+		boolean gzip = true;
+		int serverThreads = 256;
+
+		/**
+		 * Reads the settings from system properties of the same name, keeping the defaults for missing ones.
+		 */
+		public static Settings fromSystemProperties() {
+			return fromSystemProperties(new Settings());
+		}
+
+		/**
+		 * Reads the settings from system properties of the same name, keeping those of the given settings for missing ones.
+		 */
+		public static Settings fromSystemProperties(Settings settings) {
+			settings.pages = Integer.getInteger("pages", settings.pages);
+			settings.outDegree = Integer.getInteger("outDegree", settings.outDegree);
+			settings.pageBytes = Integer.getInteger("pageBytes", settings.pageBytes);
+			settings.keywords = List.of(System.getProperty("keywords", String.join(",", settings.keywords)).split(","));
+			settings.keywordDensity = doubleProperty("keywordDensity", settings.keywordDensity);
+			settings.latencyMs = Long.getLong("latencyMs", settings.latencyMs);
+			settings.latencySigma = doubleProperty("latencySigma", settings.latencySigma);
+			settings.errorRate = doubleProperty("errorRate", settings.errorRate);
+			settings.trapRate = doubleProperty("trapRate", settings.trapRate);
+			settings.linkLocality = doubleProperty("linkLocality", settings.linkLocality);
+			settings.anchorHints = doubleProperty("anchorHints", settings.anchorHints);
+			settings.serverThreads = Integer.getInteger("serverThreads", settings.serverThreads);
+			settings.gzip = Boolean.parseBoolean(System.getProperty("gzip", Boolean.toString(settings.gzip)));
+			return settings;
+		}
+
+		public List<String> getKeywords() {
+			return keywords;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d pages of ~%d bytes, out-degree %d, keywords %s at density %.2f, link locality %.2f, anchor hints %.2f, latency %d ms (sigma %.2f), error rate %.3f, trap rate %.3f, gzip %s",
+					pages, pageBytes, outDegree, keywords, keywordDensity, linkLocality, anchorHints, latencyMs, latencySigma, errorRate, trapRate, gzip);
+		}
+
+		private static double doubleProperty(String name, double defaultValue) {
+			String value = System.getProperty(name);
+			return value == null ? defaultValue : Double.parseDouble(value);
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.webcrawler.backend.benchmark;
+
+import com.webcrawler.backend.utils.FingerprintUrlSet;
+import com.webcrawler.backend.utils.StringUrlSet;
+import com.webcrawler.backend.utils.UrlSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the visited-set representations: throughput of concurrent add/contains in the JMH benchmarks,
+ * and retained memory per URL in {@link #main(String[])}, which fills each set with a million crawl-like URLs.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class VisitedSetBenchmark {
+
+	private static final int URL_COUNT = 1 << 20;
+
+	@Param({"strings", "fingerprint", "fingerprint-offheap"})
+	public String type;
+
+	private String[] urls;
+	private UrlSet set;
+	private final AtomicInteger cursor = new AtomicInteger();
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		urls = urls(URL_COUNT);
+		set = create(type);
+		for (int i = 0; i < URL_COUNT; i += 2) {
+			set.add(urls[i]);
+		}
+	}
+
+	/**
+	 * Half of the lookups hit an already visited URL, like links pointing back into a site's navigation.
+	 */
+	@Benchmark
+	public void add(Blackhole blackhole) {
+		blackhole.consume(set.add(urls[cursor.getAndIncrement() & (URL_COUNT - 1)]));
+	}
+
+	@Benchmark
+	public void contains(Blackhole blackhole) {
+		blackhole.consume(set.contains(urls[cursor.getAndIncrement() & (URL_COUNT - 1)]));
+	}
+
+	public static void main(String[] args) {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		for (String type : new String[] {"strings", "fingerprint"}) {
+			long before = usedHeap();
+			UrlSet set = create(type);
+			// URLs are built one at a time, so only what the set itself retains is counted
+			for (int i = 0; i < count; i++) {
+				set.add(url(i));
+			}
+			long retained = usedHeap() - before;
+			System.out.printf("%-12s %,d URLs: %,d bytes retained (%.1f bytes/URL)%n",
+					type, set.size(), retained, retained / (double) set.size());
+		}
+	}
+
+	private static UrlSet create(String type) {
+		switch (type) {
+			case "fingerprint":
+				return new FingerprintUrlSet(1024, false);
+			case "fingerprint-offheap":
+				return new FingerprintUrlSet(1024, true);
+			default:
+				return new StringUrlSet();
+		}
+	}
+
+	private static String[] urls(int count) {
+		String[] urls = new String[count];
+		for (int i = 0; i < count; i++) {
+			urls[i] = url(i);
+		}
+		return urls;
+	}
+
+	private static String url(int i) {
+		return HtmlCorpus.HOST + "/articles/" + (i % 997) + "/" + i + "/index.html?ref=nav&page=" + (i % 13);
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -1,15 +1,25 @@
 package com.webcrawler.backend.controller.crawl;
 
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlStatus;
 import com.webcrawler.backend.model.crawl.request.CrawlRequest;
+import com.webcrawler.backend.model.crawl.response.CrawlPageResponse;
 import com.webcrawler.backend.model.crawl.response.CrawlResponse;
 import com.webcrawler.backend.model.crawl.response.SimplifiedCrawlResponse;
 import com.webcrawler.backend.service.crawl.CrawlService;
+import com.webcrawler.backend.utils.exceptions.BadRequestException;
 import com.google.gson.Gson;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import spark.Request;
 import spark.Response;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -66,4 +76,77 @@ class CrawlControllerTest {
 		assertEquals("DONE", response.getStatus());
 		assertTrue(response.getUrls().contains("http://example.com"));
 	}
+
+	@Test
+	void cancelCrawl_shouldReturnCancelledJob() {
+		CrawlResponse expectedResponse = new CrawlResponse("job-789", "cancelled", Set.of());
+
+		when(mockRequest.params(":id")).thenReturn("job-789");
+		when(mockService.cancelCrawl("job-789")).thenReturn(expectedResponse);
+
+		CrawlResponse response = controller.cancelCrawl(mockRequest, mockResponse);
+
+		verify(mockResponse).status(200);
+		verify(mockService).cancelCrawl("job-789");
+		assertEquals("cancelled", response.getStatus());
+	}
+
+	@Test
+	void getCrawlResultsPage_shouldPassCursorAndLimit() {
+		CrawlPageResponse page = new CrawlPageResponse("job-1", "active", List.of("http://example.com/3"), 3, 3);
+
+		when(mockRequest.params(":id")).thenReturn("job-1");
+		when(mockRequest.queryParams("after")).thenReturn("2");
+		when(mockRequest.queryParams("limit")).thenReturn("10");
+		when(mockService.getCrawlResultsPage("job-1", 2, 10)).thenReturn(page);
+
+		CrawlPageResponse response = controller.getCrawlResultsPage(mockRequest, mockResponse);
+
+		verify(mockResponse).status(200);
+		assertEquals(3, response.getNext());
+	}
+
+	@Test
+	void getCrawlResultsPage_shouldRejectNonNumericCursor() {
+		when(mockRequest.params(":id")).thenReturn("job-1");
+		when(mockRequest.queryParams("after")).thenReturn("abc");
+
+		assertThrows(BadRequestException.class, () -> controller.getCrawlResultsPage(mockRequest, mockResponse));
+	}
+
+	@Test
+	void streamCrawlResults_shouldSendMatchesAfterLastEventIdThenDone() throws Exception {
+		Crawl job = new Crawl("job-1", "keyword");
+		job.addMatchedUrl("http://example.com/1");
+		job.addMatchedUrl("http://example.com/2");
+		job.setStatus(CrawlStatus.DONE);
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		HttpServletResponse raw = mock(HttpServletResponse.class);
+		when(raw.getOutputStream()).thenReturn(new ServletOutputStream() {
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener writeListener) {
+			}
+
+			@Override
+			public void write(int b) {
+				body.write(b);
+			}
+		});
+		when(mockResponse.raw()).thenReturn(raw);
+		when(mockRequest.params(":id")).thenReturn("job-1");
+		when(mockRequest.headers("Last-Event-ID")).thenReturn("1");
+		when(mockService.getCrawl("job-1")).thenReturn(job);
+
+		controller.streamCrawlResults(mockRequest, mockResponse);
+
+		verify(raw).setContentType("text/event-stream");
+		assertEquals("id: 2\nevent: match\ndata: http://example.com/2\n\nevent: done\ndata: done\n\n",
+				body.toString(StandardCharsets.UTF_8));
+	}
 }
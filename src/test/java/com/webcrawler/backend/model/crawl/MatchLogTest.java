@@ -0,0 +1,63 @@
+package com.webcrawler.backend.model.crawl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchLogTest {
+
+	@Test
+	void readAfter_pagesThroughEntriesInOrder() {
+		MatchLog log = new MatchLog();
+		for (int i = 1; i <= 5; i++) {
+			assertEquals(i, log.append("https://example.com/" + i));
+		}
+
+		assertEquals(List.of("https://example.com/1", "https://example.com/2"), log.readAfter(0, 2));
+		assertEquals(List.of("https://example.com/3", "https://example.com/4"), log.readAfter(2, 2));
+		assertEquals(List.of("https://example.com/5"), log.readAfter(4, 2));
+		assertTrue(log.readAfter(5, 2).isEmpty());
+		assertTrue(log.readAfter(99, 2).isEmpty());
+	}
+
+	@Test
+	void awaitAfter_wakesOnAppend() throws Exception {
+		MatchLog log = new MatchLog();
+		CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+			try {
+				return log.awaitAfter(0, 5000);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(50);
+		log.append("https://example.com/1");
+
+		assertTrue(waiter.get(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void awaitAfter_returnsFalseOnceClosedOrTimedOut() throws Exception {
+		MatchLog log = new MatchLog();
+		assertFalse(log.awaitAfter(0, 10));
+
+		log.close();
+		assertFalse(log.awaitAfter(0, 5000)); // returns at once instead of waiting out the timeout
+	}
+
+	@Test
+	void crawl_logsEachMatchOnce() {
+		Crawl job = new Crawl("job", "keyword");
+		job.addMatchedUrl("https://example.com/a");
+		job.addMatchedUrl("https://example.com/a");
+		job.addMatchedUrl("https://example.com/b");
+
+		assertEquals(2, job.getMatchLog().size());
+		job.setStatus(CrawlStatus.DONE);
+		assertTrue(job.getMatchLog().isClosed());
+	}
+}
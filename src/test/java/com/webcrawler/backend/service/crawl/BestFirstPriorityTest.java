@@ -0,0 +1,62 @@
+package com.webcrawler.backend.service.crawl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BestFirstPriorityTest {
+
+	private final BestFirstPriority priority = new BestFirstPriority("web crawler");
+
+	@Test
+	void rank_isDepthWithoutSignals() {
+		assertEquals(2, priority.rank("https://example.com/about", 2, "", 0));
+	}
+
+	@Test
+	void rank_favoursKeywordInPathButNotInHost() {
+		int plain = priority.rank("https://webcrawler.example.com/about", 2, "", 0);
+		int inPath = priority.rank("https://example.com/blog/Web-Crawler_tips", 2, "", 0);
+
+		assertEquals(2, plain);
+		assertTrue(inPath < plain);
+	}
+
+	@Test
+	void rank_favoursKeywordInAnchorText() {
+		assertTrue(priority.rank("https://example.com/x", 2, "Our Web Crawler", 0) < priority.rank("https://example.com/x", 2, "Our products", 0));
+	}
+
+	@Test
+	void rank_favoursLinksOfPagesMatchingMoreOften() {
+		int none = priority.rank("https://example.com/x", 2, "", 0);
+		int once = priority.rank("https://example.com/x", 2, "", 1);
+		int often = priority.rank("https://example.com/x", 2, "", FrontierPriority.MAX_PARENT_MATCHES);
+
+		assertTrue(once < none);
+		assertTrue(often < once);
+	}
+
+	@Test
+	void rank_letsStrongSignalsOvertakeShallowerUrls() {
+		assertTrue(priority.rank("https://example.com/web-crawler", 3, "web crawler", 1) < priority.rank("https://example.com/about", 1, "", 0));
+		assertTrue(priority.rank("https://example.com/about", 9, "", 1) > priority.rank("https://example.com/about", 1, "", 0));
+	}
+
+	@Test
+	void rank_takesFewValuesPerDepth() {
+		Set<Integer> ranks = new HashSet<>();
+		for (String url : List.of("https://example.com/about", "https://example.com/web-crawler")) {
+			for (String anchorText : List.of("", "web crawler")) {
+				for (int parentMatches = 0; parentMatches <= FrontierPriority.MAX_PARENT_MATCHES; parentMatches++) {
+					ranks.add(priority.rank(url, 5, anchorText, parentMatches));
+				}
+			}
+		}
+		assertTrue(ranks.size() <= BestFirstPriority.RANKS_PER_DEPTH);
+	}
+}
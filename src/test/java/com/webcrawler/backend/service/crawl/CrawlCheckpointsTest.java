@@ -0,0 +1,200 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlBudget;
+import com.webcrawler.backend.model.crawl.CrawlStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CrawlCheckpointsTest {
+
+	private HttpServer server;
+	private final int PORT = 8092;
+	private final String BASE_URL = "http://localhost:" + PORT;
+	private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+	@TempDir
+	Path checkpointDir;
+
+	@BeforeAll
+	void setupServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(PORT), 0);
+		server.createContext("/", exchange -> respond(exchange, "<a href=\"/a\">a</a><a href=\"/b\">b</a>"));
+		server.createContext("/a", exchange -> respond(exchange, "<a href=\"/c\">c</a>"));
+		server.createContext("/b", exchange -> respond(exchange, "b has the keyword"));
+		server.createContext("/c", exchange -> respond(exchange, "c has the keyword too"));
+		server.start();
+	}
+
+	@AfterAll
+	void shutdownServer() {
+		server.stop(0);
+	}
+
+	private void respond(HttpExchange exchange, String body) throws IOException {
+		requests.computeIfAbsent(exchange.getRequestURI().getPath(), path -> new AtomicInteger()).incrementAndGet();
+		exchange.sendResponseHeaders(200, body.getBytes().length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(body.getBytes());
+		}
+	}
+
+	@Test
+	void suspend_writesCheckpointThatRestoresJobAndFrontier() throws Exception {
+		CrawlCheckpoints checkpoints = new CrawlCheckpoints(checkpointDir.resolve("restore"), Duration.ofHours(1));
+		Crawl job = new Crawl("restorejob", "keyword");
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.addAll(List.of("https://example.com/", "https://example.com/a", "https://example.com/b"));
+		job.markVisited(frontier.take()); // done
+		frontier.complete("https://example.com/");
+		job.markVisited(frontier.take()); // interrupted while in progress
+		job.addMatchedUrl("https://example.com/");
+
+		checkpoints.track(job, "https://example.com/", frontier).suspend();
+		List<CrawlCheckpoints.Checkpoint> loaded = checkpoints.loadAll();
+
+		assertEquals(1, loaded.size());
+		CrawlCheckpoints.Checkpoint checkpoint = loaded.get(0);
+		assertTrue(checkpoint.isStarted());
+		assertEquals("https://example.com/", checkpoint.getBaseUrl());
+		Crawl restored = checkpoint.toJob();
+		assertEquals("restorejob", restored.getId());
+		assertEquals(CrawlStatus.ACTIVE, restored.getStatus());
+		assertEquals(1, restored.getVisitedCount());
+		assertEquals(List.of("https://example.com/"), restored.getMatchLog().readAfter(0, 10));
+		assertFalse(restored.markVisited("https://example.com/"));
+		assertTrue(restored.markVisited("https://example.com/a"));
+
+		CrawlFrontier resumed = checkpoint.toFrontier();
+		List<String> pending = new ArrayList<>();
+		String url;
+		while ((url = resumed.poll()) != null) {
+			pending.add(url);
+		}
+		assertEquals(List.of("https://example.com/a", "https://example.com/b"), pending);
+		assertFalse(resumed.add("https://example.com/"));
+		assertEquals(3, resumed.seenCount());
+	}
+
+	@Test
+	void checkpoint_keepsBudgetAndLinkDepths() throws Exception {
+		CrawlCheckpoints checkpoints = new CrawlCheckpoints(checkpointDir.resolve("budget"), Duration.ofHours(1));
+		Crawl job = new Crawl("budgetjob", "keyword");
+		Instant deadline = Instant.ofEpochMilli(System.currentTimeMillis() + 60_000);
+		job.setBudget(new CrawlBudget(100, 10, 2, deadline));
+		job.setWeight(5);
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.setMaxDepth(2);
+		frontier.add("https://example.com/");
+		String root = frontier.take();
+		frontier.addLinks(root, List.of("https://example.com/a"));
+		frontier.complete(root);
+		String a = frontier.take();
+		frontier.addLinks(a, List.of("https://example.com/a/1"));
+
+		checkpoints.track(job, "https://example.com/", frontier).suspend();
+		CrawlCheckpoints.Checkpoint checkpoint = checkpoints.loadAll().get(0);
+
+		assertEquals(5, checkpoint.toJob().getWeight());
+		CrawlBudget budget = checkpoint.toJob().getBudget();
+		assertEquals(100, budget.getMaxPages());
+		assertEquals(10, budget.getMaxMatches());
+		assertEquals(2, budget.getMaxDepth());
+		assertEquals(deadline, budget.getDeadline());
+		List<Integer> depths = new ArrayList<>();
+		CrawlFrontier resumed = checkpoint.toFrontier();
+		resumed.snapshot((url, depth) -> { }, (url, depth) -> depths.add(depth), seen -> { });
+		assertEquals(List.of(1, 2), depths);
+
+		// The depth limit survives too: links of the deepest page are dropped
+		resumed.take();
+		String deepest = resumed.take();
+		resumed.addLinks(deepest, List.of("https://example.com/a/1/x"));
+		assertEquals(0, resumed.size());
+	}
+
+	@Test
+	void checkpoint_keepsUrlsLongerThan64Kilobytes() throws Exception {
+		CrawlCheckpoints checkpoints = new CrawlCheckpoints(checkpointDir.resolve("long"), Duration.ofHours(1));
+		Crawl job = new Crawl("longjob", "keyword");
+		String longUrl = "https://example.com/?q=" + "\u00e9".repeat(40_000);
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.addAll(List.of("https://example.com/", longUrl));
+		job.markVisited(frontier.take());
+		frontier.complete("https://example.com/");
+		job.addMatchedUrl(longUrl);
+
+		checkpoints.track(job, "https://example.com/", frontier).suspend();
+		List<CrawlCheckpoints.Checkpoint> loaded = checkpoints.loadAll();
+
+		assertEquals(1, loaded.size());
+		assertEquals(List.of(longUrl), loaded.get(0).toJob().getMatchLog().readAfter(0, 10));
+		assertEquals(longUrl, loaded.get(0).toFrontier().poll());
+	}
+
+	@Test
+	void acceptedJob_isRestartedAndFinishDeletesCheckpoint() throws Exception {
+		Path directory = checkpointDir.resolve("accepted");
+		CrawlCheckpoints checkpoints = new CrawlCheckpoints(directory, Duration.ofHours(1));
+		Crawl job = new Crawl("acceptedjob", "keyword");
+
+		checkpoints.saveAccepted(job, BASE_URL + "/");
+		CrawlCheckpoints.Checkpoint checkpoint = checkpoints.loadAll().get(0);
+		assertFalse(checkpoint.isStarted());
+
+		Crawl restarted = checkpoint.toJob();
+		new CrawlRunner(restarted, checkpoints, checkpoint).run();
+
+		assertEquals(CrawlStatus.DONE, restarted.getStatus());
+		assertEquals(2, restarted.getMatchedUrls().size());
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	void resumedJob_continuesWithoutRefetchingFinishedPages() throws Exception {
+		CrawlCheckpoints checkpoints = new CrawlCheckpoints(checkpointDir.resolve("resume"), Duration.ofHours(1));
+		Crawl job = new Crawl("resumejob", "keyword");
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.add(BASE_URL + "/");
+		job.markVisited(frontier.take());
+		frontier.addAll(List.of(BASE_URL + "/a", BASE_URL + "/b"));
+		frontier.complete(BASE_URL + "/");
+		checkpoints.track(job, BASE_URL + "/", frontier).suspend();
+		requests.clear();
+
+		CrawlCheckpoints.Checkpoint checkpoint = checkpoints.loadAll().get(0);
+		Crawl resumed = checkpoint.toJob();
+		new CrawlRunner(resumed, checkpoints, checkpoint).run();
+
+		assertEquals(CrawlStatus.DONE, resumed.getStatus());
+		assertNull(requests.get("/"));
+		assertEquals(1, requests.get("/a").get());
+		assertTrue(resumed.getMatchedUrls().contains(BASE_URL + "/b"));
+		assertTrue(resumed.getMatchedUrls().contains(BASE_URL + "/c"));
+		assertTrue(checkpoints.loadAll().isEmpty());
+	}
+}
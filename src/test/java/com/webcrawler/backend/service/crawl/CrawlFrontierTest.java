@@ -0,0 +1,305 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.utils.StringUrlSet;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class CrawlFrontierTest {
+
+	@Test
+	void take_returnsNullWhenNothingWasEverAdded() throws Exception {
+		assertNull(new CrawlFrontier().take());
+	}
+
+	@Test
+	void take_waitsForInProgressUrlBeforeTerminating() throws Exception {
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.add("root");
+		assertEquals("root", frontier.take());
+
+		ExecutorService idle = Executors.newSingleThreadExecutor();
+		try {
+			// The queue is empty but "root" is still in progress, so this worker must wait rather than exit
+			Future<String> next = idle.submit(frontier::take);
+			Thread.sleep(100);
+			assertFalse(next.isDone());
+
+			frontier.add("child");
+			frontier.complete("root");
+			assertEquals("child", next.get(1, TimeUnit.SECONDS));
+			frontier.complete("child");
+			assertNull(frontier.take());
+		} finally {
+			idle.shutdownNow();
+		}
+	}
+
+	@Test
+	void suspend_drainsInProgressUrlsAndKeepsTheRestQueued() throws Exception {
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.addAll(List.of("a", "b", "c"));
+		assertEquals("a", frontier.take());
+
+		frontier.suspend();
+		assertNull(frontier.poll());
+		assertFalse(frontier.awaitQuiescence(50, TimeUnit.MILLISECONDS));
+		frontier.complete("a");
+
+		assertTrue(frontier.awaitQuiescence(1, TimeUnit.SECONDS));
+		assertNull(frontier.take());
+		assertEquals(2, frontier.size());
+	}
+
+	@Test
+	void snapshot_listsInProgressThenQueuedUrls() throws Exception {
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.addAll(List.of("a", "b", "c"));
+		frontier.take();
+		List<String> inProgress = new ArrayList<>();
+		List<String> queued = new ArrayList<>();
+		List<Long> seen = new ArrayList<>();
+
+		frontier.snapshot((url, depth) -> inProgress.add(url), (url, depth) -> queued.add(url), seen::add);
+
+		assertEquals(List.of("a"), inProgress);
+		assertEquals(List.of("b", "c"), queued);
+		assertEquals(3, seen.size());
+	}
+
+	@Test
+	void take_handsOutShallowerUrlsFirst() throws Exception {
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.add("root");
+		String root = frontier.take();
+		frontier.addLinks(root, List.of("a", "b"));
+		String a = frontier.take();
+		frontier.addLinks(a, List.of("a/1"));
+		frontier.addAll(List.of("late"), 1);
+
+		List<String> order = new ArrayList<>();
+		List<Integer> depths = new ArrayList<>();
+		frontier.snapshot((url, depth) -> { }, (url, depth) -> depths.add(depth), seen -> { });
+		String next;
+		while ((next = frontier.poll()) != null) {
+			order.add(next);
+		}
+
+		assertEquals(List.of("b", "late", "a/1"), order);
+		assertEquals(List.of(1, 1, 2), depths);
+	}
+
+	@Test
+	void addLinks_dropsLinksPastMaxDepthWithoutMarkingThemSeen() throws Exception {
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.setMaxDepth(1);
+		frontier.add("root");
+		String root = frontier.take();
+		frontier.addLinks(root, List.of("a"));
+		String a = frontier.take();
+
+		frontier.addLinks(a, List.of("too-deep"));
+		assertEquals(0, frontier.size());
+
+		// Found again closer to the base URL, the same link is enqueued
+		frontier.addLinks(root, List.of("too-deep"));
+		assertEquals(1, frontier.size());
+	}
+
+	@Test
+	void awaitQuiescence_waitsForUrlsInProgressAfterClose() throws Exception {
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.addAll(List.of("a", "b"));
+		String a = frontier.take();
+		frontier.close();
+
+		assertEquals(0, frontier.size());
+		assertFalse(frontier.awaitQuiescence(50, TimeUnit.MILLISECONDS));
+		frontier.complete(a);
+		assertTrue(frontier.awaitQuiescence(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void idleWorkersDoNotBurnCpuWhileWaiting() throws Exception {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		assumeCpuTimeSupported(threads);
+
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.add("slow-page");
+		frontier.take(); // held "in progress" for the duration of the measurement
+
+		int idleWorkers = 4;
+		List<Thread> workers = new ArrayList<>();
+		for (int i = 0; i < idleWorkers; i++) {
+			Thread worker = new Thread(() -> {
+				try {
+					frontier.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			workers.add(worker);
+			worker.start();
+		}
+
+		Thread.sleep(100); // let every worker reach the blocking wait
+		long before = totalCpuNanos(threads, workers);
+		Thread.sleep(500);
+		long burned = totalCpuNanos(threads, workers) - before;
+
+		frontier.complete("slow-page");
+		for (Thread worker : workers) {
+			worker.join(1000);
+			assertFalse(worker.isAlive());
+		}
+
+		// A spinning worker would burn ~500ms of CPU each; blocked ones should use next to nothing
+		assertTrue(burned < TimeUnit.MILLISECONDS.toNanos(50), "Idle workers burned " + burned + " ns of CPU");
+	}
+
+	@Test
+	void noUrlIsLostUnderHeavyContention() throws Exception {
+		int totalUrls = 200_000;
+		int workerCount = 16;
+		AtomicIntegerArray processed = new AtomicIntegerArray(totalUrls);
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.add("0");
+
+		ExecutorService pool = Executors.newFixedThreadPool(workerCount);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int w = 0; w < workerCount; w++) {
+				results.add(pool.submit(() -> {
+					String url;
+					while ((url = frontier.take()) != null) {
+						int id = Integer.parseInt(url);
+						processed.incrementAndGet(id);
+						// Every page links to its two children of a binary tree, so each id is produced exactly once
+						List<String> children = new ArrayList<>(2);
+						for (int child = 2 * id + 1; child <= 2 * id + 2 && child < totalUrls; child++) {
+							children.add(Integer.toString(child));
+						}
+						frontier.addAll(children);
+						frontier.complete(url);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		for (int i = 0; i < totalUrls; i++) {
+			assertEquals(1, processed.get(i), "URL " + i + " processed wrong number of times");
+		}
+		assertEquals(0, frontier.size());
+	}
+
+	@Test
+	void add_dropsUrlsEnqueuedBefore() throws Exception {
+		CrawlFrontier frontier = new CrawlFrontier();
+
+		assertTrue(frontier.add("https://example.com/"));
+		assertFalse(frontier.add("https://example.com/"));
+		frontier.addAll(List.of("https://example.com/a", "https://example.com/a", "https://example.com/"));
+
+		assertEquals(2, frontier.size());
+		assertEquals(2, frontier.seenCount());
+
+		// Already taken URLs stay "seen" and are not enqueued again
+		frontier.take();
+		assertFalse(frontier.add("https://example.com/"));
+	}
+
+	@Test
+	void add_dropsVariantsButQueuesTheUrlAsGiven() throws Exception {
+		CrawlFrontier frontier = new CrawlFrontier();
+
+		assertTrue(frontier.add("https://example.com/docs/?b=2&a=1"));
+		assertFalse(frontier.add("https://EXAMPLE.com/docs?a=1&b=2"));
+
+		assertEquals("https://example.com/docs/?b=2&a=1", frontier.take());
+	}
+
+	@Test
+	void close_wakesBlockedWorkers() throws Exception {
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.add("stuck");
+		frontier.take();
+
+		ExecutorService idle = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> next = idle.submit(frontier::take);
+			frontier.close();
+			assertNull(next.get(1, TimeUnit.SECONDS));
+		} finally {
+			idle.shutdownNow();
+		}
+	}
+
+	private static void assumeCpuTimeSupported(ThreadMXBean threads) {
+		assumeTrue(threads.isThreadCpuTimeSupported());
+		threads.setThreadCpuTimeEnabled(true);
+	}
+
+	private static long totalCpuNanos(ThreadMXBean threads, List<Thread> workers) {
+		long total = 0;
+		for (Thread worker : workers) {
+			total += Math.max(0, threads.getThreadCpuTime(worker.getId()));
+		}
+		return total;
+	}
+
+	@Test
+	void take_handsOutLowerRanksFirstThenShallowerUrls() throws Exception {
+		FrontierPriority priority = (url, depth, anchorText, parentMatches) -> anchorText.equals("hint") ? -1 : 0;
+		CrawlFrontier frontier = new CrawlFrontier(new StringUrlSet(), MemoryFrontierQueue::new, priority);
+		frontier.add("root");
+		assertEquals("root", frontier.take());
+		Map<String, String> links = new LinkedHashMap<>();
+		links.put("plain", "");
+		links.put("hinted", "hint");
+		frontier.addLinks("root", links, 0);
+		frontier.addAll(List.of("sitemap"), 1);
+
+		assertEquals("hinted", frontier.take());
+		assertEquals("plain", frontier.take());
+		assertEquals("sitemap", frontier.take());
+	}
+
+	@Test
+	void snapshot_listsRankedUrlsInOrderWithTheirDepths() throws Exception {
+		FrontierPriority priority = (url, depth, anchorText, parentMatches) -> -parentMatches;
+		CrawlFrontier frontier = new CrawlFrontier(new StringUrlSet(), MemoryFrontierQueue::new, priority);
+		frontier.add("root");
+		frontier.take();
+		frontier.addLinks("root", Map.of("child", ""), 2);
+		frontier.complete("root");
+		frontier.addAll(List.of("sitemap"), 1);
+		assertEquals("child", frontier.take());
+		frontier.addLinks("child", Map.of("grandchild", ""), 3);
+
+		List<String> inProgress = new ArrayList<>();
+		List<String> queued = new ArrayList<>();
+		frontier.snapshot((url, depth) -> inProgress.add(url + "@" + depth), (url, depth) -> queued.add(url + "@" + depth), seen -> { });
+
+		assertEquals(List.of("child@1"), inProgress);
+		assertEquals(List.of("grandchild@2", "sitemap@1"), queued);
+	}
+}
@@ -0,0 +1,163 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlBudget;
+import com.webcrawler.backend.model.crawl.CrawlStatus;
+import com.webcrawler.backend.utils.PageFetcher;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CrawlRunnerBudgetTest {
+
+	private HttpServer server;
+	private ExecutorService serverThreads;
+	private final int PORT = 8093;
+	private final String BASE_URL = "http://localhost:" + PORT;
+	private final CountDownLatch cancelledPageRequested = new CountDownLatch(1);
+	private final CountDownLatch releaseSlow = new CountDownLatch(1);
+
+	@BeforeAll
+	void setupServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(PORT), 0);
+
+		// /tree/<name>/<n> is a binary tree of 63 pages, all matching: page n links to pages 2n+1 and 2n+2
+		server.createContext("/tree/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			String prefix = path.substring(0, path.lastIndexOf('/') + 1);
+			int page = Integer.parseInt(path.substring(path.lastIndexOf('/') + 1));
+			StringBuilder body = new StringBuilder("page with the keyword");
+			for (int child = 2 * page + 1; child <= 2 * page + 2 && child < 63; child++) {
+				body.append("<a href=\"").append(prefix).append(child).append("\">next</a>");
+			}
+			respond(exchange, 200, body.toString());
+		});
+		// /slow/<name> links to a page that does not answer until the server is stopped
+		server.createContext("/slow/", exchange -> {
+			String path = exchange.getRequestURI().getPath();
+			if (!path.endsWith("/hang")) {
+				respond(exchange, 200, "<a href=\"" + path + "/hang\">slow</a>");
+				return;
+			}
+			if (path.startsWith("/slow/cancel/")) {
+				cancelledPageRequested.countDown();
+			}
+			try {
+				releaseSlow.await(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange, 200, "too late");
+		});
+		server.createContext("/", exchange -> respond(exchange, 404, "not found"));
+
+		serverThreads = Executors.newCachedThreadPool();
+		server.setExecutor(serverThreads);
+		server.start();
+	}
+
+	@AfterAll
+	void shutdownServer() {
+		releaseSlow.countDown();
+		server.stop(0);
+		serverThreads.shutdownNow();
+	}
+
+	private void respond(HttpExchange exchange, int status, String body) throws IOException {
+		exchange.sendResponseHeaders(status, body.getBytes().length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(body.getBytes());
+		}
+	}
+
+	@Test
+	void shouldStopAtPageBudget() {
+		Crawl job = new Crawl("budget-pages", "keyword");
+		job.setBudget(new CrawlBudget(5, CrawlBudget.NO_LIMIT, CrawlBudget.NO_LIMIT, null));
+
+		new CrawlRunner(BASE_URL + "/tree/pages/0", job).run();
+
+		assertEquals(CrawlStatus.DONE, job.getStatus());
+		assertEquals(5, job.getPagesFetched());
+		assertEquals(5, job.getMatchedUrls().size());
+	}
+
+	@Test
+	void shouldStopAtMatchBudget() {
+		Crawl job = new Crawl("budget-matches", "keyword");
+		job.setBudget(new CrawlBudget(CrawlBudget.NO_LIMIT, 3, CrawlBudget.NO_LIMIT, null));
+
+		new CrawlRunner(BASE_URL + "/tree/matches/0", job, CrawlExecutionMode.ASYNC, new PageFetcher()).run();
+
+		assertEquals(CrawlStatus.DONE, job.getStatus());
+		assertEquals(3, job.getMatchedUrls().size());
+		assertTrue(job.getPagesFetched() < 63);
+	}
+
+	@Test
+	void shouldNotFollowLinksPastMaxDepth() {
+		Crawl job = new Crawl("budget-depth", "keyword");
+		job.setBudget(new CrawlBudget(CrawlBudget.NO_LIMIT, CrawlBudget.NO_LIMIT, 2, null));
+
+		new CrawlRunner(BASE_URL + "/tree/depth/0", job).run();
+
+		assertEquals(CrawlStatus.DONE, job.getStatus());
+		assertEquals(7, job.getMatchedUrls().size()); // pages 0 to 6: the base page and two levels below it
+		assertTrue(job.getMatchedUrls().stream().allMatch(url -> Integer.parseInt(url.substring(url.lastIndexOf('/') + 1)) < 7));
+	}
+
+	@Test
+	void shouldAbortInFlightFetchesAtDeadline() {
+		Crawl job = new Crawl("budget-deadline", "keyword");
+		job.setBudget(new CrawlBudget(CrawlBudget.NO_LIMIT, CrawlBudget.NO_LIMIT, CrawlBudget.NO_LIMIT, Instant.now().plusMillis(500)));
+
+		long start = System.nanoTime();
+		new CrawlRunner(BASE_URL + "/slow/deadline", job).run();
+
+		assertEquals(CrawlStatus.DONE, job.getStatus());
+		assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 3, "fetch was not aborted at the deadline");
+	}
+
+	@Test
+	void shouldStopPromptlyWhenCancelled() throws Exception {
+		Crawl job = new Crawl("budget-cancel", "keyword");
+		CrawlRunner runner = new CrawlRunner(BASE_URL + "/slow/cancel", job, CrawlExecutionMode.VIRTUAL_THREADS, new PageFetcher());
+		Thread thread = new Thread(runner);
+		thread.start();
+		assertTrue(cancelledPageRequested.await(5, TimeUnit.SECONDS));
+
+		assertTrue(job.cancel());
+		assertTrue(RunningCrawls.shared().stop(job.getId()));
+		thread.join(TimeUnit.SECONDS.toMillis(2));
+
+		assertFalse(thread.isAlive(), "runner still waiting for the cancelled fetch");
+		assertEquals(CrawlStatus.CANCELLED, job.getStatus());
+		assertFalse(job.cancel());
+	}
+
+	@Test
+	void shouldNotStartWhenCancelledBeforeRunning() {
+		Crawl job = new Crawl("budget-cancel-queued", "keyword");
+		job.cancel();
+
+		new CrawlRunner(BASE_URL + "/tree/queued/0", job).run();
+
+		assertEquals(CrawlStatus.CANCELLED, job.getStatus());
+		assertEquals(0, job.getPagesFetched());
+	}
+}
@@ -0,0 +1,79 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlStatus;
+import com.webcrawler.backend.utils.PageFetcher;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CrawlRunnerSitemapTest {
+
+	private HttpServer server;
+	private final int PORT = 8091;
+	private final String BASE_URL = "http://localhost:" + PORT;
+
+	@BeforeAll
+	void setupServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(PORT), 0);
+
+		// Home page only links to a disallowed page; everything else is reachable through the sitemaps
+		server.createContext("/", exchange -> respond(exchange, "<a href=\"/private/linked\">linked</a>".getBytes()));
+		server.createContext("/robots.txt", exchange -> respond(exchange,
+				("User-agent: *\nDisallow: /private\n\nSitemap: " + BASE_URL + "/sitemap_index.xml\n").getBytes()));
+		server.createContext("/sitemap_index.xml", exchange -> respond(exchange,
+				("<sitemapindex><sitemap><loc>" + BASE_URL + "/pages.xml.gz</loc></sitemap></sitemapindex>").getBytes()));
+		server.createContext("/pages.xml.gz", exchange -> respond(exchange, gzip(
+				("<urlset><url><loc>" + BASE_URL + "/deep/page</loc></url>"
+						+ "<url><loc>" + BASE_URL + "/private/listed</loc></url>"
+						+ "<url><loc>http://external.com/page</loc></url></urlset>").getBytes())));
+		server.createContext("/deep/page", exchange -> respond(exchange, "deep page with the keyword".getBytes()));
+		server.createContext("/private", exchange -> respond(exchange, "private page with the keyword".getBytes()));
+
+		server.start();
+	}
+
+	@AfterAll
+	void shutdownServer() {
+		server.stop(0);
+	}
+
+	private void respond(HttpExchange exchange, byte[] body) throws IOException {
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(body);
+		}
+	}
+
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(data);
+		}
+		return out.toByteArray();
+	}
+
+	@Test
+	void shouldSeedFromSitemapsAndHonourRobots() {
+		Crawl job = new Crawl("sitemap-job", "keyword");
+
+		new CrawlRunner(BASE_URL + "/", job, CrawlExecutionMode.FIXED_POOL, new PageFetcher()).run();
+
+		assertEquals(CrawlStatus.DONE, job.getStatus());
+		assertTrue(job.getMatchedUrls().stream().anyMatch(url -> url.endsWith("/deep/page")));
+		assertTrue(job.getMatchedUrls().stream().noneMatch(url -> url.contains("/private")));
+		assertTrue(job.getVisitedUrls().stream().noneMatch(url -> url.contains("external.com")));
+	}
+}
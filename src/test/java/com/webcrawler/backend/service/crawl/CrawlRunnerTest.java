@@ -2,11 +2,19 @@ package com.webcrawler.backend.service.crawl;
 
 import com.webcrawler.backend.model.crawl.Crawl;
 import com.webcrawler.backend.model.crawl.CrawlStatus;
+import com.webcrawler.backend.model.crawl.CrawlBudget;
+import com.webcrawler.backend.utils.AsyncPageFetcher;
+import com.webcrawler.backend.utils.PageFetcher;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,6 +45,25 @@ public class CrawlRunnerTest {
 			respond(exchange, body);
 		});
 
+		// Six links that lead nowhere, then one whose anchor names the keyword
+		server.createContext("/ranked", exchange -> {
+			StringBuilder body = new StringBuilder();
+			for (char page = 'a'; page <= 'f'; page++) {
+				body.append("<a href=\"/ranked/").append(page).append("\">more</a>");
+			}
+			respond(exchange, body.append("<a href=\"/ranked/g\">Keyword guide</a>").toString());
+		});
+		server.createContext("/ranked/", exchange -> {
+			boolean hinted = exchange.getRequestURI().getPath().endsWith("/g");
+			respond(exchange, hinted ? "all about the keyword" : "nothing here");
+		});
+
+		// A directory page, whose relative links resolve below it
+		server.createContext("/docs/", exchange -> {
+			boolean intro = exchange.getRequestURI().getPath().equals("/docs/intro.html");
+			respond(exchange, intro ? "the keyword, introduced" : "<a href=\"intro.html\">Introduction</a>");
+		});
+
 		server.setExecutor(null);
 		server.start();
 	}
@@ -65,6 +92,15 @@ public class CrawlRunnerTest {
 		assertTrue(job.getVisitedUrls().stream().anyMatch(url -> url.endsWith("/match")));
 	}
 
+	@Test
+	void shouldResolveRelativeLinksAgainstDirectoryPage() {
+		Crawl job = new Crawl("directory-job", "keyword");
+
+		new CrawlRunner(BASE_URL + "/docs/", job).run();
+
+		assertEquals(Set.of(BASE_URL + "/docs/intro.html"), job.getMatchedUrls());
+	}
+
 	@Test
 	void shouldSkipPagesWithoutKeyword() {
 		Crawl job = new Crawl("job-no-match", "notfound");
@@ -86,4 +122,75 @@ public class CrawlRunnerTest {
 		assertTrue(visited.stream().allMatch(url -> url.contains("localhost")));
 		assertTrue(visited.stream().noneMatch(url -> url.contains("external.com")));
 	}
+
+	@Test
+	void shouldIndexPagesOfCompleteCrawl(@TempDir Path directory) {
+		PageIndexStore indexes = new PageIndexStore(directory, Duration.ofMinutes(10));
+		Crawl job = new Crawl("indexed-job", "keyword");
+
+		new CrawlRunner(BASE_URL + "/", job, indexes).run();
+
+		assertEquals(job.getMatchedUrls(), new HashSet<>(indexes.find(BASE_URL + "/", "keyword")));
+		assertEquals(List.of(), indexes.find(BASE_URL + "/", "notfound"));
+	}
+
+	@Test
+	void shouldNotIndexPagesOfBudgetedCrawl(@TempDir Path directory) {
+		PageIndexStore indexes = new PageIndexStore(directory, Duration.ofMinutes(10));
+		Crawl job = new Crawl("budgeted-index-job", "keyword");
+		job.setBudget(new CrawlBudget(CrawlBudget.NO_LIMIT, 1, CrawlBudget.NO_LIMIT, null));
+
+		new CrawlRunner(BASE_URL + "/", job, indexes).run();
+
+		assertEquals(1, job.getMatchedUrls().size());
+		assertNull(indexes.find(BASE_URL + "/", "keyword"));
+	}
+
+	@Test
+	void shouldDetectKeywordInVirtualThreadMode() {
+		Crawl job = new Crawl("virtual-job", "keyword");
+
+		new CrawlRunner(BASE_URL + "/", job, CrawlExecutionMode.VIRTUAL_THREADS, new PageFetcher()).run();
+
+		assertEquals(CrawlStatus.DONE, job.getStatus());
+		assertTrue(job.getMatchedUrls().stream().anyMatch(url -> url.endsWith("/match")));
+		assertEquals(2, job.getVisitedUrls().size());
+	}
+
+	@Test
+	void shouldDetectKeywordInAsyncMode() {
+		Crawl job = new Crawl("async-job", "keyword");
+
+		new CrawlRunner(BASE_URL + "/", job, CrawlExecutionMode.ASYNC, new PageFetcher()).run();
+
+		assertEquals(CrawlStatus.DONE, job.getStatus());
+		assertTrue(job.getMatchedUrls().stream().anyMatch(url -> url.endsWith("/match")));
+		assertEquals(2, job.getVisitedUrls().size());
+	}
+
+	@Test
+	void shouldDetectKeywordInScheduledMode() {
+		Crawl job = new Crawl("scheduled-job", "keyword");
+
+		new CrawlRunner(BASE_URL + "/", job, CrawlExecutionMode.SCHEDULED, new PageFetcher()).run();
+
+		assertEquals(CrawlStatus.DONE, job.getStatus());
+		assertTrue(job.getMatchedUrls().stream().anyMatch(url -> url.endsWith("/match")));
+		assertEquals(2, job.getVisitedUrls().size());
+	}
+
+	@Test
+	void shouldFetchLinksHintingAtKeywordFirstWhenBestFirst() {
+		// Two pages only: the base page and whichever link the frontier hands out first
+		Crawl bestFirst = new Crawl("job-best-first", "keyword");
+		bestFirst.setBudget(new CrawlBudget(2, CrawlBudget.NO_LIMIT, CrawlBudget.NO_LIMIT, null));
+		Crawl breadthFirst = new Crawl("job-breadth-first", "keyword");
+		breadthFirst.setBudget(new CrawlBudget(2, CrawlBudget.NO_LIMIT, CrawlBudget.NO_LIMIT, null));
+
+		new CrawlRunner(BASE_URL + "/ranked", bestFirst, CrawlExecutionMode.ASYNC, new PageFetcher(), AsyncPageFetcher.shared(), FrontierOrder.BEST_FIRST).run();
+		new CrawlRunner(BASE_URL + "/ranked", breadthFirst, CrawlExecutionMode.ASYNC, new PageFetcher(), AsyncPageFetcher.shared(), FrontierOrder.BREADTH_FIRST).run();
+
+		assertTrue(bestFirst.getMatchedUrls().contains(BASE_URL + "/ranked/g"));
+		assertFalse(breadthFirst.getMatchedUrls().contains(BASE_URL + "/ranked/g"));
+	}
 }
@@ -1,11 +1,17 @@
 package com.webcrawler.backend.service.crawl;
 
+import com.webcrawler.backend.model.crawl.Crawl;
 import com.webcrawler.backend.model.crawl.request.CrawlRequest;
+import com.webcrawler.backend.model.crawl.response.CrawlPageResponse;
 import com.webcrawler.backend.model.crawl.response.CrawlResponse;
 import com.webcrawler.backend.model.crawl.response.SimplifiedCrawlResponse;
 import com.webcrawler.backend.utils.exceptions.BadRequestException;
 import com.webcrawler.backend.utils.exceptions.ResourceNotFoundException;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -13,6 +19,9 @@ class CrawlServiceTest {
 
 	private final CrawlService service = new CrawlService();
 
+	@TempDir
+	Path directory;
+
 	@Test
 	void startCrawl_shouldCreateJobAndReturnId() {
 		CrawlRequest request = new CrawlRequest("validKeyword");
@@ -55,6 +64,54 @@ class CrawlServiceTest {
 		assertThrows(BadRequestException.class, () -> service.startCrawl(request));
 	}
 
+	@Test
+	void startCrawl_shouldRejectInvalidBudget() {
+		assertThrows(BadRequestException.class, () -> service.startCrawl(new CrawlRequest("keyword", 0, null, null, null)));
+		assertThrows(BadRequestException.class, () -> service.startCrawl(new CrawlRequest("keyword", null, 0, null, null)));
+		assertThrows(BadRequestException.class, () -> service.startCrawl(new CrawlRequest("keyword", null, null, -1, null)));
+		assertThrows(BadRequestException.class, () -> service.startCrawl(new CrawlRequest("keyword", null, null, null, 0)));
+		assertThrows(BadRequestException.class, () -> service.startCrawl(new CrawlRequest("keyword", null, null, null, 86_401)));
+		assertThrows(BadRequestException.class, () -> service.startCrawl(new CrawlRequest("keyword", null, null, null, null, 0)));
+		assertThrows(BadRequestException.class, () -> service.startCrawl(new CrawlRequest("keyword", null, null, null, null, 101)));
+	}
+
+	@Test
+	void startCrawl_shouldAttachWeightToJob() {
+		Crawl weighted = service.getCrawl(service.startCrawl(new CrawlRequest("keyword", null, null, null, null, 3)).getId());
+		Crawl unweighted = service.getCrawl(service.startCrawl(new CrawlRequest("keyword")).getId());
+
+		assertEquals(3, weighted.getWeight());
+		assertEquals(Crawl.DEFAULT_WEIGHT, unweighted.getWeight());
+	}
+
+	@Test
+	void startCrawl_shouldAttachBudgetToJob() {
+		SimplifiedCrawlResponse created = service.startCrawl(new CrawlRequest("keyword", 10, 5, 0, 60));
+
+		Crawl job = service.getCrawl(created.getId());
+
+		assertEquals(10, job.getBudget().getMaxPages());
+		assertEquals(5, job.getBudget().getMaxMatches());
+		assertEquals(0, job.getBudget().getMaxDepth());
+		assertEquals(job.getCreatedAt().plusSeconds(60), job.getBudget().getDeadline());
+	}
+
+	@Test
+	void cancelCrawl_shouldCancelActiveJobOnce() {
+		TieredCrawlJobStore store = new TieredCrawlJobStore(10, directory);
+		CrawlService cancelling = new CrawlService(store, new CrawlCheckpoints(null, Duration.ofSeconds(30)));
+		store.save(new Crawl("active-job", "keyword"));
+
+		assertEquals("cancelled", cancelling.cancelCrawl("active-job").getStatus());
+		assertEquals("cancelled", cancelling.getCrawlResults("active-job").getStatus());
+		assertEquals("cancelled", cancelling.cancelCrawl("active-job").getStatus());
+	}
+
+	@Test
+	void cancelCrawl_shouldRejectUnknownId() {
+		assertThrows(ResourceNotFoundException.class, () -> service.cancelCrawl("non-existent-id"));
+	}
+
 	@Test
 	void getCrawlResults_shouldReturnCrawlJob() {
 		CrawlRequest request = new CrawlRequest("keyword");
@@ -77,4 +134,22 @@ class CrawlServiceTest {
 	void getCrawlResults_shouldRejectUnknownId() {
 		assertThrows(ResourceNotFoundException.class, () -> service.getCrawlResults("non-existent-id"));
 	}
+
+	@Test
+	void getCrawlResultsPage_shouldStartAtCursorZero() {
+		SimplifiedCrawlResponse created = service.startCrawl(new CrawlRequest("keyword"));
+
+		CrawlPageResponse page = service.getCrawlResultsPage(created.getId(), 0, 10);
+
+		assertEquals(created.getId(), page.getId());
+		assertEquals(page.getUrls().size(), page.getNext());
+	}
+
+	@Test
+	void getCrawlResultsPage_shouldRejectInvalidLimit() {
+		SimplifiedCrawlResponse created = service.startCrawl(new CrawlRequest("keyword"));
+
+		assertThrows(BadRequestException.class, () -> service.getCrawlResultsPage(created.getId(), 0, 0));
+		assertThrows(BadRequestException.class, () -> service.getCrawlResultsPage(created.getId(), -1, 10));
+	}
 }
@@ -0,0 +1,103 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.utils.StringUrlSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FetchSchedulerTest {
+
+	@Test
+	void smallJob_isNotStarvedByLargeOne() throws Exception {
+		FetchScheduler scheduler = new FetchScheduler(1);
+		List<String> order = new CopyOnWriteArrayList<>();
+		CountDownLatch blocker = new CountDownLatch(1);
+
+		CrawlFrontier large = frontier("large", 1000);
+		CrawlFrontier small = frontier("small", 10);
+		// Hold the only slot on the first large URL until both jobs are registered
+		FetchScheduler.Registration largeJob = scheduler.register("large", 1.0, large, recording(order, blocker));
+		FetchScheduler.Registration smallJob = scheduler.register("small", 1.0, small, recording(order, null));
+		blocker.countDown();
+
+		assertTrue(small.awaitQuiescence(5, TimeUnit.SECONDS));
+		long smallDoneAt = order.lastIndexOf("small/9");
+		assertTrue(smallDoneAt < 25, "small job finished at dispatch " + smallDoneAt);
+
+		largeJob.close();
+		smallJob.close();
+		large.close();
+	}
+
+	@Test
+	void weights_splitSlotsProportionally() throws Exception {
+		FetchScheduler scheduler = new FetchScheduler(1);
+		List<String> order = new CopyOnWriteArrayList<>();
+		CountDownLatch blocker = new CountDownLatch(1);
+
+		CrawlFrontier heavy = frontier("heavy", 500);
+		CrawlFrontier light = frontier("light", 500);
+		FetchScheduler.Registration heavyJob = scheduler.register("heavy", 2.0, heavy, recording(order, blocker));
+		FetchScheduler.Registration lightJob = scheduler.register("light", 1.0, light, recording(order, null));
+		blocker.countDown();
+
+		while (order.size() < 301) {
+			Thread.sleep(5);
+		}
+		// Skip the dispatch made before the light job registered
+		long heavyCount = order.subList(1, 301).stream().filter(url -> url.startsWith("heavy")).count();
+		assertTrue(heavyCount >= 190 && heavyCount <= 210, "heavy job got " + heavyCount + " of 300 dispatches");
+
+		heavyJob.close();
+		lightJob.close();
+		heavy.close();
+		light.close();
+	}
+
+	@Test
+	void processedUrls_areCompletedSoTheFrontierGoesQuiescent() throws Exception {
+		FetchScheduler scheduler = new FetchScheduler(4);
+		CrawlFrontier frontier = frontier("job", 1);
+		List<String> order = new CopyOnWriteArrayList<>();
+
+		// Each page links to the next one until page 50
+		FetchScheduler.Registration job = scheduler.register("job", 1.0, frontier, url -> {
+			order.add(url);
+			int page = Integer.parseInt(url.substring(url.indexOf('/') + 1));
+			if (page < 50) {
+				frontier.add("job/" + (page + 1));
+			}
+		});
+
+		assertTrue(frontier.awaitQuiescence(5, TimeUnit.SECONDS));
+		assertEquals(51, order.size());
+		job.close();
+	}
+
+	private static CrawlFrontier frontier(String name, int urls) {
+		CrawlFrontier frontier = new CrawlFrontier(new StringUrlSet(), MemoryFrontierQueue::new);
+		for (int i = 0; i < urls; i++) {
+			frontier.add(name + "/" + i);
+		}
+		return frontier;
+	}
+
+	private static Consumer<String> recording(List<String> order, CountDownLatch blocker) {
+		return url -> {
+			order.add(url);
+			if (blocker != null) {
+				try {
+					blocker.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+	}
+}
@@ -0,0 +1,137 @@
+package com.webcrawler.backend.service.crawl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageIndexStoreTest {
+
+	private static final String BASE_URL = "http://example.com/";
+
+	@TempDir
+	Path directory;
+
+	private PageIndexWriter sampleIndex() {
+		PageIndexWriter writer = new PageIndexWriter();
+		writer.addPage("http://example.com/", "<a href=\"/crawler\">web crawlers</a>");
+		writer.addPage("http://example.com/crawler", "<p>a crawler fetches pages</p>");
+		writer.addPage("http://example.com/about", "<p>about us, 2024</p>");
+		return writer;
+	}
+
+	@Test
+	void find_shouldAnswerFromPublishedIndex() {
+		PageIndexStore store = new PageIndexStore(directory, Duration.ofMinutes(10));
+		store.publish(BASE_URL, sampleIndex());
+
+		assertEquals(List.of("http://example.com/", "http://example.com/crawler"), store.find(BASE_URL, "crawler"));
+		assertEquals(List.of("http://example.com/about"), store.find(BASE_URL, "2024"));
+		assertEquals(List.of(), store.find(BASE_URL, "sitemap"));
+	}
+
+	@Test
+	void find_shouldMatchKeywordsInsideTerms() {
+		PageIndexStore store = new PageIndexStore(directory, Duration.ofMinutes(10));
+		store.publish(BASE_URL, sampleIndex());
+
+		// Substrings match as they do in a live crawl, markup included
+		assertEquals(List.of("http://example.com/", "http://example.com/crawler"), store.find(BASE_URL, "rawl"));
+		assertEquals(List.of("http://example.com/"), store.find(BASE_URL, "href"));
+	}
+
+	@Test
+	void find_shouldMatchWhatPagesHold_acrossARandomVocabulary() {
+		Random random = new Random(42);
+		PageIndexWriter writer = new PageIndexWriter();
+		List<String> contents = new ArrayList<>();
+		for (int page = 0; page < 300; page++) {
+			StringBuilder content = new StringBuilder("<p>");
+			for (int word = 0; word < 30; word++) {
+				content.append(randomWord(random, 2 + random.nextInt(10))).append(' ');
+			}
+			contents.add(content.append("</p>").toString());
+			writer.addPage(BASE_URL + page, contents.get(page));
+		}
+		PageIndexStore store = new PageIndexStore(directory, Duration.ofMinutes(10));
+		store.publish(BASE_URL, writer);
+
+		for (int query = 0; query < 200; query++) {
+			String keyword = randomWord(random, 1 + random.nextInt(6));
+			List<String> expected = new ArrayList<>();
+			for (int page = 0; page < contents.size(); page++) {
+				if (contents.get(page).contains(keyword)) {
+					expected.add(BASE_URL + page);
+				}
+			}
+			assertEquals(expected, store.find(BASE_URL, keyword), keyword);
+		}
+	}
+
+	private static String randomWord(Random random, int length) {
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			word.append("abcde12\u00e9".charAt(random.nextInt(8)));
+		}
+		return word.toString();
+	}
+
+	@Test
+	void find_shouldReadIndexBackFromDisk() {
+		new PageIndexStore(directory, Duration.ofMinutes(10)).publish(BASE_URL, sampleIndex());
+
+		PageIndexStore reopened = new PageIndexStore(directory, Duration.ofMinutes(10));
+
+		assertEquals(List.of("http://example.com/crawler"), reopened.find(BASE_URL, "fetches"));
+		assertNull(reopened.find("http://other.com/", "fetches"));
+	}
+
+	@Test
+	void find_shouldIgnoreStaleIndex() throws InterruptedException {
+		PageIndexStore store = new PageIndexStore(directory, Duration.ofMillis(1));
+		PageIndexWriter writer = sampleIndex();
+		Thread.sleep(5);
+		store.publish(BASE_URL, writer);
+
+		assertNull(store.find(BASE_URL, "crawler"));
+	}
+
+	@Test
+	void find_shouldNotAnswerKeywordsSpanningTerms() {
+		PageIndexStore store = new PageIndexStore(directory, Duration.ofMinutes(10));
+		store.publish(BASE_URL, sampleIndex());
+
+		assertNull(store.find(BASE_URL, "web crawler"));
+		assertNull(store.find(BASE_URL, "about us,"));
+	}
+
+	@Test
+	void find_shouldReturnNullWhenDisabled() {
+		PageIndexStore store = new PageIndexStore(null, Duration.ofMinutes(10));
+		store.publish(BASE_URL, sampleIndex());
+
+		assertFalse(store.isEnabled());
+		assertNull(store.find(BASE_URL, "crawler"));
+	}
+
+	@Test
+	void termsOf_shouldSplitLongRunsIntoOverlappingWindows() {
+		String run = "abcdefghijklmnopqrstuvwxyz0123456789".repeat(4);
+
+		Set<String> terms = PageIndexWriter.termsOf("x " + run + " y");
+
+		assertTrue(terms.containsAll(Set.of("x", "y")));
+		for (int from = 0; from + PageIndex.MAX_KEYWORD_LENGTH <= run.length(); from++) {
+			String keyword = run.substring(from, from + PageIndex.MAX_KEYWORD_LENGTH);
+			assertTrue(terms.stream().anyMatch(term -> term.contains(keyword)), keyword);
+		}
+		assertTrue(terms.stream().allMatch(term -> term.length() <= PageIndex.MAX_TERM_LENGTH));
+	}
+}
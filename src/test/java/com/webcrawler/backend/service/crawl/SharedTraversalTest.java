@@ -0,0 +1,88 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlStatus;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class SharedTraversalTest {
+
+	private HttpServer server;
+	private ExecutorService catchUpExecutor;
+	private final int PORT = 8086;
+	private final String BASE_URL = "http://localhost:" + PORT;
+
+	@BeforeAll
+	void setupServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(PORT), 0);
+		server.createContext("/", exchange -> respond(exchange, "<a href=\"/first\">1</a><a href=\"/second\">2</a>"));
+		server.createContext("/first", exchange -> respond(exchange, "this page talks about ALPHA"));
+		server.createContext("/second", exchange -> respond(exchange, "this page talks about bravo"));
+		server.start();
+		catchUpExecutor = Executors.newCachedThreadPool();
+	}
+
+	@AfterAll
+	void shutdownServer() {
+		server.stop(0);
+		catchUpExecutor.shutdownNow();
+	}
+
+	private void respond(HttpExchange exchange, String body) throws IOException {
+		exchange.sendResponseHeaders(200, body.getBytes().length);
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(body.getBytes());
+		}
+	}
+
+	@Test
+	void shouldFanOutMatchesToEveryAttachedJob() {
+		Crawl alpha = new Crawl("job-alpha", "alpha");
+		Crawl bravo = new Crawl("job-bravo", "bravo");
+		SharedTraversal traversal = new SharedTraversal(BASE_URL + "/", "shared-test", catchUpExecutor);
+
+		assertTrue(traversal.attach(alpha));
+		assertTrue(traversal.attach(bravo));
+		traversal.run();
+
+		assertEquals(Set.of(BASE_URL + "/first"), alpha.getMatchedUrls());
+		assertEquals(Set.of(BASE_URL + "/second"), bravo.getMatchedUrls());
+		assertEquals(CrawlStatus.DONE, alpha.getStatus());
+		assertEquals(CrawlStatus.DONE, bravo.getStatus());
+	}
+
+	@Test
+	void lateJobShouldCatchUpOnPagesAlreadySeen() {
+		Crawl early = new Crawl("job-early", "alpha");
+		Crawl late = new Crawl("job-late", "bravo");
+		SharedTraversal traversal = new SharedTraversal(BASE_URL + "/", "shared-late", catchUpExecutor);
+
+		traversal.attach(early);
+		traversal.handlePage(BASE_URL + "/second", "this page talks about bravo"); // seen before the late job joins
+		traversal.attach(late);
+		traversal.run();
+
+		assertTrue(late.getMatchedUrls().contains(BASE_URL + "/second"));
+		assertEquals(CrawlStatus.DONE, late.getStatus());
+	}
+
+	@Test
+	void finishedTraversalShouldRejectNewJobs() {
+		SharedTraversal traversal = new SharedTraversal(BASE_URL + "/", "shared-done", catchUpExecutor);
+		traversal.attach(new Crawl("job-first", "alpha"));
+		traversal.run();
+
+		assertFalse(traversal.attach(new Crawl("job-too-late", "alpha")));
+	}
+}
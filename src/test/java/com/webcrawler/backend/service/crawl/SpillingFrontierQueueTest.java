@@ -0,0 +1,155 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.utils.StringUrlSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillingFrontierQueueTest {
+
+	@TempDir
+	Path spillRoot;
+
+	@Test
+	void pollFirst_keepsFifoOrderAcrossSpilledSegments() {
+		// Room for about ten URLs in memory and small segments, so the queue spans several files
+		SpillingFrontierQueue queue = new SpillingFrontierQueue(1000, spillRoot, 512);
+		for (int i = 0; i < 1000; i++) {
+			queue.addLast("https://example.com/page/" + i);
+		}
+		assertEquals(1000, queue.size());
+		assertTrue(queue.getSpilledCount() > 900);
+
+		for (int i = 0; i < 1000; i++) {
+			assertEquals("https://example.com/page/" + i, queue.pollFirst());
+			if (i % 100 == 0) {
+				queue.addLast("https://example.com/late/" + i); // interleaved adds land behind the spill
+			}
+		}
+		for (int i = 0; i < 1000; i += 100) {
+			assertEquals("https://example.com/late/" + i, queue.pollFirst());
+		}
+		assertNull(queue.pollFirst());
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	void forEach_listsMemoryAndSpilledUrlsWithoutConsumingThem() {
+		SpillingFrontierQueue queue = new SpillingFrontierQueue(500, spillRoot, 256);
+		for (int i = 0; i < 100; i++) {
+			queue.addLast("https://example.com/page/" + i);
+		}
+		queue.pollFirst();
+		List<String> listed = new ArrayList<>();
+
+		queue.forEach(listed::add);
+
+		assertEquals(99, listed.size());
+		for (int i = 0; i < 99; i++) {
+			assertEquals("https://example.com/page/" + (i + 1), listed.get(i));
+		}
+		assertEquals(99, queue.size());
+		assertEquals("https://example.com/page/1", queue.pollFirst());
+	}
+
+	@Test
+	void pollFirst_deletesSegmentsOnceDrained() throws IOException {
+		SpillingFrontierQueue queue = new SpillingFrontierQueue(200, spillRoot, 256);
+		for (int i = 0; i < 200; i++) {
+			queue.addLast("https://example.com/page/" + i);
+		}
+		assertTrue(countSpillFiles() > 1);
+
+		while (queue.pollFirst() != null) {
+			// drain
+		}
+		assertEquals(0, countSpillFiles());
+	}
+
+	@Test
+	void addLast_storesNonAsciiAndOversizedUrls() {
+		SpillingFrontierQueue queue = new SpillingFrontierQueue(0, spillRoot, 64);
+		String longUrl = "https://example.com/" + "x".repeat(500);
+		queue.addLast("https://example.com/caf\u00e9");
+		queue.addLast(longUrl);
+
+		assertEquals("https://example.com/caf\u00e9", queue.pollFirst());
+		assertEquals(longUrl, queue.pollFirst());
+	}
+
+	@Test
+	void clear_removesSpillDirectory() throws IOException {
+		SpillingFrontierQueue queue = new SpillingFrontierQueue(100, spillRoot, 256);
+		for (int i = 0; i < 50; i++) {
+			queue.addLast("https://example.com/page/" + i);
+		}
+		queue.clear();
+
+		assertEquals(0, queue.size());
+		try (Stream<Path> entries = Files.list(spillRoot)) {
+			assertEquals(0, entries.count());
+		}
+	}
+
+	@Test
+	void sharedSpace_boundsQueuesTogether() throws IOException {
+		SpillingFrontierQueue.SharedSpace space = new SpillingFrontierQueue.SharedSpace(1000, spillRoot);
+		List<SpillingFrontierQueue> queues = new ArrayList<>();
+		for (int level = 0; level < 10; level++) {
+			SpillingFrontierQueue queue = new SpillingFrontierQueue(space, 512);
+			for (int i = 0; i < 100; i++) {
+				queue.addLast("https://example.com/" + level + "/" + i);
+			}
+			queues.add(queue);
+		}
+		assertTrue(space.getUsedBytes() <= 1000);
+		assertEquals(100, queues.get(9).getSpilledCount());
+		try (Stream<Path> entries = Files.list(spillRoot)) {
+			assertEquals(1, entries.count()); // one directory for every queue
+		}
+
+		for (int level = 9; level >= 0; level--) {
+			for (int i = 0; i < 100; i++) {
+				assertEquals("https://example.com/" + level + "/" + i, queues.get(level).pollFirst());
+				// A drained queue may hold one URL past the budget, to make progress while the others hold the rest
+				assertTrue(space.getUsedBytes() <= 1000 + 100);
+			}
+		}
+		assertEquals(0, space.getUsedBytes());
+		assertEquals(0, countSpillFiles());
+		try (Stream<Path> entries = Files.list(spillRoot)) {
+			assertEquals(0, entries.count());
+		}
+	}
+
+	@Test
+	void frontier_crawlsThroughSpillingQueue() throws Exception {
+		CrawlFrontier frontier = new CrawlFrontier(new StringUrlSet(), () -> new SpillingFrontierQueue(100, spillRoot, 256));
+		for (int i = 0; i < 100; i++) {
+			frontier.add("https://example.com/page/" + i);
+		}
+		frontier.add("https://example.com/page/0");
+
+		int taken = 0;
+		String url;
+		while ((url = frontier.take()) != null) {
+			taken++;
+			frontier.complete(url);
+		}
+		assertEquals(100, taken);
+	}
+
+	private long countSpillFiles() throws IOException {
+		try (Stream<Path> entries = Files.walk(spillRoot)) {
+			return entries.filter(Files::isRegularFile).count();
+		}
+	}
+}
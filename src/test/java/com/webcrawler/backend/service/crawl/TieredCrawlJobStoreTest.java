@@ -0,0 +1,117 @@
+package com.webcrawler.backend.service.crawl;
+
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.model.crawl.CrawlStatus;
+import com.webcrawler.backend.utils.StringUrlSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredCrawlJobStoreTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void finishedJob_releasesVisitedUrlsButKeepsCount() {
+		TieredCrawlJobStore store = new TieredCrawlJobStore(10, directory);
+		Crawl job = new Crawl("job1", "keyword", new StringUrlSet());
+		store.save(job);
+		job.markVisited("https://example.com/a");
+		job.markVisited("https://example.com/b");
+
+		job.setStatus(CrawlStatus.DONE);
+
+		assertTrue(job.getVisitedUrls().isEmpty());
+		assertEquals(2, job.getVisitedCount());
+		assertSame(job, store.find("job1"));
+	}
+
+	@Test
+	void evictedJob_isReadBackFromDisk() {
+		TieredCrawlJobStore store = new TieredCrawlJobStore(1, directory);
+		Crawl first = new Crawl("first", "keyword");
+		store.save(first);
+		first.addMatchedUrl("https://example.com/match");
+		first.markVisited("https://example.com/match");
+		first.setStatus(CrawlStatus.DONE);
+
+		Crawl second = new Crawl("second", "keyword");
+		store.save(second);
+		second.setStatus(CrawlStatus.DONE);
+
+		assertEquals(1, store.getInMemoryCount());
+		assertTrue(Files.exists(directory.resolve("first.json.gz")));
+
+		Crawl restored = store.find("first");
+		assertNotNull(restored);
+		assertEquals("keyword", restored.getKeyword());
+		assertEquals(CrawlStatus.DONE, restored.getStatus());
+		assertEquals(first.getCreatedAt().toEpochMilli(), restored.getCreatedAt().toEpochMilli());
+		assertEquals(1, restored.getVisitedCount());
+		assertTrue(restored.getMatchedUrls().contains("https://example.com/match"));
+	}
+
+	@Test
+	void evictedJob_keepsMatchSequenceNumbers() {
+		TieredCrawlJobStore store = new TieredCrawlJobStore(1, directory);
+		Crawl job = new Crawl("paged", "keyword");
+		store.save(job);
+		List<String> matches = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			matches.add("https://example.com/match/" + i);
+			job.addMatchedUrl(matches.get(i));
+		}
+		job.setStatus(CrawlStatus.DONE);
+
+		List<String> paged = new ArrayList<>(store.find("paged").getMatchLog().readAfter(0, 20));
+		Crawl other = new Crawl("other", "keyword");
+		store.save(other);
+		other.setStatus(CrawlStatus.DONE); // evicts the paged job to disk
+
+		Crawl restored = store.find("paged");
+		assertNotSame(job, restored);
+		paged.addAll(restored.getMatchLog().readAfter(20, 20));
+		paged.addAll(restored.getMatchLog().readAfter(40, 20));
+		assertEquals(matches, paged);
+		assertEquals(50, restored.getMatchLog().size());
+	}
+
+	@Test
+	void activeJobs_areNeverEvicted() {
+		TieredCrawlJobStore store = new TieredCrawlJobStore(1, directory);
+		for (int i = 0; i < 5; i++) {
+			store.save(new Crawl("active" + i, "keyword"));
+		}
+
+		assertEquals(5, store.getInMemoryCount());
+		assertNotNull(store.find("active0"));
+	}
+
+	@Test
+	void remove_forgetsJobInEveryTier() {
+		TieredCrawlJobStore store = new TieredCrawlJobStore(0, directory);
+		Crawl job = new Crawl("gone", "keyword");
+		store.save(job);
+		job.setStatus(CrawlStatus.DONE);
+		assertNotNull(store.find("gone"));
+
+		store.remove("gone");
+
+		assertNull(store.find("gone"));
+	}
+
+	@Test
+	void find_rejectsIdsThatCouldEscapeTheDirectory() {
+		TieredCrawlJobStore store = new TieredCrawlJobStore(1, directory);
+
+		assertNull(store.find("../etc/passwd"));
+		assertNull(store.find("unknown"));
+	}
+}
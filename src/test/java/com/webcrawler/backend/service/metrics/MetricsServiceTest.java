@@ -0,0 +1,79 @@
+package com.webcrawler.backend.service.metrics;
+
+import com.webcrawler.backend.model.crawl.Crawl;
+import com.webcrawler.backend.service.crawl.CrawlFrontier;
+import com.webcrawler.backend.service.crawl.CrawlService;
+import com.webcrawler.backend.service.crawl.RunningCrawls;
+import com.webcrawler.backend.utils.FetchMetrics;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MetricsServiceTest {
+
+	private final CrawlService crawlService = mock(CrawlService.class);
+	private final RunningCrawls runningCrawls = new RunningCrawls();
+	private final FetchMetrics fetchMetrics = new FetchMetrics();
+	private final MetricsService service = new MetricsService(crawlService, runningCrawls, fetchMetrics);
+
+	@Test
+	void render_exportsFetchHistogramAndCounters() {
+		fetchMetrics.recordSuccess(3_000_000L, 1024, 4096);
+		fetchMetrics.recordSuccess(5_000_000L, 2048, 8192);
+		fetchMetrics.recordFailure(1_000_000L);
+
+		String text = service.render();
+
+		assertTrue(text.contains("# TYPE crawler_fetch_duration_seconds histogram\n"));
+		assertTrue(text.contains("crawler_fetch_duration_seconds_bucket{le=\"+Inf\"} 3\n"));
+		assertTrue(text.contains("crawler_fetch_duration_seconds_count 3\n"));
+		assertTrue(text.contains("crawler_fetch_duration_seconds_sum 0.009\n"));
+		assertTrue(text.contains("crawler_fetches_total{outcome=\"success\"} 2\n"));
+		assertTrue(text.contains("crawler_fetches_total{outcome=\"failure\"} 1\n"));
+		assertTrue(text.contains("crawler_downloaded_bytes_total 3072\n"));
+		assertTrue(text.contains("crawler_decoded_bytes_total 12288\n"));
+	}
+
+	@Test
+	void render_histogramBucketsAreCumulative() {
+		fetchMetrics.recordSuccess(2_000_000L, 0, 0);
+		fetchMetrics.recordSuccess(200_000_000L, 0, 0);
+
+		long previous = 0;
+		for (String line : service.render().split("\n")) {
+			if (line.startsWith("crawler_fetch_duration_seconds_bucket")) {
+				long count = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+				assertTrue(count >= previous, line);
+				previous = count;
+			}
+		}
+		assertEquals(2, previous);
+	}
+
+	@Test
+	void render_exportsRunningJobsAndExecutorState() {
+		when(crawlService.getQueuedJobCount()).thenReturn(7);
+		when(crawlService.getRejectedJobCount()).thenReturn(2L);
+		Crawl job = new Crawl("metricsjob", "keyword");
+		job.markVisited("http://example.com/");
+		job.recordPageFetched();
+		CrawlFrontier frontier = new CrawlFrontier();
+		frontier.add("http://example.com/a");
+		frontier.add("http://example.com/b");
+		runningCrawls.add(job, frontier);
+
+		String text = service.render();
+
+		assertTrue(text.contains("crawler_jobs_running 1\n"));
+		assertTrue(text.contains("crawler_job_frontier_depth{job=\"metricsjob\"} 2\n"));
+		assertTrue(text.contains("crawler_job_visited_urls{job=\"metricsjob\"} 1\n"));
+		assertTrue(text.contains("crawler_job_pages_fetched_total{job=\"metricsjob\"} 1\n"));
+		assertTrue(text.contains("crawler_job_pages_per_second{job=\"metricsjob\"} "));
+		assertTrue(text.contains("crawler_executor_queue_depth 7\n"));
+		assertTrue(text.contains("crawler_executor_rejected_total 2\n"));
+
+		runningCrawls.remove(job);
+		assertFalse(service.render().contains("metricsjob"));
+	}
+}
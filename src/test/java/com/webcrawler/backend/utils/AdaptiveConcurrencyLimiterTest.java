@@ -0,0 +1,103 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.webcrawler.backend.utils.AdaptiveConcurrencyLimiter.Outcome.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+	@Test
+	void limit_growsToCeilingWhileLatencyStaysFlat() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 2, 10);
+
+		for (int round = 0; round < 200; round++) {
+			int permits = limiter.getLimit();
+			for (int i = 0; i < permits; i++) {
+				assertTrue(limiter.tryAcquire());
+			}
+			for (int i = 0; i < permits; i++) {
+				limiter.release(SUCCESS, FAST);
+			}
+		}
+
+		assertEquals(10, limiter.getLimit());
+	}
+
+	@Test
+	void limit_doesNotGrowWhenUnused() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 8, 32);
+
+		for (int i = 0; i < 500; i++) {
+			assertTrue(limiter.tryAcquire());
+			limiter.release(SUCCESS, FAST);
+		}
+
+		assertEquals(8, limiter.getLimit());
+	}
+
+	@Test
+	void overload_halvesLimitOncePerBurstAndRespectsFloor() throws InterruptedException {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 16, 32);
+		limiter.tryAcquire();
+		limiter.tryAcquire();
+
+		limiter.release(OVERLOAD, FAST);
+		limiter.release(OVERLOAD, FAST); // same burst, ignored
+		assertEquals(8, limiter.getLimit());
+
+		for (int i = 0; i < 5; i++) {
+			Thread.sleep(110);
+			limiter.tryAcquire();
+			limiter.release(OVERLOAD, FAST);
+		}
+		assertEquals(2, limiter.getLimit());
+	}
+
+	@Test
+	void latencySpike_shrinksLimit() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 10, 10);
+		limiter.tryAcquire();
+		limiter.release(SUCCESS, FAST);
+
+		limiter.tryAcquire();
+		limiter.release(SUCCESS, FAST * 10);
+
+		assertEquals(9, limiter.getLimit());
+	}
+
+	@Test
+	void acquire_waitsForFreePermit() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+
+		CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+			try {
+				limiter.acquire();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(50);
+		assertFalse(waiter.isDone());
+
+		limiter.release(IGNORED, 0);
+		waiter.get(1, TimeUnit.SECONDS);
+		assertEquals(1, limiter.getInFlight());
+	}
+
+	@Test
+	void outcomeOf_classifiesThrottlingStatuses() {
+		assertEquals(OVERLOAD, AdaptiveConcurrencyLimiter.outcomeOf(429));
+		assertEquals(OVERLOAD, AdaptiveConcurrencyLimiter.outcomeOf(503));
+		assertEquals(SUCCESS, AdaptiveConcurrencyLimiter.outcomeOf(404));
+		assertEquals(OVERLOAD, AdaptiveConcurrencyLimiter.outcomeOf(new java.net.SocketTimeoutException()));
+		assertEquals(IGNORED, AdaptiveConcurrencyLimiter.outcomeOf(new IllegalStateException()));
+	}
+}
@@ -0,0 +1,171 @@
+package com.webcrawler.backend.utils;
+
+import com.sun.net.httpserver.HttpServer;
+import com.webcrawler.backend.utils.exceptions.NonSuccessfulResponseException;
+import com.webcrawler.backend.utils.exceptions.SkippedContentException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncPageFetcherTest {
+
+	private static HttpServer server;
+	private static final int PORT = 8090;
+	private static final AtomicInteger concurrent = new AtomicInteger();
+	private static final AtomicInteger maxConcurrent = new AtomicInteger();
+
+	@BeforeAll
+	static void startServer() throws Exception {
+		server = HttpServer.create(new InetSocketAddress(PORT), 0);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.createContext("/success", exchange -> {
+			String response = "<html>Page with Keyword</html>";
+			exchange.sendResponseHeaders(200, response.length());
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response.getBytes());
+			}
+		});
+		server.createContext("/slow", exchange -> {
+			maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			concurrent.decrementAndGet();
+			byte[] response = "slow".getBytes();
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response);
+			}
+		});
+		server.createContext("/compressed", exchange -> {
+			byte[] response = ContentEncodingsTest.gzip("<html>Compressed caf\u00e9 KEYWORD page</html>".getBytes(StandardCharsets.ISO_8859_1));
+			exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+			exchange.getResponseHeaders().add("Content-Type", "text/html; charset=ISO-8859-1");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response);
+			}
+		});
+		server.createContext("/image", exchange -> {
+			exchange.getResponseHeaders().add("Content-Type", "image/png");
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(new byte[64 * 1024]);
+			} catch (IOException ignored) {
+				// the client drops the stream instead of reading the body
+			}
+		});
+		server.createContext("/large", exchange -> {
+			byte[] response = ContentEncodingsTest.gzip(("<html>KEYWORD at the start" + "x".repeat(64 * 1024) + "</html>").getBytes());
+			exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response);
+			} catch (IOException ignored) {
+				// the client stops reading at its limit
+			}
+		});
+		server.createContext("/moved", exchange -> {
+			exchange.getResponseHeaders().add("Location", "/success");
+			exchange.sendResponseHeaders(301, -1);
+		});
+		server.createContext("/error", exchange -> exchange.sendResponseHeaders(404, -1));
+		server.start();
+	}
+
+	@AfterAll
+	static void stopServer() {
+		server.stop(0);
+	}
+
+	private static AsyncPageFetcher uncachedFetcher(int connectionsPerHost) {
+		return new AsyncPageFetcher(new PageCache(0, Duration.ZERO), connectionsPerHost, 2);
+	}
+
+	@Test
+	void fetchAsync_successfulResponse_returnsLowercasedContent() throws Exception {
+		String result = uncachedFetcher(4).fetchAsync(new URL("http://localhost:" + PORT + "/success")).get(5, TimeUnit.SECONDS);
+
+		assertTrue(result.contains("keyword"));
+	}
+
+	@Test
+	void fetchAsync_redirectedResponse_followsTheRedirect() throws Exception {
+		String result = uncachedFetcher(4).fetchAsync(new URL("http://localhost:" + PORT + "/moved")).get(5, TimeUnit.SECONDS);
+
+		assertTrue(result.contains("keyword"));
+	}
+
+	@Test
+	void fetchAsync_compressedResponse_isDecodedWithDeclaredCharset() throws Exception {
+		String result = uncachedFetcher(4).fetchAsync(new URL("http://localhost:" + PORT + "/compressed")).get(5, TimeUnit.SECONDS);
+
+		assertEquals("<html>compressed caf\u00e9 keyword page</html>", result);
+	}
+
+	@Test
+	void fetchAsync_nonSuccessfulResponse_failsWithNonSuccessfulResponseException() throws Exception {
+		CompletableFuture<String> future = uncachedFetcher(4).fetchAsync(new URL("http://localhost:" + PORT + "/error"));
+
+		ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+		assertTrue(ex.getCause() instanceof NonSuccessfulResponseException);
+		assertTrue(ex.getCause().getMessage().contains("Non-200"));
+	}
+
+	@Test
+	void fetchAsync_limitsConcurrentRequestsPerHost() throws Exception {
+		AsyncPageFetcher fetcher = uncachedFetcher(2);
+		maxConcurrent.set(0);
+
+		List<CompletableFuture<String>> futures = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			futures.add(fetcher.fetchAsync(new URL("http://localhost:" + PORT + "/slow?n=" + i)));
+		}
+		for (CompletableFuture<String> future : futures) {
+			assertEquals("slow", future.get(10, TimeUnit.SECONDS));
+		}
+
+		assertTrue(maxConcurrent.get() <= 2, "Observed " + maxConcurrent.get() + " concurrent requests");
+	}
+
+	@Test
+	void fetchAsync_nonPageContentType_failsWithSkippedContentException() throws Exception {
+		CompletableFuture<String> future = uncachedFetcher(4).fetchAsync(new URL("http://localhost:" + PORT + "/image"));
+
+		ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+		assertTrue(ex.getCause() instanceof SkippedContentException);
+	}
+
+	@Test
+	void fetchAsync_oversizedResponse_isTruncatedOrSkipped() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/large");
+		AsyncPageFetcher truncating = new AsyncPageFetcher(new PageCache(0, Duration.ZERO), new ValidatorStore(null), new ContentPolicy(Set.of(), 1024, true, false), 4, 2);
+		AsyncPageFetcher skipping = new AsyncPageFetcher(new PageCache(0, Duration.ZERO), new ValidatorStore(null), new ContentPolicy(Set.of(), 1024, false, false), 4, 2);
+
+		String truncated = truncating.fetchAsync(url).get(5, TimeUnit.SECONDS);
+		ExecutionException ex = assertThrows(ExecutionException.class, () -> skipping.fetchAsync(url).get(5, TimeUnit.SECONDS));
+
+		assertEquals(1024, truncated.length());
+		assertTrue(truncated.startsWith("<html>keyword"));
+		assertTrue(ex.getCause() instanceof SkippedContentException);
+	}
+}
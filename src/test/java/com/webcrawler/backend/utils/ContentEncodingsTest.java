@@ -0,0 +1,59 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentEncodingsTest {
+
+	private static final byte[] PAGE = "<html><a href=\"/one\">One</a> Compressed KEYWORD page</html>".repeat(50).getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	void decode_gzip() throws IOException {
+		assertArrayEquals(PAGE, ContentEncodings.decode(gzip(PAGE), "gzip", Integer.MAX_VALUE - 8, false));
+	}
+
+	@Test
+	void decode_zlibDeflate() throws IOException {
+		assertArrayEquals(PAGE, ContentEncodings.decode(deflate(PAGE, false), "deflate", Integer.MAX_VALUE - 8, false));
+	}
+
+	@Test
+	void decode_rawDeflate() throws IOException {
+		assertArrayEquals(PAGE, ContentEncodings.decode(deflate(PAGE, true), "Deflate", Integer.MAX_VALUE - 8, false));
+	}
+
+	@Test
+	void decode_identityAndMissingEncoding_returnBodyAsIs() throws IOException {
+		assertSame(PAGE, ContentEncodings.decode(PAGE, null, 10, false));
+		assertSame(PAGE, ContentEncodings.decode(PAGE, "identity", 10, false));
+	}
+
+	@Test
+	void decode_unsupportedEncoding_throws() {
+		assertThrows(IOException.class, () -> ContentEncodings.decode(PAGE, "br", 10, false));
+	}
+
+	static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(data);
+		}
+		return out.toByteArray();
+	}
+
+	static byte[] deflate(byte[] data, boolean raw) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (DeflaterOutputStream deflater = new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+			deflater.write(data);
+		}
+		return out.toByteArray();
+	}
+}
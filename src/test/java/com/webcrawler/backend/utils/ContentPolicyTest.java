@@ -0,0 +1,53 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentPolicyTest {
+
+	private final ContentPolicy policy = new ContentPolicy(Set.of("png", "pdf"), 1024, false, true);
+
+	@Test
+	void extensionOf_ignoresQueryFragmentAndHost() {
+		assertEquals("png", ContentPolicy.extensionOf("http://example.com/img/Logo.PNG?size=2#top"));
+		assertEquals("html", ContentPolicy.extensionOf("http://example.com/index.html"));
+		assertNull(ContentPolicy.extensionOf("http://example.com"));
+		assertNull(ContentPolicy.extensionOf("http://example.com/docs/"));
+		assertNull(ContentPolicy.extensionOf("http://example.com/v1.2/page"));
+		assertNull(ContentPolicy.extensionOf("http://example.com/page?file=a.png"));
+	}
+
+	@Test
+	void isSkippedByExtension_matchesConfiguredExtensions() {
+		assertTrue(policy.isSkippedByExtension("http://example.com/report.pdf"));
+		assertFalse(policy.isSkippedByExtension("http://example.com/report.html"));
+		assertFalse(policy.isSkippedByExtension("http://example.com/report"));
+	}
+
+	@Test
+	void rejectionReason_acceptsPagesAndUnknownTypes() {
+		assertNull(policy.rejectionReason("text/html; charset=utf-8", 100));
+		assertNull(policy.rejectionReason("application/xhtml+xml", -1));
+		assertNull(policy.rejectionReason(null, -1));
+		assertNotNull(policy.rejectionReason("image/png", 100));
+		assertNotNull(policy.rejectionReason("application/pdf", -1));
+	}
+
+	@Test
+	void rejectionReason_rejectsDeclaredOversizeOnlyWhenSkipping() {
+		assertNotNull(policy.rejectionReason("text/html", 2048));
+		assertNull(new ContentPolicy(Set.of(), 1024, true, false).rejectionReason("text/html", 2048));
+	}
+
+	@Test
+	void needsProbe_onlyForUnfamiliarExtensions() throws Exception {
+		assertTrue(policy.needsProbe(new URL("http://example.com/download.dat")));
+		assertFalse(policy.needsProbe(new URL("http://example.com/page.html")));
+		assertFalse(policy.needsProbe(new URL("http://example.com/page")));
+		assertFalse(new ContentPolicy(Set.of(), 1024, true, false).needsProbe(new URL("http://example.com/download.dat")));
+	}
+}
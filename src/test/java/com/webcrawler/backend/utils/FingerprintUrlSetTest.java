@@ -0,0 +1,83 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintUrlSetTest {
+
+	@Test
+	void add_reportsOnlyFirstInsertion() {
+		FingerprintUrlSet set = new FingerprintUrlSet(16, false);
+
+		assertTrue(set.add("https://example.com/a"));
+		assertFalse(set.add("https://example.com/a"));
+		assertTrue(set.add("https://example.com/b"));
+
+		assertTrue(set.contains("https://example.com/a"));
+		assertFalse(set.contains("https://example.com/c"));
+		assertEquals(2, set.size());
+	}
+
+	@Test
+	void add_growsPastInitialCapacity() {
+		FingerprintUrlSet set = new FingerprintUrlSet(16, false);
+		for (int i = 0; i < 100_000; i++) {
+			assertTrue(set.add("https://example.com/page/" + i));
+		}
+
+		assertEquals(100_000, set.size());
+		for (int i = 0; i < 100_000; i++) {
+			assertTrue(set.contains("https://example.com/page/" + i));
+		}
+		assertFalse(set.contains("https://example.com/page/100000"));
+		// 8 bytes per slot at a load factor of at most 0.6, so well under the ~100 bytes a String entry costs
+		assertTrue(set.getTableBytes() < 100_000L * 32);
+	}
+
+	@Test
+	void offHeap_behavesLikeHeap() {
+		FingerprintUrlSet set = new FingerprintUrlSet(16, true);
+		for (int i = 0; i < 10_000; i++) {
+			set.add("https://example.com/page/" + i);
+		}
+
+		assertEquals(10_000, set.size());
+		assertTrue(set.contains("https://example.com/page/9999"));
+		assertFalse(set.add("https://example.com/page/0"));
+	}
+
+	@Test
+	void add_concurrentInsertersAgreeOnWhoAddedEachUrl() throws InterruptedException {
+		FingerprintUrlSet set = new FingerprintUrlSet(16, false);
+		AtomicInteger added = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 4; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 20_000; i++) {
+					if (set.add("https://example.com/page/" + i)) {
+						added.incrementAndGet();
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(20_000, added.get());
+		assertEquals(20_000, set.size());
+	}
+
+	@Test
+	void fingerprint_isNeverZero() {
+		assertNotEquals(0L, FingerprintUrlSet.fingerprint(""));
+		assertNotEquals(FingerprintUrlSet.fingerprint("https://example.com/a"), FingerprintUrlSet.fingerprint("https://example.com/b"));
+	}
+}
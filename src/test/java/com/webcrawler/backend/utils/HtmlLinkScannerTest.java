@@ -0,0 +1,92 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HtmlLinkScannerTest {
+
+	private static Set<String> scan(String html, int chunkSize) {
+		HtmlLinkScanner scanner = new HtmlLinkScanner();
+		byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+		for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+			scanner.feed(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+		}
+		return scanner.getHrefs();
+	}
+
+	@Test
+	void feed_collectsAnchorHrefsInOrder() {
+		Set<String> hrefs = scan("<html><A class=\"x\" HREF=\"/about.html\">About</A><a href='/contact'>C</a></html>", 1024);
+
+		assertEquals(List.of("/about.html", "/contact"), List.copyOf(hrefs));
+	}
+
+	@Test
+	void feed_handlesTagsSplitAcrossChunks() {
+		String html = "<p>text</p><a   target=_blank href=\"https://example.com/page\">x</a>";
+		for (int chunkSize = 1; chunkSize <= 7; chunkSize++) {
+			assertEquals(Set.of("https://example.com/page"), scan(html, chunkSize), "chunk size " + chunkSize);
+		}
+	}
+
+	@Test
+	void feed_acceptsUnquotedValues() {
+		assertEquals(Set.of("/plain"), scan("<a href=/plain>p</a>", 3));
+	}
+
+	@Test
+	void feed_ignoresHrefsOnOtherTags() {
+		assertTrue(scan("<link href=\"/style.css\"><abbr href=\"/x\"></abbr><!-- <a href=\"/commented\"> -->", 16).isEmpty());
+	}
+
+	@Test
+	void feed_dropsOverlongValues() {
+		String huge = "/" + "x".repeat(5000);
+		assertEquals(Set.of("/ok"), scan("<a href=\"" + huge + "\">big</a><a href=\"/ok\">ok</a>", 512));
+	}
+
+	@Test
+	void feed_collectsBaseAndCanonicalHrefs() {
+		HtmlLinkScanner scanner = new HtmlLinkScanner();
+		scanner.feed("<head><base href=\"https://example.com/v2/\"><link rel=\"alternate canonical\" href=\"/canon\"></head>");
+
+		assertEquals("https://example.com/v2/", scanner.getBaseHref());
+		assertEquals("/canon", scanner.getCanonicalHref());
+		assertTrue(scanner.getHrefs().isEmpty());
+	}
+
+	@Test
+	void feed_decodesUtf8SplitAcrossChunks() {
+		assertEquals(Set.of("/caf\u00e9"), scan("<a href=\"/caf\u00e9\">x</a>", 1));
+	}
+
+	@Test
+	void feed_collectsAnchorTextsAcrossNestedTagsAndChunks() {
+		String html = "<p>Intro</p><a href=\"/guide\">  The <b>crawler</b>\n guide </a> outside"
+				+ "<a href=\"/empty\"><img src=\"x.png\"></a><a href=\"/guide\">second</a>";
+		for (int chunkSize = 1; chunkSize <= 7; chunkSize++) {
+			HtmlLinkScanner scanner = new HtmlLinkScanner();
+			byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+			for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+				scanner.feed(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+			}
+
+			assertEquals(Map.of("/guide", "The crawler guide"), scanner.getAnchorTexts(), "chunk size " + chunkSize);
+		}
+	}
+
+	@Test
+	void feed_endsAnchorTextAtNextAnchorAndDecodesUtf8() {
+		HtmlLinkScanner scanner = new HtmlLinkScanner();
+		byte[] bytes = "<a href=\"/a\">caf\u00e9 <a href=\"/b\">b</A>".getBytes(StandardCharsets.UTF_8);
+		scanner.feed(bytes, 0, bytes.length);
+
+		assertEquals(Map.of("/a", "caf\u00e9", "/b", "b"), scanner.getAnchorTexts());
+	}
+}
@@ -0,0 +1,49 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordAutomatonTest {
+
+	@Test
+	void findAll_returnsEveryKeywordPresent() {
+		KeywordAutomaton automaton = new KeywordAutomaton(List.of("java", "spark", "crawler"));
+
+		Set<String> found = automaton.findAll("a spark based crawler written in java");
+
+		assertEquals(Set.of("java", "spark", "crawler"), found);
+	}
+
+	@Test
+	void findAll_ignoresKeywordsNotPresent() {
+		KeywordAutomaton automaton = new KeywordAutomaton(List.of("java", "kotlin"));
+
+		assertEquals(Set.of("java"), automaton.findAll("<html>javascript</html>"));
+	}
+
+	@Test
+	void findAll_handlesOverlappingAndNestedKeywords() {
+		KeywordAutomaton automaton = new KeywordAutomaton(List.of("he", "she", "hers", "his"));
+
+		assertEquals(Set.of("he", "she", "hers"), automaton.findAll("ushers"));
+	}
+
+	@Test
+	void findAll_matchesAfterFailureTransitions() {
+		KeywordAutomaton automaton = new KeywordAutomaton(List.of("abcd", "bcx"));
+
+		assertEquals(Set.of("bcx"), automaton.findAll("abcx"));
+	}
+
+	@Test
+	void findAll_emptyAutomatonFindsNothing() {
+		KeywordAutomaton automaton = new KeywordAutomaton(List.of());
+
+		assertTrue(automaton.isEmpty());
+		assertTrue(automaton.findAll("anything").isEmpty());
+	}
+}
@@ -0,0 +1,46 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+	@Test
+	void bucketBounds_areContiguousAndWithinQuarterOfTheValue() {
+		long previousUpper = 0;
+		for (int bucket = 0; bucket < LatencyHistogram.getBucketCount(); bucket++) {
+			long upper = LatencyHistogram.getBucketUpperBoundMicros(bucket);
+			assertTrue(upper > previousUpper);
+			assertEquals(bucket, LatencyHistogram.bucketOf(previousUpper), "lower bound of bucket " + bucket);
+			assertEquals(bucket, LatencyHistogram.bucketOf(upper - 1), "last value of bucket " + bucket);
+			assertTrue(upper - previousUpper <= Math.max(1, previousUpper / 4));
+			previousUpper = upper;
+		}
+	}
+
+	@Test
+	void hugeValues_landInTheLastBucket() {
+		assertEquals(LatencyHistogram.getBucketCount() - 1, LatencyHistogram.bucketOf(Long.MAX_VALUE / 1000));
+	}
+
+	@Test
+	void quantiles_areReportedWithinBucketPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int millis = 1; millis <= 100; millis++) {
+			histogram.recordNanos(millis * 1_000_000L);
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(5050 / 1000.0, histogram.getSumSeconds(), 1e-9);
+		long median = histogram.getValueAtQuantileMicros(0.5);
+		assertTrue(median >= 50_000 && median <= 50_000 * 1.25, "median " + median);
+		long p99 = histogram.getValueAtQuantileMicros(0.99);
+		assertTrue(p99 >= 99_000 && p99 <= 99_000 * 1.25, "p99 " + p99);
+	}
+
+	@Test
+	void emptyHistogram_reportsZero() {
+		assertEquals(0, new LatencyHistogram().getValueAtQuantileMicros(0.5));
+	}
+}
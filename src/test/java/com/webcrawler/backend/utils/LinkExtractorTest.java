@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.net.URL;
+import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -88,4 +89,61 @@ class LinkExtractorTest {
 		assertEquals(1, links.size());
 		assertTrue(links.contains("https://example.com/page.html"));
 	}
+
+	@Test
+	void testResolveDocumentRelativeLinks() throws Exception {
+		String html = "<a href=\"next.html\">Next</a><a href=\"../up.html\">Up</a><a href=\"?page=2\">Two</a>";
+		Set<String> links = extractor.extractLinks(new URL("https://example.com/docs/guide/index.html"), html);
+
+		assertEquals(Set.of(
+				"https://example.com/docs/guide/next.html",
+				"https://example.com/docs/up.html",
+				"https://example.com/docs/guide/index.html?page=2"), links);
+	}
+
+	@Test
+	void testHonourBaseHref() throws Exception {
+		String html = "<head><base href=\"https://example.com/v2/\"></head><a href=\"page.html\">Page</a>";
+		Set<String> links = extractor.extractLinks(baseUrl, html);
+
+		assertEquals(Set.of("https://example.com/v2/page.html"), links);
+	}
+
+	@Test
+	void testDropRelativeLinksOfCrossHostBase() throws Exception {
+		String html = "<head><base href=\"https://other.com/dir/\"></head>"
+				+ "<a href=\"/root.html\">Root</a><a href=\"page.html\">Page</a><a href=\"?q=1\">Query</a><a href=\"#top\">Top</a>"
+				+ "<a href=\"https://example.com/absolute.html\">Absolute</a>";
+		Set<String> links = extractor.extractLinks(baseUrl, html);
+
+		assertEquals(Set.of("https://example.com/absolute.html"), links);
+	}
+
+	@Test
+	void testIncludeCanonicalLink() throws Exception {
+		String html = "<head><link href=\"/canonical-page\" rel=\"canonical\"><link rel=\"stylesheet\" href=\"/style.css\"></head>";
+		Set<String> links = extractor.extractLinks(baseUrl, html);
+
+		assertEquals(Set.of("https://example.com/canonical-page"), links);
+	}
+
+	@Test
+	void testIgnoreNonHttpSchemes() throws Exception {
+		String html = "<a href=\"mailto:me@example.com\">Mail</a><a href=\"javascript:void(0)\">JS</a>"
+				+ "<a href=\"//example.com/protocol-relative\">PR</a>";
+		Set<String> links = extractor.extractLinks(baseUrl, html);
+
+		assertEquals(Set.of("https://example.com/protocol-relative"), links);
+	}
+
+	@Test
+	void testMapLinksToAnchorTexts() throws Exception {
+		String html = "<link rel=\"canonical\" href=\"/self\">"
+				+ "<a href=\"/about\"><img src=\"logo.png\"></a>"
+				+ "<a href=\"about\">About us</a>"
+				+ "<a href=\"http://external.com/x\">External</a>";
+		Map<String, String> links = extractor.extractLinkTexts(baseUrl, html);
+
+		assertEquals(Map.of("https://example.com/about", "About us", "https://example.com/self", ""), links);
+	}
 }
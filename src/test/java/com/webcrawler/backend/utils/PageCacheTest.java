@@ -0,0 +1,110 @@
+package com.webcrawler.backend.utils;
+
+import com.webcrawler.backend.utils.exceptions.NonSuccessfulResponseException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCacheTest {
+
+	@Test
+	void get_secondCallIsServedFromCache() throws Exception {
+		PageCache cache = new PageCache(1024 * 1024, Duration.ofMinutes(1));
+		AtomicInteger loads = new AtomicInteger();
+
+		assertEquals("<html>page</html>", cache.get("http://example.com/a", () -> {
+			loads.incrementAndGet();
+			return "<html>page</html>";
+		}));
+		assertEquals("<html>page</html>", cache.get("http://example.com/a", () -> {
+			loads.incrementAndGet();
+			return "other";
+		}));
+
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	void get_concurrentRequestsForSameUrlAreCoalesced() throws Exception {
+		PageCache cache = new PageCache(1024 * 1024, Duration.ofMinutes(1));
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		int callers = 8;
+		ExecutorService pool = Executors.newFixedThreadPool(callers);
+
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				results.add(pool.submit(() -> cache.get("http://example.com/slow", () -> {
+					loads.incrementAndGet();
+					release.await();
+					return "slow page";
+				})));
+			}
+			// Give every caller time to either start the load or attach to it
+			while (cache.getMissCount() + cache.getCoalescedCount() < callers && loads.get() <= 1) {
+				Thread.sleep(5);
+			}
+			release.countDown();
+
+			for (Future<String> result : results) {
+				assertEquals("slow page", result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(1, loads.get());
+		assertEquals(callers - 1, cache.getCoalescedCount());
+	}
+
+	@Test
+	void get_failuresAreNotCached() {
+		PageCache cache = new PageCache(1024 * 1024, Duration.ofMinutes(1));
+
+		assertThrows(NonSuccessfulResponseException.class, () -> cache.get("http://example.com/missing", () -> {
+			throw new NonSuccessfulResponseException("Non-200 response [404]");
+		}));
+
+		assertEquals(0, cache.getEntryCount());
+	}
+
+	@Test
+	void get_expiredEntriesAreReloaded() throws Exception {
+		PageCache cache = new PageCache(1024 * 1024, Duration.ZERO);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get("http://example.com/a", () -> "v" + loads.incrementAndGet());
+		String second = cache.get("http://example.com/a", () -> "v" + loads.incrementAndGet());
+
+		assertEquals("v2", second);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void get_evictsLeastRecentlyUsedWhenOverBudget() throws Exception {
+		PageCache cache = new PageCache(50, Duration.ofMinutes(1)); // room for two tiny gzip entries
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get("http://example.com/a", () -> "a");
+		cache.get("http://example.com/b", () -> "b");
+		cache.get("http://example.com/c", () -> "c");
+		cache.get("http://example.com/a", () -> "a" + loads.incrementAndGet());
+
+		assertTrue(cache.getSizeBytes() <= 50);
+		assertTrue(cache.getEvictionCount() > 0);
+		assertEquals(1, loads.get());
+	}
+}
@@ -1,15 +1,23 @@
 package com.webcrawler.backend.utils;
 
 import com.webcrawler.backend.utils.exceptions.NonSuccessfulResponseException;
+import com.webcrawler.backend.utils.exceptions.SkippedContentException;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.sun.net.httpserver.HttpServer;
 
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,6 +25,11 @@ class PageFetcherTest {
 
 	private static HttpServer server;
 	private static final int PORT = 8089;
+	private static final AtomicInteger fullDownloads = new AtomicInteger();
+	private static final AtomicInteger binaryDownloads = new AtomicInteger();
+
+	@TempDir
+	Path validatorDir;
 
 	@BeforeAll
 	static void startServer() throws Exception {
@@ -28,6 +41,107 @@ class PageFetcherTest {
 				os.write(response.getBytes());
 			}
 		});
+		server.createContext("/links", exchange -> {
+			String response = "<html><a href=\"/one\">One</a><p>Mentions the KEYWORD</p><a href=\"/two\">Two</a></html>";
+			exchange.sendResponseHeaders(200, response.length());
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response.getBytes());
+			}
+		});
+		server.createContext("/validated", exchange -> {
+			if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+				return;
+			}
+			fullDownloads.incrementAndGet();
+			String response = "<html><a href=\"/Next\">Next</a> Validated KEYWORD page</html>";
+			exchange.getResponseHeaders().add("ETag", "\"v1\"");
+			exchange.sendResponseHeaders(200, response.length());
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response.getBytes());
+			}
+		});
+		server.createContext("/latin1", exchange -> {
+			// Like most servers, the 304 does not repeat the Content-Type
+			if ("\"l1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+				return;
+			}
+			byte[] response = "<html>Caf\u00e9 KEYWORD page</html>".getBytes(StandardCharsets.ISO_8859_1);
+			exchange.getResponseHeaders().add("ETag", "\"l1\"");
+			exchange.getResponseHeaders().add("Content-Type", "text/html; charset=ISO-8859-1");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response);
+			}
+		});
+		server.createContext("/compressed", exchange -> {
+			byte[] page = "<html><a href=\"/one\">One</a> Compressed KEYWORD page</html>".repeat(50).getBytes();
+			String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+			byte[] response = page;
+			if (accepted != null && accepted.contains("gzip")) {
+				exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+				response = ContentEncodingsTest.gzip(page);
+			}
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response);
+			}
+		});
+		server.createContext("/deflated", exchange -> {
+			byte[] response = ContentEncodingsTest.deflate("<html>Deflated KEYWORD page</html>".getBytes(), false);
+			exchange.getResponseHeaders().add("Content-Encoding", "deflate");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response);
+			}
+		});
+		server.createContext("/agent", exchange -> {
+			String agent = exchange.getRequestHeaders().getFirst("User-Agent");
+			if (agent == null || !agent.contains(RobotsRules.PRODUCT_TOKEN)) {
+				exchange.sendResponseHeaders(403, -1);
+				return;
+			}
+			String response = "<html>Crawler KEYWORD page</html>";
+			exchange.sendResponseHeaders(200, response.length());
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response.getBytes());
+			}
+		});
+		server.createContext("/image", exchange -> {
+			exchange.getResponseHeaders().add("Content-Type", "image/png");
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(new byte[64 * 1024]);
+			} catch (java.io.IOException ignored) {
+				// the client drops the connection instead of reading the body
+			}
+		});
+		server.createContext("/large", exchange -> {
+			byte[] response = ("<html>KEYWORD at the start" + "x".repeat(4096) + "TAIL</html>").getBytes();
+			exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(response);
+			} catch (java.io.IOException ignored) {
+				// the client stops reading at its limit
+			}
+		});
+		server.createContext("/file.dat", exchange -> {
+			if ("HEAD".equals(exchange.getRequestMethod())) {
+				exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			binaryDownloads.incrementAndGet();
+			exchange.sendResponseHeaders(200, 4);
+			try (OutputStream os = exchange.getResponseBody()) {
+				os.write(new byte[4]);
+			}
+		});
+		server.createContext("/throttled", exchange -> {
+			exchange.sendResponseHeaders(429, -1);
+		});
 		server.createContext("/error", exchange -> {
 			exchange.sendResponseHeaders(404, -1);
 		});
@@ -66,4 +180,172 @@ class PageFetcherTest {
 
 		assertTrue(exception.getMessage().contains("Non-200"));
 	}
+
+	@Test
+	void scan_successfulResponse_matchesKeywordAndCollectsLinks() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/links");
+		PageFetcher fetcher = new PageFetcher();
+
+		PageScan scan = fetcher.scan(url, "keyword");
+
+		assertTrue(scan.isKeywordFound());
+		assertEquals(2, scan.getLinks().getHrefs().size());
+		assertTrue(scan.getLinks().getHrefs().contains("/one"));
+		assertTrue(scan.getLinks().getHrefs().contains("/two"));
+	}
+
+	@Test
+	void fetch_compressedResponse_isDecodedAndCountedOnTheWire() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/compressed");
+		FetchMetrics metrics = FetchMetrics.shared();
+		long wireBefore = metrics.getWireBytes();
+		long decodedBefore = metrics.getDecodedBytes();
+
+		String result = new PageFetcher(new PageCache(0, Duration.ZERO)).fetch(url);
+
+		assertTrue(result.startsWith("<html><a href=\"/one\">one</a> compressed keyword page</html>"));
+		long wire = metrics.getWireBytes() - wireBefore;
+		long decoded = metrics.getDecodedBytes() - decodedBefore;
+		assertEquals(result.length(), decoded);
+		assertTrue(wire * 5 < decoded, "wire=" + wire + " decoded=" + decoded);
+	}
+
+	@Test
+	void fetch_deflateResponse_isDecoded() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/deflated");
+
+		assertTrue(new PageFetcher(new PageCache(0, Duration.ZERO)).fetch(url).contains("deflated keyword page"));
+	}
+
+	@Test
+	void scan_compressedResponse_matchesDecodedStream() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/compressed");
+
+		PageScan scan = new PageFetcher().scan(url, "keyword");
+
+		assertTrue(scan.isKeywordFound());
+		assertTrue(scan.getLinks().getHrefs().contains("/one"));
+	}
+
+	@Test
+	void scan_nonSuccessfulResponse_throwsException() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/error");
+
+		assertThrows(NonSuccessfulResponseException.class, () -> new PageFetcher().scan(url, "keyword"));
+	}
+
+	@Test
+	void fetch_storedValidators_revalidateInsteadOfDownloading() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/validated");
+		ValidatorStore validators = new ValidatorStore(validatorDir);
+		PageFetcher fetcher = new PageFetcher(new PageCache(0, Duration.ZERO), validators);
+		int before = fullDownloads.get();
+
+		String first = fetcher.fetch(url);
+		String second = fetcher.fetch(url);
+
+		assertEquals(first, second);
+		assertTrue(second.contains("keyword"));
+		assertEquals(1, fullDownloads.get() - before);
+		assertEquals(1, validators.getRevalidatedCount());
+	}
+
+	@Test
+	void fetch_decodesWithDeclaredCharset_inBothFetchersAndOnRevalidation() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/latin1");
+		ValidatorStore validators = new ValidatorStore(validatorDir);
+		PageFetcher fetcher = new PageFetcher(new PageCache(0, Duration.ZERO), validators);
+		AsyncPageFetcher asyncFetcher = new AsyncPageFetcher(new PageCache(0, Duration.ZERO), validators, 4, 1);
+		String expected = "<html>caf\u00e9 keyword page</html>";
+
+		assertEquals(expected, fetcher.fetch(url));
+		assertEquals(expected, fetcher.fetch(url));
+		assertEquals(expected, asyncFetcher.fetchAsync(url).get(5, TimeUnit.SECONDS));
+		assertEquals(2, validators.getRevalidatedCount());
+	}
+
+	@Test
+	void fetch_sendsUserAgentNamingTheRobotsProductToken() throws Exception {
+		// The server only answers requests whose User-Agent matches the robots.txt group the crawler obeys
+		URL url = new URL("http://localhost:" + PORT + "/agent");
+		PageFetcher fetcher = new PageFetcher(new PageCache(0, Duration.ZERO), new ValidatorStore(null));
+		AsyncPageFetcher asyncFetcher = new AsyncPageFetcher(new PageCache(0, Duration.ZERO), new ValidatorStore(null), 4, 1);
+
+		assertEquals("<html>crawler keyword page</html>", fetcher.fetch(url));
+		assertTrue(fetcher.scan(url, "keyword").isKeywordFound());
+		assertEquals("<html>crawler keyword page</html>", asyncFetcher.fetchAsync(url).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void scan_notModified_scansStoredBody() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/validated");
+		ValidatorStore validators = new ValidatorStore(validatorDir);
+		PageFetcher fetcher = new PageFetcher(new PageCache(0, Duration.ZERO), validators);
+
+		fetcher.scan(url, "keyword");
+		PageScan revalidated = fetcher.scan(url, "keyword");
+
+		assertEquals(1, validators.getRevalidatedCount());
+		assertTrue(revalidated.isKeywordFound());
+		assertTrue(revalidated.getLinks().getHrefs().contains("/Next")); // stored raw, not lowercased
+	}
+
+	@Test
+	void fetch_throttledResponse_lowersHostConcurrencyLimit() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/throttled");
+		HostConcurrencyLimits limits = new HostConcurrencyLimits(1, 8, 8);
+		PageFetcher fetcher = new PageFetcher(new PageCache(0, Duration.ZERO), new ValidatorStore(null), limits);
+
+		NonSuccessfulResponseException ex = assertThrows(NonSuccessfulResponseException.class, () -> fetcher.fetch(url));
+
+		assertEquals(429, ex.getStatusCode());
+		assertEquals(4, limits.forHost(url).getLimit());
+		assertEquals(0, limits.forHost(url).getInFlight());
+	}
+
+	@Test
+	void fetch_nonPageContentType_isSkippedFromHeaders() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/image");
+		long skippedBefore = FetchMetrics.shared().getSkippedCount();
+
+		assertThrows(SkippedContentException.class, () -> new PageFetcher(new PageCache(0, Duration.ZERO)).fetch(url));
+		assertThrows(SkippedContentException.class, () -> new PageFetcher().scan(url, "keyword"));
+
+		assertEquals(2, FetchMetrics.shared().getSkippedCount() - skippedBefore);
+	}
+
+	@Test
+	void fetch_oversizedResponse_isTruncatedAtTheLimit() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/large");
+		ContentPolicy policy = new ContentPolicy(Set.of(), 1024, true, false);
+		PageFetcher fetcher = new PageFetcher(new PageCache(0, Duration.ZERO), new ValidatorStore(null), HostConcurrencyLimits.shared(), policy);
+
+		String result = fetcher.fetch(url);
+		PageScan scan = fetcher.scan(url, "keyword");
+
+		assertEquals(1024, result.length());
+		assertTrue(result.startsWith("<html>keyword"));
+		assertTrue(scan.isKeywordFound());
+	}
+
+	@Test
+	void fetch_oversizedResponse_isSkippedWhenConfigured() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/large");
+		ContentPolicy policy = new ContentPolicy(Set.of(), 1024, false, false);
+		PageFetcher fetcher = new PageFetcher(new PageCache(0, Duration.ZERO), new ValidatorStore(null), HostConcurrencyLimits.shared(), policy);
+
+		assertThrows(SkippedContentException.class, () -> fetcher.fetch(url));
+		assertThrows(SkippedContentException.class, () -> fetcher.scan(url, "keyword"));
+	}
+
+	@Test
+	void fetch_headProbe_skipsBinaryWithoutDownloadingIt() throws Exception {
+		URL url = new URL("http://localhost:" + PORT + "/file.dat");
+		ContentPolicy policy = new ContentPolicy(Set.of(), 1024, true, true);
+		PageFetcher fetcher = new PageFetcher(new PageCache(0, Duration.ZERO), new ValidatorStore(null), HostConcurrencyLimits.shared(), policy);
+
+		assertThrows(SkippedContentException.class, () -> fetcher.fetch(url));
+
+		assertEquals(0, binaryDownloads.get());
+	}
 }
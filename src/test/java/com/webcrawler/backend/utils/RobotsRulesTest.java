@@ -0,0 +1,62 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RobotsRulesTest {
+
+	private static final String ROBOTS = String.join("\n",
+			"# comments are ignored",
+			"User-agent: *",
+			"Disallow: /private",
+			"Allow: /private/public",
+			"Disallow: /*.pdf$",
+			"Disallow: /search*q=",
+			"",
+			"User-agent: other-bot",
+			"Disallow: /",
+			"",
+			"Sitemap: https://example.com/sitemap.xml");
+
+	private final RobotsRules rules = RobotsRules.parse(ROBOTS, RobotsRules.PRODUCT_TOKEN);
+
+	@Test
+	void isAllowed_longestMatchingRuleWins() {
+		assertTrue(rules.isAllowed("/"));
+		assertTrue(rules.isAllowed("/page"));
+		assertFalse(rules.isAllowed("/private"));
+		assertFalse(rules.isAllowed("/private/secret"));
+		assertTrue(rules.isAllowed("/private/public/page"));
+	}
+
+	@Test
+	void isAllowed_supportsWildcardsAndEndAnchor() {
+		assertFalse(rules.isAllowed("/docs/report.pdf"));
+		assertTrue(rules.isAllowed("/docs/report.pdf?download=1"));
+		assertFalse(rules.isAllowed("/search?page=2&q=term"));
+		assertTrue(rules.isAllowed("/search?page=2"));
+	}
+
+	@Test
+	void parse_prefersGroupNamingTheCrawler() {
+		RobotsRules specific = RobotsRules.parse("User-agent: *\nDisallow: /\n\nUser-agent: Spark-Webcrawler\nUser-agent: other-bot\nDisallow: /tmp\n",
+				RobotsRules.PRODUCT_TOKEN);
+
+		assertTrue(specific.isAllowed("/page"));
+		assertFalse(specific.isAllowed("/tmp/file"));
+	}
+
+	@Test
+	void parse_collectsSitemapsAndAlwaysAllowsRobotsTxt() {
+		RobotsRules all = RobotsRules.parse("User-agent: *\nDisallow: /\nSitemap: https://example.com/a.xml\n", RobotsRules.PRODUCT_TOKEN);
+
+		assertEquals(List.of("https://example.com/a.xml"), all.getSitemaps());
+		assertEquals(List.of("https://example.com/sitemap.xml"), rules.getSitemaps());
+		assertFalse(all.isAllowed("/page"));
+		assertTrue(all.isAllowed("/robots.txt"));
+		assertTrue(RobotsRules.allowAll().isAllowed("/anything"));
+	}
+}
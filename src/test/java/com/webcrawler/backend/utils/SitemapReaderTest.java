@@ -0,0 +1,87 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SitemapReaderTest {
+
+	private static final String URLSET = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+			+ "<url><loc> https://example.com/a </loc><lastmod>2024-01-01</lastmod></url>"
+			+ "<url><loc>https://example.com/b?x=1&amp;y=2</loc></url>"
+			+ "<url><loc>https://example.com/c</loc></url>"
+			+ "</urlset>";
+
+	private static final String INDEX = "<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">"
+			+ "<sitemap><loc>https://example.com/pages.xml.gz</loc></sitemap>"
+			+ "<sitemap><loc>https://example.com/posts.xml</loc></sitemap>"
+			+ "</sitemapindex>";
+
+	@Test
+	void parse_urlset_streamsLocations() throws Exception {
+		List<String> urls = new ArrayList<>();
+		List<String> sitemaps = new ArrayList<>();
+
+		SitemapReader.parse(stream(URLSET.getBytes(StandardCharsets.UTF_8)), 10, urls::add, sitemaps::add);
+
+		assertEquals(List.of("https://example.com/a", "https://example.com/b?x=1&y=2", "https://example.com/c"), urls);
+		assertTrue(sitemaps.isEmpty());
+	}
+
+	@Test
+	void parse_stopsAtMaxUrls() throws Exception {
+		List<String> urls = new ArrayList<>();
+
+		SitemapReader.parse(stream(URLSET.getBytes(StandardCharsets.UTF_8)), 2, urls::add, url -> fail());
+
+		assertEquals(2, urls.size());
+	}
+
+	@Test
+	void parse_sitemapIndex_listsChildSitemaps() throws Exception {
+		List<String> sitemaps = new ArrayList<>();
+
+		SitemapReader.parse(stream(INDEX.getBytes(StandardCharsets.UTF_8)), 10, url -> fail(), sitemaps::add);
+
+		assertEquals(List.of("https://example.com/pages.xml.gz", "https://example.com/posts.xml"), sitemaps);
+	}
+
+	@Test
+	void open_decompressesGzipFilesAndTransferEncoding() throws Exception {
+		byte[] gzipped = ContentEncodingsTest.gzip(URLSET.getBytes(StandardCharsets.UTF_8));
+
+		try (InputStream file = SitemapReader.open(stream(gzipped), null);
+			 InputStream both = SitemapReader.open(stream(ContentEncodingsTest.gzip(gzipped)), "gzip");
+			 InputStream plain = SitemapReader.open(stream(URLSET.getBytes(StandardCharsets.UTF_8)), null)) {
+			assertEquals(URLSET, new String(file.readAllBytes(), StandardCharsets.UTF_8));
+			assertEquals(URLSET, new String(both.readAllBytes(), StandardCharsets.UTF_8));
+			assertEquals(URLSET, new String(plain.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	void parse_refusesDoctype() {
+		String xxe = "<?xml version=\"1.0\"?><!DOCTYPE urlset [<!ENTITY x SYSTEM \"file:///etc/passwd\">]>"
+				+ "<urlset><url><loc>&x;</loc></url></urlset>";
+		List<String> urls = new ArrayList<>();
+
+		try {
+			SitemapReader.parse(stream(xxe.getBytes(StandardCharsets.UTF_8)), 10, urls::add, url -> fail());
+		} catch (Exception expected) {
+			// refusing the document is as good as ignoring the entity
+		}
+
+		assertTrue(urls.stream().noneMatch(url -> url.contains("root")));
+	}
+
+	private static InputStream stream(byte[] bytes) {
+		return new ByteArrayInputStream(bytes);
+	}
+}
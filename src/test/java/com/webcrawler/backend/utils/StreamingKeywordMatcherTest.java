@@ -0,0 +1,50 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingKeywordMatcherTest {
+
+	private static boolean feedInChunks(StreamingKeywordMatcher matcher, String text, int chunkSize) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+			matcher.feed(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+		}
+		return matcher.isFound();
+	}
+
+	@Test
+	void feed_findsKeywordCaseInsensitively() {
+		assertTrue(feedInChunks(new StreamingKeywordMatcher("keyword"), "<html>Page with KeyWord</html>", 1024));
+	}
+
+	@Test
+	void feed_findsKeywordSplitAcrossChunks() {
+		for (int chunkSize = 1; chunkSize <= 8; chunkSize++) {
+			assertTrue(feedInChunks(new StreamingKeywordMatcher("keyword"), "xxkeykeywordxx", chunkSize), "chunk size " + chunkSize);
+		}
+	}
+
+	@Test
+	void feed_handlesPartialPrefixRestarts() {
+		assertTrue(feedInChunks(new StreamingKeywordMatcher("aab"), "aaab", 1));
+		assertFalse(feedInChunks(new StreamingKeywordMatcher("aab"), "abab", 1));
+	}
+
+	@Test
+	void feed_returnsFalseWhenKeywordAbsent() {
+		assertFalse(feedInChunks(new StreamingKeywordMatcher("keyword"), "<html>nothing to see</html>", 4));
+	}
+
+	@Test
+	void feed_ignoresInputAfterMatch() {
+		StreamingKeywordMatcher matcher = new StreamingKeywordMatcher("java");
+		byte[] first = "java".getBytes(StandardCharsets.UTF_8);
+
+		assertTrue(matcher.feed(first, 0, first.length));
+		assertTrue(matcher.feed(new byte[]{'x'}, 0, 1));
+	}
+}
@@ -0,0 +1,50 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlNormalizerTest {
+
+	@Test
+	void normalize_dropsFragment() {
+		assertEquals("https://example.com/page", UrlNormalizer.normalize("https://example.com/page#section-2"));
+	}
+
+	@Test
+	void normalize_dropsDefaultPorts() {
+		assertEquals("http://example.com/a", UrlNormalizer.normalize("http://example.com:80/a"));
+		assertEquals("https://example.com/a", UrlNormalizer.normalize("https://example.com:443/a"));
+		assertEquals("http://example.com:8080/a", UrlNormalizer.normalize("http://example.com:8080/a"));
+	}
+
+	@Test
+	void normalize_lowercasesSchemeAndHostButNotPath() {
+		assertEquals("https://example.com/About", UrlNormalizer.normalize("HTTPS://Example.COM/About"));
+	}
+
+	@Test
+	void normalize_treatsTrailingSlashAndEmptyPathAsSame() {
+		assertEquals("https://example.com/docs", UrlNormalizer.normalize("https://example.com/docs/"));
+		assertEquals("https://example.com/", UrlNormalizer.normalize("https://example.com"));
+		assertEquals("https://example.com/", UrlNormalizer.normalize("https://example.com/"));
+	}
+
+	@Test
+	void normalize_sortsQueryParameters() {
+		assertEquals("https://example.com/s?a=1&b=2", UrlNormalizer.normalize("https://example.com/s?b=2&a=1"));
+		assertEquals("https://example.com/s", UrlNormalizer.normalize("https://example.com/s?"));
+	}
+
+	@Test
+	void normalize_removesDotSegmentsAndUppercasesEscapes() {
+		assertEquals("https://example.com/a/c%2F", UrlNormalizer.normalize("https://example.com/a/./b/../c%2f"));
+	}
+
+	@Test
+	void normalize_rejectsNonHttpUrls() {
+		assertNull(UrlNormalizer.normalize("mailto:me@example.com"));
+		assertNull(UrlNormalizer.normalize("ftp://example.com/file"));
+		assertNull(UrlNormalizer.normalize("/relative/path"));
+	}
+}
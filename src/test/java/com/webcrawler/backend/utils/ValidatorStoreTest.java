@@ -0,0 +1,113 @@
+package com.webcrawler.backend.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidatorStoreTest {
+
+	private static final String URL = "https://example.com/page";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void lookup_returnsWhatWasSaved_acrossInstances() {
+		byte[] body = "<html>Body</html>".getBytes(StandardCharsets.UTF_8);
+		new ValidatorStore(directory).save(URL, "\"abc\"", "Wed, 21 Oct 2015 07:28:00 GMT", "text/html", body, null);
+
+		ValidatorStore.Entry entry = new ValidatorStore(directory).lookup(URL);
+
+		assertNotNull(entry);
+		assertEquals("\"abc\"", entry.getEtag());
+		assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", entry.getLastModified());
+		assertEquals(ValidatorStore.contentHash(body), entry.getContentHash());
+		assertEquals("text/html", entry.getContentType());
+		assertArrayEquals(body, entry.getBody());
+	}
+
+	@Test
+	void save_withoutValidators_storesNothing() {
+		ValidatorStore store = new ValidatorStore(directory);
+		store.save(URL, null, null, null, new byte[] {1, 2, 3}, null);
+
+		assertNull(store.lookup(URL));
+		assertEquals(0, store.getStoredCount());
+	}
+
+	@Test
+	void save_unchangedResponse_skipsRewrite() {
+		ValidatorStore store = new ValidatorStore(directory);
+		byte[] body = "same".getBytes(StandardCharsets.UTF_8);
+		store.save(URL, "\"v1\"", null, "text/html", body, null);
+		store.save(URL, "\"v1\"", null, "text/html", body, store.lookup(URL));
+		store.save(URL, "\"v2\"", null, "text/html", body, store.lookup(URL));
+
+		assertEquals(2, store.getStoredCount());
+		assertEquals("\"v2\"", store.lookup(URL).getEtag());
+	}
+
+	@Test
+	void writer_storesStreamedBody_readableWholeOrAsStream() throws Exception {
+		ValidatorStore store = new ValidatorStore(directory);
+		byte[] body = new byte[300_000];
+		new Random(7).nextBytes(body);
+		try (ValidatorStore.BodyWriter writer = store.writer(URL, "\"big\"", null, "text/html", null)) {
+			for (int offset = 0; offset < body.length; offset += 4096) {
+				writer.write(body, offset, Math.min(4096, body.length - offset));
+			}
+			writer.commit();
+		}
+
+		ValidatorStore.Entry entry = store.lookup(URL);
+		ValidatorStore.Entry validators = store.lookupValidators(URL);
+		byte[] streamed;
+		try (InputStream in = store.openBody(URL)) {
+			streamed = in.readAllBytes();
+		}
+
+		assertArrayEquals(body, entry.getBody());
+		assertArrayEquals(body, streamed);
+		assertEquals("\"big\"", validators.getEtag());
+		assertEquals(ValidatorStore.contentHash(body), validators.getContentHash());
+		assertNull(validators.getBody());
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(1, files.count()); // no temporary file left behind
+		}
+	}
+
+	@Test
+	void writer_unchangedOrUncommittedBody_isNotStored() {
+		ValidatorStore store = new ValidatorStore(directory);
+		byte[] body = "same".getBytes(StandardCharsets.UTF_8);
+		store.save(URL, "\"v1\"", null, "text/html", body, null);
+		try (ValidatorStore.BodyWriter writer = store.writer(URL, "\"v1\"", null, "text/html", store.lookupValidators(URL))) {
+			writer.write(body, 0, body.length);
+			writer.commit();
+		}
+		try (ValidatorStore.BodyWriter writer = store.writer(URL, "\"v2\"", null, "text/html", store.lookupValidators(URL))) {
+			writer.write(body, 0, 2); // e.g. a truncated body, never committed
+		}
+
+		assertEquals(1, store.getStoredCount());
+		assertEquals("\"v1\"", store.lookup(URL).getEtag());
+		assertNull(store.writer(URL, null, null, "text/html", null));
+	}
+
+	@Test
+	void disabledStore_alwaysMisses() {
+		ValidatorStore store = new ValidatorStore(null);
+		store.save(URL, "\"v1\"", null, null, new byte[] {1}, null);
+
+		assertFalse(store.isEnabled());
+		assertNull(store.lookup(URL));
+	}
+}